@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures creating a child service registry, similar to a project scope registry, and looking up services from it and from its parents.
+ */
+@Fork(2)
+@Warmup(iterations = 10)
+@State(Scope.Benchmark)
+public class ServiceRegistryBenchmark {
+
+    private DefaultServiceRegistry parent;
+    private DefaultServiceRegistry child;
+
+    @Setup
+    public void setup() {
+        parent = new DefaultServiceRegistry("global");
+        parent.addProvider(new ParentServices());
+        child = createChild();
+    }
+
+    @Benchmark
+    public void createChildAndLookup(Blackhole bh) {
+        DefaultServiceRegistry registry = createChild();
+        bh.consume(registry.get(ChildService.class));
+        bh.consume(registry.get(ParentService.class));
+        registry.close();
+    }
+
+    @Benchmark
+    public void lookupOwnService(Blackhole bh) {
+        bh.consume(child.get(ChildService.class));
+    }
+
+    @Benchmark
+    public void lookupParentService(Blackhole bh) {
+        bh.consume(child.get(ParentService.class));
+    }
+
+    @Benchmark
+    public void lookupServiceBySupertype(Blackhole bh) {
+        bh.consume(child.get(Runnable.class));
+    }
+
+    private DefaultServiceRegistry createChild() {
+        DefaultServiceRegistry registry = new DefaultServiceRegistry("child", parent);
+        registry.addProvider(new ChildServices());
+        return registry;
+    }
+
+    public static class ParentService {
+    }
+
+    public static class ChildService {
+        ChildService(ParentService parentService) {
+        }
+    }
+
+    public static class ChildTask implements Runnable {
+        @Override
+        public void run() {
+        }
+    }
+
+    public static class ParentServices {
+        ParentService createParentService() {
+            return new ParentService();
+        }
+    }
+
+    public static class ChildServices {
+        ChildService createChildService(ParentService parentService) {
+            return new ChildService(parentService);
+        }
+
+        ChildTask createChildTask() {
+            return new ChildTask();
+        }
+
+        String createName() {
+            return "child";
+        }
+
+        Integer createCount(ChildService childService) {
+            return 1;
+        }
+    }
+}
@@ -32,13 +32,15 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Formatter;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -72,12 +74,15 @@ public class DefaultServiceRegistry implements ServiceRegistry, Closeable, Conta
     private final static ServiceRegistry[] NO_PARENTS = new ServiceRegistry[0];
     private final static Service[] NO_DEPENDENTS = new Service[0];
     private final static Object[] NO_PARAMS = new Object[0];
+    private final static ConcurrentMap<Class<?>, List<Class<?>>> SERVICE_TYPE_HIERARCHIES = new ConcurrentHashMap<Class<?>, List<Class<?>>>();
 
     private final OwnServices ownServices;
     private final ServiceProvider allServices;
     private final ServiceProvider parentServices;
     private final String displayName;
     private final ServiceProvider thisAsServiceProvider;
+    // Services located by class, including those located in the parents. Only populated once this registry is no longer mutable
+    private final ConcurrentMap<Class<?>, Service> servicesByClass = new ConcurrentHashMap<Class<?>, Service>();
 
     private AtomicReference<State> state = new AtomicReference<State>(State.INIT);
 
@@ -250,6 +255,7 @@ public class DefaultServiceRegistry implements ServiceRegistry, Closeable, Conta
     public void close() {
         noLongerMutable();
         if (state.compareAndSet(State.STARTED, State.CLOSED)) {
+            servicesByClass.clear();
             CompositeStoppable.stoppable(allServices).stop();
         }
     }
@@ -262,9 +268,7 @@ public class DefaultServiceRegistry implements ServiceRegistry, Closeable, Conta
     }
 
     private void noLongerMutable() {
-        if (state.compareAndSet(State.INIT, State.STARTED)) {
-            ownServices.noLongerMutable();
-        }
+        state.compareAndSet(State.INIT, State.STARTED);
     }
 
     public boolean isClosed() {
@@ -298,7 +302,18 @@ public class DefaultServiceRegistry implements ServiceRegistry, Closeable, Conta
 
     private Service getService(Type serviceType) {
         serviceRequested();
-        return find(serviceType, allServices);
+        if (!(serviceType instanceof Class)) {
+            return find(serviceType, allServices);
+        }
+        Class<?> serviceClass = (Class<?>) serviceType;
+        Service service = servicesByClass.get(serviceClass);
+        if (service == null) {
+            service = find(serviceClass, allServices);
+            if (service != null) {
+                servicesByClass.putIfAbsent(serviceClass, service);
+            }
+        }
+        return service;
     }
 
     @Override
@@ -361,7 +376,6 @@ public class DefaultServiceRegistry implements ServiceRegistry, Closeable, Conta
     private class OwnServices implements ServiceProvider {
         private final Map<Class<?>, List<ServiceProvider>> providersByType = new HashMap<Class<?>, List<ServiceProvider>>(16, 0.5f);
         private final CompositeStoppable stoppable = CompositeStoppable.stoppable();
-        private ProviderAnalyser analyser = new ProviderAnalyser();
 
         @Override
         public Service getFactory(Class<?> type) {
@@ -464,41 +478,43 @@ public class DefaultServiceRegistry implements ServiceRegistry, Closeable, Conta
                 throw new UnsupportedOperationException("Unsupported service provider type: " + serviceProvider);
             }
             stoppable.add(serviceProvider);
-            analyser.addProviderForClassHierarchy(((SingletonService) serviceProvider).serviceClass, serviceProvider);
-        }
-
-        public void noLongerMutable() {
-            analyser = null;
+            for (Class<?> type : serviceTypeHierarchyOf(((SingletonService) serviceProvider).serviceClass)) {
+                putServiceType(type, serviceProvider);
+            }
         }
 
-        private class ProviderAnalyser {
-            private Set<Class<?>> seen = new HashSet<Class<?>>(4, 0.5f);
-
-            public void addProviderForClassHierarchy(Class<?> serviceType, ServiceProvider serviceProvider) {
-                analyseType(serviceType, serviceProvider);
-                seen.clear();
+        private void putServiceType(Class<?> type, ServiceProvider serviceProvider) {
+            List<ServiceProvider> serviceProviders = providersByType.get(type);
+            if (serviceProviders == null) {
+                serviceProviders = new ArrayList<ServiceProvider>(2);
+                providersByType.put(type, serviceProviders);
             }
+            serviceProviders.add(serviceProvider);
+        }
+    }
 
-            private void analyseType(Class<?> type, ServiceProvider serviceProvider) {
-                if (type == null || type == Object.class) {
-                    return;
-                }
-                if (seen.add(type)) {
-                    putServiceType(type, serviceProvider);
-                    analyseType(type.getSuperclass(), serviceProvider);
-                    for (Class<?> iface : type.getInterfaces()) {
-                        analyseType(iface, serviceProvider);
-                    }
-                }
-            }
+    /**
+     * Returns the types a service of the given class can be located by. The result is shared by all registries that contain a service of this class.
+     */
+    private static List<Class<?>> serviceTypeHierarchyOf(Class<?> serviceClass) {
+        List<Class<?>> hierarchy = SERVICE_TYPE_HIERARCHIES.get(serviceClass);
+        if (hierarchy == null) {
+            Set<Class<?>> types = new LinkedHashSet<Class<?>>();
+            collectServiceTypes(serviceClass, types);
+            hierarchy = new ArrayList<Class<?>>(types);
+            SERVICE_TYPE_HIERARCHIES.putIfAbsent(serviceClass, hierarchy);
+        }
+        return hierarchy;
+    }
 
-            private void putServiceType(Class<?> type, ServiceProvider serviceProvider) {
-                List<ServiceProvider> serviceProviders = providersByType.get(type);
-                if (serviceProviders == null) {
-                    serviceProviders = new ArrayList<ServiceProvider>(2);
-                    providersByType.put(type, serviceProviders);
-                }
-                serviceProviders.add(serviceProvider);
+    private static void collectServiceTypes(Class<?> type, Set<Class<?>> types) {
+        if (type == null || type == Object.class) {
+            return;
+        }
+        if (types.add(type)) {
+            collectServiceTypes(type.getSuperclass(), types);
+            for (Class<?> iface : type.getInterfaces()) {
+                collectServiceTypes(iface, types);
             }
         }
     }
@@ -54,6 +54,41 @@ class DefaultServiceRegistryTest extends Specification {
         1 * parent.get(BigDecimal) >> value
     }
 
+    def reusesServiceLocatedInParentForSubsequentLookups() {
+        def value = BigDecimal.TEN
+        def parent = Mock(ParentServices)
+        def registry = new TestRegistry(registry(parent))
+
+        when:
+        def first = registry.get(BigDecimal)
+        def second = registry.get(BigDecimal)
+
+        then:
+        first == value
+        second.is(first)
+
+        and:
+        1 * parent.get(BigDecimal) >> value
+    }
+
+    def doesNotReuseFailedLookupInParent() {
+        def value = BigDecimal.TEN
+        def parent = Mock(ParentServices)
+        def registry = new TestRegistry(registry(parent))
+
+        when:
+        def first = registry.find(BigDecimal)
+        def second = registry.find(BigDecimal)
+
+        then:
+        first == null
+        second == value
+
+        and:
+        1 * parent.get(BigDecimal) >> null
+        1 * parent.get(BigDecimal) >> value
+    }
+
     def delegatesToParentsForUnknownService() {
         def value = BigDecimal.TEN
         def parent1 = Mock(ParentServices)
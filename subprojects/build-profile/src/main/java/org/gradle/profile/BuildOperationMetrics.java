@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.profile;
+
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationListener;
+import org.gradle.internal.operations.BuildOperationType;
+import org.gradle.internal.operations.OperationFinishEvent;
+import org.gradle.internal.operations.OperationIdentifier;
+import org.gradle.internal.operations.OperationProgressEvent;
+import org.gradle.internal.operations.OperationStartEvent;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Records a duration histogram per build operation type, and writes them in the OpenMetrics text format.
+ *
+ * The type of an operation is the {@link BuildOperationType} its details belong to, or the class of its details when they are not typed.
+ * Only finish events are handled, as they carry both the start and end time.
+ */
+public class BuildOperationMetrics implements BuildOperationListener {
+    static final String UNTYPED = "untyped";
+    private static final String DURATION = "gradle_build_operation_duration_milliseconds";
+    private static final String FAILURES = "gradle_build_operation_failures";
+
+    private final ConcurrentMap<Class<?>, String> typeNames = new ConcurrentHashMap<Class<?>, String>();
+    private final ConcurrentMap<String, DurationHistogram> histograms = new ConcurrentHashMap<String, DurationHistogram>();
+
+    @Override
+    public void started(BuildOperationDescriptor buildOperation, OperationStartEvent startEvent) {
+    }
+
+    @Override
+    public void progress(OperationIdentifier operationIdentifier, OperationProgressEvent progressEvent) {
+    }
+
+    @Override
+    public void finished(BuildOperationDescriptor buildOperation, OperationFinishEvent finishEvent) {
+        histogramFor(typeOf(buildOperation.getDetails())).record(finishEvent.getEndTime() - finishEvent.getStartTime(), finishEvent.getFailure() != null);
+    }
+
+    private DurationHistogram histogramFor(String type) {
+        DurationHistogram histogram = histograms.get(type);
+        if (histogram == null) {
+            DurationHistogram newHistogram = new DurationHistogram();
+            histogram = histograms.putIfAbsent(type, newHistogram);
+            if (histogram == null) {
+                histogram = newHistogram;
+            }
+        }
+        return histogram;
+    }
+
+    private String typeOf(@Nullable Object details) {
+        if (details == null) {
+            return UNTYPED;
+        }
+        Class<?> detailsType = details.getClass();
+        String typeName = typeNames.get(detailsType);
+        if (typeName == null) {
+            typeName = operationTypeOf(detailsType);
+            typeNames.putIfAbsent(detailsType, typeName);
+        }
+        return typeName;
+    }
+
+    private static String operationTypeOf(Class<?> detailsType) {
+        for (Class<?> type = detailsType; type != null; type = type.getSuperclass()) {
+            for (Class<?> detailsInterface : type.getInterfaces()) {
+                Class<?> enclosingClass = detailsInterface.getEnclosingClass();
+                if (enclosingClass != null && BuildOperationType.class.isAssignableFrom(enclosingClass)) {
+                    return enclosingClass.getName();
+                }
+            }
+        }
+        return detailsType.getName();
+    }
+
+    @Nullable
+    public DurationHistogram getHistogram(String type) {
+        return histograms.get(type);
+    }
+
+    public void writeTo(final Writer writer) throws IOException {
+        Map<String, DurationHistogram> ordered = new TreeMap<String, DurationHistogram>(histograms);
+
+        writer.write("# TYPE " + DURATION + " histogram\n");
+        writer.write("# UNIT " + DURATION + " milliseconds\n");
+        writer.write("# HELP " + DURATION + " Duration of build operations by type.\n");
+        for (Map.Entry<String, DurationHistogram> entry : ordered.entrySet()) {
+            final String labels = "type=\"" + escape(entry.getKey()) + "\"";
+            DurationHistogram histogram = entry.getValue();
+            final StringBuilder buckets = new StringBuilder();
+            histogram.visitCumulativeBuckets(new DurationHistogram.BucketVisitor() {
+                @Override
+                public void visitBucket(long upperBound, long cumulativeCount) {
+                    buckets.append(DURATION).append("_bucket{").append(labels).append(",le=\"").append(upperBound).append("\"} ").append(cumulativeCount).append('\n');
+                }
+            });
+            writer.write(buckets.toString());
+            writer.write(DURATION + "_bucket{" + labels + ",le=\"+Inf\"} " + histogram.getCount() + "\n");
+            writer.write(DURATION + "_count{" + labels + "} " + histogram.getCount() + "\n");
+            writer.write(DURATION + "_sum{" + labels + "} " + histogram.getSum() + "\n");
+        }
+
+        writer.write("# TYPE " + FAILURES + " counter\n");
+        writer.write("# HELP " + FAILURES + " Failed build operations by type.\n");
+        for (Map.Entry<String, DurationHistogram> entry : ordered.entrySet()) {
+            writer.write(FAILURES + "_total{type=\"" + escape(entry.getKey()) + "\"} " + entry.getValue().getFailures() + "\n");
+        }
+        writer.write("# EOF\n");
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.profile;
+
+import org.gradle.BuildResult;
+import org.gradle.StartParameter;
+import org.gradle.api.invocation.Gradle;
+import org.gradle.internal.InternalBuildAdapter;
+import org.gradle.internal.operations.BuildOperationListenerManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Collects {@link BuildOperationMetrics} for each root build and writes them to a file when the build finishes.
+ *
+ * By default, the metrics of the most recent build are written to «gradle-user-home»/metrics/build-operations.txt.
+ * `-Dorg.gradle.internal.operations.metrics=«path»` writes them to another file, and `-Dorg.gradle.internal.operations.metrics=false` disables them.
+ */
+public class BuildOperationMetricsReporter extends InternalBuildAdapter {
+    public static final String SYSPROP = "org.gradle.internal.operations.metrics";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BuildOperationMetricsReporter.class);
+
+    private final BuildOperationListenerManager buildOperationListenerManager;
+    private BuildOperationMetrics metrics;
+    private File metricsFile;
+
+    public BuildOperationMetricsReporter(BuildOperationListenerManager buildOperationListenerManager) {
+        this.buildOperationListenerManager = buildOperationListenerManager;
+    }
+
+    @Override
+    public void buildStarted(Gradle gradle) {
+        if (gradle.getParent() != null) {
+            return;
+        }
+        metricsFile = metricsFile(gradle.getStartParameter());
+        if (metricsFile != null) {
+            metrics = new BuildOperationMetrics();
+            buildOperationListenerManager.addListener(metrics);
+        }
+    }
+
+    @Override
+    public void buildFinished(BuildResult result) {
+        if (metrics == null) {
+            return;
+        }
+        buildOperationListenerManager.removeListener(metrics);
+        try {
+            write(metrics, metricsFile);
+        } catch (IOException e) {
+            LOGGER.info("Could not write build operation metrics to {}.", metricsFile, e);
+        } finally {
+            metrics = null;
+        }
+    }
+
+    @Nullable
+    private static File metricsFile(StartParameter startParameter) {
+        String value = startParameter.getSystemPropertiesArgs().get(SYSPROP);
+        if (value == null) {
+            value = System.getProperty(SYSPROP);
+        }
+        if (value == null || value.isEmpty() || value.equals(Boolean.TRUE.toString())) {
+            return new File(startParameter.getGradleUserHomeDir(), "metrics/build-operations.txt");
+        }
+        if (value.equals(Boolean.FALSE.toString())) {
+            return null;
+        }
+        File file = new File(value);
+        return file.isAbsolute() ? file : new File(startParameter.getCurrentDir(), value);
+    }
+
+    /**
+     * Writes to a temporary file that then replaces the metrics file, so that tools reading the metrics never see a partial file.
+     */
+    private static void write(BuildOperationMetrics metrics, File metricsFile) throws IOException {
+        Path target = metricsFile.getAbsoluteFile().toPath();
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            Writer writer = new OutputStreamWriter(Files.newOutputStream(temp), StandardCharsets.UTF_8);
+            try {
+                metrics.writeTo(writer);
+            } finally {
+                writer.close();
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
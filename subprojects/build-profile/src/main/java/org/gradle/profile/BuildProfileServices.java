@@ -20,6 +20,7 @@ import org.gradle.api.internal.BuildDefinition;
 import org.gradle.internal.buildevents.BuildStartedTime;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.logging.text.StyledTextOutputFactory;
+import org.gradle.internal.operations.BuildOperationListenerManager;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.internal.service.scopes.AbstractPluginServiceRegistry;
@@ -35,6 +36,7 @@ public class BuildProfileServices extends AbstractPluginServiceRegistry {
                 return new BuildScopeListenerManagerAction() {
                     @Override
                     public void execute(ListenerManager listenerManager) {
+                        listenerManager.addListener(services.get(BuildOperationMetricsReporter.class));
                         if (buildDefinition.getStartParameter().isProfile()) {
                             listenerManager.addListener(services.get(ProfileEventAdapter.class));
                             listenerManager.addListener(services.get(ReportGeneratingProfileListener.class));
@@ -43,6 +45,10 @@ public class BuildProfileServices extends AbstractPluginServiceRegistry {
                 };
             }
 
+            public BuildOperationMetricsReporter createBuildOperationMetricsReporter(BuildOperationListenerManager buildOperationListenerManager) {
+                return new BuildOperationMetricsReporter(buildOperationListenerManager);
+            }
+
             public ReportGeneratingProfileListener createReportGeneratingProfileListener(StyledTextOutputFactory styledTextOutputFactory) {
                 return new ReportGeneratingProfileListener(styledTextOutputFactory);
             }
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.profile;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of durations in milliseconds.
+ *
+ * Like an HDR histogram, it uses buckets of exponentially growing width, each split into a fixed number of linear sub-buckets.
+ * Values are therefore recorded with a relative error of at most 1/8, using a fixed amount of memory.
+ *
+ * Recording a value takes three or four independent atomic updates, of its bucket, the count, the sum and, for a failure, the number of failures,
+ * without any lock. A reader running concurrently with {@link #record(long, boolean)} may therefore see these values slightly out of step.
+ */
+public class DurationHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = SUB_BUCKETS + (64 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public void record(long duration, boolean failed) {
+        long value = Math.max(0, duration);
+        counts.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        if (failed) {
+            failures.incrementAndGet();
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getSum() {
+        return sum.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * Visits the upper bound of each non-empty bucket, in increasing order, along with the number of recorded values up to that bound.
+     */
+    public void visitCumulativeBuckets(BucketVisitor visitor) {
+        long cumulative = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            long bucketCount = counts.get(bucket);
+            if (bucketCount > 0) {
+                cumulative += bucketCount;
+                visitor.visitBucket(upperBoundOf(bucket), cumulative);
+            }
+        }
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = (bucket - SUB_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS;
+        int subBucket = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        long lowerBound = (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    public interface BucketVisitor {
+        void visitBucket(long upperBound, long cumulativeCount);
+    }
+}
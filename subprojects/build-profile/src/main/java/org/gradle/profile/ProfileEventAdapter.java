@@ -31,6 +31,7 @@ import org.gradle.api.invocation.Gradle;
 import org.gradle.api.tasks.TaskState;
 import org.gradle.initialization.BuildCompletionListener;
 import org.gradle.internal.buildevents.BuildStartedTime;
+import org.gradle.internal.operations.ThreadResourceUsage;
 import org.gradle.internal.time.Clock;
 
 /**
@@ -41,6 +42,7 @@ public class ProfileEventAdapter implements BuildListener, ProjectEvaluationList
     private final Clock clock;
     private final ProfileListener listener;
     private final ThreadLocal<ContinuousOperation> currentTransformation = new ThreadLocal<ContinuousOperation>();
+    private final ThreadLocal<ThreadResourceUsage> taskStartUsage = new ThreadLocal<ThreadResourceUsage>();
     private BuildProfile buildProfile;
 
     public ProfileEventAdapter(BuildStartedTime buildStartedTime, Clock clock, ProfileListener listener) {
@@ -111,15 +113,21 @@ public class ProfileEventAdapter implements BuildListener, ProjectEvaluationList
         Project project = task.getProject();
         ProjectProfile projectProfile = buildProfile.getProjectProfile(project.getPath());
         projectProfile.getTaskProfile(task.getPath()).setStart(now);
+        taskStartUsage.set(ThreadResourceUsage.current());
     }
 
     @Override
     public void afterExecute(Task task, TaskState state) {
         long now = clock.getCurrentTime();
+        ThreadResourceUsage startUsage = taskStartUsage.get();
+        taskStartUsage.remove();
         Project project = task.getProject();
         ProjectProfile projectProfile = buildProfile.getProjectProfile(project.getPath());
         TaskExecution taskExecution = projectProfile.getTaskProfile(task.getPath());
         taskExecution.setFinish(now);
+        if (startUsage != null) {
+            taskExecution.setResourceUsage(ThreadResourceUsage.current().since(startUsage));
+        }
         taskExecution.completed(state);
     }
 
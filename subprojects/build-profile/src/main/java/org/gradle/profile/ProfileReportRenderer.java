@@ -16,7 +16,9 @@
 package org.gradle.profile;
 
 import org.gradle.internal.html.SimpleHtmlWriter;
+import org.gradle.internal.operations.ThreadResourceUsage;
 import org.gradle.internal.time.TimeFormatting;
+import org.gradle.internal.util.NumberUtil;
 import org.gradle.reporting.HtmlReportRenderer;
 import org.gradle.reporting.ReportRenderer;
 import org.gradle.reporting.TabbedPageRenderer;
@@ -184,20 +186,25 @@ public class ProfileReportRenderer {
                                     .startElement("tr")
                                         .startElement("th").characters("Task").endElement()
                                         .startElement("th").attribute("class", "numeric").characters("Duration").endElement()
+                                        .startElement("th").attribute("class", "numeric").characters("CPU").endElement()
+                                        .startElement("th").attribute("class", "numeric").characters("Allocated").endElement()
+                                        .startElement("th").attribute("class", "numeric").attribute("title", "Time the whole process spent in garbage collection while the task was executing. Not summed, as parallel tasks share these collections.").characters("Process GC").endElement()
                                         .startElement("th").characters("Result").endElement()
                                     .endElement()
                                 .endElement();
                                 for (ProjectProfile project : model.getProjects()) {
                                    htmlWriter.startElement("tr")
                                         .startElement("td").characters(project.getPath()).endElement()
-                                        .startElement("td").attribute("class", "numeric").characters(TimeFormatting.formatDurationVeryTerse(project.getElapsedTime())).endElement()
-                                        .startElement("td").characters("(total)").endElement()
+                                        .startElement("td").attribute("class", "numeric").characters(TimeFormatting.formatDurationVeryTerse(project.getElapsedTime())).endElement();
+                                        renderResourceUsage(project.getTaskResourceUsage(), htmlWriter);
+                                        htmlWriter.startElement("td").characters("(total)").endElement()
                                     .endElement();
                                     for (TaskExecution taskExecution : project.getTasks()) {
                                         htmlWriter.startElement("tr")
                                             .startElement("td").attribute("class", "indentPath").characters(taskExecution.getPath()).endElement()
-                                            .startElement("td").attribute("class", "numeric").characters(TimeFormatting.formatDurationVeryTerse(taskExecution.getElapsedTime())).endElement()
-                                            .startElement("td").characters(taskExecution.getStatus()).endElement()
+                                            .startElement("td").attribute("class", "numeric").characters(TimeFormatting.formatDurationVeryTerse(taskExecution.getElapsedTime())).endElement();
+                                            renderResourceUsage(taskExecution.getResourceUsage(), htmlWriter);
+                                            htmlWriter.startElement("td").characters(taskExecution.getStatus()).endElement()
                                         .endElement();
                                     }
                                 }
@@ -207,5 +214,11 @@ public class ProfileReportRenderer {
                 }
             };
         }
+
+        private static void renderResourceUsage(ThreadResourceUsage usage, SimpleHtmlWriter htmlWriter) throws IOException {
+            htmlWriter.startElement("td").attribute("class", "numeric").characters(usage.getCpuTime() < 0 ? "" : TimeFormatting.formatDurationVeryTerse(usage.getCpuTime() / 1000000)).endElement()
+                .startElement("td").attribute("class", "numeric").characters(usage.getAllocatedBytes() < 0 ? "" : NumberUtil.formatBytes(usage.getAllocatedBytes())).endElement()
+                .startElement("td").attribute("class", "numeric").characters(usage.getProcessGarbageCollectionTime() < 0 ? "" : TimeFormatting.formatDurationVeryTerse(usage.getProcessGarbageCollectionTime())).endElement();
+        }
     }
 }
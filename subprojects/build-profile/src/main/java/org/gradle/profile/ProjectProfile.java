@@ -15,6 +15,7 @@
  */
 package org.gradle.profile;
 
+import org.gradle.internal.operations.ThreadResourceUsage;
 import org.gradle.util.CollectionUtils;
 
 import java.util.HashMap;
@@ -64,6 +65,17 @@ public class ProjectProfile extends Operation {
         return configurationOperation;
     }
 
+    /**
+     * Returns the combined resource usage of the task executions of this project. The process garbage collection time is not combined.
+     */
+    public ThreadResourceUsage getTaskResourceUsage() {
+        ThreadResourceUsage total = ThreadResourceUsage.UNKNOWN;
+        for (TaskExecution taskExecution : tasks.values()) {
+            total = total.plus(taskExecution.getResourceUsage());
+        }
+        return total;
+    }
+
     public String toString() {
         return projectPath;
     }
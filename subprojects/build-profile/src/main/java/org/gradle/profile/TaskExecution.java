@@ -16,10 +16,11 @@
 package org.gradle.profile;
 
 import org.gradle.api.tasks.TaskState;
+import org.gradle.internal.operations.ThreadResourceUsage;
 
 /**
  * Container for task profiling information.
- * This includes timestamps around task execution and the resulting task status.
+ * This includes timestamps around task execution, the resources used by the executing thread and the resulting task status.
  */
 public class TaskExecution extends ContinuousOperation {
 
@@ -27,6 +28,7 @@ public class TaskExecution extends ContinuousOperation {
 
     private final String path;
     private TaskState state;
+    private ThreadResourceUsage resourceUsage = ThreadResourceUsage.UNKNOWN;
 
     public TaskExecution(String taskPath) {
         super(taskPath);
@@ -48,6 +50,18 @@ public class TaskExecution extends ContinuousOperation {
         return state;
     }
 
+    /**
+     * Returns the CPU time and allocations of this task, and the process garbage collection time while it was executing.
+     */
+    public ThreadResourceUsage getResourceUsage() {
+        return resourceUsage;
+    }
+
+    public TaskExecution setResourceUsage(ThreadResourceUsage resourceUsage) {
+        this.resourceUsage = resourceUsage;
+        return this;
+    }
+
     public TaskExecution completed(TaskState state) {
         this.state = state;
         return this;
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.profile
+
+import org.gradle.internal.operations.BuildOperationDescriptor
+import org.gradle.internal.operations.BuildOperationType
+import org.gradle.internal.operations.OperationFinishEvent
+import org.gradle.internal.operations.OperationIdentifier
+import spock.lang.Specification
+
+class BuildOperationMetricsTest extends Specification {
+    def metrics = new BuildOperationMetrics()
+
+    def "records durations per build operation type"() {
+        when:
+        finish(new TestDetailsImpl(), 10, 15, null)
+        finish(new TestDetailsImpl(), 20, 40, new RuntimeException())
+        finish(new Object(), 0, 3, null)
+        finish(null, 0, 1, null)
+
+        then:
+        def typed = metrics.getHistogram(TestBuildOperationType.name)
+        typed.count == 2
+        typed.sum == 25
+        typed.failures == 1
+        metrics.getHistogram(Object.name).count == 1
+        metrics.getHistogram(BuildOperationMetrics.UNTYPED).count == 1
+    }
+
+    def "writes metrics in OpenMetrics text format"() {
+        given:
+        finish(new TestDetailsImpl(), 10, 15, null)
+        finish(new TestDetailsImpl(), 20, 40, new RuntimeException())
+        finish(null, 0, 1, null)
+
+        when:
+        def writer = new StringWriter()
+        metrics.writeTo(writer)
+
+        then:
+        writer.toString() == """# TYPE gradle_build_operation_duration_milliseconds histogram
+# UNIT gradle_build_operation_duration_milliseconds milliseconds
+# HELP gradle_build_operation_duration_milliseconds Duration of build operations by type.
+gradle_build_operation_duration_milliseconds_bucket{type="${TestBuildOperationType.name}",le="5"} 1
+gradle_build_operation_duration_milliseconds_bucket{type="${TestBuildOperationType.name}",le="21"} 2
+gradle_build_operation_duration_milliseconds_bucket{type="${TestBuildOperationType.name}",le="+Inf"} 2
+gradle_build_operation_duration_milliseconds_count{type="${TestBuildOperationType.name}"} 2
+gradle_build_operation_duration_milliseconds_sum{type="${TestBuildOperationType.name}"} 25
+gradle_build_operation_duration_milliseconds_bucket{type="untyped",le="1"} 1
+gradle_build_operation_duration_milliseconds_bucket{type="untyped",le="+Inf"} 1
+gradle_build_operation_duration_milliseconds_count{type="untyped"} 1
+gradle_build_operation_duration_milliseconds_sum{type="untyped"} 1
+# TYPE gradle_build_operation_failures counter
+# HELP gradle_build_operation_failures Failed build operations by type.
+gradle_build_operation_failures_total{type="${TestBuildOperationType.name}"} 1
+gradle_build_operation_failures_total{type="untyped"} 0
+# EOF
+"""
+    }
+
+    private void finish(Object details, long startTime, long endTime, Throwable failure) {
+        def descriptor = BuildOperationDescriptor.displayName("operation").details(details).build(new OperationIdentifier(1), null)
+        metrics.finished(descriptor, new OperationFinishEvent(startTime, endTime, failure, null))
+    }
+
+    static class TestBuildOperationType implements BuildOperationType<Details, Result> {
+        interface Details {
+        }
+
+        interface Result {
+        }
+    }
+
+    static class TestDetailsImpl implements TestBuildOperationType.Details {
+    }
+}
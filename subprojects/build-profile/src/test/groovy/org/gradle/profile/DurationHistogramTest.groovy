@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.profile
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class DurationHistogramTest extends Specification {
+    def histogram = new DurationHistogram()
+
+    @Unroll
+    def "value #value is recorded in a bucket with upper bound #upperBound"() {
+        expect:
+        DurationHistogram.upperBoundOf(DurationHistogram.bucketOf(value)) == upperBound
+
+        where:
+        value          | upperBound
+        0              | 0
+        7              | 7
+        8              | 8
+        15             | 15
+        16             | 17
+        17             | 17
+        100            | 103
+        1000           | 1023
+        Long.MAX_VALUE | Long.MAX_VALUE
+    }
+
+    def "bucket bounds are within an eighth of the value"() {
+        expect:
+        [9, 33, 250, 4_000, 65_537, 1_000_000, 123_456_789].every { long value ->
+            def upperBound = DurationHistogram.upperBoundOf(DurationHistogram.bucketOf(value))
+            upperBound >= value && upperBound - value <= value / 8
+        }
+    }
+
+    def "visits cumulative counts of non-empty buckets"() {
+        given:
+        histogram.record(1, false)
+        histogram.record(1, false)
+        histogram.record(20, true)
+        histogram.record(1000, false)
+        histogram.record(-5, false)
+
+        when:
+        def buckets = [:]
+        histogram.visitCumulativeBuckets({ upperBound, count -> buckets[upperBound] = count } as DurationHistogram.BucketVisitor)
+
+        then:
+        buckets == [0L: 1L, 1L: 3L, 21L: 4L, 1023L: 5L]
+        histogram.count == 5
+        histogram.sum == 1022
+        histogram.failures == 1
+    }
+
+    def "records values concurrently"() {
+        when:
+        (0..<8).collect {
+            Thread.start {
+                1000.times { histogram.record(it, false) }
+            }
+        }*.join()
+
+        then:
+        histogram.count == 8000
+        histogram.sum == 8 * (999 * 1000 / 2)
+        def total = 0
+        histogram.visitCumulativeBuckets({ upperBound, count -> total = count } as DurationHistogram.BucketVisitor)
+        total == 8000
+    }
+}
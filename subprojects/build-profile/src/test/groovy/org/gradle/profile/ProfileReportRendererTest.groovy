@@ -18,6 +18,7 @@ package org.gradle.profile
 
 import org.gradle.StartParameter
 import org.gradle.api.tasks.TaskState
+import org.gradle.internal.operations.ThreadResourceUsage
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.junit.Rule
 import spock.lang.Specification
@@ -50,8 +51,8 @@ class ProfileReportRendererTest extends Specification {
 
         model.getProjectProfile("a").configurationOperation.start = time(12, 20, 7)
         model.getProjectProfile("a").configurationOperation.finish = time(12, 20, 10)
-        model.getProjectProfile("a").getTaskProfile("a:foo").completed(Stub(TaskState)).setStart(time(12, 25, 0)).setFinish(time(12, 26, 30))
-        model.getProjectProfile("a").getTaskProfile("a:bar").completed(Stub(TaskState)).setStart(time(12, 26, 30)).setFinish(time(12, 27, 0))
+        model.getProjectProfile("a").getTaskProfile("a:foo").completed(Stub(TaskState)).setResourceUsage(new ThreadResourceUsage(80000000000, 500, 1500)).setStart(time(12, 25, 0)).setFinish(time(12, 26, 30))
+        model.getProjectProfile("a").getTaskProfile("a:bar").completed(Stub(TaskState)).setResourceUsage(new ThreadResourceUsage(20000000000, 300, -1)).setStart(time(12, 26, 30)).setFinish(time(12, 27, 0))
 
         model.getProjectProfile("b").configurationOperation.start = time(12, 20, 10)
         model.getProjectProfile("b").configurationOperation.finish = time(12, 20, 15)
@@ -213,37 +214,58 @@ class ProfileReportRendererTest extends Specification {
 <tr>
 <th>Task</th>
 <th class="numeric">Duration</th>
+<th class="numeric">CPU</th>
+<th class="numeric">Allocated</th>
+<th class="numeric" title="Time the whole process spent in garbage collection while the task was executing. Not summed, as parallel tasks share these collections.">Process GC</th>
 <th>Result</th>
 </tr>
 </thead>
 <tr>
 <td>b</td>
 <td class="numeric">4m30.00s</td>
+<td class="numeric"></td>
+<td class="numeric"></td>
+<td class="numeric"></td>
 <td>(total)</td>
 </tr>
 <tr>
 <td class="indentPath">b:foo</td>
 <td class="numeric">2m30.00s</td>
+<td class="numeric"></td>
+<td class="numeric"></td>
+<td class="numeric"></td>
 <td>Did No Work</td>
 </tr>
 <tr>
 <td class="indentPath">b:bar</td>
 <td class="numeric">2m0.00s</td>
+<td class="numeric"></td>
+<td class="numeric"></td>
+<td class="numeric"></td>
 <td>Did No Work</td>
 </tr>
 <tr>
 <td>a</td>
 <td class="numeric">2m0.00s</td>
+<td class="numeric">1m40.00s</td>
+<td class="numeric">800 B</td>
+<td class="numeric"></td>
 <td>(total)</td>
 </tr>
 <tr>
 <td class="indentPath">a:foo</td>
 <td class="numeric">1m30.00s</td>
+<td class="numeric">1m20.00s</td>
+<td class="numeric">500 B</td>
+<td class="numeric">1.500s</td>
 <td>Did No Work</td>
 </tr>
 <tr>
 <td class="indentPath">a:bar</td>
 <td class="numeric">30.000s</td>
+<td class="numeric">20.000s</td>
+<td class="numeric">300 B</td>
+<td class="numeric"></td>
 <td>Did No Work</td>
 </tr>
 </table>
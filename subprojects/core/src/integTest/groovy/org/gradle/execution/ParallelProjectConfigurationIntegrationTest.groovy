@@ -0,0 +1,148 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution
+
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+import org.gradle.test.fixtures.server.http.BlockingHttpServer
+import org.junit.Rule
+
+class ParallelProjectConfigurationIntegrationTest extends AbstractIntegrationSpec {
+
+    @Rule
+    public final BlockingHttpServer server = new BlockingHttpServer()
+
+    int maxWorkers = 4
+
+    def setup() {
+        server.start()
+        settingsFile << """
+            include 'a', 'b'
+        """
+        executer.beforeExecute {
+            it.withArguments("--parallel", "--max-workers=${maxWorkers}", "-D${ParallelProjectConfigurer.PARALLEL_CONFIGURATION_SYSTEM_PROPERTY}=true")
+        }
+    }
+
+    def "configures subprojects concurrently"() {
+        given:
+        buildFile << """
+            println "configuring root project"
+        """
+        file("a/build.gradle") << """
+            ${server.callFromBuild("a")}
+        """
+        file("b/build.gradle") << """
+            ${server.callFromBuild("b")}
+        """
+
+        when:
+        server.expectConcurrent("a", "b")
+        run "help"
+
+        then:
+        outputContains("configuring root project")
+    }
+
+    def "project can depend on evaluation of a project that is configured concurrently"() {
+        given:
+        file("a/build.gradle") << """
+            ${server.callFromBuild("a")}
+            evaluationDependsOn(':b')
+            println "a sees " + project(':b').value
+        """
+        file("b/build.gradle") << """
+            ${server.callFromBuild("b")}
+            ext.value = "value from b"
+        """
+
+        when:
+        server.expectConcurrent("a", "b")
+        run "help"
+
+        then:
+        outputContains("a sees value from b")
+    }
+
+    def "project can depend on evaluation of a project that is configured concurrently and depends on another project"() {
+        given:
+        maxWorkers = 2
+        settingsFile << """
+            include 'c'
+        """
+        file("a/build.gradle") << """
+            ${server.callFromBuild("a")}
+            evaluationDependsOn(':b')
+            println "a sees " + project(':b').value
+        """
+        file("b/build.gradle") << """
+            ${server.callFromBuild("b")}
+            evaluationDependsOn(':c')
+            ext.value = "value from b and " + project(':c').value
+        """
+        file("c/build.gradle") << """
+            ext.value = "value from c"
+        """
+
+        when:
+        server.expectConcurrent("a", "b")
+        run "help"
+
+        then:
+        outputContains("a sees value from b and value from c")
+    }
+
+    def "detects circular evaluation dependency between projects that are configured concurrently"() {
+        given:
+        file("a/build.gradle") << """
+            evaluationDependsOn(':b')
+        """
+        file("b/build.gradle") << """
+            evaluationDependsOn(':a')
+        """
+
+        when:
+        fails "help"
+
+        then:
+        failure.assertHasCause("Circular referencing during evaluation for project ':")
+    }
+
+    def "applies cross-project configuration from a subproject while holding the lock of each target project"() {
+        given:
+        file("a/build.gradle") << """
+            rootProject.subprojects {
+                ext.configuredByA = true
+            }
+        """
+        file("b/build.gradle") << """
+            ext.configuredByB = true
+        """
+        buildFile << """
+            gradle.projectsEvaluated {
+                println "b configured by a: " + project(':b').configuredByA
+                println "b configured by b: " + project(':b').configuredByB
+            }
+        """
+
+        when:
+        run "help"
+
+        then:
+        outputContains("b configured by a: true")
+        outputContains("b configured by b: true")
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal;
+
+import org.gradle.api.Named;
+import org.gradle.api.NamedDomainObjectFactory;
+import org.gradle.internal.reflect.DirectInstantiator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures querying and realizing a container with many registered elements of different types, similar to a large task container.
+ */
+@Fork(2)
+@Warmup(iterations = 10)
+@State(Scope.Benchmark)
+public class NamedDomainObjectContainerBenchmark {
+
+    @Param({"5000", "50000"})
+    int size;
+
+    private DefaultPolymorphicDomainObjectContainer<Element> container;
+
+    @Setup
+    public void setup() {
+        container = createContainer();
+        register(container, size);
+    }
+
+    @Benchmark
+    public void namesOfType(Blackhole bh) {
+        bh.consume(container.withType(Alpha.class).getNames());
+    }
+
+    @Benchmark
+    public void namedOfType(Blackhole bh) {
+        bh.consume(container.withType(Beta.class).named("beta" + (size / 2 - 1)));
+    }
+
+    @Benchmark
+    public void registerAndRealizeOfType(Blackhole bh) {
+        DefaultPolymorphicDomainObjectContainer<Element> container = createContainer();
+        register(container, size);
+        for (Alpha alpha : container.withType(Alpha.class)) {
+            bh.consume(alpha);
+        }
+    }
+
+    private static DefaultPolymorphicDomainObjectContainer<Element> createContainer() {
+        DefaultPolymorphicDomainObjectContainer<Element> container = new DefaultPolymorphicDomainObjectContainer<Element>(Element.class, DirectInstantiator.INSTANCE, CollectionCallbackActionDecorator.NOOP);
+        container.registerFactory(Alpha.class, new NamedDomainObjectFactory<Alpha>() {
+            @Override
+            public Alpha create(String name) {
+                return new Alpha(name);
+            }
+        });
+        container.registerFactory(Beta.class, new NamedDomainObjectFactory<Beta>() {
+            @Override
+            public Beta create(String name) {
+                return new Beta(name);
+            }
+        });
+        return container;
+    }
+
+    private static void register(DefaultPolymorphicDomainObjectContainer<Element> container, int size) {
+        for (int i = 0; i < size / 2; i++) {
+            container.register("alpha" + i, Alpha.class);
+            container.register("beta" + i, Beta.class);
+        }
+    }
+
+    public static class Element implements Named {
+        private final String name;
+
+        public Element(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+
+    public static class Alpha extends Element {
+        public Alpha(String name) {
+            super(name);
+        }
+    }
+
+    public static class Beta extends Element {
+        public Beta(String name) {
+            super(name);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.properties;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Measures walking the properties of a task-like bean, comparing reflective calls to the getters with calls through generated accessors.
+ */
+@Fork(2)
+@Warmup(iterations = 10)
+@State(Scope.Benchmark)
+public class PropertyAccessorBenchmark {
+
+    @Param({"reflective", "generated"})
+    String accessorType;
+
+    private final Bean[] beans = new Bean[16];
+    private PropertyAccessor[] accessors;
+
+    @Setup
+    public void setup() throws Exception {
+        PropertyAccessorFactory factory = new PropertyAccessorFactory();
+        List<PropertyAccessor> accessors = new ArrayList<PropertyAccessor>();
+        for (Method method : Bean.class.getMethods()) {
+            if (method.getDeclaringClass() == Bean.class && method.getParameterTypes().length == 0) {
+                accessors.add(accessorType.equals("generated") ? factory.create(method) : PropertyAccessorFactory.reflective(method));
+            }
+        }
+        this.accessors = accessors.toArray(new PropertyAccessor[0]);
+        for (int i = 0; i < beans.length; i++) {
+            beans[i] = new Bean(i);
+        }
+    }
+
+    @Benchmark
+    public void walkProperties(Blackhole bh) throws Exception {
+        for (Bean bean : beans) {
+            for (PropertyAccessor accessor : accessors) {
+                bh.consume(accessor.getValue(bean));
+            }
+        }
+    }
+
+    public static class Bean {
+        private final int index;
+
+        public Bean(int index) {
+            this.index = index;
+        }
+
+        public String getName() {
+            return "bean";
+        }
+
+        public File getSourceDir() {
+            return new File("src");
+        }
+
+        public File getDestinationDir() {
+            return new File("build");
+        }
+
+        public List<String> getArgs() {
+            return Collections.singletonList("arg");
+        }
+
+        public boolean isEnabled() {
+            return true;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public long getTimeout() {
+            return 1000L;
+        }
+
+        public Object getNested() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.instantiation;
+
+import com.google.common.io.ByteStreams;
+import org.gradle.internal.hash.HashCode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures generating the class for a type that has not been seen by the process, with and without the bytecode of the class in the bytecode cache.
+ * This is the cost of the first use of each type in a new daemon. With the cache, it includes calculating the cache key.
+ * The bytecode is kept in memory, so this does not include reading the persistent cache or acquiring its cross-process lock.
+ */
+@Fork(2)
+@Warmup(iterations = 10)
+@State(Scope.Benchmark)
+public class GeneratedClassBytecodeCacheBenchmark {
+
+    @Param({"false", "true"})
+    boolean cached;
+
+    private final ClassGenerator generator = AsmBackedClassGenerator.decorateAndInject(Collections.<InjectAnnotationHandler>emptyList(), Collections.<Class<? extends Annotation>>emptyList());
+    private final InMemoryBytecodeCache bytecodeCache = new InMemoryBytecodeCache();
+    private byte[] sampleBytecode;
+
+    @Setup
+    public void setup() throws IOException {
+        InputStream inputStream = Sample.class.getClassLoader().getResourceAsStream(Sample.class.getName().replace('.', '/') + ".class");
+        try {
+            sampleBytecode = ByteStreams.toByteArray(inputStream);
+        } finally {
+            inputStream.close();
+        }
+        if (cached) {
+            AsmBackedClassGenerator.addBytecodeCache(bytecodeCache);
+            generator.generate(loadSample());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        AsmBackedClassGenerator.removeBytecodeCache(bytecodeCache);
+    }
+
+    @Benchmark
+    public Class<?> generateForNewlyLoadedType() {
+        return generator.generate(loadSample()).getGeneratedClass();
+    }
+
+    private Class<?> loadSample() {
+        try {
+            return new SampleClassLoader(sampleBytecode).loadClass(Sample.class.getName());
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static class SampleClassLoader extends ClassLoader {
+        private final byte[] sampleBytecode;
+
+        SampleClassLoader(byte[] sampleBytecode) {
+            super(Sample.class.getClassLoader());
+            this.sampleBytecode = sampleBytecode;
+        }
+
+        @Override
+        protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.equals(Sample.class.getName())) {
+                return super.loadClass(name, resolve);
+            }
+            Class<?> type = findLoadedClass(name);
+            if (type == null) {
+                type = defineClass(name, sampleBytecode, 0, sampleBytecode.length);
+            }
+            return type;
+        }
+    }
+
+    private static class InMemoryBytecodeCache implements GeneratedClassBytecodeCache {
+        private final Map<HashCode, byte[]> bytecode = new ConcurrentHashMap<HashCode, byte[]>();
+
+        @Nullable
+        @Override
+        public byte[] get(HashCode key) {
+            return bytecode.get(key);
+        }
+
+        @Override
+        public void put(HashCode key, byte[] bytecode) {
+            this.bytecode.put(key, bytecode);
+        }
+    }
+
+    public static class Sample {
+        private String name;
+        private int count;
+        private List<String> values;
+        private Sample parent;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public List<String> getValues() {
+            return values;
+        }
+
+        public void setValues(List<String> values) {
+            this.values = values;
+        }
+
+        public Sample getParent() {
+            return parent;
+        }
+
+        public void setParent(Sample parent) {
+            this.parent = parent;
+        }
+    }
+}
@@ -558,10 +558,17 @@ public class DefaultNamedDomainObjectCollection<T> extends DefaultDomainObjectCo
         void removePending(ProviderInternal<? extends T> provider);
 
         Map<String, ProviderInternal<? extends T>> getPendingAsMap();
+
+        /**
+         * Returns the pending elements whose type is known to be a subtype of the given type.
+         */
+        Map<String, ProviderInternal<?>> getPendingAsMap(Class<?> type);
     }
 
     protected static class UnfilteredIndex<T> implements Index<T> {
         private final Map<String, ProviderInternal<? extends T>> pendingMap = Maps.newLinkedHashMap();
+        // Pending elements by type, for each type that has been queried. Kept up to date as elements are added and removed
+        private final Map<Class<?>, Map<String, ProviderInternal<?>>> pendingByType = Maps.newHashMap();
         private final NavigableMap<String, T> map = new TreeMap<String, T>();
 
         @Override
@@ -588,6 +595,7 @@ public class DefaultNamedDomainObjectCollection<T> extends DefaultDomainObjectCo
         public void clear() {
             map.clear();
             pendingMap.clear();
+            pendingByType.clear();
         }
 
         @Override
@@ -604,22 +612,65 @@ public class DefaultNamedDomainObjectCollection<T> extends DefaultDomainObjectCo
         @Override
         public void putPending(String name, ProviderInternal<? extends T> provider) {
             pendingMap.put(name, provider);
+            for (Map.Entry<Class<?>, Map<String, ProviderInternal<?>>> entry : pendingByType.entrySet()) {
+                if (isOfType(provider, entry.getKey())) {
+                    entry.getValue().put(name, provider);
+                } else {
+                    entry.getValue().remove(name);
+                }
+            }
         }
 
         @Override
         public void removePending(String name) {
-            pendingMap.remove(name);
+            if (pendingMap.remove(name) != null) {
+                for (Map<String, ProviderInternal<?>> pendingOfType : pendingByType.values()) {
+                    pendingOfType.remove(name);
+                }
+            }
         }
 
         @Override
         public void removePending(ProviderInternal<? extends T> provider) {
-            pendingMap.values().remove(provider);
+            if (provider instanceof Named) {
+                // Avoid a scan of all pending elements when the provider is registered under its name
+                String name = ((Named) provider).getName();
+                if (pendingMap.get(name) == provider) {
+                    removePending(name);
+                    return;
+                }
+            }
+            for (Map.Entry<String, ProviderInternal<? extends T>> entry : pendingMap.entrySet()) {
+                if (entry.getValue().equals(provider)) {
+                    removePending(entry.getKey());
+                    return;
+                }
+            }
         }
 
         @Override
         public Map<String, ProviderInternal<? extends T>> getPendingAsMap() {
             return pendingMap;
         }
+
+        @Override
+        public Map<String, ProviderInternal<?>> getPendingAsMap(Class<?> type) {
+            Map<String, ProviderInternal<?>> pendingOfType = pendingByType.get(type);
+            if (pendingOfType == null) {
+                pendingOfType = Maps.newLinkedHashMap();
+                for (Map.Entry<String, ProviderInternal<? extends T>> entry : pendingMap.entrySet()) {
+                    if (isOfType(entry.getValue(), type)) {
+                        pendingOfType.put(entry.getKey(), entry.getValue());
+                    }
+                }
+                pendingByType.put(type, pendingOfType);
+            }
+            return pendingOfType;
+        }
+
+        private static boolean isOfType(ProviderInternal<?> provider, Class<?> type) {
+            return provider.getType() != null && type.isAssignableFrom(provider.getType());
+        }
     }
 
     private static class FilteredIndex<T> implements Index<T> {
@@ -701,12 +752,16 @@ public class DefaultNamedDomainObjectCollection<T> extends DefaultDomainObjectCo
         @Override
         public Map<String, ProviderInternal<? extends T>> getPendingAsMap() {
             // TODO not sure if we can clean up the generics here and do less unchecked casting
-            Map<String, ProviderInternal<?>> delegateMap = Cast.uncheckedCast(delegate.getPendingAsMap());
-            Map<String, ProviderInternal<? extends T>> filteredMap = Maps.newLinkedHashMap();
-            for (Map.Entry<String, ProviderInternal<?>> entry : delegateMap.entrySet()) {
-                if (entry.getValue().getType() != null && filter.getType().isAssignableFrom(entry.getValue().getType())) {
-                    ProviderInternal<? extends T> typedValue = Cast.uncheckedCast(entry.getValue());
-                    filteredMap.put(entry.getKey(), typedValue);
+            Map<String, ProviderInternal<? extends T>> pendingOfType = Cast.uncheckedCast(delegate.getPendingAsMap(filter.getType()));
+            return Maps.newLinkedHashMap(pendingOfType);
+        }
+
+        @Override
+        public Map<String, ProviderInternal<?>> getPendingAsMap(Class<?> type) {
+            Map<String, ProviderInternal<?>> filteredMap = Maps.newLinkedHashMap();
+            for (Map.Entry<String, ProviderInternal<?>> entry : delegate.getPendingAsMap(type).entrySet()) {
+                if (filter.getType().isAssignableFrom(entry.getValue().getType())) {
+                    filteredMap.put(entry.getKey(), entry.getValue());
                 }
             }
             return filteredMap;
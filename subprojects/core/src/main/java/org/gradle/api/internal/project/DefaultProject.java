@@ -79,6 +79,7 @@ import org.gradle.configuration.internal.ListenerBuildOperationDecorator;
 import org.gradle.configuration.project.ProjectConfigurationActionContainer;
 import org.gradle.configuration.project.ProjectEvaluator;
 import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.initialization.ProjectAccessListener;
 import org.gradle.internal.Actions;
 import org.gradle.internal.Factories;
 import org.gradle.internal.Factory;
@@ -653,12 +654,12 @@ public class DefaultProject extends AbstractPluginAware implements ProjectIntern
 
     @Override
     public void subprojects(Action<? super Project> action) {
-        getProjectConfigurator().subprojects(getSubprojects(), action);
+        getProjectConfigurator().subprojects(beforeConfiguring(getSubprojects()), action);
     }
 
     @Override
     public void allprojects(Action<? super Project> action) {
-        getProjectConfigurator().allprojects(getAllprojects(), action);
+        getProjectConfigurator().allprojects(beforeConfiguring(getAllprojects()), action);
     }
 
     @Override
@@ -768,11 +769,24 @@ public class DefaultProject extends AbstractPluginAware implements ProjectIntern
     }
 
     private Project evaluationDependsOn(DefaultProject projectToEvaluate) {
-        if (projectToEvaluate.getState().isConfiguring()) {
+        beforeConfiguring(projectToEvaluate);
+        if (!getProjectAccessListener().evaluateProject(projectToEvaluate)) {
             throw new CircularReferenceException(String.format("Circular referencing during evaluation for %s.",
                 projectToEvaluate));
         }
-        return projectToEvaluate.evaluate();
+        return projectToEvaluate;
+    }
+
+    private Project beforeConfiguring(Project project) {
+        getProjectAccessListener().beforeConfiguringProject((ProjectInternal) project);
+        return project;
+    }
+
+    private Set<Project> beforeConfiguring(Set<Project> projects) {
+        for (Project project : projects) {
+            beforeConfiguring(project);
+        }
+        return projects;
     }
 
     @Override
@@ -1144,22 +1158,22 @@ public class DefaultProject extends AbstractPluginAware implements ProjectIntern
 
     @Override
     public void subprojects(Closure configureClosure) {
-        getProjectConfigurator().subprojects(getSubprojects(), ConfigureUtil.<Project>configureUsing(configureClosure));
+        getProjectConfigurator().subprojects(beforeConfiguring(getSubprojects()), ConfigureUtil.<Project>configureUsing(configureClosure));
     }
 
     @Override
     public void allprojects(Closure configureClosure) {
-        getProjectConfigurator().allprojects(getAllprojects(), ConfigureUtil.<Project>configureUsing(configureClosure));
+        getProjectConfigurator().allprojects(beforeConfiguring(getAllprojects()), ConfigureUtil.<Project>configureUsing(configureClosure));
     }
 
     @Override
     public Project project(String path, Closure configureClosure) {
-        return getProjectConfigurator().project(project(path), ConfigureUtil.<Project>configureUsing(configureClosure));
+        return getProjectConfigurator().project(beforeConfiguring(project(path)), ConfigureUtil.<Project>configureUsing(configureClosure));
     }
 
     @Override
     public Project project(String path, Action<? super Project> configureAction) {
-        return getProjectConfigurator().project(project(path), configureAction);
+        return getProjectConfigurator().project(beforeConfiguring(project(path)), configureAction);
     }
 
     @Override
@@ -1360,6 +1374,11 @@ public class DefaultProject extends AbstractPluginAware implements ProjectIntern
         throw new UnsupportedOperationException();
     }
 
+    @Inject
+    protected ProjectAccessListener getProjectAccessListener() {
+        throw new UnsupportedOperationException();
+    }
+
     @Inject
     protected ListenerBuildOperationDecorator getListenerBuildOperationDecorator() {
         throw new UnsupportedOperationException();
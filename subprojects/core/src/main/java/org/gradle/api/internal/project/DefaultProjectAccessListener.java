@@ -17,8 +17,35 @@
 package org.gradle.api.internal.project;
 
 import org.gradle.initialization.ProjectAccessListener;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.work.WorkerLeaseService;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Evaluates the projects accessed by the build logic of other projects.
+ *
+ * <p>While projects are configured concurrently, each project is configured by the thread that claims it first. Another thread that accesses the project
+ * waits until that thread has finished configuring it, instead of using a project that is still being configured. A thread does not hold its project locks
+ * while waiting, as the thread configuring the project may need them. When waiting would never finish, because the thread configuring the project is itself
+ * waiting, directly or indirectly, for the current thread, the project is used as it is, as happens when projects are configured one at a time.</p>
+ */
 public class DefaultProjectAccessListener implements ProjectAccessListener {
+    private final ProjectStateRegistry.SafeExclusiveLock lock;
+    private final WorkerLeaseService workerLeaseService;
+    private final AtomicInteger crossProjectAccessCount = new AtomicInteger();
+    private final Object configurationLock = new Object();
+    // The following are guarded by configurationLock
+    private boolean configuringConcurrently;
+    private final Map<ProjectInternal, Thread> configuringThreads = new HashMap<ProjectInternal, Thread>();
+    private final Map<Thread, ProjectInternal> waitingThreads = new HashMap<Thread, ProjectInternal>();
+
+    public DefaultProjectAccessListener(ProjectStateRegistry projectStateRegistry, WorkerLeaseService workerLeaseService) {
+        this.lock = projectStateRegistry.newExclusiveOperationLock();
+        this.workerLeaseService = workerLeaseService;
+    }
 
     public void beforeRequestingTaskByPath(ProjectInternal targetProject) {
         evaluateProjectAndDiscoverTasks(targetProject);
@@ -28,8 +55,178 @@ public class DefaultProjectAccessListener implements ProjectAccessListener {
         evaluateProjectAndDiscoverTasks(targetProject);
     }
 
-    private synchronized void evaluateProjectAndDiscoverTasks(final ProjectInternal targetProject) {
-        targetProject.evaluate();
-        targetProject.getTasks().discoverTasks();
+    public void beforeConfiguringProject(ProjectInternal targetProject) {
+        if (!targetProject.getMutationState().hasMutableState()) {
+            crossProjectAccessCount.incrementAndGet();
+        }
+        if (isConfiguringConcurrently()) {
+            awaitConfiguration(targetProject);
+        }
+    }
+
+    public boolean evaluateProject(ProjectInternal targetProject) {
+        if (!isConfiguringConcurrently()) {
+            if (targetProject.getState().isConfiguring()) {
+                return false;
+            }
+            targetProject.evaluate();
+            return true;
+        }
+        while (true) {
+            if (startConfiguring(targetProject)) {
+                try {
+                    targetProject.evaluate();
+                } finally {
+                    finishConfiguring(targetProject);
+                }
+                return true;
+            }
+            if (!awaitConfiguration(targetProject)) {
+                return false;
+            }
+            if (!targetProject.getState().isUnconfigured()) {
+                return !targetProject.getState().isConfiguring();
+            }
+            // Not claimed by any thread yet, try again
+        }
+    }
+
+    /**
+     * Returns the number of times a project has been accessed from a thread that does not hold the mutable state of that project,
+     * for example when the build script of one project requests a task of another project or configures another project.
+     */
+    public int getCrossProjectAccessCount() {
+        return crossProjectAccessCount.get();
+    }
+
+    /**
+     * Starts tracking which thread configures each project, until {@link #finishConcurrentConfiguration()} is called.
+     */
+    public void startConcurrentConfiguration() {
+        synchronized (configurationLock) {
+            configuringConcurrently = true;
+        }
+    }
+
+    public void finishConcurrentConfiguration() {
+        synchronized (configurationLock) {
+            configuringConcurrently = false;
+        }
+    }
+
+    /**
+     * Claims the given project for configuration by the current thread, unless it has already been configured or claimed by another thread.
+     * A claimed project must be released using {@link #finishConfiguring(ProjectInternal)}.
+     */
+    public boolean startConfiguring(ProjectInternal project) {
+        synchronized (configurationLock) {
+            if (configuringThreads.containsKey(project) || !project.getState().isUnconfigured()) {
+                return false;
+            }
+            configuringThreads.put(project, Thread.currentThread());
+            return true;
+        }
+    }
+
+    public void finishConfiguring(ProjectInternal project) {
+        synchronized (configurationLock) {
+            configuringThreads.remove(project);
+            configurationLock.notifyAll();
+        }
+    }
+
+    private boolean isConfiguringConcurrently() {
+        synchronized (configurationLock) {
+            return configuringConcurrently;
+        }
+    }
+
+    /**
+     * Waits until the given project is not being configured by another thread.
+     *
+     * @return false when the project is being configured by the current thread, or by a thread that waits for the current thread, as waiting would never finish.
+     */
+    private boolean awaitConfiguration(final ProjectInternal project) {
+        Thread currentThread = Thread.currentThread();
+        synchronized (configurationLock) {
+            Thread configuringThread = configuringThreads.get(project);
+            if (configuringThread == null) {
+                return true;
+            }
+            if (configuringThread == currentThread || waitsFor(configuringThread, currentThread)) {
+                return false;
+            }
+            waitingThreads.put(currentThread, project);
+        }
+        try {
+            // Do not wait while holding a project lock, as the thread configuring the project may need it
+            workerLeaseService.withoutProjectLock(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (configurationLock) {
+                        while (configuringThreads.containsKey(project)) {
+                            try {
+                                configurationLock.wait();
+                            } catch (InterruptedException e) {
+                                throw UncheckedException.throwAsUncheckedException(e);
+                            }
+                        }
+                    }
+                }
+            });
+        } finally {
+            synchronized (configurationLock) {
+                waitingThreads.remove(currentThread);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true when the given thread waits, directly or indirectly, for a project configured by the target thread. Must be called while holding configurationLock.
+     */
+    private boolean waitsFor(Thread thread, Thread targetThread) {
+        Thread current = thread;
+        // Each waiting thread waits for a single project, so the chain is no longer than the number of waiting threads
+        for (int i = 0; i <= waitingThreads.size(); i++) {
+            ProjectInternal awaitedProject = waitingThreads.get(current);
+            if (awaitedProject == null) {
+                return false;
+            }
+            current = configuringThreads.get(awaitedProject);
+            if (current == null) {
+                return false;
+            }
+            if (current == targetThread) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void evaluateProjectAndDiscoverTasks(final ProjectInternal targetProject) {
+        if (!targetProject.getMutationState().hasMutableState()) {
+            crossProjectAccessCount.incrementAndGet();
+        }
+        if (isConfiguringConcurrently()) {
+            // Wait for the thread configuring the project without holding the lock, as that thread may need the lock.
+            // When the project cannot be waited for, its tasks are discovered as they are, as happens when projects are configured one at a time
+            evaluateProject(targetProject);
+            lock.withLock(new Runnable() {
+                @Override
+                public void run() {
+                    targetProject.getTasks().discoverTasks();
+                }
+            });
+        } else {
+            // Do not block on the lock while holding a project lock, as the thread holding the lock may be waiting for that project
+            lock.withLock(new Runnable() {
+                @Override
+                public void run() {
+                    targetProject.evaluate();
+                    targetProject.getTasks().discoverTasks();
+                }
+            });
+        }
     }
 }
@@ -41,7 +41,8 @@ public class ProjectStateInternal implements ProjectState {
         CONFIGURED
     }
 
-    private State state = State.UNCONFIGURED;
+    // Read without holding the project lock, for example when projects are configured concurrently
+    private volatile State state = State.UNCONFIGURED;
     private ProjectConfigurationException failure;
 
     @Override
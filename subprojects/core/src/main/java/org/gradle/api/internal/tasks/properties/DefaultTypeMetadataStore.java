@@ -68,6 +68,7 @@ public class DefaultTypeMetadataStore implements TypeMetadataStore {
     private final Collection<? extends TypeAnnotationHandler> typeAnnotationHandlers;
     private final CrossBuildInMemoryCache<Class<?>, TypeMetadata> cache;
     private final PropertyExtractor propertyExtractor;
+    private final PropertyAccessorFactory propertyAccessorFactory = new PropertyAccessorFactory();
     private Transformer<TypeMetadata, Class<?>> typeMetadataFactory = new Transformer<TypeMetadata, Class<?>>() {
         @Override
         public TypeMetadata transform(Class<?> type) {
@@ -141,14 +142,16 @@ public class DefaultTypeMetadataStore implements TypeMetadataStore {
         }
         ImmutableSet<PropertyMetadata> properties = propertyExtractor.extractPropertyMetadata(publicType, validationContext);
         ImmutableSet.Builder<PropertyMetadata> effectiveProperties = ImmutableSet.builderWithExpectedSize(properties.size());
+        ImmutableMap.Builder<PropertyMetadata, PropertyAccessor> accessors = ImmutableMap.builderWithExpectedSize(properties.size());
         for (PropertyMetadata property : properties) {
             PropertyAnnotationHandler annotationHandler = annotationHandlers.get(property.getPropertyType());
             annotationHandler.validatePropertyMetadata(property, validationContext);
             if (annotationHandler.isPropertyRelevant()) {
                 effectiveProperties.add(property);
+                accessors.put(property, propertyAccessorFactory.create(property.getGetterMethod()));
             }
         }
-        return new DefaultTypeMetadata(effectiveProperties.build(), validationContext.getProblems(), annotationHandlers);
+        return new DefaultTypeMetadata(effectiveProperties.build(), accessors.build(), validationContext.getProblems(), annotationHandlers);
     }
 
     private static class RecordingValidationContext implements ParameterValidationContext {
@@ -201,11 +204,13 @@ public class DefaultTypeMetadataStore implements TypeMetadataStore {
 
     private static class DefaultTypeMetadata implements TypeMetadata {
         private final ImmutableSet<PropertyMetadata> propertiesMetadata;
+        private final ImmutableMap<PropertyMetadata, PropertyAccessor> accessors;
         private final ImmutableList<ValidationProblem> validationProblems;
         private final ImmutableMap<Class<? extends Annotation>, ? extends PropertyAnnotationHandler> annotationHandlers;
 
-        DefaultTypeMetadata(ImmutableSet<PropertyMetadata> propertiesMetadata, ImmutableList<ValidationProblem> validationProblems, ImmutableMap<Class<? extends Annotation>, ? extends PropertyAnnotationHandler> annotationHandlers) {
+        DefaultTypeMetadata(ImmutableSet<PropertyMetadata> propertiesMetadata, ImmutableMap<PropertyMetadata, PropertyAccessor> accessors, ImmutableList<ValidationProblem> validationProblems, ImmutableMap<Class<? extends Annotation>, ? extends PropertyAnnotationHandler> annotationHandlers) {
             this.propertiesMetadata = propertiesMetadata;
+            this.accessors = accessors;
             this.validationProblems = validationProblems;
             this.annotationHandlers = annotationHandlers;
         }
@@ -231,5 +236,14 @@ public class DefaultTypeMetadataStore implements TypeMetadataStore {
         public PropertyAnnotationHandler getAnnotationHandlerFor(PropertyMetadata propertyMetadata) {
             return annotationHandlers.get(propertyMetadata.getPropertyType());
         }
+
+        @Override
+        public PropertyAccessor getAccessorFor(PropertyMetadata propertyMetadata) {
+            PropertyAccessor accessor = accessors.get(propertyMetadata);
+            if (accessor == null) {
+                return PropertyAccessorFactory.reflective(propertyMetadata.getGetterMethod());
+            }
+            return accessor;
+        }
     }
 }
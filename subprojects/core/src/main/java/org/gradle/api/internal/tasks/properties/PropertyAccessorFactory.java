@@ -0,0 +1,214 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.properties;
+
+import org.gradle.model.internal.asm.AsmClassGenerator;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import javax.annotation.Nullable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
+import static org.objectweb.asm.Opcodes.ACC_SYNTHETIC;
+import static org.objectweb.asm.Opcodes.V1_5;
+
+/**
+ * Creates {@link PropertyAccessor}s for property getters.
+ *
+ * <p>Where possible, an accessor class which calls the getter directly is generated into the package and class loader of the type declaring the getter,
+ * so that reading the property does not go through reflection. Falls back to reflection for getters that cannot be called from such a class.</p>
+ */
+public class PropertyAccessorFactory {
+    private static final Type OBJECT = Type.getType(Object.class);
+    private static final Type THROWABLE = Type.getType(Throwable.class);
+    private static final Type INVOCATION_TARGET_EXCEPTION = Type.getType(InvocationTargetException.class);
+    private static final Type PROPERTY_ACCESSOR = Type.getType(PropertyAccessor.class);
+    private static final String RETURN_VOID = Type.getMethodDescriptor(Type.VOID_TYPE);
+    private static final String RETURN_VOID_FROM_THROWABLE = Type.getMethodDescriptor(Type.VOID_TYPE, THROWABLE);
+    private static final String RETURN_OBJECT_FROM_OBJECT = Type.getMethodDescriptor(OBJECT, OBJECT);
+    private static final String[] EMPTY_STRINGS = new String[0];
+    private static final String CONSTRUCTOR_NAME = "<init>";
+    private static final String ACCESSOR_CLASS_NAME_SUFFIX = "$$PropertyAccessor$";
+
+    public PropertyAccessor create(Method getter) {
+        if (canGenerateAccessorFor(getter)) {
+            PropertyAccessor accessor = generateAccessor(getter);
+            if (accessor != null) {
+                return accessor;
+            }
+        }
+        return reflective(getter);
+    }
+
+    public static PropertyAccessor reflective(Method getter) {
+        return new ReflectivePropertyAccessor(getter);
+    }
+
+    private static boolean canGenerateAccessorFor(Method getter) {
+        Class<?> declaringClass = getter.getDeclaringClass();
+        int modifiers = getter.getModifiers();
+        return !Modifier.isPrivate(modifiers)
+            && !Modifier.isStatic(modifiers)
+            && getter.getReturnType() != void.class
+            && !declaringClass.isArray()
+            && declaringClass.getClassLoader() != null
+            && !declaringClass.getName().startsWith("java.");
+    }
+
+    @Nullable
+    private static PropertyAccessor generateAccessor(Method getter) {
+        Class<?> declaringClass = getter.getDeclaringClass();
+        AsmClassGenerator generator = new AsmClassGenerator(declaringClass, ACCESSOR_CLASS_NAME_SUFFIX + getter.getName());
+        Class<?> accessorClass;
+        try {
+            writeAccessorClass(generator, getter);
+            accessorClass = generator.define();
+        } catch (Throwable defineFailure) {
+            // The accessor may already have been defined by another store, or the class loader may refuse the definition
+            accessorClass = loadExistingAccessor(generator);
+        }
+        if (accessorClass == null) {
+            return null;
+        }
+        try {
+            return (PropertyAccessor) accessorClass.getConstructor().newInstance();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private static Class<?> loadExistingAccessor(AsmClassGenerator generator) {
+        try {
+            Class<?> accessorClass = Class.forName(generator.getGeneratedTypeName(), false, generator.getTargetType().getClassLoader());
+            return PropertyAccessor.class.isAssignableFrom(accessorClass) ? accessorClass : null;
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    private static void writeAccessorClass(AsmClassGenerator generator, Method getter) {
+        ClassWriter visitor = generator.getVisitor();
+        Type accessorType = generator.getGeneratedType();
+        Class<?> declaringClass = getter.getDeclaringClass();
+        Type declaringType = Type.getType(declaringClass);
+        Type returnType = Type.getReturnType(getter);
+
+        visitor.visit(V1_5, ACC_PUBLIC | ACC_SYNTHETIC, accessorType.getInternalName(), null, OBJECT.getInternalName(), new String[]{PROPERTY_ACCESSOR.getInternalName()});
+
+        //
+        // Add constructor
+        //
+
+        MethodVisitor methodVisitor = visitor.visitMethod(ACC_PUBLIC, CONSTRUCTOR_NAME, RETURN_VOID, null, EMPTY_STRINGS);
+        methodVisitor.visitCode();
+        // Call this.super()
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+        methodVisitor.visitMethodInsn(Opcodes.INVOKESPECIAL, OBJECT.getInternalName(), CONSTRUCTOR_NAME, RETURN_VOID, false);
+        methodVisitor.visitInsn(Opcodes.RETURN);
+        methodVisitor.visitMaxs(0, 0);
+        methodVisitor.visitEnd();
+
+        //
+        // Add `Object getValue(Object bean)`
+        //
+
+        methodVisitor = visitor.visitMethod(ACC_PUBLIC, "getValue", RETURN_OBJECT_FROM_OBJECT, null, new String[]{INVOCATION_TARGET_EXCEPTION.getInternalName()});
+        methodVisitor.visitCode();
+        Label start = new Label();
+        Label end = new Label();
+        Label handler = new Label();
+        methodVisitor.visitTryCatchBlock(start, end, handler, THROWABLE.getInternalName());
+        // Cast bean to the declaring type
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, 1);
+        methodVisitor.visitTypeInsn(Opcodes.CHECKCAST, declaringType.getInternalName());
+        // Call the getter, wrapping any failure in an InvocationTargetException as reflection does
+        methodVisitor.visitLabel(start);
+        boolean isInterface = declaringClass.isInterface();
+        methodVisitor.visitMethodInsn(isInterface ? Opcodes.INVOKEINTERFACE : Opcodes.INVOKEVIRTUAL, declaringType.getInternalName(), getter.getName(), Type.getMethodDescriptor(getter), isInterface);
+        methodVisitor.visitLabel(end);
+        box(methodVisitor, returnType);
+        methodVisitor.visitInsn(Opcodes.ARETURN);
+        // throw new InvocationTargetException(failure)
+        methodVisitor.visitLabel(handler);
+        methodVisitor.visitVarInsn(Opcodes.ASTORE, 2);
+        methodVisitor.visitTypeInsn(Opcodes.NEW, INVOCATION_TARGET_EXCEPTION.getInternalName());
+        methodVisitor.visitInsn(Opcodes.DUP);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, 2);
+        methodVisitor.visitMethodInsn(Opcodes.INVOKESPECIAL, INVOCATION_TARGET_EXCEPTION.getInternalName(), CONSTRUCTOR_NAME, RETURN_VOID_FROM_THROWABLE, false);
+        methodVisitor.visitInsn(Opcodes.ATHROW);
+        methodVisitor.visitMaxs(0, 0);
+        methodVisitor.visitEnd();
+
+        visitor.visitEnd();
+    }
+
+    private static void box(MethodVisitor methodVisitor, Type type) {
+        Class<?> boxedType;
+        switch (type.getSort()) {
+            case Type.BOOLEAN:
+                boxedType = Boolean.class;
+                break;
+            case Type.CHAR:
+                boxedType = Character.class;
+                break;
+            case Type.BYTE:
+                boxedType = Byte.class;
+                break;
+            case Type.SHORT:
+                boxedType = Short.class;
+                break;
+            case Type.INT:
+                boxedType = Integer.class;
+                break;
+            case Type.FLOAT:
+                boxedType = Float.class;
+                break;
+            case Type.LONG:
+                boxedType = Long.class;
+                break;
+            case Type.DOUBLE:
+                boxedType = Double.class;
+                break;
+            default:
+                return;
+        }
+        Type boxed = Type.getType(boxedType);
+        methodVisitor.visitMethodInsn(Opcodes.INVOKESTATIC, boxed.getInternalName(), "valueOf", Type.getMethodDescriptor(boxed, type), false);
+    }
+
+    private static class ReflectivePropertyAccessor implements PropertyAccessor {
+        private final Method getter;
+
+        ReflectivePropertyAccessor(Method getter) {
+            this.getter = getter;
+            getter.setAccessible(true);
+        }
+
+        @Nullable
+        @Override
+        public Object getValue(Object bean) throws InvocationTargetException, IllegalAccessException {
+            return getter.invoke(bean);
+        }
+    }
+}
@@ -34,4 +34,9 @@ public interface TypeMetadata {
     boolean hasAnnotatedProperties();
 
     PropertyAnnotationHandler getAnnotationHandlerFor(PropertyMetadata propertyMetadata);
+
+    /**
+     * Returns the accessor to use to read the value of the given relevant property.
+     */
+    PropertyAccessor getAccessorFor(PropertyMetadata propertyMetadata);
 }
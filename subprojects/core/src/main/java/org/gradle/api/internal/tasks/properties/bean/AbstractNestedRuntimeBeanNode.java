@@ -23,6 +23,7 @@ import org.gradle.api.Task;
 import org.gradle.api.internal.provider.ProducerAwareProperty;
 import org.gradle.api.internal.provider.PropertyInternal;
 import org.gradle.api.internal.tasks.properties.BeanPropertyContext;
+import org.gradle.api.internal.tasks.properties.PropertyAccessor;
 import org.gradle.api.internal.tasks.properties.PropertyValue;
 import org.gradle.api.internal.tasks.properties.PropertyVisitor;
 import org.gradle.api.internal.tasks.properties.TypeMetadata;
@@ -51,7 +52,7 @@ public abstract class AbstractNestedRuntimeBeanNode extends RuntimeBeanNode<Obje
             PropertyAnnotationHandler annotationHandler = typeMetadata.getAnnotationHandlerFor(propertyMetadata);
             if (annotationHandler.shouldVisit(visitor)) {
                 String propertyName = getQualifiedPropertyName(propertyMetadata.getPropertyName());
-                PropertyValue value = new BeanPropertyValue(getBean(), propertyMetadata.getGetterMethod());
+                PropertyValue value = new BeanPropertyValue(getBean(), propertyMetadata.getGetterMethod(), typeMetadata.getAccessorFor(propertyMetadata));
                 annotationHandler.visitPropertyValue(propertyName, value, propertyMetadata, visitor, new BeanPropertyContext() {
                     @Override
                     public void addNested(String propertyName, Object bean) {
@@ -64,6 +65,7 @@ public abstract class AbstractNestedRuntimeBeanNode extends RuntimeBeanNode<Obje
 
     private static class BeanPropertyValue implements PropertyValue {
         private final Method method;
+        private final PropertyAccessor accessor;
         private final Object bean;
         private final Supplier<Object> valueSupplier = Suppliers.memoize(new Supplier<Object>() {
             @Override
@@ -72,7 +74,7 @@ public abstract class AbstractNestedRuntimeBeanNode extends RuntimeBeanNode<Obje
                 return DeprecationLogger.whileDisabled(new Factory<Object>() {
                     public Object create() {
                         try {
-                            return method.invoke(bean);
+                            return accessor.getValue(bean);
                         } catch (InvocationTargetException e) {
                             throw UncheckedException.throwAsUncheckedException(e.getCause());
                         } catch (Exception e) {
@@ -83,10 +85,10 @@ public abstract class AbstractNestedRuntimeBeanNode extends RuntimeBeanNode<Obje
             }
         });
 
-        public BeanPropertyValue(Object bean, Method method) {
+        public BeanPropertyValue(Object bean, Method method, PropertyAccessor accessor) {
             this.bean = bean;
             this.method = method;
-            method.setAccessible(true);
+            this.accessor = accessor;
         }
 
         @Override
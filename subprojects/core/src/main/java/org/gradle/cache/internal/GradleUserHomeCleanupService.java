@@ -20,6 +20,7 @@ import org.gradle.initialization.GradleUserHomeDirProvider;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.logging.progress.ProgressLogger;
 import org.gradle.internal.logging.progress.ProgressLoggerFactory;
+import org.gradle.process.internal.ClassDataSharingArchivesCleanupAction;
 import org.gradle.util.GUtil;
 
 import java.io.File;
@@ -60,6 +61,7 @@ public class GradleUserHomeCleanupService implements Stoppable {
         if (wasCleanedUp) {
             execute(new WrapperDistributionCleanupAction(gradleUserHomeDirectory, usedGradleVersions));
         }
+        execute(new ClassDataSharingArchivesCleanupAction(gradleUserHomeDirectory));
     }
 
     private boolean execute(DirectoryCleanupAction action) {
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution;
+
+import org.gradle.api.Project;
+import org.gradle.api.internal.project.DefaultProjectAccessListener;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.initialization.BuildCancellationToken;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.exceptions.DefaultMultiCauseException;
+import org.gradle.internal.operations.BuildOperationRef;
+import org.gradle.internal.operations.CurrentBuildOperationRef;
+import org.gradle.internal.work.WorkerLeaseRegistry.WorkerLease;
+import org.gradle.internal.work.WorkerLeaseService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Configures the projects of a hierarchy concurrently, once the root project has been configured.
+ *
+ * <p>Each project is configured while holding its project lock, so this should only be used when each project has its own lock, that is when parallel
+ * project execution is enabled. Each project is claimed by the thread that configures it, as tracked by {@link DefaultProjectAccessListener}, so that it is
+ * configured once and so that other threads wait until it has been configured before using it. When a project reaches into another project, no further
+ * projects are configured concurrently and the remaining projects are configured one at a time, in the usual order. The following accesses are detected:</p>
+ *
+ * <ul>
+ *     <li>Requesting a task by path, for example {@code tasks.getByPath(':other:compileJava')}, or resolving a dependency on another project. The target
+ *     project is evaluated by the current thread, or the current thread waits for the thread that is configuring it.</li>
+ *     <li>{@code evaluationDependsOn()}. The target project is evaluated in the same way. A circular reference is reported when the target project is being
+ *     configured by the current thread, or by a thread that is waiting for the current thread.</li>
+ *     <li>{@code allprojects {}}, {@code subprojects {}} and {@code project(path) {}}. The current thread waits for the threads configuring the target
+ *     projects, then applies the action to each target project while holding its lock, so the action may run before or after that project has been
+ *     configured.</li>
+ * </ul>
+ *
+ * <p>Other reads of the state of another project are not detected, for example {@code project(':other').tasks} or {@code rootProject.subprojects.each { }}.
+ * Such a read sees the state of the other project at some point during its configuration, so builds that do this should not use concurrent configuration.
+ * This mode is an internal opt-in for builds whose projects are decoupled.</p>
+ */
+public class ParallelProjectConfigurer extends TaskPathProjectEvaluator {
+    public static final String PARALLEL_CONFIGURATION_SYSTEM_PROPERTY = "org.gradle.internal.configuration.parallel";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelProjectConfigurer.class);
+
+    private final int maxWorkerCount;
+    private final ExecutorFactory executorFactory;
+    private final WorkerLeaseService workerLeaseService;
+    private final DefaultProjectAccessListener projectAccessListener;
+
+    public ParallelProjectConfigurer(BuildCancellationToken cancellationToken, int maxWorkerCount, ExecutorFactory executorFactory, WorkerLeaseService workerLeaseService, DefaultProjectAccessListener projectAccessListener) {
+        super(cancellationToken);
+        this.maxWorkerCount = maxWorkerCount;
+        this.executorFactory = executorFactory;
+        this.workerLeaseService = workerLeaseService;
+        this.projectAccessListener = projectAccessListener;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(PARALLEL_CONFIGURATION_SYSTEM_PROPERTY);
+    }
+
+    @Override
+    public void configureHierarchy(ProjectInternal project) {
+        // The root project commonly configures its subprojects, so configure it first
+        configure(project);
+
+        List<ProjectInternal> subprojects = new ArrayList<ProjectInternal>();
+        for (Project sub : project.getSubprojects()) {
+            subprojects.add((ProjectInternal) sub);
+        }
+        int workerCount = Math.min(maxWorkerCount, subprojects.size());
+        if (workerCount > 1) {
+            subprojects = configureConcurrently(subprojects, workerCount);
+        }
+
+        // Configure whatever has not been configured concurrently, in order
+        for (ProjectInternal sub : subprojects) {
+            configure(sub);
+        }
+    }
+
+    /**
+     * Configures the given projects concurrently, until a project accesses another project.
+     *
+     * @return the projects that have not been configured.
+     */
+    private List<ProjectInternal> configureConcurrently(List<ProjectInternal> projects, int workerCount) {
+        ProjectQueue queue = new ProjectQueue(projects);
+        BuildOperationRef parentOperation = CurrentBuildOperationRef.instance().get();
+        WorkerLease parentWorkerLease = workerLeaseService.getCurrentWorkerLease();
+        ManagedExecutor executor = executorFactory.create("Project configuration worker", workerCount - 1);
+        projectAccessListener.startConcurrentConfiguration();
+        try {
+            for (int i = 1; i < workerCount; i++) {
+                executor.execute(new ConfigurationWorker(queue, parentOperation, parentWorkerLease));
+            }
+            // Use this thread as well, it already holds a worker lease
+            queue.configureRemaining();
+        } finally {
+            executor.stop();
+            projectAccessListener.finishConcurrentConfiguration();
+        }
+        queue.rethrowFailures();
+        return queue.getRemaining();
+    }
+
+    private class ProjectQueue {
+        private final List<ProjectInternal> projects;
+        private final int initialCrossProjectAccessCount;
+        private final List<Throwable> failures = new ArrayList<Throwable>();
+        private int nextProject;
+        private boolean stopped;
+
+        ProjectQueue(List<ProjectInternal> projects) {
+            this.projects = projects;
+            this.initialCrossProjectAccessCount = projectAccessListener.getCrossProjectAccessCount();
+        }
+
+        void configureRemaining() {
+            ProjectInternal project = next();
+            while (project != null) {
+                try {
+                    configureUnlessClaimed(project);
+                } catch (Throwable t) {
+                    failed(t);
+                }
+                project = next();
+            }
+        }
+
+        private void configureUnlessClaimed(ProjectInternal project) {
+            // Another project may have evaluated this project before it was taken from the queue, or may be evaluating it now
+            if (projectAccessListener.startConfiguring(project)) {
+                try {
+                    configure(project);
+                } finally {
+                    projectAccessListener.finishConfiguring(project);
+                }
+            }
+        }
+
+        @Nullable
+        private synchronized ProjectInternal next() {
+            if (stopped || !failures.isEmpty() || nextProject == projects.size()) {
+                return null;
+            }
+            if (projectAccessListener.getCrossProjectAccessCount() != initialCrossProjectAccessCount) {
+                LOGGER.info("A project accessed the state of another project while projects were configured concurrently. Configuring the remaining projects one at a time.");
+                stopped = true;
+                return null;
+            }
+            return projects.get(nextProject++);
+        }
+
+        synchronized List<ProjectInternal> getRemaining() {
+            return projects.subList(nextProject, projects.size());
+        }
+
+        private synchronized void failed(Throwable failure) {
+            failures.add(failure);
+        }
+
+        synchronized void rethrowFailures() {
+            if (failures.size() == 1) {
+                throw UncheckedException.throwAsUncheckedException(failures.get(0));
+            }
+            if (failures.size() > 1) {
+                throw new DefaultMultiCauseException("Multiple projects failed to configure.", failures);
+            }
+        }
+    }
+
+    private class ConfigurationWorker implements Runnable {
+        private final ProjectQueue queue;
+        private final BuildOperationRef parentOperation;
+        private final WorkerLease parentWorkerLease;
+
+        ConfigurationWorker(ProjectQueue queue, @Nullable BuildOperationRef parentOperation, WorkerLease parentWorkerLease) {
+            this.queue = queue;
+            this.parentOperation = parentOperation;
+            this.parentWorkerLease = parentWorkerLease;
+        }
+
+        @Override
+        public void run() {
+            // Configure projects as children of the operation that configures the build, as happens when they are configured in order
+            CurrentBuildOperationRef.instance().set(parentOperation);
+            try {
+                workerLeaseService.withLocks(Collections.singleton(parentWorkerLease.createChild()), new Runnable() {
+                    @Override
+                    public void run() {
+                        queue.configureRemaining();
+                    }
+                });
+            } catch (Throwable t) {
+                queue.failed(t);
+            } finally {
+                CurrentBuildOperationRef.instance().clear();
+            }
+        }
+    }
+}
@@ -30,15 +30,18 @@ import java.util.Map;
  * If the compiled script is not found in this cache, it will try to find it in the global cache,
  * which will use the delegate script class compiler in case of a miss. The lookup in this cache is
  * more efficient than looking in the global cache, as we do not check the script's hash code here,
- * assuming that it did not change during the build.
+ * assuming that it did not change during the build. The script's hash is calculated by the given {@link ScriptSourceHasher},
+ * which does not need to read the content of a script file that has not changed.
  */
 public class BuildScopeInMemoryCachingScriptClassCompiler implements ScriptClassCompiler {
     private final CrossBuildInMemoryCachingScriptClassCache cache;
+    private final ScriptSourceHasher scriptSourceHasher;
     private final ScriptClassCompiler scriptClassCompiler;
     private final Map<ScriptCacheKey, CompiledScript<?, ?>> cachedCompiledScripts = Maps.newHashMap();
 
-    public BuildScopeInMemoryCachingScriptClassCompiler(CrossBuildInMemoryCachingScriptClassCache cache, ScriptClassCompiler scriptClassCompiler) {
+    public BuildScopeInMemoryCachingScriptClassCompiler(CrossBuildInMemoryCachingScriptClassCache cache, ScriptSourceHasher scriptSourceHasher, ScriptClassCompiler scriptClassCompiler) {
         this.cache = cache;
+        this.scriptSourceHasher = scriptSourceHasher;
         this.scriptClassCompiler = scriptClassCompiler;
     }
 
@@ -47,7 +50,7 @@ public class BuildScopeInMemoryCachingScriptClassCompiler implements ScriptClass
         ScriptCacheKey key = new ScriptCacheKey(source.getClassName(), classLoader, operation.getId());
         CompiledScript<T, M> compiledScript = Cast.uncheckedCast(cachedCompiledScripts.get(key));
         if (compiledScript == null) {
-            compiledScript = cache.getOrCompile(source, classLoader, classLoaderId, operation, scriptBaseClass, verifier, scriptClassCompiler);
+            compiledScript = cache.getOrCompile(source, scriptSourceHasher.hash(source), classLoader, classLoaderId, operation, scriptBaseClass, verifier, scriptClassCompiler);
             cachedCompiledScripts.put(key, compiledScript);
         }
         return compiledScript;
@@ -32,7 +32,7 @@ public class CrossBuildInMemoryCachingScriptClassCache {
         cachedCompiledScripts = cacheFactory.newCache();
     }
 
-    public <T extends Script, M> CompiledScript<T, M> getOrCompile(ScriptSource source, ClassLoader classLoader,
+    public <T extends Script, M> CompiledScript<T, M> getOrCompile(ScriptSource source, HashCode sourceHash, ClassLoader classLoader,
                                                                    ClassLoaderId classLoaderId,
                                                                    CompileOperation<M> operation,
                                                                    Class<T> scriptBaseClass,
@@ -40,14 +40,13 @@ public class CrossBuildInMemoryCachingScriptClassCache {
                                                                    ScriptClassCompiler delegate) {
         ScriptCacheKey key = new ScriptCacheKey(source.getClassName(), classLoader, operation.getId());
         CachedCompiledScript cached = cachedCompiledScripts.get(key);
-        HashCode hash = source.getResource().getContentHash();
         if (cached != null) {
-            if (hash.equals(cached.hash)) {
+            if (sourceHash.equals(cached.hash)) {
                 return Cast.uncheckedCast(cached.compiledScript);
             }
         }
         CompiledScript<T, M> compiledScript = delegate.compile(source, classLoader, classLoaderId, operation, scriptBaseClass, verifier);
-        cachedCompiledScripts.put(key, new CachedCompiledScript(hash, compiledScript));
+        cachedCompiledScripts.put(key, new CachedCompiledScript(sourceHash, compiledScript));
         return compiledScript;
     }
 
@@ -18,11 +18,66 @@ package org.gradle.groovy.scripts.internal;
 
 import org.gradle.groovy.scripts.ScriptSource;
 import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.resource.TextResource;
 
+import javax.annotation.Nullable;
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Hashes the content of a script, in the same way as {@link TextResource#getContentHash()}.
+ *
+ * <p>The hash of a script backed by a file is reused while the length and modification time of the file do not change. This only happens when the file had
+ * been last modified well before it was hashed, as a later edit of a file modified shortly before it was hashed may not change its modification time, given
+ * the resolution of file timestamps. Otherwise the content of the script is hashed again.</p>
+ */
 public class DefaultScriptSourceHasher implements ScriptSourceHasher {
+    // Some file systems, and File.lastModified() on some JDKs, only have a resolution of 1 or 2 seconds
+    private static final long TIMESTAMP_RESOLUTION_MILLIS = 2000;
+
+    private final ConcurrentMap<File, FileContentHash> fileContentHashes = new ConcurrentHashMap<File, FileContentHash>();
 
     @Override
     public HashCode hash(ScriptSource scriptSource) {
-        return scriptSource.getResource().getContentHash();
+        TextResource resource = scriptSource.getResource();
+        File file = resource.getFile();
+        if (file == null) {
+            return resource.getContentHash();
+        }
+        long hashedAt = System.currentTimeMillis();
+        long length = file.length();
+        long lastModified = file.lastModified();
+        Charset charset = resource.getCharset();
+        FileContentHash cached = fileContentHashes.get(file);
+        if (cached != null && cached.isUpToDate(length, lastModified, charset)) {
+            return cached.hash;
+        }
+        HashCode hash = resource.getContentHash();
+        if (lastModified != 0 && lastModified + TIMESTAMP_RESOLUTION_MILLIS < hashedAt) {
+            fileContentHashes.put(file, new FileContentHash(length, lastModified, charset, hash));
+        } else {
+            fileContentHashes.remove(file);
+        }
+        return hash;
+    }
+
+    private static class FileContentHash {
+        private final long length;
+        private final long lastModified;
+        private final Charset charset;
+        private final HashCode hash;
+
+        FileContentHash(long length, long lastModified, @Nullable Charset charset, HashCode hash) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.charset = charset;
+            this.hash = hash;
+        }
+
+        boolean isUpToDate(long length, long lastModified, @Nullable Charset charset) {
+            return this.length == length && this.lastModified == lastModified && (this.charset == null ? charset == null : this.charset.equals(charset));
+        }
     }
 }
@@ -58,15 +58,17 @@ public class FileCacheBackedScriptClassCompiler implements ScriptClassCompiler,
     private final CacheRepository cacheRepository;
     private final ClassLoaderCache classLoaderCache;
     private final ClassLoaderHierarchyHasher classLoaderHierarchyHasher;
+    private final ScriptSourceHasher scriptSourceHasher;
 
     public FileCacheBackedScriptClassCompiler(CacheRepository cacheRepository, ScriptCompilationHandler scriptCompilationHandler,
                                               ProgressLoggerFactory progressLoggerFactory, ClassLoaderCache classLoaderCache,
-                                              ClassLoaderHierarchyHasher classLoaderHierarchyHasher) {
+                                              ClassLoaderHierarchyHasher classLoaderHierarchyHasher, ScriptSourceHasher scriptSourceHasher) {
         this.cacheRepository = cacheRepository;
         this.scriptCompilationHandler = scriptCompilationHandler;
         this.progressLoggerFactory = progressLoggerFactory;
         this.classLoaderCache = classLoaderCache;
         this.classLoaderHierarchyHasher = classLoaderHierarchyHasher;
+        this.scriptSourceHasher = scriptSourceHasher;
     }
 
     @Override
@@ -81,7 +83,7 @@ public class FileCacheBackedScriptClassCompiler implements ScriptClassCompiler,
             return emptyCompiledScript(classLoaderId, operation);
         }
 
-        HashCode sourceHashCode = source.getResource().getContentHash();
+        HashCode sourceHashCode = scriptSourceHasher.hash(source);
         final String sourceHash = HashUtil.compactStringFor(sourceHashCode);
         final String dslId = operation.getId();
         HashCode classLoaderHash = classLoaderHierarchyHasher.getClassLoaderHash(classLoader);
@@ -24,4 +24,16 @@ import org.gradle.api.internal.project.ProjectInternal;
 public interface ProjectAccessListener {
     void beforeRequestingTaskByPath(ProjectInternal targetProject);
     void beforeResolvingProjectDependency(ProjectInternal dependencyProject);
+
+    /**
+     * Called before the build logic of a project evaluates or configures the given project, for example using {@code evaluationDependsOn()} or {@code subprojects {}}.
+     */
+    void beforeConfiguringProject(ProjectInternal targetProject);
+
+    /**
+     * Evaluates the given project for the build logic of another project, for example for {@code evaluationDependsOn()}, waiting for another thread that is evaluating it.
+     *
+     * @return false when the given project is being evaluated by the current thread, or by a thread that waits for the current thread, so that it cannot be completely evaluated.
+     */
+    boolean evaluateProject(ProjectInternal targetProject);
 }
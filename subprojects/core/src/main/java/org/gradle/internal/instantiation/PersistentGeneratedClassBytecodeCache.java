@@ -0,0 +1,75 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.internal.instantiation;
+
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.FileLockManager;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.PersistentIndexedCacheParameters;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.serialize.HashCodeSerializer;
+
+import javax.annotation.Nullable;
+
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+import static org.gradle.internal.serialize.BaseSerializerFactory.BYTE_ARRAY_SERIALIZER;
+
+/**
+ * Keeps the bytecode of generated classes in the Gradle user home, so that later daemons can define these classes instead of generating them again.
+ *
+ * <p>Each read and write of an entry acquires the cross-process lock of the cache, and entries are never removed. This cache is
+ * an internal opt-in, enabled by setting the {@value #ENABLED_SYSTEM_PROPERTY} system property to {@code true}.</p>
+ */
+public class PersistentGeneratedClassBytecodeCache implements GeneratedClassBytecodeCache, Stoppable {
+    public static final String CACHE_KEY = "generated-classes";
+    public static final String ENABLED_SYSTEM_PROPERTY = "org.gradle.internal.generated-classes-cache";
+
+    private final PersistentCache cache;
+    private final PersistentIndexedCache<HashCode, byte[]> store;
+
+    public PersistentGeneratedClassBytecodeCache(CacheRepository cacheRepository) {
+        cache = cacheRepository
+            .cache(CACHE_KEY)
+            .withDisplayName("generated classes cache")
+            .withLockOptions(mode(FileLockManager.LockMode.None)) // Lock on demand
+            .open();
+        store = cache.createCache(PersistentIndexedCacheParameters.of("bytecode", new HashCodeSerializer(), BYTE_ARRAY_SERIALIZER));
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_SYSTEM_PROPERTY);
+    }
+
+    @Nullable
+    @Override
+    public byte[] get(HashCode key) {
+        return store.get(key);
+    }
+
+    @Override
+    public void put(HashCode key, byte[] bytecode) {
+        store.put(key, bytecode);
+    }
+
+    @Override
+    public void stop() {
+        // Other user homes may still be using their caches, so only stop using this one
+        AsmBackedClassGenerator.removeBytecodeCache(this);
+        cache.close();
+    }
+}
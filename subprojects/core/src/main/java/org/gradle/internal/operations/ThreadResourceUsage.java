@@ -0,0 +1,174 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * The resources used by a thread: CPU time and allocated heap memory, plus the time the whole JVM spent collecting garbage meanwhile.
+ *
+ * <p>Use {@link #current()} to capture the counters of the current thread and {@link #since(ThreadResourceUsage)} to
+ * attribute the resources used between two captures. Garbage collection time is process wide, so it reports the
+ * collections that overlapped with the measured work, not the ones caused by it. Work running in parallel sees the
+ * same collections, so this time is not summed by {@link #plus(ThreadResourceUsage)}. Values that the JVM does not
+ * provide are reported as {@code -1}.</p>
+ */
+public class ThreadResourceUsage {
+    public static final ThreadResourceUsage UNKNOWN = new ThreadResourceUsage(-1, -1, -1);
+
+    private final long cpuTime;
+    private final long allocatedBytes;
+    private final long processGarbageCollectionTime;
+
+    public ThreadResourceUsage(long cpuTime, long allocatedBytes, long processGarbageCollectionTime) {
+        this.cpuTime = cpuTime;
+        this.allocatedBytes = allocatedBytes;
+        this.processGarbageCollectionTime = processGarbageCollectionTime;
+    }
+
+    /**
+     * Captures the cumulative counters of the current thread.
+     */
+    public static ThreadResourceUsage current() {
+        return new ThreadResourceUsage(currentThreadCpuTime(), currentThreadAllocatedBytes(), totalGarbageCollectionTime());
+    }
+
+    /**
+     * Returns the resources used between the given capture and this one.
+     */
+    public ThreadResourceUsage since(ThreadResourceUsage start) {
+        return new ThreadResourceUsage(
+            difference(cpuTime, start.cpuTime),
+            difference(allocatedBytes, start.allocatedBytes),
+            difference(processGarbageCollectionTime, start.processGarbageCollectionTime)
+        );
+    }
+
+    /**
+     * Returns the combined thread resources of this and the given usage. Values known by only one of them are kept.
+     * The process garbage collection time of the result is unknown, as the collections may have overlapped with both usages.
+     */
+    public ThreadResourceUsage plus(ThreadResourceUsage other) {
+        return new ThreadResourceUsage(
+            sum(cpuTime, other.cpuTime),
+            sum(allocatedBytes, other.allocatedBytes),
+            -1
+        );
+    }
+
+    /**
+     * CPU time used by the thread, in nanoseconds, or -1 when not available.
+     */
+    public long getCpuTime() {
+        return cpuTime;
+    }
+
+    /**
+     * Heap memory allocated by the thread, in bytes, or -1 when not available.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Time spent in garbage collection by the whole JVM while the thread was measured, in milliseconds, or -1 when not available.
+     * This is not the garbage collection time caused by the thread.
+     */
+    public long getProcessGarbageCollectionTime() {
+        return processGarbageCollectionTime;
+    }
+
+    @Override
+    public String toString() {
+        return "{cpuTime=" + cpuTime + "ns, allocatedBytes=" + allocatedBytes + ", processGarbageCollectionTime=" + processGarbageCollectionTime + "ms}";
+    }
+
+    private static long difference(long end, long start) {
+        if (end < 0 || start < 0) {
+            return -1;
+        }
+        return Math.max(0, end - start);
+    }
+
+    private static long sum(long a, long b) {
+        if (a < 0) {
+            return b;
+        }
+        if (b < 0) {
+            return a;
+        }
+        return a + b;
+    }
+
+    private static long currentThreadCpuTime() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (!threadMXBean.isCurrentThreadCpuTimeSupported() || !threadMXBean.isThreadCpuTimeEnabled()) {
+            return -1;
+        }
+        return threadMXBean.getCurrentThreadCpuTime();
+    }
+
+    private static long currentThreadAllocatedBytes() {
+        try {
+            return AllocationCounter.currentThreadAllocatedBytes();
+        } catch (LinkageError e) {
+            // Not a HotSpot JVM
+            return -1;
+        }
+    }
+
+    private static long totalGarbageCollectionTime() {
+        long total = 0;
+        boolean found = false;
+        for (GarbageCollectorMXBean garbageCollector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            long collectionTime = garbageCollector.getCollectionTime();
+            if (collectionTime >= 0) {
+                total += collectionTime;
+                found = true;
+            }
+        }
+        return found ? total : -1;
+    }
+
+    /**
+     * Isolates the use of the HotSpot specific management API, so that this class can be loaded on JVMs without it.
+     */
+    private static class AllocationCounter {
+        private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = lookup();
+
+        private static com.sun.management.ThreadMXBean lookup() {
+            try {
+                ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+                if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+                    com.sun.management.ThreadMXBean hotSpotBean = (com.sun.management.ThreadMXBean) threadMXBean;
+                    if (hotSpotBean.isThreadAllocatedMemorySupported() && hotSpotBean.isThreadAllocatedMemoryEnabled()) {
+                        return hotSpotBean;
+                    }
+                }
+            } catch (LinkageError e) {
+                // Not a HotSpot JVM
+            }
+            return null;
+        }
+
+        static long currentThreadAllocatedBytes() {
+            return THREAD_MX_BEAN == null ? -1 : THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+    }
+}
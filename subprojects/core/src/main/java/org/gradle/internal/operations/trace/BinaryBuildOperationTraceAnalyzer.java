@@ -0,0 +1,392 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.operations.trace;
+
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a log written by {@link BinaryBuildOperationTraceWriter} in a single pass and summarizes it.
+ *
+ * Operations are kept in arrays rather than as an object tree, and details and results are not read back, so the memory needed stays well
+ * below the size of an equivalent JSON trace. Operation ids keep growing for the lifetime of a daemon, so each operation is given the next
+ * free index when it is first seen. The log may contain events in any order.
+ */
+public class BinaryBuildOperationTraceAnalyzer {
+
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+    private static final long NOT_FINISHED = -1;
+
+    private String[] strings = new String[64];
+
+    private final Map<Long, Integer> indexes = new HashMap<Long, Integer>();
+    private int count;
+    private long[] ids = new long[1024];
+    private long[] parentIds = new long[1024];
+    private String[] displayNames = new String[1024];
+    private int[] types = new int[1024];
+    private int[] threads = new int[1024];
+    private long[] startTimes = new long[1024];
+    private long[] endTimes = new long[1024];
+    private int[] resultTypes = new int[1024];
+    private int[] progressCounts = new int[1024];
+    private final Map<Integer, String> failures = new HashMap<Integer, String>();
+
+    private int[] childOffsets;
+    private int[] children;
+
+    private BinaryBuildOperationTraceAnalyzer() {
+    }
+
+    public static BinaryBuildOperationTraceAnalyzer read(File logFile) throws IOException {
+        BinaryBuildOperationTraceAnalyzer analyzer = new BinaryBuildOperationTraceAnalyzer();
+        InputStream inputStream = new BufferedInputStream(new FileInputStream(logFile));
+        try {
+            DataInputStream header = new DataInputStream(inputStream);
+            if (header.readInt() != BinaryBuildOperationTraceWriter.MAGIC) {
+                throw new IOException(logFile + " is not a binary build operation trace.");
+            }
+            int version = header.readInt();
+            if (version != BinaryBuildOperationTraceWriter.VERSION) {
+                throw new IOException("Unsupported build operation trace version " + version + " in " + logFile + ".");
+            }
+            analyzer.readEvents(new KryoBackedDecoder(inputStream));
+        } finally {
+            inputStream.close();
+        }
+        analyzer.indexChildren();
+        return analyzer;
+    }
+
+    private void readEvents(KryoBackedDecoder decoder) throws IOException {
+        while (true) {
+            int tag;
+            try {
+                tag = decoder.readSmallInt();
+            } catch (EOFException e) {
+                return;
+            }
+            switch (tag) {
+                case BinaryBuildOperationTraceWriter.STRING:
+                    int stringId = decoder.readSmallInt();
+                    if (stringId >= strings.length) {
+                        strings = Arrays.copyOf(strings, Math.max(stringId + 1, strings.length * 2));
+                    }
+                    strings[stringId] = decoder.readString();
+                    break;
+                case BinaryBuildOperationTraceWriter.START:
+                    int id = indexOf(decoder.readSmallLong());
+                    parentIds[id] = decoder.readSmallLong();
+                    displayNames[id] = decoder.readString();
+                    types[id] = decoder.readSmallInt();
+                    threads[id] = decoder.readSmallInt();
+                    startTimes[id] = decoder.readSmallLong();
+                    break;
+                case BinaryBuildOperationTraceWriter.PROGRESS:
+                    int progressId = indexOf(decoder.readSmallLong());
+                    decoder.readSmallLong();
+                    decoder.readSmallInt();
+                    progressCounts[progressId]++;
+                    break;
+                case BinaryBuildOperationTraceWriter.FINISH:
+                    int finishId = indexOf(decoder.readSmallLong());
+                    endTimes[finishId] = decoder.readSmallLong() + 1;
+                    resultTypes[finishId] = decoder.readSmallInt();
+                    String failure = decoder.readNullableString();
+                    if (failure != null) {
+                        failures.put(finishId, failure);
+                    }
+                    break;
+                default:
+                    throw new IOException("Unexpected record " + tag + " in build operation trace.");
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the operation with the given id. Index 0 is not used for operations.
+     */
+    private int indexOf(long id) throws IOException {
+        if (id <= 0) {
+            throw new IOException("Unexpected build operation id " + id + " in build operation trace.");
+        }
+        Integer index = indexes.get(id);
+        if (index == null) {
+            index = ++count;
+            ensureCapacity(index);
+            ids[index] = id;
+            indexes.put(id, index);
+        }
+        return index;
+    }
+
+    private void ensureCapacity(int id) {
+        if (id >= displayNames.length) {
+            int capacity = Math.max(id + 1, displayNames.length * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            parentIds = Arrays.copyOf(parentIds, capacity);
+            displayNames = Arrays.copyOf(displayNames, capacity);
+            types = Arrays.copyOf(types, capacity);
+            threads = Arrays.copyOf(threads, capacity);
+            startTimes = Arrays.copyOf(startTimes, capacity);
+            endTimes = Arrays.copyOf(endTimes, capacity);
+            resultTypes = Arrays.copyOf(resultTypes, capacity);
+            progressCounts = Arrays.copyOf(progressCounts, capacity);
+        }
+    }
+
+    /**
+     * Builds the child lists of all operations as one array, ordered by id and therefore by start.
+     * Children of operations that were not recorded are treated as roots, and stored under index 0.
+     */
+    private void indexChildren() {
+        childOffsets = new int[count + 2];
+        for (int id = 1; id <= count; id++) {
+            if (isRecorded(id)) {
+                childOffsets[parentIndex(id) + 1]++;
+            }
+        }
+        for (int i = 1; i < childOffsets.length; i++) {
+            childOffsets[i] += childOffsets[i - 1];
+        }
+        children = new int[childOffsets[childOffsets.length - 1]];
+        int[] next = Arrays.copyOf(childOffsets, childOffsets.length - 1);
+        for (int id : indexesInIdOrder()) {
+            if (isRecorded(id)) {
+                children[next[parentIndex(id)]++] = id;
+            }
+        }
+    }
+
+    private Integer[] indexesInIdOrder() {
+        Integer[] ordered = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            ordered[i] = i + 1;
+        }
+        Arrays.sort(ordered, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                long id1 = ids[o1];
+                long id2 = ids[o2];
+                return id1 < id2 ? -1 : id1 == id2 ? 0 : 1;
+            }
+        });
+        return ordered;
+    }
+
+    private boolean isRecorded(int id) {
+        return displayNames[id] != null;
+    }
+
+    private int parentIndex(int id) {
+        Integer parentIndex = indexes.get(parentIds[id]);
+        return parentIndex != null && isRecorded(parentIndex) ? parentIndex : 0;
+    }
+
+    private boolean isFinished(int id) {
+        return endTimes[id] != 0;
+    }
+
+    private long endTime(int id) {
+        return endTimes[id] - 1;
+    }
+
+    private long duration(int id) {
+        return isFinished(id) ? endTime(id) - startTimes[id] : NOT_FINISHED;
+    }
+
+    /**
+     * Returns the number of operations that were started.
+     */
+    public int getOperationCount() {
+        int count = 0;
+        for (int id = 1; id <= count; id++) {
+            if (isRecorded(id)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Writes the operation tree, one operation per line, indented by depth.
+     */
+    public void writeTree(Appendable output) throws IOException {
+        int[] stack = new int[16];
+        int[] depths = new int[16];
+        int size = 0;
+        for (int i = childOffsets[1] - 1; i >= childOffsets[0]; i--) {
+            stack[size] = children[i];
+            depths[size++] = 0;
+        }
+        StringBuilder line = new StringBuilder();
+        while (size > 0) {
+            int id = stack[--size];
+            int depth = depths[size];
+            line.setLength(0);
+            for (int i = 0; i < depth; i++) {
+                line.append("  ");
+            }
+            appendOperation(id, line);
+            line.append(LINE_SEPARATOR);
+            output.append(line);
+
+            int from = childOffsets[id];
+            int to = childOffsets[id + 1];
+            if (size + to - from > stack.length) {
+                stack = Arrays.copyOf(stack, Math.max(stack.length * 2, size + to - from));
+                depths = Arrays.copyOf(depths, stack.length);
+            }
+            for (int i = to - 1; i >= from; i--) {
+                stack[size] = children[i];
+                depths[size++] = depth + 1;
+            }
+        }
+    }
+
+    /**
+     * Writes the number of operations, total and maximum duration per details type, ordered by total duration.
+     */
+    public void writeTypeSummary(Appendable output) throws IOException {
+        Map<Integer, TypeSummary> summaries = new HashMap<Integer, TypeSummary>();
+        for (int id = 1; id <= count; id++) {
+            if (!isRecorded(id)) {
+                continue;
+            }
+            TypeSummary summary = summaries.get(types[id]);
+            if (summary == null) {
+                summary = new TypeSummary(types[id] == 0 ? "(no details)" : string(types[id]));
+                summaries.put(types[id], summary);
+            }
+            summary.add(duration(id), failures.containsKey(id));
+        }
+        List<TypeSummary> ordered = new ArrayList<TypeSummary>(summaries.values());
+        Collections.sort(ordered, new Comparator<TypeSummary>() {
+            @Override
+            public int compare(TypeSummary o1, TypeSummary o2) {
+                return o1.totalTime == o2.totalTime ? o1.type.compareTo(o2.type) : o1.totalTime > o2.totalTime ? -1 : 1;
+            }
+        });
+        for (TypeSummary summary : ordered) {
+            output.append(summary.type)
+                .append(" count=").append(String.valueOf(summary.count))
+                .append(" total=").append(String.valueOf(summary.totalTime)).append("ms")
+                .append(" max=").append(String.valueOf(summary.maxTime)).append("ms");
+            if (summary.failures > 0) {
+                output.append(" failures=").append(String.valueOf(summary.failures));
+            }
+            output.append(LINE_SEPARATOR);
+        }
+    }
+
+    /**
+     * Writes the critical path of each root operation: starting at the root, it follows the child that finished last at each level.
+     */
+    public void writeCriticalPath(Appendable output) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int i = childOffsets[0]; i < childOffsets[1]; i++) {
+            int id = children[i];
+            int depth = 0;
+            while (id != 0) {
+                line.setLength(0);
+                for (int j = 0; j < depth; j++) {
+                    line.append("  ");
+                }
+                appendOperation(id, line);
+                line.append(LINE_SEPARATOR);
+                output.append(line);
+                id = lastFinishedChild(id);
+                depth++;
+            }
+        }
+    }
+
+    private int lastFinishedChild(int id) {
+        int result = 0;
+        for (int i = childOffsets[id]; i < childOffsets[id + 1]; i++) {
+            int child = children[i];
+            if (isFinished(child) && (result == 0 || endTime(child) > endTime(result))) {
+                result = child;
+            }
+        }
+        return result;
+    }
+
+    private void appendOperation(int id, StringBuilder line) {
+        line.append(displayNames[id]);
+        line.append(" [");
+        if (isFinished(id)) {
+            line.append(duration(id)).append("ms");
+        } else {
+            line.append("not finished");
+        }
+        line.append("] (").append(ids[id]).append(")");
+        if (threads[id] != 0) {
+            line.append(" {").append(string(threads[id])).append("}");
+        }
+        if (progressCounts[id] > 0) {
+            line.append(" progress=").append(progressCounts[id]);
+        }
+        String failure = failures.get(id);
+        if (failure != null) {
+            line.append(" FAILED: ").append(failure);
+        }
+    }
+
+    private String string(int id) {
+        String value = id < strings.length ? strings[id] : null;
+        return value == null ? "#" + id : value;
+    }
+
+    private static class TypeSummary {
+        final String type;
+        int count;
+        int failures;
+        long totalTime;
+        long maxTime;
+
+        TypeSummary(String type) {
+            this.type = type;
+        }
+
+        void add(long duration, boolean failed) {
+            count++;
+            if (failed) {
+                failures++;
+            }
+            if (duration > 0) {
+                totalTime += duration;
+                maxTime = Math.max(maxTime, duration);
+            }
+        }
+    }
+}
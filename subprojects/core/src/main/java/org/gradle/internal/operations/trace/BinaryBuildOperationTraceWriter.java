@@ -0,0 +1,209 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.operations.trace;
+
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.OperationFinishEvent;
+import org.gradle.internal.operations.OperationIdentifier;
+import org.gradle.internal.operations.OperationProgressEvent;
+import org.gradle.internal.operations.OperationStartEvent;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes the build operation stream in a compact binary format, see {@link BinaryBuildOperationTraceAnalyzer} for how it is read.
+ *
+ * Each thread encodes its events into its own buffer, which is appended to the log in one piece when it is full. Events therefore do not
+ * contend on a shared stream, but the log is not in chronological order across threads.
+ *
+ * Type names and thread names are written once to a string table and then referenced by id.
+ * Details and results themselves are not recorded, only their types.
+ */
+class BinaryBuildOperationTraceWriter implements Stoppable {
+
+    static final int MAGIC = 0x474f5054;
+    static final int VERSION = 1;
+
+    static final int STRING = 1;
+    static final int START = 2;
+    static final int PROGRESS = 3;
+    static final int FINISH = 4;
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final OutputStream outputStream;
+    private final ConcurrentMap<String, Integer> strings = new ConcurrentHashMap<String, Integer>();
+    private final AtomicInteger nextStringId = new AtomicInteger(1);
+    private final Queue<ThreadBuffer> buffers = new ConcurrentLinkedQueue<ThreadBuffer>();
+    private final ThreadLocal<ThreadBuffer> currentBuffer = new ThreadLocal<ThreadBuffer>() {
+        @Override
+        protected ThreadBuffer initialValue() {
+            ThreadBuffer buffer = new ThreadBuffer();
+            buffers.add(buffer);
+            return buffer;
+        }
+    };
+
+    BinaryBuildOperationTraceWriter(File logFile) throws IOException {
+        this.outputStream = new FileOutputStream(logFile);
+        DataOutputStream header = new DataOutputStream(outputStream);
+        header.writeInt(MAGIC);
+        header.writeInt(VERSION);
+        header.flush();
+    }
+
+    void started(BuildOperationDescriptor descriptor, OperationStartEvent startEvent) {
+        ThreadBuffer buffer = currentBuffer.get();
+        synchronized (buffer) {
+            int type = typeOf(descriptor.getDetails(), buffer);
+            int thread = buffer.threadName(Thread.currentThread().getName());
+            KryoBackedEncoder encoder = buffer.encoder;
+            encoder.writeSmallInt(START);
+            encoder.writeSmallLong(descriptor.getId().getId());
+            encoder.writeSmallLong(descriptor.getParentId() == null ? 0 : descriptor.getParentId().getId());
+            encoder.writeString(descriptor.getDisplayName());
+            encoder.writeSmallInt(type);
+            encoder.writeSmallInt(thread);
+            encoder.writeSmallLong(startEvent.getStartTime());
+            buffer.recordWritten();
+        }
+    }
+
+    void progress(OperationIdentifier id, OperationProgressEvent progressEvent) {
+        ThreadBuffer buffer = currentBuffer.get();
+        synchronized (buffer) {
+            int type = typeOf(progressEvent.getDetails(), buffer);
+            KryoBackedEncoder encoder = buffer.encoder;
+            encoder.writeSmallInt(PROGRESS);
+            encoder.writeSmallLong(id.getId());
+            encoder.writeSmallLong(progressEvent.getTime());
+            encoder.writeSmallInt(type);
+            buffer.recordWritten();
+        }
+    }
+
+    void finished(BuildOperationDescriptor descriptor, OperationFinishEvent finishEvent) {
+        ThreadBuffer buffer = currentBuffer.get();
+        synchronized (buffer) {
+            int type = typeOf(finishEvent.getResult(), buffer);
+            KryoBackedEncoder encoder = buffer.encoder;
+            encoder.writeSmallInt(FINISH);
+            encoder.writeSmallLong(descriptor.getId().getId());
+            encoder.writeSmallLong(finishEvent.getEndTime());
+            encoder.writeSmallInt(type);
+            encoder.writeNullableString(finishEvent.getFailure() == null ? null : finishEvent.getFailure().toString());
+            buffer.recordWritten();
+        }
+    }
+
+    @Override
+    public void stop() {
+        try {
+            for (ThreadBuffer buffer : buffers) {
+                synchronized (buffer) {
+                    buffer.flush();
+                }
+            }
+            synchronized (outputStream) {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private int typeOf(@Nullable Object value, ThreadBuffer buffer) {
+        return value == null ? 0 : buffer.string(value.getClass().getName());
+    }
+
+    private void append(ByteArrayOutputStream chunk) {
+        try {
+            synchronized (outputStream) {
+                chunk.writeTo(outputStream);
+            }
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private class ThreadBuffer {
+        private final ByteArrayOutputStream chunk = new ByteArrayOutputStream(CHUNK_SIZE + CHUNK_SIZE / 4);
+        private final KryoBackedEncoder encoder = new KryoBackedEncoder(chunk);
+        private long flushedPosition;
+        private String lastThreadName;
+        private int lastThreadId;
+
+        int threadName(String name) {
+            // Thread names rarely change, so avoid the lookup
+            if (!name.equals(lastThreadName)) {
+                lastThreadName = name;
+                lastThreadId = string(name);
+            }
+            return lastThreadId;
+        }
+
+        /**
+         * Returns the id of the given string. The thread that assigns the id writes the string to the table,
+         * so a string may be used in the log before its definition.
+         */
+        int string(String value) {
+            Integer id = strings.get(value);
+            if (id != null) {
+                return id;
+            }
+            Integer newId = nextStringId.getAndIncrement();
+            id = strings.putIfAbsent(value, newId);
+            if (id != null) {
+                return id;
+            }
+            encoder.writeSmallInt(STRING);
+            encoder.writeSmallInt(newId);
+            encoder.writeString(value);
+            return newId;
+        }
+
+        void recordWritten() {
+            if (encoder.getWritePosition() - flushedPosition >= CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() {
+            encoder.flush();
+            flushedPosition = encoder.getWritePosition();
+            if (chunk.size() > 0) {
+                append(chunk);
+                chunk.reset();
+            }
+        }
+    }
+}
@@ -47,6 +47,7 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.Writer;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -82,6 +83,15 @@ import static org.gradle.internal.Cast.uncheckedCast;
  * The «path-base» param is optional.
  * If invoked as `-Dorg.gradle.internal.operations.trace`, a base value of "operations" will be used.
  *
+ * For large builds, `-Dorg.gradle.internal.operations.trace.format=binary` writes a compact binary log instead,
+ * which records the structure and timing of operations and the types of their details and results, but not their content.
+ * The following files are created from it:
+ *
+ * - «path-base»-log.bin: the binary log of events
+ * - «path-base»-tree.txt: the simplified tree representation
+ * - «path-base»-types.txt: the count and duration of operations per details type
+ * - «path-base»-critical-path.txt: for each root operation, the chain of operations that finished last
+ *
  * The “trace” produced here is different to the trace produced by Gradle Profiler.
  * There, the focus is analyzing the performance profile.
  * Here, the focus is debugging/developing the information structure of build operations.
@@ -91,12 +101,15 @@ import static org.gradle.internal.Cast.uncheckedCast;
 public class BuildOperationTrace implements Stoppable {
 
     public static final String SYSPROP = "org.gradle.internal.operations.trace";
+    public static final String FORMAT_SYSPROP = "org.gradle.internal.operations.trace.format";
 
     private static final byte[] NEWLINE = "\n".getBytes();
     private static final byte[] INDENT = "    ".getBytes();
 
     private final String basePath;
     private final OutputStream logOutputStream;
+    private final BinaryBuildOperationTraceWriter binaryWriter;
+    private final BuildOperationListener binaryListener;
 
     private final BuildOperationListenerManager buildOperationListenerManager;
     private final ListenerManager listenerManager;
@@ -116,19 +129,30 @@ public class BuildOperationTrace implements Stoppable {
         this.basePath = basePath;
         if (this.basePath == null || basePath.equals(Boolean.FALSE.toString())) {
             this.logOutputStream = null;
+            this.binaryWriter = null;
+            this.binaryListener = null;
             return;
         }
 
+        String format = sysProps.get(FORMAT_SYSPROP);
+        if (format == null) {
+            format = System.getProperty(FORMAT_SYSPROP);
+        }
+
         try {
-            File logFile = logFile(basePath);
-            GFileUtils.mkdirs(logFile.getParentFile());
-            if (logFile.isFile()) {
-                GFileUtils.forceDelete(logFile);
+            if ("binary".equals(format)) {
+                File logFile = prepareFile(binaryLogFile(basePath));
+                this.logOutputStream = null;
+                this.binaryWriter = new BinaryBuildOperationTraceWriter(logFile);
+                this.binaryListener = new BinaryListener(binaryWriter);
+                buildOperationListenerManager.addListener(binaryListener);
+                return;
             }
-            //noinspection ResultOfMethodCallIgnored
-            logFile.createNewFile();
 
+            File logFile = prepareFile(logFile(basePath));
             this.logOutputStream = new BufferedOutputStream(new FileOutputStream(logFile));
+            this.binaryWriter = null;
+            this.binaryListener = null;
         } catch (IOException e) {
             throw UncheckedException.throwAsUncheckedException(e);
         }
@@ -137,11 +161,31 @@ public class BuildOperationTrace implements Stoppable {
         listenerManager.addListener(listener);
     }
 
+    private static File prepareFile(File logFile) throws IOException {
+        GFileUtils.mkdirs(logFile.getParentFile());
+        if (logFile.isFile()) {
+            GFileUtils.forceDelete(logFile);
+        }
+        //noinspection ResultOfMethodCallIgnored
+        logFile.createNewFile();
+        return logFile;
+    }
+
     @Override
     public void stop() {
         buildOperationListenerManager.removeListener(listener);
         listenerManager.removeListener(listener);
 
+        if (binaryWriter != null) {
+            buildOperationListenerManager.removeListener(binaryListener);
+            binaryWriter.stop();
+            try {
+                writeBinarySummaries(BinaryBuildOperationTraceAnalyzer.read(binaryLogFile(basePath)));
+            } catch (IOException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+
         if (logOutputStream != null) {
             try {
                 synchronized (logOutputStream) {
@@ -157,6 +201,27 @@ public class BuildOperationTrace implements Stoppable {
         }
     }
 
+    private void writeBinarySummaries(BinaryBuildOperationTraceAnalyzer analyzer) throws IOException {
+        Writer tree = Files.newWriter(file(basePath, "-tree.txt"), Charsets.UTF_8);
+        try {
+            analyzer.writeTree(tree);
+        } finally {
+            tree.close();
+        }
+        Writer types = Files.newWriter(file(basePath, "-types.txt"), Charsets.UTF_8);
+        try {
+            analyzer.writeTypeSummary(types);
+        } finally {
+            types.close();
+        }
+        Writer criticalPath = Files.newWriter(file(basePath, "-critical-path.txt"), Charsets.UTF_8);
+        try {
+            analyzer.writeCriticalPath(criticalPath);
+        } finally {
+            criticalPath.close();
+        }
+    }
+
     private void writeDetailTree(List<BuildOperationRecord> roots) throws IOException {
         try {
             String rawJson = JsonOutput.toJson(BuildOperationTree.serialize(roots));
@@ -348,6 +413,10 @@ public class BuildOperationTrace implements Stoppable {
         return file(basePath, "-log.txt");
     }
 
+    private static File binaryLogFile(String basePath) {
+        return file(basePath, "-log.bin");
+    }
+
     private static File file(String base, String suffix) {
         return new File((base == null || base.trim().isEmpty() ? "operations" : base) + suffix).getAbsoluteFile();
     }
@@ -364,6 +433,29 @@ public class BuildOperationTrace implements Stoppable {
     }
 
 
+    private static class BinaryListener implements BuildOperationListener {
+        private final BinaryBuildOperationTraceWriter writer;
+
+        BinaryListener(BinaryBuildOperationTraceWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void started(BuildOperationDescriptor buildOperation, OperationStartEvent startEvent) {
+            writer.started(buildOperation, startEvent);
+        }
+
+        @Override
+        public void progress(OperationIdentifier buildOperationId, OperationProgressEvent progressEvent) {
+            writer.progress(buildOperationId, progressEvent);
+        }
+
+        @Override
+        public void finished(BuildOperationDescriptor buildOperation, OperationFinishEvent finishEvent) {
+            writer.finished(buildOperation, finishEvent);
+        }
+    }
+
     private class LoggingListener extends InternalBuildAdapter implements BuildOperationListener {
 
         // This is a workaround for https://github.com/gradle/gradle/issues/4241
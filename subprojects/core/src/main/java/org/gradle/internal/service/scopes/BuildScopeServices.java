@@ -88,6 +88,7 @@ import org.gradle.configuration.project.DelayedConfigurationActions;
 import org.gradle.configuration.project.LifecycleProjectEvaluator;
 import org.gradle.configuration.project.PluginsProjectConfigureActions;
 import org.gradle.configuration.project.ProjectEvaluator;
+import org.gradle.execution.ParallelProjectConfigurer;
 import org.gradle.execution.ProjectConfigurer;
 import org.gradle.execution.TaskPathProjectEvaluator;
 import org.gradle.groovy.scripts.DefaultScriptCompilerFactory;
@@ -99,6 +100,7 @@ import org.gradle.groovy.scripts.internal.CrossBuildInMemoryCachingScriptClassCa
 import org.gradle.groovy.scripts.internal.DefaultScriptCompilationHandler;
 import org.gradle.groovy.scripts.internal.DefaultScriptRunnerFactory;
 import org.gradle.groovy.scripts.internal.FileCacheBackedScriptClassCompiler;
+import org.gradle.groovy.scripts.internal.ScriptSourceHasher;
 import org.gradle.initialization.BuildCancellationToken;
 import org.gradle.initialization.BuildLoader;
 import org.gradle.initialization.BuildOperationSettingsProcessor;
@@ -113,7 +115,6 @@ import org.gradle.initialization.IGradlePropertiesLoader;
 import org.gradle.initialization.InitScriptHandler;
 import org.gradle.initialization.InstantiatingBuildLoader;
 import org.gradle.initialization.NotifyingBuildLoader;
-import org.gradle.initialization.ProjectAccessListener;
 import org.gradle.initialization.ProjectPropertySettingBuildLoader;
 import org.gradle.initialization.PropertiesLoadingSettingsProcessor;
 import org.gradle.initialization.RootBuildCacheControllerSettingsProcessor;
@@ -160,6 +161,7 @@ import org.gradle.internal.service.DefaultServiceRegistry;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.internal.time.Clock;
+import org.gradle.internal.work.WorkerLeaseService;
 import org.gradle.model.internal.inspect.ModelRuleSourceDetector;
 import org.gradle.plugin.management.internal.autoapply.AutoAppliedPluginHandler;
 import org.gradle.plugin.use.internal.PluginRequestApplicator;
@@ -259,10 +261,11 @@ public class BuildScopeServices extends DefaultServiceRegistry {
 
     protected ScriptCompilerFactory createScriptCompileFactory(ListenerManager listenerManager,
                                                                FileCacheBackedScriptClassCompiler scriptCompiler,
-                                                               CrossBuildInMemoryCachingScriptClassCache cache) {
+                                                               CrossBuildInMemoryCachingScriptClassCache cache,
+                                                               ScriptSourceHasher scriptSourceHasher) {
         ScriptExecutionListener scriptExecutionListener = listenerManager.getBroadcaster(ScriptExecutionListener.class);
         return new DefaultScriptCompilerFactory(
-            new BuildScopeInMemoryCachingScriptClassCompiler(cache, scriptCompiler),
+            new BuildScopeInMemoryCachingScriptClassCompiler(cache, scriptSourceHasher, scriptCompiler),
             new DefaultScriptRunnerFactory(
                 scriptExecutionListener,
                 // Should use `InstantiatorFactory` instead to pick up some validation, but this is currently somewhat expensive
@@ -275,14 +278,16 @@ public class BuildScopeServices extends DefaultServiceRegistry {
         CacheRepository cacheRepository, final StartParameter startParameter,
         ProgressLoggerFactory progressLoggerFactory, ClassLoaderCache classLoaderCache, ImportsReader importsReader,
         ClassLoaderHierarchyHasher classLoaderHierarchyHasher,
-        BuildOperationExecutor buildOperationExecutor) {
+        BuildOperationExecutor buildOperationExecutor,
+        ScriptSourceHasher scriptSourceHasher) {
         return new FileCacheBackedScriptClassCompiler(
             cacheRepository,
             new BuildOperationBackedScriptCompilationHandler(
                 new DefaultScriptCompilationHandler(classLoaderCache, importsReader), buildOperationExecutor),
             progressLoggerFactory,
             classLoaderCache,
-            classLoaderHierarchyHasher);
+            classLoaderHierarchyHasher,
+            scriptSourceHasher);
     }
 
     protected ScriptPluginFactory createScriptPluginFactory(InstantiatorFactory instantiatorFactory, BuildOperationExecutor buildOperationExecutor, UserCodeApplicationContext userCodeApplicationContext) {
@@ -382,7 +387,11 @@ public class BuildScopeServices extends DefaultServiceRegistry {
         );
     }
 
-    protected ProjectConfigurer createProjectConfigurer(BuildCancellationToken cancellationToken) {
+    protected ProjectConfigurer createProjectConfigurer(BuildCancellationToken cancellationToken, StartParameter startParameter, ExecutorFactory executorFactory, WorkerLeaseService workerLeaseService, DefaultProjectAccessListener projectAccessListener) {
+        // Concurrent configuration relies on each project having its own lock, which is only the case when parallel project execution is enabled
+        if (ParallelProjectConfigurer.isEnabled() && startParameter.isParallelProjectExecutionEnabled()) {
+            return new ParallelProjectConfigurer(cancellationToken, startParameter.getMaxWorkerCount(), executorFactory, workerLeaseService, projectAccessListener);
+        }
         return new TaskPathProjectEvaluator(cancellationToken);
     }
 
@@ -390,8 +399,8 @@ public class BuildScopeServices extends DefaultServiceRegistry {
         return new DefaultBuildConfigurer(projectConfigurer, buildStateRegistry);
     }
 
-    protected ProjectAccessListener createProjectAccessListener() {
-        return new DefaultProjectAccessListener();
+    protected DefaultProjectAccessListener createProjectAccessListener(ProjectStateRegistry projectStateRegistry, WorkerLeaseService workerLeaseService) {
+        return new DefaultProjectAccessListener(projectStateRegistry, workerLeaseService);
     }
 
     protected PluginRegistry createPluginRegistry(ClassLoaderScopeRegistry scopeRegistry, PluginInspector pluginInspector) {
@@ -75,6 +75,7 @@ import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.hash.StreamHasher;
 import org.gradle.internal.id.LongIdGenerator;
+import org.gradle.internal.instantiation.GeneratedClassBytecodeCacheServices;
 import org.gradle.internal.jvm.inspection.JvmVersionDetector;
 import org.gradle.internal.logging.LoggingManagerInternal;
 import org.gradle.internal.logging.events.OutputEventListener;
@@ -114,6 +115,7 @@ public class GradleUserHomeScopeServices {
         File userHomeDir = userHomeDirProvider.getGradleUserHomeDirectory();
         registration.addProvider(new CacheRepositoryServices(userHomeDir, null));
         registration.addProvider(new GradleUserHomeCleanupServices());
+        registration.addProvider(new GeneratedClassBytecodeCacheServices());
         for (PluginServiceRegistry plugin : globalServices.getAll(PluginServiceRegistry.class)) {
             plugin.registerGradleUserHomeServices(registration);
         }
@@ -140,6 +142,7 @@ public class GradleUserHomeScopeServices {
     }
 
     ScriptSourceHasher createScriptSourceHasher() {
+        // Shared by all builds using this user home, so that the hashes of unchanged scripts are reused across builds
         return new DefaultScriptSourceHasher();
     }
 
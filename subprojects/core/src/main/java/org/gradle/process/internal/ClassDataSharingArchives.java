@@ -0,0 +1,227 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal;
+
+import org.gradle.api.JavaVersion;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.cache.internal.DefaultCacheScopeMapping;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.installation.CurrentGradleInstallation;
+import org.gradle.internal.installation.GradleInstallation;
+import org.gradle.internal.resource.local.FileAccessTimeJournal;
+import org.gradle.internal.resource.local.ModificationTimeFileAccessTimeJournal;
+import org.gradle.util.GradleVersion;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Manages the application class data sharing archives used to speed up the startup of the JVMs that Gradle forks, such as daemons and workers.
+ *
+ * <p>An archive is kept per Gradle version, Java installation and class path in the Gradle user home. The first JVM started for
+ * a combination records the classes it loads into the archive when it exits, and later JVMs map the archive instead of loading and
+ * verifying those classes again. The key includes the size and modification time of the Java runtime image and of each class path
+ * entry, so an updated JDK or jar uses a new archive. The JVM validates the archive itself and silently ignores it when it does not
+ * match, so a stale or damaged archive only costs the sharing.</p>
+ *
+ * <p>Archives are only used with Java 13 and later, which can create them dynamically, and only for class paths made up of jars
+ * from the Gradle installation and the Gradle user home. These class paths change with the Gradle version or the dependencies used
+ * by Gradle itself, whereas the class path of a test worker changes with every build of the project under test.
+ * They are disabled by default. Set the {@value #ENABLED_PROPERTY} system property to {@code true} to enable them.</p>
+ *
+ * <p>Only one JVM at a time creates an archive. It is passed the claim file in the {@value #CLAIM_PROPERTY} system property and
+ * holds a lock on that file until it exits, see {@link #holdClaim()}. A claim that is not locked once the JVM had time to start
+ * belongs to a JVM that is gone without leaving an archive, and is taken over by the next JVM.</p>
+ *
+ * <p>Using an archive updates its modification time. Archives that have not been used for some days are deleted by
+ * {@link ClassDataSharingArchivesCleanupAction}.</p>
+ */
+public class ClassDataSharingArchives {
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.cds";
+    public static final String CLAIM_PROPERTY = "org.gradle.internal.cds.claim";
+    private static final Logger LOGGER = Logging.getLogger(ClassDataSharingArchives.class);
+    private static final long CLAIM_STARTUP_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static FileLock heldClaim;
+
+    private final FileAccessTimeJournal accessTimeJournal = new ModificationTimeFileAccessTimeJournal();
+    private final File archiveDir;
+    private final List<File> stableDirs;
+
+    public ClassDataSharingArchives(File gradleUserHomeDir) {
+        this(gradleUserHomeDir, gradleHomeDir());
+    }
+
+    ClassDataSharingArchives(File gradleUserHomeDir, @Nullable File gradleHomeDir) {
+        this.archiveDir = archiveDir(gradleUserHomeDir);
+        this.stableDirs = gradleHomeDir == null ? Collections.singletonList(gradleUserHomeDir) : Arrays.asList(gradleUserHomeDir, gradleHomeDir);
+    }
+
+    static File archiveDir(File gradleUserHomeDir) {
+        return new File(new File(new File(gradleUserHomeDir, DefaultCacheScopeMapping.GLOBAL_CACHE_DIR_NAME), GradleVersion.current().getVersion()), "cds");
+    }
+
+    @Nullable
+    private static File gradleHomeDir() {
+        GradleInstallation installation = CurrentGradleInstallation.get();
+        return installation == null ? null : installation.getGradleHome();
+    }
+
+    /**
+     * Returns the JVM arguments that make a JVM with the given Java home, version and class path use the matching archive, or create it when it does not exist yet.
+     * Returns an empty list when the JVM cannot use an archive.
+     */
+    public List<String> getJvmArgs(File javaHome, @Nullable JavaVersion javaVersion, Iterable<File> classpath) {
+        if (!isEnabled() || javaVersion == null || javaVersion.compareTo(JavaVersion.VERSION_12) <= 0) {
+            return Collections.emptyList();
+        }
+        String key = archiveKey(javaHome, classpath);
+        if (key == null) {
+            return Collections.emptyList();
+        }
+
+        File archive = new File(archiveDir, key + ".jsa");
+        if (archive.isFile()) {
+            accessTimeJournal.setLastAccessTime(archive, System.currentTimeMillis());
+            return Arrays.asList("-XX:SharedArchiveFile=" + archive.getAbsolutePath(), "-Xshare:auto", "-Xlog:cds*=off");
+        }
+        File claimFile = new File(archiveDir, key + ".lock");
+        if (claim(claimFile)) {
+            LOGGER.debug("Creating class data sharing archive {}.", archive);
+            return Arrays.asList("-XX:ArchiveClassesAtExit=" + archive.getAbsolutePath(), "-Xlog:cds*=off", "-D" + CLAIM_PROPERTY + "=" + claimFile.getAbsolutePath());
+        }
+        // Another JVM is creating the archive
+        return Collections.emptyList();
+    }
+
+    private static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    @Nullable
+    private String archiveKey(File javaHome, Iterable<File> classpath) {
+        File runtimeImage = new File(javaHome, "lib/modules");
+        if (!runtimeImage.isFile()) {
+            return null;
+        }
+        Hasher hasher = Hashing.newHasher();
+        putFile(hasher, runtimeImage);
+        for (File file : classpath) {
+            // The JVM cannot archive classes loaded from directories
+            if (!file.isFile() || !isStable(file)) {
+                return null;
+            }
+            putFile(hasher, file);
+        }
+        return hasher.hash().toString();
+    }
+
+    private boolean isStable(File file) {
+        String path = file.getAbsolutePath();
+        for (File dir : stableDirs) {
+            if (path.startsWith(dir.getAbsolutePath() + File.separator)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void putFile(Hasher hasher, File file) {
+        hasher.putString(file.getAbsolutePath());
+        hasher.putLong(file.length());
+        hasher.putLong(file.lastModified());
+    }
+
+    /**
+     * Claims the creation of an archive, so that only one JVM at a time writes it.
+     */
+    private boolean claim(File claimFile) {
+        try {
+            if (!archiveDir.isDirectory() && !archiveDir.mkdirs() && !archiveDir.isDirectory()) {
+                return false;
+            }
+            if (claimFile.createNewFile()) {
+                return true;
+            }
+            if (isAbandoned(claimFile) && claimFile.delete()) {
+                return claimFile.createNewFile();
+            }
+            return false;
+        } catch (IOException e) {
+            LOGGER.debug("Could not claim class data sharing archive " + claimFile + ".", e);
+            return false;
+        }
+    }
+
+    private static boolean isAbandoned(File claimFile) throws IOException {
+        if (System.currentTimeMillis() - claimFile.lastModified() <= CLAIM_STARTUP_MILLIS) {
+            // The JVM may not have locked the claim yet
+            return false;
+        }
+        return !isLocked(claimFile);
+    }
+
+    /**
+     * Returns true when the given claim file is locked by a JVM that creates an archive.
+     */
+    static boolean isLocked(File claimFile) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(claimFile, "rw");
+        try {
+            FileLock lock = file.getChannel().tryLock();
+            if (lock == null) {
+                return true;
+            }
+            lock.release();
+            return false;
+        } catch (OverlappingFileLockException e) {
+            // Held by this JVM
+            return true;
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Locks the claim file passed to the current JVM, if any, until the JVM exits. Called early by the daemons and workers that Gradle forks.
+     */
+    public static synchronized void holdClaim() {
+        String claimPath = System.getProperty(CLAIM_PROPERTY);
+        if (claimPath == null || heldClaim != null) {
+            return;
+        }
+        try {
+            // The channel stays open, the lock is released when the JVM exits
+            FileChannel channel = new RandomAccessFile(claimPath, "rw").getChannel();
+            heldClaim = channel.tryLock();
+            if (heldClaim == null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Could not lock class data sharing archive claim " + claimPath + ".", e);
+        }
+    }
+}
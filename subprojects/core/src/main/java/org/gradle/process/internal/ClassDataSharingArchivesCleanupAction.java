@@ -0,0 +1,96 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal;
+
+import org.gradle.cache.CleanableStore;
+import org.gradle.cache.CleanupProgressMonitor;
+import org.gradle.cache.internal.DirectoryCleanupAction;
+import org.gradle.cache.internal.LeastRecentlyUsedCacheCleanup;
+import org.gradle.cache.internal.SingleDepthFilesFinder;
+import org.gradle.internal.resource.local.ModificationTimeFileAccessTimeJournal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+
+import static org.gradle.cache.internal.LeastRecentlyUsedCacheCleanup.DEFAULT_MAX_AGE_IN_DAYS_FOR_RECREATABLE_CACHE_ENTRIES;
+
+/**
+ * Deletes the class data sharing archives of the current Gradle version that have not been used recently, together with their claims.
+ * The archives of other Gradle versions are deleted with the version specific caches.
+ */
+public class ClassDataSharingArchivesCleanupAction implements DirectoryCleanupAction {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClassDataSharingArchivesCleanupAction.class);
+
+    private final File archiveDir;
+
+    public ClassDataSharingArchivesCleanupAction(File gradleUserHomeDir) {
+        this.archiveDir = ClassDataSharingArchives.archiveDir(gradleUserHomeDir);
+    }
+
+    @Nonnull
+    @Override
+    public String getDisplayName() {
+        return "Deleting unused class data sharing archives in " + archiveDir;
+    }
+
+    @Override
+    public boolean execute(@Nonnull CleanupProgressMonitor progressMonitor) {
+        if (!archiveDir.isDirectory()) {
+            return false;
+        }
+        new LeastRecentlyUsedCacheCleanup(new SingleDepthFilesFinder(1), new ModificationTimeFileAccessTimeJournal(), DEFAULT_MAX_AGE_IN_DAYS_FOR_RECREATABLE_CACHE_ENTRIES) {
+            @Override
+            protected boolean shouldDelete(File file) {
+                return super.shouldDelete(file) && !isLockedClaim(file);
+            }
+        }.clean(new CleanableStore() {
+            @Override
+            public File getBaseDir() {
+                return archiveDir;
+            }
+
+            @Override
+            public Collection<File> getReservedCacheFiles() {
+                return Collections.emptySet();
+            }
+
+            @Override
+            public String getDisplayName() {
+                return "class data sharing archives";
+            }
+        }, progressMonitor);
+        return true;
+    }
+
+    private static boolean isLockedClaim(File file) {
+        if (!file.getName().endsWith(".lock")) {
+            return false;
+        }
+        try {
+            // The JVM holding the claim is still creating the archive
+            return ClassDataSharingArchives.isLocked(file);
+        } catch (IOException e) {
+            LOGGER.debug("Could not check class data sharing archive claim " + file + ".", e);
+            return true;
+        }
+    }
+}
@@ -30,12 +30,14 @@ import org.gradle.internal.remote.Address;
 import org.gradle.internal.remote.internal.inet.MultiChoiceAddress;
 import org.gradle.internal.remote.internal.inet.MultiChoiceAddressSerializer;
 import org.gradle.internal.serialize.OutputStreamBackedEncoder;
+import org.gradle.process.internal.ClassDataSharingArchives;
 import org.gradle.process.internal.JavaExecHandleBuilder;
 import org.gradle.process.internal.streams.EncodedStream;
 import org.gradle.process.internal.worker.DefaultWorkerProcessBuilder;
 import org.gradle.process.internal.worker.GradleWorkerMain;
 import org.gradle.util.GUtil;
 
+import javax.annotation.Nullable;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
@@ -72,12 +74,14 @@ public class ApplicationClassesInSystemClassLoaderWorkerImplementationFactory im
     private final TemporaryFileProvider temporaryFileProvider;
     private final JvmVersionDetector jvmVersionDetector;
     private final File gradleUserHomeDir;
+    private final ClassDataSharingArchives classDataSharingArchives;
 
     public ApplicationClassesInSystemClassLoaderWorkerImplementationFactory(ClassPathRegistry classPathRegistry, TemporaryFileProvider temporaryFileProvider, JvmVersionDetector jvmVersionDetector, File gradleUserHomeDir) {
         this.classPathRegistry = classPathRegistry;
         this.temporaryFileProvider = temporaryFileProvider;
         this.jvmVersionDetector = jvmVersionDetector;
         this.gradleUserHomeDir = gradleUserHomeDir;
+        this.classDataSharingArchives = new ClassDataSharingArchives(gradleUserHomeDir);
     }
 
     @Override
@@ -90,7 +94,8 @@ public class ApplicationClassesInSystemClassLoaderWorkerImplementationFactory im
 
         execSpec.setMain("worker." + GradleWorkerMain.class.getName());
 
-        boolean useOptionsFile = shouldUseOptionsFile(execSpec);
+        JavaVersion executableVersion = jvmVersionDetector.getJavaVersion(execSpec.getExecutable());
+        boolean useOptionsFile = executableVersion != null && executableVersion.isJava9Compatible();
         if (useOptionsFile) {
             // Use an options file to pass across application classpath
             File optionsFile = temporaryFileProvider.createTemporaryFile("gradle-worker-classpath", "txt");
@@ -102,6 +107,13 @@ public class ApplicationClassesInSystemClassLoaderWorkerImplementationFactory im
             execSpec.systemProperty("java.security.manager", "worker." + BootstrapSecurityManager.class.getName());
         }
 
+        File javaHome = javaHomeOf(execSpec.getExecutable());
+        if (javaHome != null) {
+            List<File> systemClasspath = new ArrayList<File>(workerMainClassPath.getAsFiles());
+            systemClasspath.addAll(applicationClasspath);
+            execSpec.jvmArgs(classDataSharingArchives.getJvmArgs(javaHome, executableVersion, systemClasspath));
+        }
+
         // Serialize configuration for the worker process to it stdin
 
         StreamByteBuffer buffer = new StreamByteBuffer();
@@ -148,9 +160,10 @@ public class ApplicationClassesInSystemClassLoaderWorkerImplementationFactory im
         execSpec.setStandardInput(buffer.getInputStream());
     }
 
-    private boolean shouldUseOptionsFile(JavaExecHandleBuilder execSpec) {
-        JavaVersion executableVersion = jvmVersionDetector.getJavaVersion(execSpec.getExecutable());
-        return executableVersion != null && executableVersion.isJava9Compatible();
+    @Nullable
+    private static File javaHomeOf(String executable) {
+        File binDir = new File(executable).getAbsoluteFile().getParentFile();
+        return binDir == null ? null : binDir.getParentFile();
     }
 
     private List<String> writeOptionsFile(Collection<File> workerMainClassPath, Collection<File> applicationClasspath, File optionsFile) {
@@ -37,6 +37,7 @@ import org.gradle.internal.serialize.InputStreamBackedDecoder;
 import org.gradle.internal.service.DefaultServiceRegistry;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.internal.service.ServiceRegistryBuilder;
+import org.gradle.process.internal.ClassDataSharingArchives;
 import org.gradle.process.internal.health.memory.DefaultJvmMemoryInfo;
 import org.gradle.process.internal.health.memory.DefaultMemoryManager;
 import org.gradle.process.internal.health.memory.DisabledOsMemoryInfo;
@@ -79,6 +80,8 @@ public class SystemApplicationClassLoaderWorker implements Callable<Void> {
             return null;
         }
 
+        ClassDataSharingArchives.holdClaim();
+
         Decoder decoder = new InputStreamBackedDecoder(configInputStream);
 
         // Read logging config and setup logging
@@ -441,6 +441,37 @@ class DefaultPolymorphicDomainObjectContainerTest extends AbstractPolymorphicDom
         e.message == "The domain object 'fred' (${Person.class.canonicalName}) is not a subclass of the given type (${AgeAwarePerson.class.canonicalName})."
     }
 
+    def "names of type include elements registered after querying the type and exclude elements removed before realization"() {
+        container.registerFactory(Person, { new DefaultPerson(name: it) } as NamedDomainObjectFactory)
+        container.registerFactory(AgeAwarePerson, { new DefaultAgeAwarePerson(name: it) } as NamedDomainObjectFactory)
+        container.register("fred", Person)
+        container.register("bob", AgeAwarePerson)
+
+        expect:
+        container.withType(AgeAwarePerson).names == ["bob"] as SortedSet
+
+        when:
+        def barney = container.register("barney", AgeAwarePerson)
+        container.register("wilma", Person)
+
+        then:
+        container.withType(AgeAwarePerson).names == ["barney", "bob"] as SortedSet
+
+        when:
+        container.remove(barney)
+
+        then:
+        container.withType(AgeAwarePerson).names == ["bob"] as SortedSet
+
+        when:
+        container.named("bob").get()
+
+        then:
+        container.withType(AgeAwarePerson).names == ["bob"] as SortedSet
+        container.withType(AgeAwarePerson).findByName("bob").age == 0
+        container.names == ["bob", "fred", "wilma"] as SortedSet
+    }
+
     protected void assertSchemaIs(Map<String, String> expectedSchema) {
         def actualSchema = container.collectionSchema
         Map<String, String> actualSchemaMap = actualSchema.elements.collectEntries { schema ->
@@ -80,6 +80,7 @@ import org.gradle.internal.resource.StringTextResource
 import org.gradle.internal.resource.TextResourceLoader
 import org.gradle.internal.service.ServiceRegistry
 import org.gradle.internal.service.scopes.ServiceRegistryFactory
+import org.gradle.internal.work.WorkerLeaseService
 import org.gradle.model.internal.manage.instance.ManagedProxyFactory
 import org.gradle.model.internal.manage.schema.ModelSchemaStore
 import org.gradle.model.internal.registry.ModelRegistry
@@ -211,7 +212,7 @@ class DefaultProjectTest extends Specification {
         pluginManager.getPluginContainer() >> pluginContainer
 
         serviceRegistryMock.get((Type) DeferredProjectConfiguration) >> Stub(DeferredProjectConfiguration)
-        serviceRegistryMock.get((Type) ProjectAccessListener) >> Stub(ProjectAccessListener)
+        serviceRegistryMock.get((Type) ProjectAccessListener) >> new DefaultProjectAccessListener(projectStateRegistryMock, Stub(WorkerLeaseService))
 
         serviceRegistryMock.get(ITaskFactory) >> Stub(ITaskFactory)
 
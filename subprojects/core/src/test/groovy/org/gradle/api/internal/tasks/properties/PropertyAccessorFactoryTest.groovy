@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.properties
+
+import spock.lang.Specification
+
+import java.lang.reflect.InvocationTargetException
+
+class PropertyAccessorFactoryTest extends Specification {
+    def factory = new PropertyAccessorFactory()
+
+    def "generates accessor for public getter"() {
+        def accessor = factory.create(Bean.getMethod("getName"))
+
+        expect:
+        accessor.class.name.startsWith(Bean.name + '$$PropertyAccessor$')
+        accessor.getValue(new Bean(name: "value")) == "value"
+    }
+
+    def "generated accessor boxes primitive values"() {
+        def bean = new Bean(enabled: true, count: 12, size: 42L)
+
+        expect:
+        factory.create(Bean.getMethod("isEnabled")).getValue(bean) == Boolean.TRUE
+        factory.create(Bean.getMethod("getCount")).getValue(bean) == 12
+        factory.create(Bean.getMethod("getSize")).getValue(bean) == 42L
+    }
+
+    def "generated accessor calls overridden getter"() {
+        def accessor = factory.create(Bean.getMethod("getName"))
+
+        expect:
+        accessor.getValue(new SubBean(name: "value")) == "sub value"
+    }
+
+    def "generates accessor for getter declared by interface"() {
+        def accessor = factory.create(HasDescription.getMethod("getDescription"))
+
+        expect:
+        accessor.class.name.startsWith(HasDescription.name + '$$PropertyAccessor$')
+        accessor.getValue(new Bean()) == "description"
+    }
+
+    def "generated accessor wraps failure thrown by getter"() {
+        def accessor = factory.create(Bean.getMethod("getBroken"))
+
+        when:
+        accessor.getValue(new Bean())
+
+        then:
+        def e = thrown(InvocationTargetException)
+        e.cause instanceof IllegalStateException
+        e.cause.message == "broken"
+    }
+
+    def "can create accessor for the same getter more than once"() {
+        def first = factory.create(Bean.getMethod("getName"))
+        def second = new PropertyAccessorFactory().create(Bean.getMethod("getName"))
+
+        expect:
+        second.class == first.class
+        second.getValue(new Bean(name: "value")) == "value"
+    }
+
+    def "uses reflection for private getter"() {
+        def accessor = factory.create(Bean.getDeclaredMethod("getSecret"))
+
+        expect:
+        !accessor.class.name.contains('$$PropertyAccessor$')
+        accessor.getValue(new Bean()) == "secret"
+    }
+
+    def "uses reflection for getter declared by JDK type"() {
+        def accessor = factory.create(Object.getMethod("getClass"))
+
+        expect:
+        !accessor.class.name.contains('$$PropertyAccessor$')
+        accessor.getValue("value") == String
+    }
+
+    interface HasDescription {
+        String getDescription()
+    }
+
+    static class Bean implements HasDescription {
+        String name
+        boolean enabled
+        int count
+        long size
+
+        String getDescription() {
+            return "description"
+        }
+
+        String getBroken() {
+            throw new IllegalStateException("broken")
+        }
+
+        private String getSecret() {
+            return "secret"
+        }
+    }
+
+    static class SubBean extends Bean {
+        @Override
+        String getName() {
+            return "sub " + super.getName()
+        }
+    }
+}
@@ -25,6 +25,8 @@ import org.junit.Rule
 import spock.lang.Specification
 import spock.lang.Subject
 
+import java.util.concurrent.TimeUnit
+
 import static org.gradle.cache.internal.VersionSpecificCacheCleanupFixture.MarkerFileType.NOT_USED_WITHIN_30_DAYS
 
 class GradleUserHomeCleanupServiceTest extends Specification implements GradleUserHomeCleanupFixture {
@@ -77,6 +79,30 @@ class GradleUserHomeCleanupServiceTest extends Specification implements GradleUs
         oldDist.assertExists()
     }
 
+    def "deletes class data sharing archives and abandoned claims that have not been used recently"() {
+        given:
+        def archiveDir = currentCacheDir.createDir("cds")
+        def unusedArchive = archiveDir.createFile("unused.jsa")
+        def recentlyUsedArchive = archiveDir.createFile("used.jsa")
+        def abandonedClaim = archiveDir.createFile("abandoned.lock")
+        def heldClaim = archiveDir.createFile("held.lock")
+        [unusedArchive, abandonedClaim, heldClaim].each { it.lastModified = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(8) }
+        def claim = new RandomAccessFile(heldClaim, "rw")
+        claim.channel.lock()
+
+        when:
+        cleanupService.stop()
+
+        then:
+        unusedArchive.assertDoesNotExist()
+        abandonedClaim.assertDoesNotExist()
+        recentlyUsedArchive.assertExists()
+        heldClaim.assertExists()
+
+        cleanup:
+        claim?.close()
+    }
+
     @Override
     TestFile getGradleUserHomeDir() {
         return userHomeDir
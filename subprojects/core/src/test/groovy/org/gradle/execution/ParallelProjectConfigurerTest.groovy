@@ -0,0 +1,230 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution
+
+import org.gradle.api.internal.project.DefaultProjectAccessListener
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.project.ProjectStateInternal
+import org.gradle.api.internal.project.ProjectStateRegistry
+import org.gradle.initialization.BuildCancellationToken
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.work.WorkerLeaseRegistry
+import org.gradle.internal.work.WorkerLeaseService
+import spock.lang.Specification
+
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicReference
+
+class ParallelProjectConfigurerTest extends Specification {
+    def cancellationToken = Mock(BuildCancellationToken)
+    def executorFactory = new DefaultExecutorFactory()
+    def workerLeaseService = Mock(WorkerLeaseService)
+    def projectAccessListener = Spy(DefaultProjectAccessListener, constructorArgs: [Stub(ProjectStateRegistry), workerLeaseService])
+    def configurer = new ParallelProjectConfigurer(cancellationToken, 4, executorFactory, workerLeaseService, projectAccessListener)
+    def root = Mock(ProjectInternal)
+    def children = (1..6).collect { Mock(ProjectInternal) }
+
+    def setup() {
+        def lease = Stub(WorkerLeaseRegistry.WorkerLease)
+        _ * workerLeaseService.currentWorkerLease >> lease
+        _ * workerLeaseService.withLocks(_, _ as Runnable) >> { locks, Runnable action -> action.run() }
+        _ * root.subprojects >> (children as Set)
+        children.each { child ->
+            _ * child.state >> new ProjectStateInternal()
+        }
+    }
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "configures root project before subprojects and each subproject once"() {
+        given:
+        _ * projectAccessListener.crossProjectAccessCount >> 0
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        1 * root.evaluate()
+
+        then:
+        1 * children[0].evaluate()
+        1 * children[1].evaluate()
+        1 * children[2].evaluate()
+        1 * children[3].evaluate()
+        1 * children[4].evaluate()
+        1 * children[5].evaluate()
+    }
+
+    def "configures remaining subprojects in order once a project accesses another project"() {
+        given:
+        _ * projectAccessListener.crossProjectAccessCount >>> [0, 1]
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        1 * root.evaluate()
+
+        then:
+        1 * children[0].evaluate()
+
+        then:
+        1 * children[1].evaluate()
+
+        then:
+        1 * children[2].evaluate()
+
+        then:
+        1 * children[3].evaluate()
+
+        then:
+        1 * children[4].evaluate()
+
+        then:
+        1 * children[5].evaluate()
+    }
+
+    def "configures remaining subprojects in order when a project accesses another project while projects are configured concurrently"() {
+        def twoWorkerConfigurer = new ParallelProjectConfigurer(cancellationToken, 2, executorFactory, workerLeaseService, projectAccessListener)
+        def crossProjectAccessCount = new AtomicInteger()
+        def accessed = new CountDownLatch(1)
+        def configuredAfterAccess = new ConcurrentLinkedQueue()
+        def testThread = Thread.currentThread()
+
+        given:
+        _ * projectAccessListener.crossProjectAccessCount >> { crossProjectAccessCount.get() }
+        _ * children[0].evaluate() >> {
+            // Still being configured when the other project accesses a project
+            assert accessed.await(10, TimeUnit.SECONDS)
+        }
+        _ * children[1].evaluate() >> {
+            crossProjectAccessCount.incrementAndGet()
+            accessed.countDown()
+        }
+        children.subList(2, 6).each { child ->
+            _ * child.evaluate() >> {
+                assert Thread.currentThread() == testThread
+                configuredAfterAccess.add(child)
+            }
+        }
+
+        when:
+        twoWorkerConfigurer.configureHierarchy(root)
+
+        then:
+        configuredAfterAccess as List == children.subList(2, 6)
+    }
+
+    def "does not configure subproject that has already been configured"() {
+        given:
+        _ * projectAccessListener.crossProjectAccessCount >> 0
+        children[1].state.toBeforeEvaluate()
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        1 * children[0].evaluate()
+        0 * children[1].evaluate()
+        1 * children[2].evaluate()
+        1 * children[3].evaluate()
+        1 * children[4].evaluate()
+        1 * children[5].evaluate()
+    }
+
+    def "waits for project that is configured by another worker, which evaluates a project it depends on"() {
+        def twoWorkerConfigurer = new ParallelProjectConfigurer(cancellationToken, 2, executorFactory, workerLeaseService, projectAccessListener)
+        def a = children[0]
+        def b = children[1]
+        def c = children[2]
+        def bStarted = new CountDownLatch(1)
+        def aWaiting = new CountDownLatch(1)
+        def bThread = new AtomicReference()
+        def cThread = new AtomicReference()
+
+        given:
+        _ * projectAccessListener.crossProjectAccessCount >> 0
+        _ * workerLeaseService.withoutProjectLock(_ as Runnable) >> { Runnable action ->
+            aWaiting.countDown()
+            action.run()
+        }
+        1 * a.evaluate() >> {
+            configuring(a) {
+                assert bStarted.await(10, TimeUnit.SECONDS)
+                // B is being configured by the other worker
+                assert projectAccessListener.evaluateProject(b)
+                assert !b.state.unconfigured && !b.state.configuring
+            }
+        }
+        1 * b.evaluate() >> {
+            configuring(b) {
+                bThread.set(Thread.currentThread())
+                bStarted.countDown()
+                assert aWaiting.await(10, TimeUnit.SECONDS)
+                // C has not been taken from the queue, as both workers are busy
+                assert projectAccessListener.evaluateProject(c)
+            }
+        }
+        1 * c.evaluate() >> {
+            configuring(c) {
+                cThread.set(Thread.currentThread())
+            }
+        }
+        children.subList(3, 6).each { child ->
+            1 * child.evaluate() >> {
+                configuring(child) {}
+            }
+        }
+
+        when:
+        twoWorkerConfigurer.configureHierarchy(root)
+
+        then:
+        cThread.get() == bThread.get()
+    }
+
+    def "rethrows failure to configure subproject"() {
+        def failure = new RuntimeException("broken")
+
+        given:
+        _ * projectAccessListener.crossProjectAccessCount >> 0
+        _ * children[2].evaluate() >> { throw failure }
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        RuntimeException e = thrown()
+        e == failure
+    }
+
+    def configuring(ProjectInternal project, Closure action) {
+        project.state.toBeforeEvaluate()
+        project.state.toEvaluate()
+        try {
+            action()
+        } finally {
+            project.state.toAfterEvaluate()
+            project.state.configured()
+        }
+    }
+}
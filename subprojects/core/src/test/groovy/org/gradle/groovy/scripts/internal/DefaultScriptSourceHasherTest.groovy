@@ -0,0 +1,127 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.groovy.scripts.internal
+
+import org.gradle.groovy.scripts.ScriptSource
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.resource.TextResource
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.nio.charset.Charset
+
+class DefaultScriptSourceHasherTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    final ScriptSource source = Mock()
+    final TextResource resource = Mock()
+    final hasher = new DefaultScriptSourceHasher()
+    TestFile file
+
+    def setup() {
+        file = tmpDir.file("build.gradle")
+        file.text = "println 'one'"
+        _ * source.resource >> resource
+        _ * resource.file >> file
+        _ * resource.charset >> Charset.forName("UTF-8")
+    }
+
+    def "reuses content hash of script file that was last modified well before it was hashed"() {
+        given:
+        file.setLastModified(System.currentTimeMillis() - 10000)
+
+        when:
+        def first = hasher.hash(source)
+        def second = hasher.hash(source)
+
+        then:
+        first == HashCode.fromInt(123)
+        second == first
+        1 * resource.contentHash >> HashCode.fromInt(123)
+    }
+
+    def "hashes content of script file again when it was modified shortly before it was hashed"() {
+        given:
+        file.setLastModified(System.currentTimeMillis())
+
+        when:
+        hasher.hash(source)
+        def changed = hasher.hash(source)
+
+        then:
+        2 * resource.contentHash >>> [HashCode.fromInt(123), HashCode.fromInt(456)]
+        changed == HashCode.fromInt(456)
+    }
+
+    def "hashes content of script file again when its length or modification time changes"() {
+        given:
+        def lastModified = System.currentTimeMillis() - 10000
+        file.setLastModified(lastModified)
+        hasher.hash(source)
+
+        when:
+        file.text = "println 'two'"
+        file.setLastModified(lastModified + 1000)
+        def changedModificationTime = hasher.hash(source)
+
+        then:
+        1 * resource.contentHash >> HashCode.fromInt(456)
+        changedModificationTime == HashCode.fromInt(456)
+
+        when:
+        file.text = "println 'three'"
+        file.setLastModified(lastModified + 1000)
+        def changedLength = hasher.hash(source)
+
+        then:
+        1 * resource.contentHash >> HashCode.fromInt(789)
+        changedLength == HashCode.fromInt(789)
+    }
+
+    def "uses content hash for script that is not backed by a file"() {
+        def source = Mock(ScriptSource)
+        def resource = Mock(TextResource)
+
+        given:
+        _ * source.resource >> resource
+        _ * resource.file >> null
+
+        when:
+        def first = hasher.hash(source)
+        def second = hasher.hash(source)
+
+        then:
+        2 * resource.contentHash >> HashCode.fromInt(123)
+        first == HashCode.fromInt(123)
+        second == HashCode.fromInt(123)
+    }
+
+    def "uses content hash for script file that does not exist"() {
+        given:
+        file.delete()
+
+        when:
+        hasher.hash(source)
+        def hash = hasher.hash(source)
+
+        then:
+        2 * resource.contentHash >> HashCode.fromInt(123)
+        hash == HashCode.fromInt(123)
+    }
+}
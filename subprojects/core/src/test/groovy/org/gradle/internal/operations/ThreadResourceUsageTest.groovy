@@ -0,0 +1,54 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations
+
+import spock.lang.Specification
+
+class ThreadResourceUsageTest extends Specification {
+
+    def "measures resources used by the current thread"() {
+        def start = ThreadResourceUsage.current()
+        def data = new byte[1024 * 1024]
+        def checksum = 0
+        for (int i = 0; i < data.length; i++) {
+            checksum += data[i]
+        }
+
+        when:
+        def usage = ThreadResourceUsage.current().since(start)
+
+        then:
+        checksum == 0
+        usage.cpuTime == -1 || usage.cpuTime >= 0
+        usage.allocatedBytes == -1 || usage.allocatedBytes >= data.length
+        usage.processGarbageCollectionTime >= -1
+    }
+
+    def "difference is unknown when either side is unknown"() {
+        expect:
+        new ThreadResourceUsage(30, 300, 3).since(new ThreadResourceUsage(10, 100, 1)).toString() == new ThreadResourceUsage(20, 200, 2).toString()
+        new ThreadResourceUsage(30, -1, 3).since(new ThreadResourceUsage(10, 100, -1)).toString() == new ThreadResourceUsage(20, -1, -1).toString()
+        new ThreadResourceUsage(10, 100, 1).since(ThreadResourceUsage.UNKNOWN).toString() == ThreadResourceUsage.UNKNOWN.toString()
+    }
+
+    def "sum keeps values known by either side and does not sum process garbage collection time"() {
+        expect:
+        new ThreadResourceUsage(10, 100, 1).plus(new ThreadResourceUsage(20, 200, 2)).toString() == new ThreadResourceUsage(30, 300, -1).toString()
+        new ThreadResourceUsage(10, -1, 1).plus(new ThreadResourceUsage(-1, 200, -1)).toString() == new ThreadResourceUsage(10, 200, -1).toString()
+        ThreadResourceUsage.UNKNOWN.plus(ThreadResourceUsage.UNKNOWN).toString() == ThreadResourceUsage.UNKNOWN.toString()
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.operations.trace
+
+import org.gradle.internal.operations.BuildOperationDescriptor
+import org.gradle.internal.operations.OperationFinishEvent
+import org.gradle.internal.operations.OperationIdentifier
+import org.gradle.internal.operations.OperationProgressEvent
+import org.gradle.internal.operations.OperationStartEvent
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class BinaryBuildOperationTraceTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def logFile = tmpDir.file("operations-log.bin")
+    def writer = new BinaryBuildOperationTraceWriter(logFile)
+
+    def "writes and summarizes operation tree"() {
+        given:
+        def root = start(1, null, "Run build", new RootDetails(), 100)
+        def configure = start(2, 1, "Configure build", null, 110)
+        finish(configure, 150, null, null)
+        def compile = start(3, 1, "Compile", new TaskDetails(), 150)
+        def test = start(4, 1, "Test", new TaskDetails(), 160)
+        writer.progress(new OperationIdentifier(4), new OperationProgressEvent(170, "output"))
+        finish(compile, 300, null, null)
+        finish(test, 280, new RuntimeException("broken"), null)
+        finish(root, 310, null, "done")
+        writer.stop()
+
+        when:
+        def analyzer = BinaryBuildOperationTraceAnalyzer.read(logFile)
+
+        then:
+        analyzer.operationCount == 4
+        lines { analyzer.writeTree(it) } == [
+            "Run build [210ms] (1) {${Thread.currentThread().name}}",
+            "  Configure build [40ms] (2) {${Thread.currentThread().name}}",
+            "  Compile [150ms] (3) {${Thread.currentThread().name}}",
+            "  Test [120ms] (4) {${Thread.currentThread().name}} progress=1 FAILED: java.lang.RuntimeException: broken",
+        ]
+        lines { analyzer.writeTypeSummary(it) } == [
+            "${TaskDetails.name} count=2 total=270ms max=150ms failures=1",
+            "${RootDetails.name} count=1 total=210ms max=210ms",
+            "(no details) count=1 total=40ms max=40ms",
+        ]
+        lines { analyzer.writeCriticalPath(it) } == [
+            "Run build [210ms] (1) {${Thread.currentThread().name}}",
+            "  Compile [150ms] (3) {${Thread.currentThread().name}}",
+        ]
+    }
+
+    def "reads events written by multiple threads"() {
+        given:
+        def root = start(1, null, "Run build", null, 0)
+        def threads = (0..<8).collect { index ->
+            Thread.start {
+                200.times { i ->
+                    def id = 2 + index * 200 + i
+                    def operation = start(id, 1, "Operation $id", new TaskDetails(), 10)
+                    finish(operation, 20, null, null)
+                }
+            }
+        }
+        threads*.join()
+        finish(root, 30, null, null)
+        writer.stop()
+
+        when:
+        def analyzer = BinaryBuildOperationTraceAnalyzer.read(logFile)
+
+        then:
+        analyzer.operationCount == 1601
+        lines { analyzer.writeTypeSummary(it) }[0] == "${TaskDetails.name} count=1600 total=16000ms max=10ms"
+        def tree = lines { analyzer.writeTree(it) }
+        tree.size() == 1601
+        tree[1].startsWith("  Operation 2 [10ms] (2)")
+    }
+
+    def "reads operations with ids of a long-lived daemon"() {
+        given:
+        def base = 5_000_000_000L
+        def root = start(base, null, "Run build", null, 0)
+        def second = start(base + 20, base, "Second", null, 10)
+        def first = start(base + 10, base, "First", null, 5)
+        finish(second, 20, null, null)
+        finish(first, 30, null, null)
+        finish(root, 40, null, null)
+        writer.stop()
+
+        when:
+        def analyzer = BinaryBuildOperationTraceAnalyzer.read(logFile)
+
+        then:
+        analyzer.operationCount == 3
+        lines { analyzer.writeTree(it) } == [
+            "Run build [40ms] (${base}) {${Thread.currentThread().name}}",
+            "  First [25ms] (${base + 10}) {${Thread.currentThread().name}}",
+            "  Second [10ms] (${base + 20}) {${Thread.currentThread().name}}",
+        ]
+    }
+
+    def "fails for file that is not a binary trace"() {
+        def file = tmpDir.file("other.bin")
+        file.text = "not a trace"
+
+        when:
+        BinaryBuildOperationTraceAnalyzer.read(file)
+
+        then:
+        def e = thrown(IOException)
+        e.message == "$file is not a binary build operation trace."
+    }
+
+    private BuildOperationDescriptor start(long id, Long parentId, String displayName, Object details, long startTime) {
+        def descriptor = BuildOperationDescriptor.displayName(displayName).details(details).build(new OperationIdentifier(id), parentId == null ? null : new OperationIdentifier(parentId))
+        writer.started(descriptor, new OperationStartEvent(startTime))
+        return descriptor
+    }
+
+    private void finish(BuildOperationDescriptor descriptor, long endTime, Throwable failure, Object result) {
+        writer.finished(descriptor, new OperationFinishEvent(0, endTime, failure, result))
+    }
+
+    private static List<String> lines(Closure<?> action) {
+        def writer = new StringWriter()
+        action(writer)
+        return writer.toString().readLines()
+    }
+
+    static class RootDetails {
+    }
+
+    static class TaskDetails {
+    }
+}
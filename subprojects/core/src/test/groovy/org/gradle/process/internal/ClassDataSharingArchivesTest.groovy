@@ -0,0 +1,155 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal
+
+import org.gradle.api.JavaVersion
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+class ClassDataSharingArchivesTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    @Rule
+    SetSystemProperties systemProperties = new SetSystemProperties()
+
+    def javaHome = tmpDir.createDir("jdk")
+    def userHome = tmpDir.createDir("user-home")
+    def gradleHome = tmpDir.createDir("gradle-home")
+    def jar = userHome.createFile("caches/lib.jar")
+    def archives = new ClassDataSharingArchives(userHome, gradleHome)
+
+    def setup() {
+        javaHome.createFile("lib/modules")
+        System.setProperty(ClassDataSharingArchives.ENABLED_PROPERTY, "true")
+    }
+
+    def "first JVM creates the archive and later JVMs use it"() {
+        when:
+        def args = archives.getJvmArgs(javaHome, JavaVersion.VERSION_HIGHER, [jar])
+
+        then:
+        args.size() == 3
+        args[0].startsWith("-XX:ArchiveClassesAtExit=")
+        args[2].startsWith("-D${ClassDataSharingArchives.CLAIM_PROPERTY}=")
+
+        when:
+        def archive = new File(args[0].substring("-XX:ArchiveClassesAtExit=".length()))
+        def concurrentArgs = archives.getJvmArgs(javaHome, JavaVersion.VERSION_HIGHER, [jar])
+
+        then:
+        concurrentArgs.empty
+
+        when:
+        archive.text = "archive"
+        def laterArgs = archives.getJvmArgs(javaHome, JavaVersion.VERSION_HIGHER, [jar])
+
+        then:
+        laterArgs == ["-XX:SharedArchiveFile=${archive.absolutePath}", "-Xshare:auto", "-Xlog:cds*=off"]
+    }
+
+    def "uses an archive for jars from the Gradle installation"() {
+        expect:
+        archives.getJvmArgs(javaHome, JavaVersion.VERSION_HIGHER, [gradleHome.createFile("lib/gradle-core.jar"), jar])[0].startsWith("-XX:ArchiveClassesAtExit=")
+    }
+
+    def "records the use of an archive"() {
+        def archive = new File(archives.getJvmArgs(javaHome, JavaVersion.VERSION_HIGHER, [jar])[0].substring("-XX:ArchiveClassesAtExit=".length()))
+        archive.text = "archive"
+        archive.lastModified = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2)
+
+        when:
+        archives.getJvmArgs(javaHome, JavaVersion.VERSION_HIGHER, [jar])
+
+        then:
+        System.currentTimeMillis() - archive.lastModified() < TimeUnit.DAYS.toMillis(1)
+    }
+
+    def "uses a different archive when a class path entry changes"() {
+        def args = archives.getJvmArgs(javaHome, JavaVersion.VERSION_HIGHER, [jar])
+
+        when:
+        jar.text = "changed"
+        def changedArgs = archives.getJvmArgs(javaHome, JavaVersion.VERSION_HIGHER, [jar])
+
+        then:
+        changedArgs[0].startsWith("-XX:ArchiveClassesAtExit=")
+        changedArgs[0] != args[0]
+    }
+
+    def "does not use an archive when #description"() {
+        expect:
+        archives.getJvmArgs(javaHome, javaVersion, [classpathEntry.call(tmpDir)]).empty
+
+        where:
+        description                                                          | javaVersion                | classpathEntry
+        "Java version is 12 or older"                                        | JavaVersion.VERSION_12     | { it.createFile("user-home/lib.jar") }
+        "Java version is unknown"                                            | null                       | { it.createFile("user-home/lib.jar") }
+        "class path has a directory"                                         | JavaVersion.VERSION_HIGHER | { it.createDir("user-home/classes") }
+        "class path has a jar outside the Gradle installation and user home" | JavaVersion.VERSION_HIGHER | { it.createFile("project/build/libs/lib.jar") }
+    }
+
+    def "is disabled by default"() {
+        given:
+        System.clearProperty(ClassDataSharingArchives.ENABLED_PROPERTY)
+
+        expect:
+        archives.getJvmArgs(javaHome, JavaVersion.VERSION_HIGHER, [jar]).empty
+    }
+
+    def "takes over a claim that is not locked by a JVM"() {
+        def claimFile = claimFile(archives.getJvmArgs(javaHome, JavaVersion.VERSION_HIGHER, [jar]))
+
+        when:
+        claimFile.lastModified = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(5)
+        def args = archives.getJvmArgs(javaHome, JavaVersion.VERSION_HIGHER, [jar])
+
+        then:
+        args[0].startsWith("-XX:ArchiveClassesAtExit=")
+        claimFile(args) == claimFile
+    }
+
+    def "does not take over a claim that is locked by a JVM"() {
+        def claimFile = claimFile(archives.getJvmArgs(javaHome, JavaVersion.VERSION_HIGHER, [jar]))
+        def file = new RandomAccessFile(claimFile, "rw")
+        file.channel.lock()
+
+        when:
+        claimFile.lastModified = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(5)
+
+        then:
+        archives.getJvmArgs(javaHome, JavaVersion.VERSION_HIGHER, [jar]).empty
+
+        cleanup:
+        file?.close()
+    }
+
+    def "does not take over a claim of a JVM that may still be starting"() {
+        given:
+        archives.getJvmArgs(javaHome, JavaVersion.VERSION_HIGHER, [jar])
+
+        expect:
+        archives.getJvmArgs(javaHome, JavaVersion.VERSION_HIGHER, [jar]).empty
+    }
+
+    private static File claimFile(List<String> args) {
+        return new File(args[2].substring("-D${ClassDataSharingArchives.CLAIM_PROPERTY}=".length()))
+    }
+}
@@ -20,6 +20,10 @@ import org.gradle.api.DefaultTask
 import org.gradle.api.Project
 import org.gradle.api.internal.project.DefaultProject
 import org.gradle.api.logging.configuration.WarningMode
+import org.gradle.groovy.scripts.ScriptSource
+import org.gradle.groovy.scripts.internal.ScriptSourceHasher
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.resource.TextResource
 import org.gradle.internal.featurelifecycle.DeprecatedFeatureUsage
 import org.gradle.internal.featurelifecycle.DeprecatedUsageBuildOperationProgressBroadaster
 import org.gradle.internal.featurelifecycle.UsageLocationReporter
@@ -31,6 +35,7 @@ import spock.lang.Ignore
 import spock.lang.Issue
 import spock.lang.Specification
 
+import java.nio.charset.Charset
 import java.util.concurrent.atomic.AtomicBoolean
 
 class ProjectBuilderTest extends Specification {
@@ -169,6 +174,29 @@ class ProjectBuilderTest extends Specification {
         latch.get()
     }
 
+    def "reuses script content hashes in later builds with the same Gradle user home"() {
+        def userHome = temporaryFolder.createDir("userHome")
+        def scriptFile = temporaryFolder.file("build.gradle")
+        scriptFile.text = "println 'hello'"
+        scriptFile.setLastModified(System.currentTimeMillis() - 10000)
+        def resource = Mock(TextResource)
+        _ * resource.file >> scriptFile
+        _ * resource.charset >> Charset.forName("UTF-8")
+        def source = Stub(ScriptSource)
+        _ * source.resource >> resource
+
+        when:
+        def first = ProjectBuilder.builder().withGradleUserHomeDir(userHome).build()
+        def firstHash = first.services.get(ScriptSourceHasher).hash(source)
+        def second = ProjectBuilder.builder().withGradleUserHomeDir(userHome).build()
+        def secondHash = second.services.get(ScriptSourceHasher).hash(source)
+
+        then:
+        1 * resource.contentHash >> HashCode.fromInt(123)
+        firstHash == HashCode.fromInt(123)
+        secondHash == firstHash
+    }
+
     def "emits deprecation warning when using constructor directly"() {
         given:
         def broadcaster = Mock(DeprecatedUsageBuildOperationProgressBroadaster)
@@ -247,6 +247,177 @@ class InstantExecutionIntegrationTest extends AbstractIntegrationSpec {
         new ZipTestFixture(file("b/build/libs/b.jar")).assertContainsFile("b/B.class")
     }
 
+    def "instant execution recalculates task graph when build script changes"() {
+        given:
+        buildFile << """
+            println "running build script"
+        """
+
+        expect:
+        instantRun "help"
+        outputContains("running build script")
+
+        when:
+        instantRun "help"
+
+        then:
+        outputDoesNotContain("running build script")
+
+        when:
+        buildFile << """
+            println "running changed build script"
+        """
+        instantRun "help"
+
+        then:
+        outputContains("running changed build script")
+        outputContains("Calculating task graph as the configuration inputs have changed.")
+    }
+
+    def "instant execution recalculates task graph when buildSrc or settings script is added"() {
+        given:
+        buildFile << """
+            println "running build script"
+        """
+        instantRun "help"
+
+        when:
+        settingsFile << """
+            println "running settings script"
+        """
+        instantRun "help"
+
+        then:
+        outputContains("running settings script")
+        outputContains("running build script")
+
+        when:
+        file("buildSrc/src/main/groovy/Thing.groovy") << """
+            class Thing {}
+        """
+        instantRun "help"
+
+        then:
+        outputContains("running build script")
+
+        when:
+        instantRun "help"
+
+        then:
+        outputDoesNotContain("running build script")
+    }
+
+    def "instant execution recalculates task graph when requested tasks or command-line properties change"() {
+        given:
+        buildFile << """
+            task a
+            task b
+            println "running build script"
+        """
+        instantRun "a"
+
+        when:
+        instantRun "b"
+
+        then:
+        outputContains("running build script")
+
+        when:
+        instantRun "b", "-Dsome.property=value"
+
+        then:
+        outputContains("running build script")
+
+        when:
+        instantRun "b", "-Dsome.property=value", "-Psome.project.property=value"
+
+        then:
+        outputContains("running build script")
+
+        when:
+        instantRun "b", "-Dsome.property=value", "-Psome.project.property=value"
+
+        then:
+        outputDoesNotContain("running build script")
+    }
+
+    def "instant execution recalculates task graph when gradle.properties of a subproject changes"() {
+        given:
+        settingsFile << """
+            include 'a'
+        """
+        file("a/build.gradle") << """
+            println "running build script with value " + findProperty('someValue')
+        """
+        instantRun "help"
+
+        when:
+        file("a/gradle.properties") << "someValue=1"
+        instantRun "help"
+
+        then:
+        outputContains("Calculating task graph as the configuration inputs have changed.")
+        outputContains("running build script with value 1")
+
+        when:
+        instantRun "help"
+
+        then:
+        outputDoesNotContain("running build script")
+
+        when:
+        file("a/gradle.properties").text = "someValue=2"
+        instantRun "help"
+
+        then:
+        outputContains("Calculating task graph as the configuration inputs have changed.")
+        outputContains("running build script with value 2")
+    }
+
+    def "instant execution recalculates task graph when applied Kotlin script changes"() {
+        given:
+        buildFile << """
+            apply from: 'other.gradle.kts'
+        """
+        file("other.gradle.kts") << """
+            println("running applied script")
+        """
+        instantRun "help"
+
+        when:
+        instantRun "help"
+
+        then:
+        outputDoesNotContain("running applied script")
+
+        when:
+        file("other.gradle.kts") << """
+            println("running changed applied script")
+        """
+        instantRun "help"
+
+        then:
+        outputContains("Calculating task graph as the configuration inputs have changed.")
+        outputContains("running changed applied script")
+    }
+
+    def "instant execution reuses task graph when unrelated environment variables change"() {
+        given:
+        buildFile << """
+            println "running build script"
+        """
+        executer.withEnvironmentVars(SOME_VALUE: "1")
+        instantRun "help"
+
+        when:
+        executer.withEnvironmentVars(SOME_VALUE: "2")
+        instantRun "help"
+
+        then:
+        outputDoesNotContain("running build script")
+        outputDoesNotContain("Calculating task graph as the configuration inputs have changed.")
+    }
+
     private void instantRun(String... args) {
         run(INSTANT_EXECUTION_PROPERTY, *args)
     }
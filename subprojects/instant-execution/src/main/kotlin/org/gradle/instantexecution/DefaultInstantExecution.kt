@@ -18,6 +18,7 @@ package org.gradle.instantexecution
 
 import groovy.lang.GroovyObject
 import org.gradle.api.DefaultTask
+import org.gradle.StartParameter
 import org.gradle.api.GradleException
 import org.gradle.api.Task
 import org.gradle.api.file.DirectoryProperty
@@ -30,18 +31,28 @@ import org.gradle.api.internal.TaskInternal
 import org.gradle.api.logging.Logging
 import org.gradle.api.provider.Property
 import org.gradle.initialization.InstantExecution
+import org.gradle.internal.UncheckedException
 import org.gradle.internal.classloader.ClasspathUtil
 import org.gradle.internal.classpath.ClassPath
 import org.gradle.internal.classpath.DefaultClassPath
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.hash.Hasher
+import org.gradle.internal.hash.Hashing
 import org.gradle.internal.serialize.BaseSerializerFactory
 import org.gradle.internal.serialize.kryo.KryoBackedDecoder
 import org.gradle.internal.serialize.kryo.KryoBackedEncoder
 import org.gradle.util.Path
 
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
 import java.io.File
 import java.lang.reflect.Field
 import java.lang.reflect.Modifier
 import java.util.SortedSet
+import java.util.concurrent.Callable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
 import java.util.function.Supplier
 
 
@@ -66,6 +77,26 @@ class DefaultInstantExecution(
         fun getSystemProperty(propertyName: String): String?
 
         fun classLoaderFor(classPath: ClassPath): ClassLoader
+
+        val requestedTaskNames: List<String>
+
+        val systemPropertyArgs: Map<String, String>
+
+        val projectPropertyArgs: Map<String, String>
+
+        /**
+         * Returns the value of the given environment variable, recording the read as a configuration input.
+         */
+        fun getEnvironmentVariable(name: String): String?
+
+        val configurationInputs: InstantExecutionInputs
+
+        /**
+         * Returns the hash of the given file or of the contents of the given directory, or `null` when it does not exist.
+         */
+        fun hashOf(file: File): HashCode?
+
+        fun hashOf(classPath: ClassPath): HashCode
     }
 
     private
@@ -74,11 +105,14 @@ class DefaultInstantExecution(
     }
 
     override fun canExecuteInstantaneously() =
-        isInstantExecutionEnabled && instantExecutionStateFile.isFile
+        isInstantExecutionEnabled && instantExecutionStateFile.isFile && isFingerprintUpToDate()
 
     override fun saveTaskGraph() {
         if (isInstantExecutionEnabled) {
+            // Invalidate the previous task graph until the new one has been completely written
+            instantExecutionFingerprintFile.delete()
             saveTasks()
+            saveFingerprint()
         }
     }
 
@@ -94,10 +128,99 @@ class DefaultInstantExecution(
             val relevantClassPath = classPathFor(scheduledTasks)
             encoder.serializeClassPath(relevantClassPath)
             saveRelevantProjectsFor(scheduledTasks, encoder)
-            encoder.serializeCollection(scheduledTasks) { task ->
+            saveTaskSegmentsFor(scheduledTasks, encoder)
+        }
+    }
+
+    /**
+     * Saves the tasks of each project as a separate segment, so that the segments can be decoded independently of each other.
+     * Each task is saved along with its position in the list of scheduled tasks, to keep the order when loading.
+     */
+    private
+    fun saveTaskSegmentsFor(tasks: List<Task>, encoder: KryoBackedEncoder) {
+        val tasksByProject = tasks.withIndex().groupBy { it.value.project.path }
+        encoder.writeSmallInt(tasks.size)
+        encoder.serializeCollection(tasksByProject.entries) { (projectPath, projectTasks) ->
+            encoder.writeString(projectPath)
+            encoder.writeBinary(segmentFor(projectTasks))
+        }
+    }
+
+    private
+    fun segmentFor(tasks: List<IndexedValue<Task>>): ByteArray {
+        val outputStream = ByteArrayOutputStream()
+        KryoBackedEncoder(outputStream).use { encoder ->
+            encoder.serializeCollection(tasks) { (index, task) ->
+                encoder.writeSmallInt(index)
                 encoder.saveStateOf(task)
             }
         }
+        return outputStream.toByteArray()
+    }
+
+    private
+    fun saveFingerprint() {
+        val inputs = host.configurationInputs
+        KryoBackedEncoder(instantExecutionFingerprintFile.outputStream()).use { encoder ->
+            encoder.serializeCollection(inputs.files) {
+                encoder.writeFile(it)
+            }
+            encoder.serializeClassPath(inputs.classPath)
+            encoder.serializeCollection(inputs.environmentVariables) {
+                encoder.writeString(it)
+            }
+            encoder.writeString(fingerprintOf(inputs).toString())
+        }
+    }
+
+    private
+    fun isFingerprintUpToDate(): Boolean {
+        if (!instantExecutionFingerprintFile.isFile) {
+            return false
+        }
+        val (inputs, fingerprint) = KryoBackedDecoder(instantExecutionFingerprintFile.inputStream()).use { decoder ->
+            val files = decoder.deserializeCollectionInto({ count -> ArrayList<File>(count) }) { container ->
+                container.add(decoder.readFile())
+            }
+            val classPath = decoder.deserializeClassPath()
+            val environmentVariables = decoder.deserializeCollectionInto({ count -> ArrayList<String>(count) }) { container ->
+                container.add(decoder.readString())
+            }
+            InstantExecutionInputs(files, classPath, environmentVariables) to decoder.readString()
+        }
+        val upToDate = fingerprintOf(inputs).toString() == fingerprint
+        if (!upToDate) {
+            logger.lifecycle("Calculating task graph as the configuration inputs have changed.")
+        }
+        return upToDate
+    }
+
+    private
+    fun fingerprintOf(inputs: InstantExecutionInputs): HashCode {
+        val hasher = Hashing.newHasher()
+        hasher.putStrings(host.requestedTaskNames)
+        hasher.putProperties(host.systemPropertyArgs)
+        hasher.putProperties(host.projectPropertyArgs)
+        for (name in inputs.environmentVariables) {
+            hasher.putString(name)
+            val value = host.getEnvironmentVariable(name)
+            if (value != null) {
+                hasher.putString(value)
+            } else {
+                hasher.putNull()
+            }
+        }
+        for (file in inputs.files) {
+            hasher.putString(file.path)
+            val hash = host.hashOf(file)
+            if (hash != null) {
+                hasher.putHash(hash)
+            } else {
+                hasher.putNull()
+            }
+        }
+        hasher.putHash(host.hashOf(inputs.classPath))
+        return hasher.hash()
     }
 
     private
@@ -131,8 +254,9 @@ class DefaultInstantExecution(
     }
 
     private
-    fun loadTasksWithDependenciesFor(build: InstantExecutionBuild): List<Pair<Task, List<String>>> =
-        KryoBackedDecoder(instantExecutionStateFile.inputStream()).use { decoder ->
+    fun loadTasksWithDependenciesFor(build: InstantExecutionBuild): List<Pair<Task, List<String>>> {
+
+        val (taskClassLoader, taskCount, segments) = KryoBackedDecoder(instantExecutionStateFile.inputStream()).use { decoder ->
 
             val classPath = decoder.deserializeClassPath()
             val taskClassLoader = classLoaderFor(classPath)
@@ -142,10 +266,62 @@ class DefaultInstantExecution(
 
             build.registerProjects()
 
-            decoder.deserializeCollectionInto({ count -> ArrayList(count) }) { container ->
-                val task = loadTaskFor(build, decoder, taskClassLoader)
-                container.add(task)
+            val taskCount = decoder.readSmallInt()
+            val segments = decoder.deserializeCollectionInto({ count -> ArrayList<Pair<String, ByteArray>>(count) }) { container ->
+                container.add(decoder.readString() to decoder.readBinary())
             }
+            Triple(taskClassLoader, taskCount, segments)
+        }
+
+        // Decoding is done in parallel, but the tasks are created and populated on this thread, in the order in which they were scheduled
+        val taskStates = arrayOfNulls<TaskState>(taskCount)
+        for (taskState in decodeTaskSegments(segments, taskClassLoader)) {
+            taskStates[taskState.index] = taskState
+        }
+        return taskStates.map { taskState ->
+            createTaskFor(build, taskState!!)
+        }
+    }
+
+    private
+    fun decodeTaskSegments(segments: List<Pair<String, ByteArray>>, taskClassLoader: ClassLoader): List<TaskState> {
+        val parallelism = Math.min(segments.size, host.getService(StartParameter::class.java).maxWorkerCount)
+        if (parallelism <= 1) {
+            return segments.flatMap { (projectPath, segment) ->
+                decodeTaskSegment(projectPath, segment, taskClassLoader)
+            }
+        }
+        val executor = host.getService(ExecutorFactory::class.java).create("instant execution state loader", parallelism)
+        try {
+            val decodedSegments = segments.map { (projectPath, segment) ->
+                executor.submit(Callable { decodeTaskSegment(projectPath, segment, taskClassLoader) })
+            }
+            return decodedSegments.flatMap { decodedSegment ->
+                try {
+                    decodedSegment.get()
+                } catch (e: ExecutionException) {
+                    throw UncheckedException.throwAsUncheckedException(e.cause!!)
+                }
+            }
+        } finally {
+            executor.stop()
+        }
+    }
+
+    private
+    fun decodeTaskSegment(projectPath: String, segment: ByteArray, taskClassLoader: ClassLoader): List<TaskState> =
+        try {
+            KryoBackedDecoder(ByteArrayInputStream(segment)).use { decoder ->
+                val deserializer = host.deserializerFor(taskClassLoader)
+                decoder.deserializeCollectionInto({ count -> ArrayList<TaskState>(count) }) { container ->
+                    val index = decoder.readSmallInt()
+                    container.add(decoder.readTaskState(index, deserializer, taskClassLoader))
+                }
+            }
+        } catch (e: GradleException) {
+            throw e
+        } catch (e: Exception) {
+            throw GradleException("Could not load the state of the tasks of project `$projectPath`.", e)
         }
 
     private
@@ -170,7 +346,7 @@ class DefaultInstantExecution(
             writeString(it.path)
         }
 
-        for (field in relevantStateOf(taskType)) {
+        for (field in relevantFieldsOf(taskType).fields) {
             val fieldValue = field.getFieldValue(task)
             val conventionalValue = fieldValue ?: conventionalValueOf(task, field.name)
             val finalValue = unpack(conventionalValue) ?: continue
@@ -185,7 +361,9 @@ class DefaultInstantExecution(
             } catch (e: Exception) {
                 throw GradleException("Could not save the value of field `${field.name}` of task `${task.path}`.", e)
             }
-            println("SERIALIZED ${task.path} field ${field.name} value $finalValue")
+            if (logger.isDebugEnabled) {
+                logger.debug("SERIALIZED ${task.path} field ${field.name} value $finalValue")
+            }
         }
         writeString("")
     }
@@ -205,30 +383,41 @@ class DefaultInstantExecution(
     }
 
     private
-    fun Field.getFieldValue(task: Task): Any? {
-        isAccessible = true
-        return get(task)
-    }
+    fun Field.getFieldValue(task: Task): Any? =
+        get(task)
 
     private
-    fun loadTaskFor(build: InstantExecutionBuild, decoder: KryoBackedDecoder, taskClassLoader: ClassLoader): Pair<Task, List<String>> {
-        val projectPath = decoder.readString()
-        val taskName = decoder.readString()
-        val typeName = decoder.readString()
+    fun KryoBackedDecoder.readTaskState(index: Int, deserializer: StateDeserializer, taskClassLoader: ClassLoader): TaskState {
+        val projectPath = readString()
+        val taskName = readString()
+        val typeName = readString()
         val taskClass = taskClassLoader.loadClass(typeName).asSubclass(Task::class.java)
-        val taskFieldsByName = relevantStateOf(taskClass).associateBy { it.name }
-        val task = build.createTask(projectPath, taskName, taskClass)
-        val taskDependencies = decoder.deserializeStrings()
-        val deserializer = host.deserializerFor(taskClassLoader)
+        val taskFields = relevantFieldsOf(taskClass)
+        val taskDependencies = deserializeStrings()
+        val fieldValues = ArrayList<Pair<Field, Any>>()
         while (true) {
-            val fieldName = decoder.readString()
+            val fieldName = readString()
             if (fieldName.isEmpty()) {
                 break
             }
             try {
-                val value = deserializer.read(decoder) ?: continue
-                val field = taskFieldsByName.getValue(fieldName)
-                println("DESERIALIZED ${task.path} field $fieldName value $value")
+                val value = deserializer.read(this) ?: continue
+                fieldValues.add(taskFields.byName.getValue(fieldName) to value)
+            } catch (e: Exception) {
+                throw GradleException("Could not load value of field `$fieldName` of task ${Path.path(projectPath).child(taskName)}.", e)
+            }
+        }
+        return TaskState(index, projectPath, taskName, taskClass, taskDependencies, fieldValues)
+    }
+
+    private
+    fun createTaskFor(build: InstantExecutionBuild, taskState: TaskState): Pair<Task, List<String>> {
+        val task = build.createTask(taskState.projectPath, taskState.taskName, taskState.taskClass)
+        for ((field, value) in taskState.fieldValues) {
+            try {
+                if (logger.isDebugEnabled) {
+                    logger.debug("DESERIALIZED ${task.path} field ${field.name} value $value")
+                }
                 @Suppress("unchecked_cast")
                 when (field.type) {
                     DirectoryProperty::class.java -> (field.getFieldValue(task) as? DirectoryProperty)?.set(value as File)
@@ -240,25 +429,51 @@ class DefaultInstantExecution(
                         if (field.type.isAssignableFrom(value.javaClass)) {
                             field.setValue(task, value)
                         } else {
-                            logField(taskClass, fieldName, "deserialize", "${field.type} != ${value.javaClass}")
+                            logField(taskState.taskClass, field.name, "deserialize", "${field.type} != ${value.javaClass}")
                         }
                     }
                 }
             } catch (e: Exception) {
-                throw GradleException("Could not load value of field `$fieldName` of task ${task.path}.", e)
+                throw GradleException("Could not load value of field `${field.name}` of task ${task.path}.", e)
             }
         }
-        return task to taskDependencies
+        return task to taskState.dependencies
     }
 
+    private
+    class TaskState(
+        val index: Int,
+        val projectPath: String,
+        val taskName: String,
+        val taskClass: Class<out Task>,
+        val dependencies: List<String>,
+        val fieldValues: List<Pair<Field, Any>>
+    )
+
     private
     fun InstantExecutionBuild.createTask(projectPath: String, taskName: String, taskClass: Class<out Task>) =
         getProject(projectPath).tasks.create(taskName, taskClass)
 
     private
-    fun Field.setValue(task: Task, value: Any) {
-        isAccessible = true
+    fun Field.setValue(task: Task, value: Any) =
         set(task, value)
+
+    /**
+     * Returns the relevant fields of the given task type, which have already been made accessible. The fields are
+     * cached per type, as looking them up and making them accessible is expensive compared to reading or writing them.
+     */
+    private
+    fun relevantFieldsOf(taskType: Class<*>): TaskFields =
+        relevantFieldsByType.computeIfAbsent(taskType) { type ->
+            TaskFields(relevantStateOf(type).onEach { it.isAccessible = true }.toList())
+        }
+
+    private
+    val relevantFieldsByType = ConcurrentHashMap<Class<*>, TaskFields>()
+
+    private
+    class TaskFields(val fields: List<Field>) {
+        val byName = fields.associateBy { it.name }
     }
 
     private
@@ -305,6 +520,10 @@ class DefaultInstantExecution(
     private
     val instantExecutionStateFile
         get() = File(".instant-execution-state")
+
+    private
+    val instantExecutionFingerprintFile
+        get() = File(".instant-execution-fingerprint")
 }
 
 
@@ -328,6 +547,23 @@ fun fillTheGapsOf(paths: SortedSet<Path>): List<Path> {
 }
 
 
+private
+fun Hasher.putStrings(strings: List<String>) {
+    putInt(strings.size)
+    strings.forEach { putString(it) }
+}
+
+
+private
+fun Hasher.putProperties(properties: Map<String, String>) {
+    putInt(properties.size)
+    for ((key, value) in properties.toSortedMap()) {
+        putString(key)
+        putString(value)
+    }
+}
+
+
 private
 fun KryoBackedEncoder.serializeClassPath(classPath: ClassPath) {
     serializeCollection(classPath.asFiles) {
@@ -29,22 +29,38 @@ import org.gradle.api.internal.initialization.loadercache.ClassLoaderCache
 import org.gradle.api.internal.project.IProjectFactory
 import org.gradle.api.internal.project.ProjectInternal
 import org.gradle.api.internal.project.ProjectStateRegistry
+import org.gradle.configuration.ApplyScriptPluginBuildOperationType
 import org.gradle.groovy.scripts.StringScriptSource
 import org.gradle.initialization.ClassLoaderScopeRegistry
 import org.gradle.initialization.DefaultProjectDescriptor
 import org.gradle.initialization.DefaultSettings
 import org.gradle.internal.build.BuildState
+import org.gradle.internal.classloader.ClasspathHasher
+import org.gradle.internal.classloader.ClasspathUtil
 import org.gradle.internal.classpath.ClassPath
+import org.gradle.internal.classpath.DefaultClassPath
+import org.gradle.internal.concurrent.Stoppable
 import org.gradle.internal.file.PathToFileResolver
+import org.gradle.internal.hash.FileHasher
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.hash.Hashing
+import org.gradle.internal.operations.BuildOperationDescriptor
+import org.gradle.internal.operations.BuildOperationListener
+import org.gradle.internal.operations.BuildOperationListenerManager
+import org.gradle.internal.operations.OperationFinishEvent
+import org.gradle.internal.operations.OperationIdentifier
+import org.gradle.internal.operations.OperationProgressEvent
+import org.gradle.internal.operations.OperationStartEvent
 import org.gradle.internal.reflect.Instantiator
 import org.gradle.internal.service.scopes.BuildScopeServiceRegistryFactory
 import org.gradle.util.Path
 import java.io.File
+import java.util.Collections
 
 
 class InstantExecutionHost internal constructor(
     private val gradle: GradleInternal
-) : DefaultInstantExecution.Host {
+) : DefaultInstantExecution.Host, Stoppable {
 
     private
     val classLoaderScopeRegistry = getService(ClassLoaderScopeRegistry::class.java)
@@ -56,6 +72,37 @@ class InstantExecutionHost internal constructor(
     val projectDescriptorRegistry
         get() = (gradle.settings as DefaultSettings).projectDescriptorRegistry
 
+    private
+    val loadedScripts = Collections.synchronizedSet(LinkedHashSet<File>())
+
+    private
+    val environmentVariablesRead = Collections.synchronizedSet(LinkedHashSet<String>())
+
+    /**
+     * Records the scripts applied while configuring the build, whatever their language, as each script application is a build operation.
+     */
+    private
+    val scriptApplicationListener = object : BuildOperationListener {
+
+        override fun started(buildOperation: BuildOperationDescriptor, startEvent: OperationStartEvent) {
+            (buildOperation.details as? ApplyScriptPluginBuildOperationType.Details)?.file?.let {
+                loadedScripts.add(File(it))
+            }
+        }
+
+        override fun progress(operationIdentifier: OperationIdentifier, progressEvent: OperationProgressEvent) = Unit
+
+        override fun finished(buildOperation: BuildOperationDescriptor, finishEvent: OperationFinishEvent) = Unit
+    }
+
+    init {
+        getService(BuildOperationListenerManager::class.java).addListener(scriptApplicationListener)
+    }
+
+    override fun stop() {
+        getService(BuildOperationListenerManager::class.java).removeListener(scriptApplicationListener)
+    }
+
     private
     val serialization by lazy {
         StateSerialization(
@@ -88,6 +135,90 @@ class InstantExecutionHost internal constructor(
     override fun getSystemProperty(propertyName: String) =
         gradle.startParameter.systemPropertiesArgs[propertyName]
 
+    override val requestedTaskNames: List<String>
+        get() = gradle.startParameter.taskNames
+
+    override val systemPropertyArgs: Map<String, String>
+        get() = gradle.startParameter.systemPropertiesArgs
+
+    override val projectPropertyArgs: Map<String, String>
+        get() = gradle.startParameter.projectProperties
+
+    override fun getEnvironmentVariable(name: String): String? {
+        environmentVariablesRead.add(name)
+        return System.getenv(name)
+    }
+
+    override val configurationInputs: InstantExecutionInputs
+        get() = InstantExecutionInputs(configurationInputFiles(), configurationClassPath(), configurationEnvironmentVariables())
+
+    private
+    fun configurationEnvironmentVariables(): List<String> =
+        synchronized(environmentVariablesRead) {
+            environmentVariablesRead.toList()
+        }
+
+    private
+    fun configurationInputFiles(): List<File> {
+        val rootDir = gradle.rootProject.projectDir
+        val files = LinkedHashSet<File>()
+        files.addAll(gradle.startParameter.allInitScripts)
+        gradle.settings.settingsScript.resource.file?.let { files.add(it) }
+        files.add(File(rootDir, "settings.gradle"))
+        files.add(File(rootDir, "settings.gradle.kts"))
+        files.add(File(rootDir, "gradle.properties"))
+        files.add(File(gradle.gradleUserHomeDir, "gradle.properties"))
+        files.add(File(rootDir, "buildSrc"))
+        for (project in gradle.rootProject.allprojects) {
+            files.add(project.buildFile)
+            files.add(File(project.projectDir, "gradle.properties"))
+        }
+        synchronized(loadedScripts) {
+            files.addAll(loadedScripts)
+        }
+        return files.toList()
+    }
+
+    private
+    fun configurationClassPath(): ClassPath {
+        // Only the files that are not part of the Gradle runtime, such as buildSrc and plugins
+        val coreClassPath = ClasspathUtil.getClasspath(coreAndPluginsScope.exportClassLoader).asFiles.toSet()
+        val files = LinkedHashSet<File>()
+        for (project in gradle.rootProject.allprojects) {
+            ClasspathUtil.getClasspath((project as ProjectInternal).classLoaderScope.exportClassLoader).asFiles.filterTo(files) {
+                it !in coreClassPath
+            }
+        }
+        return DefaultClassPath.of(files)
+    }
+
+    override fun hashOf(file: File): HashCode? =
+        when {
+            file.isFile -> getService(FileHasher::class.java).hash(file)
+            file.isDirectory -> hashOfDirectory(file)
+            else -> null
+        }
+
+    private
+    fun hashOfDirectory(dir: File): HashCode {
+        val hasher = Hashing.newHasher()
+        dir.walkTopDown()
+            .onEnter { it == dir || it.name !in ignoredDirectoryNames }
+            .filter { it.isFile }
+            .sortedBy { it.path }
+            .forEach { file ->
+                hasher.putString(file.relativeTo(dir).path)
+                hasher.putHash(getService(FileHasher::class.java).hash(file))
+            }
+        return hasher.hash()
+    }
+
+    private
+    val ignoredDirectoryNames = setOf("build", ".gradle")
+
+    override fun hashOf(classPath: ClassPath): HashCode =
+        getService(ClasspathHasher::class.java).hash(classPath)
+
     inner class DefaultInstantExecutionBuild : InstantExecutionBuild {
 
         init {
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.instantexecution
+
+import org.gradle.internal.classpath.ClassPath
+
+import java.io.File
+
+
+/**
+ * The inputs read while configuring the build, whose contents determine whether a saved task graph can be reused.
+ *
+ * Files that did not exist are included, so that creating one of them is also detected.
+ * Only the environment variables that were read are included, so that unrelated changes to the environment do not prevent reuse.
+ */
+class InstantExecutionInputs(
+    val files: List<File>,
+    val classPath: ClassPath,
+    val environmentVariables: List<String>
+)
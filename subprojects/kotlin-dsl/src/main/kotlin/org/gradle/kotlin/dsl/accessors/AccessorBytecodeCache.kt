@@ -0,0 +1,41 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.kotlin.dsl.accessors
+
+import org.gradle.cache.internal.CrossBuildInMemoryCache
+import org.gradle.cache.internal.CrossBuildInMemoryCacheFactory
+
+import org.gradle.internal.hash.HashCode
+
+
+/**
+ * Caches the bytecode of generated accessor classes across project schemas and builds.
+ *
+ * Most accessors are shared by many project schemas, a schema change usually only affects
+ * a handful of them. Entries are keyed by a hash of the accessor class content so the
+ * accessors of a new schema can be assembled mostly from bytecode generated before.
+ */
+class AccessorBytecodeCache(
+    cacheFactory: CrossBuildInMemoryCacheFactory
+) {
+
+    private
+    val cache: CrossBuildInMemoryCache<HashCode, ByteArray> = cacheFactory.newCache()
+
+    fun classBytesFor(key: HashCode, generate: () -> ByteArray): ByteArray =
+        cache.get(key) { generate() }
+}
@@ -76,7 +76,8 @@ fun buildAccessorsClassPathFor(project: Project, classPath: ClassPath) =
                     projectSchema,
                     classPath,
                     srcDir = srcDir,
-                    binDir = binDir
+                    binDir = binDir,
+                    bytecodeCache = accessorBytecodeCacheOf(project)
                 )
             }
         }
@@ -148,13 +149,18 @@ private
 fun scriptCacheOf(project: Project) = project.serviceOf<ScriptCache>()
 
 
+private
+fun accessorBytecodeCacheOf(project: Project) = project.serviceOf<AccessorBytecodeCache>()
+
+
 fun IO.buildAccessorsFor(
     projectSchema: TypedProjectSchema,
     classPath: ClassPath,
     srcDir: File,
     binDir: File?,
     packageName: String = kotlinDslPackageName,
-    format: AccessorFormat = AccessorFormats.default
+    format: AccessorFormat = AccessorFormats.default,
+    bytecodeCache: AccessorBytecodeCache? = null
 ) {
     val availableSchema = availableProjectSchemaFor(projectSchema, classPath)
     emitAccessorsFor(
@@ -162,7 +168,8 @@ fun IO.buildAccessorsFor(
         srcDir,
         binDir,
         OutputPackage(packageName),
-        format
+        format,
+        bytecodeCache
     )
 }
 
@@ -19,6 +19,9 @@ package org.gradle.kotlin.dsl.accessors
 import org.gradle.api.NamedDomainObjectContainer
 import org.gradle.api.artifacts.Configuration
 
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.hash.Hashing
+
 import org.gradle.kotlin.dsl.concurrent.IO
 import org.gradle.kotlin.dsl.concurrent.writeFile
 
@@ -39,7 +42,8 @@ fun IO.emitAccessorsFor(
     srcDir: File,
     binDir: File?,
     outputPackage: OutputPackage,
-    format: AccessorFormat
+    format: AccessorFormat,
+    bytecodeCache: AccessorBytecodeCache? = null
 ): List<InternalName> {
 
     makeAccessorOutputDirs(srcDir, binDir, outputPackage.path)
@@ -51,7 +55,8 @@ fun IO.emitAccessorsFor(
                 srcDir,
                 binDir,
                 outputPackage,
-                format
+                format,
+                bytecodeCache
             )
         }.toList()
 
@@ -91,7 +96,8 @@ fun IO.emitClassFor(
     srcDir: File,
     binDir: File?,
     outputPackage: OutputPackage,
-    format: AccessorFormat
+    format: AccessorFormat,
+    bytecodeCache: AccessorBytecodeCache?
 ): InternalName {
 
     val (simpleClassName, fragments) = fragmentsFor(accessor)
@@ -107,6 +113,7 @@ fun IO.emitClassFor(
             binDir,
             className,
             fragments,
+            bytecodeCache,
             ::collectSourceFragment
         )
     } else {
@@ -136,9 +143,33 @@ fun IO.writeAccessorsBytecodeTo(
     binDir: File,
     className: InternalName,
     fragments: Sequence<AccessorFragment>,
+    bytecodeCache: AccessorBytecodeCache?,
     collectSourceFragment: (String) -> Unit
 ) {
 
+    val classBytes =
+        if (bytecodeCache == null) {
+            accessorsBytecodeFor(className, fragments, collectSourceFragment)
+        } else {
+            val fragmentList = fragments.toList()
+            fragmentList.forEach { collectSourceFragment(it.source) }
+            bytecodeCache.classBytesFor(accessorsBytecodeKeyFor(className, fragmentList)) {
+                accessorsBytecodeFor(className, fragmentList.asSequence()) {}
+            }
+        }
+
+    val classFile = binDir.resolve("$className.class")
+    writeFile(classFile, classBytes)
+}
+
+
+private
+fun accessorsBytecodeFor(
+    className: InternalName,
+    fragments: Sequence<AccessorFragment>,
+    collectSourceFragment: (String) -> Unit
+): ByteArray {
+
     val metadataWriter = beginFileFacadeClassHeader()
     val classWriter = beginPublicClass(className)
 
@@ -149,12 +180,27 @@ fun IO.writeAccessorsBytecodeTo(
     }
 
     val classHeader = metadataWriter.closeHeader()
-    val classBytes = classWriter.endKotlinClass(classHeader)
-    val classFile = binDir.resolve("$className.class")
-    writeFile(classFile, classBytes)
+    return classWriter.endKotlinClass(classHeader)
 }
 
 
+/**
+ * The bytecode of an accessor class is fully determined by the class name and
+ * by the source and JVM signature of each of its fragments.
+ */
+private
+fun accessorsBytecodeKeyFor(className: InternalName, fragments: List<AccessorFragment>): HashCode =
+    Hashing.newHasher().run {
+        putString(className.value)
+        fragments.forEach { fragment ->
+            putString(fragment.source)
+            putString(fragment.signature.name)
+            putString(fragment.signature.desc)
+        }
+        hash()
+    }
+
+
 private
 fun importsRequiredBy(accessor: Accessor): List<String> = accessor.run {
     when (this) {
@@ -34,6 +34,7 @@ import org.gradle.internal.operations.BuildOperationExecutor
 import org.gradle.kotlin.dsl.cache.ScriptCache
 import org.gradle.kotlin.dsl.support.EmbeddedKotlinProvider
 import org.gradle.kotlin.dsl.support.ImplicitImports
+import org.gradle.kotlin.dsl.support.KotlinCompilerSession
 
 import org.gradle.plugin.management.internal.autoapply.AutoAppliedPluginHandler
 import org.gradle.plugin.use.internal.PluginRequestApplicator
@@ -72,6 +73,10 @@ object BuildServices {
     fun createClassPathModeExceptionCollector() =
         ClassPathModeExceptionCollector()
 
+    @Suppress("unused")
+    fun createKotlinCompilerSession() =
+        KotlinCompilerSession()
+
     @Suppress("unused")
     fun createKotlinScriptEvaluator(
         classPathProvider: KotlinScriptClassPathProvider,
@@ -86,7 +91,8 @@ object BuildServices {
         scriptCache: ScriptCache,
         implicitImports: ImplicitImports,
         progressLoggerFactory: ProgressLoggerFactory,
-        buildOperationExecutor: BuildOperationExecutor
+        buildOperationExecutor: BuildOperationExecutor,
+        compilerSession: KotlinCompilerSession
     ): KotlinScriptEvaluator =
 
         StandardKotlinScriptEvaluator(
@@ -102,7 +108,8 @@ object BuildServices {
             scriptCache,
             implicitImports,
             progressLoggerFactory,
-            buildOperationExecutor)
+            buildOperationExecutor,
+            compilerSession)
 
     private
     fun versionedJarCacheFor(jarCache: GeneratedGradleJarCache): JarCache =
@@ -17,6 +17,8 @@ package org.gradle.kotlin.dsl.provider
 
 import org.gradle.cache.internal.CrossBuildInMemoryCacheFactory
 
+import org.gradle.kotlin.dsl.accessors.AccessorBytecodeCache
+
 
 internal
 object GradleUserHomeServices {
@@ -25,4 +27,9 @@ object GradleUserHomeServices {
     fun createKotlinScriptClassloadingCache(
         cacheFactory: CrossBuildInMemoryCacheFactory
     ) = KotlinScriptClassloadingCache(cacheFactory)
+
+    @Suppress("unused")
+    fun createAccessorBytecodeCache(
+        cacheFactory: CrossBuildInMemoryCacheFactory
+    ) = AccessorBytecodeCache(cacheFactory)
 }
@@ -57,6 +57,7 @@ import org.gradle.kotlin.dsl.get
 
 import org.gradle.kotlin.dsl.support.EmbeddedKotlinProvider
 import org.gradle.kotlin.dsl.support.ImplicitImports
+import org.gradle.kotlin.dsl.support.KotlinCompilerSession
 import org.gradle.kotlin.dsl.support.KotlinScriptHost
 import org.gradle.kotlin.dsl.support.ScriptCompilationException
 import org.gradle.kotlin.dsl.support.transitiveClosureOf
@@ -97,7 +98,8 @@ class StandardKotlinScriptEvaluator(
     private val scriptCache: ScriptCache,
     private val implicitImports: ImplicitImports,
     private val progressLoggerFactory: ProgressLoggerFactory,
-    private val buildOperationExecutor: BuildOperationExecutor
+    private val buildOperationExecutor: BuildOperationExecutor,
+    private val compilerSession: KotlinCompilerSession
 ) : KotlinScriptEvaluator {
 
     override fun evaluate(
@@ -177,6 +179,7 @@ class StandardKotlinScriptEvaluator(
         }
 
         override fun startCompilerOperation(description: String): AutoCloseable {
+            compilerSession.start()
             val operation = progressLoggerFactory
                 .newOperation(KotlinScriptEvaluator::class.java)
                 .start("Compiling script into cache", "Compiling $description into local compilation cache")
@@ -69,6 +69,7 @@ import org.jetbrains.kotlin.utils.addToStdlib.firstNotNullResult
 import org.slf4j.Logger
 
 import java.io.ByteArrayOutputStream
+import java.io.Closeable
 import java.io.File
 import java.io.OutputStream
 import java.io.PrintStream
@@ -186,6 +187,49 @@ fun compileToDirectory(
 }
 
 
+/**
+ * Keeps the shared Kotlin compiler application environment alive for as long as the session is open.
+ *
+ * The application environment is otherwise torn down as soon as the last compilation completes,
+ * discarding the indices of the classpath jars parsed so far, only to be rebuilt from scratch by the
+ * next script compilation. While a session is open all script compilations, including concurrent ones,
+ * share a single warm application environment.
+ *
+ * Classpath jars are assumed not to change while the session is open.
+ */
+internal
+class KotlinCompilerSession : Closeable {
+
+    private
+    val sessionDisposable = newDisposable()
+
+    private
+    var started = false
+
+    private
+    var closed = false
+
+    @Synchronized
+    fun start() {
+        if (started || closed) {
+            return
+        }
+        started = true
+        sessionDisposable.kotlinCoreEnvironmentFor(
+            compilerConfigurationFor(MessageCollector.NONE)
+        )
+    }
+
+    @Synchronized
+    override fun close() {
+        if (!closed) {
+            closed = true
+            dispose(sessionDisposable)
+        }
+    }
+}
+
+
 private
 val kotlinStdlibJar: File
     get() = PathUtil.getResourcePathForClass(Unit::class.java)
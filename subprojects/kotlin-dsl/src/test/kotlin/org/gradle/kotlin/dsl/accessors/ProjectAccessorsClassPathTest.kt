@@ -46,8 +46,11 @@ import org.gradle.api.tasks.SourceSetContainer
 import org.gradle.api.tasks.TaskContainer
 import org.gradle.api.tasks.TaskProvider
 
+import org.gradle.cache.internal.DefaultCrossBuildInMemoryCacheFactory
+
 import org.gradle.internal.classpath.ClassPath
 import org.gradle.internal.classpath.DefaultClassPath
+import org.gradle.internal.event.DefaultListenerManager
 
 import org.gradle.kotlin.dsl.concurrent.withSynchronousIO
 import org.gradle.kotlin.dsl.fixtures.AbstractDslTest
@@ -124,6 +127,20 @@ class ProjectAccessorsClassPathTest : AbstractDslTest() {
         testAccessorsBuiltBy(::buildAccessorsFor)
     }
 
+    @Test
+    fun `#buildAccessorsFor (cached bytecode)`() {
+
+        val bytecodeCache = AccessorBytecodeCache(
+            DefaultCrossBuildInMemoryCacheFactory(DefaultListenerManager())
+        )
+
+        testAccessorsBuiltBy { schema, classPath, srcDir, binDir ->
+            // populate the cache from a first run
+            buildAccessorsFor(schema, classPath, newFolder("src-1"), newFolder("bin-1"), bytecodeCache)
+            buildAccessorsFor(schema, classPath, srcDir, binDir, bytecodeCache)
+        }
+    }
+
     @Test
     fun `#buildAccessorsFor (source)`() {
 
@@ -439,6 +456,19 @@ class ProjectAccessorsClassPathTest : AbstractDslTest() {
             buildAccessorsFor(schema, classPath, srcDir, binDir)
         }
     }
+
+    private
+    fun buildAccessorsFor(
+        schema: TypedProjectSchema,
+        classPath: ClassPath,
+        srcDir: File,
+        binDir: File,
+        bytecodeCache: AccessorBytecodeCache
+    ) {
+        withSynchronousIO {
+            buildAccessorsFor(schema, classPath, srcDir, binDir, bytecodeCache = bytecodeCache)
+        }
+    }
 }
 
 
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.incremental.deps;
+
+import it.unimi.dsi.fastutil.ints.IntSet;
+import it.unimi.dsi.fastutil.ints.IntSets;
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Measures loading the class dependency graph of a large module, and querying the transitive dependents of a change.
+ */
+@Fork(2)
+@State(Scope.Benchmark)
+@Warmup(iterations = 10, time = 1, timeUnit = SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = SECONDS)
+public class ClassSetAnalysisBenchmark {
+    private static final int DEPENDENCIES_PER_CLASS = 8;
+
+    @Param({"2000", "20000"})
+    int classCount;
+
+    private final ClassSetAnalysisData.Serializer serializer = new ClassSetAnalysisData.Serializer(new StringInterner());
+    private byte[] serialized;
+    private ClassSetAnalysis analysis;
+    private String[] classNames;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        Random random = new Random(42);
+        classNames = new String[classCount];
+        for (int i = 0; i < classCount; i++) {
+            classNames[i] = "org.gradle.sample.package" + (i % 100) + ".SomeClass" + i;
+        }
+        Map<String, Set<String>> dependents = new HashMap<String, Set<String>>();
+        for (String className : classNames) {
+            dependents.put(className, new LinkedHashSet<String>());
+        }
+        for (int i = 0; i < classCount; i++) {
+            for (int j = 0; j < DEPENDENCIES_PER_CLASS; j++) {
+                // Mostly depend on classes declared earlier, so that the graph looks like a layered module
+                int dependency = random.nextInt(i + 1);
+                if (dependency != i) {
+                    dependents.get(classNames[dependency]).add(classNames[i]);
+                }
+            }
+        }
+        Map<String, DependentsSet> dependentsSets = new HashMap<String, DependentsSet>();
+        for (Map.Entry<String, Set<String>> entry : dependents.entrySet()) {
+            dependentsSets.put(entry.getKey(), DependentsSet.dependentClasses(entry.getValue()));
+        }
+        ClassSetAnalysisData data = new ClassSetAnalysisData(dependents.keySet(), dependentsSets, Collections.<String, IntSet>emptyMap(), null);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+        serializer.write(encoder, data);
+        encoder.flush();
+        serialized = outputStream.toByteArray();
+        analysis = new ClassSetAnalysis(data);
+    }
+
+    @Benchmark
+    public ClassSetAnalysisData load() throws Exception {
+        return serializer.read(new KryoBackedDecoder(new ByteArrayInputStream(serialized)));
+    }
+
+    @Benchmark
+    public DependentsSet transitiveDependents() {
+        // Changes to classes near the bottom of the graph affect most of the module
+        String changed = classNames[next++ % 100];
+        return analysis.getRelevantDependents(changed, IntSets.EMPTY_SET);
+    }
+
+    @Benchmark
+    public DependentsSet packageInfoDependents() {
+        return analysis.getRelevantDependents("org.gradle.sample.package" + (next++ % 100) + ".package-info", IntSets.EMPTY_SET);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile;
+
+import javax.annotation.processing.Processor;
+import javax.tools.JavaCompiler;
+import java.util.Locale;
+
+/**
+ * Hands a reusable file manager back to the {@link JavaFileManagerCache} after compilation has finished, instead of closing it.
+ * The file manager is discarded if the compiler failed unexpectedly, as its state is unknown.
+ */
+class FileManagerReleasingCompilationTask implements JavaCompiler.CompilationTask {
+    private final JavaCompiler.CompilationTask delegate;
+    private final JavaFileManagerCache.CachedFileManager fileManager;
+    private final JavaFileManagerCache cache;
+
+    FileManagerReleasingCompilationTask(JavaCompiler.CompilationTask delegate, JavaFileManagerCache.CachedFileManager fileManager, JavaFileManagerCache cache) {
+        this.delegate = delegate;
+        this.fileManager = fileManager;
+        this.cache = cache;
+    }
+
+    @Override
+    public void addModules(Iterable<String> moduleNames) {
+    }
+
+    @Override
+    public void setProcessors(Iterable<? extends Processor> processors) {
+        delegate.setProcessors(processors);
+    }
+
+    @Override
+    public void setLocale(Locale locale) {
+        delegate.setLocale(locale);
+    }
+
+    @Override
+    public Boolean call() {
+        boolean completed = false;
+        try {
+            Boolean result = delegate.call();
+            completed = true;
+            return result;
+        } finally {
+            if (completed) {
+                cache.release(fileManager);
+            } else {
+                cache.discard(fileManager);
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableSet;
+import org.gradle.internal.concurrent.CompositeStoppable;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps javac file managers open between compilations in this process, so that the classpath archives opened and indexed by one compile task
+ * are reused by the following ones, including those of later builds. The javac API allows a standard file manager to be reused for multiple
+ * compilations for this purpose.
+ *
+ * <p>A file manager is only handed out again if none of the archives it has seen has changed since, based on their length and last modified time.
+ * Idle file managers keep their archives open, so this is disabled by default.</p>
+ *
+ * <p>A file manager keeps the locations set by the options of earlier compilations. It is therefore only handed out for compilations with
+ * the same options, ignoring the values of the locations in {@link #PER_COMPILATION_LOCATION_OPTIONS}. Every compilation that shares a file
+ * manager sets these locations, so no compilation inherits them from an earlier one.</p>
+ */
+public class JavaFileManagerCache {
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.java.compile.reuse-file-managers";
+
+    private static final JavaFileManagerCache INSTANCE = new JavaFileManagerCache(Runtime.getRuntime().availableProcessors());
+    private static final Set<String> PER_COMPILATION_LOCATION_OPTIONS = ImmutableSet.of(
+        "-d", "-s", "-h",
+        "-classpath", "-cp", "--class-path",
+        "-sourcepath", "--source-path",
+        "-processorpath", "--processor-path",
+        "--module-path", "-p"
+    );
+
+    private final int maxIdleFileManagers;
+    private final LinkedList<CachedFileManager> idle = new LinkedList<CachedFileManager>();
+
+    JavaFileManagerCache(int maxIdleFileManagers) {
+        this.maxIdleFileManagers = maxIdleFileManagers;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    public static JavaFileManagerCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns a file manager for a compilation with the given options and archives. The caller has exclusive use of it until it is released.
+     */
+    public CachedFileManager acquire(JavaCompiler compiler, Charset charset, List<String> options, Iterable<File> archives) {
+        List<String> fileManagerOptions = fileManagerOptionsOf(options);
+        Map<File, ArchiveFingerprint> fingerprints = fingerprint(archives);
+        CachedFileManager result = null;
+        List<CachedFileManager> stale = new ArrayList<CachedFileManager>();
+        synchronized (idle) {
+            Iterator<CachedFileManager> iterator = idle.iterator();
+            while (iterator.hasNext()) {
+                CachedFileManager candidate = iterator.next();
+                if (candidate.compilerType != compiler.getClass() || !Objects.equal(candidate.charset, charset) || !candidate.options.equals(fileManagerOptions)) {
+                    continue;
+                }
+                iterator.remove();
+                if (candidate.isUpToDate(fingerprints)) {
+                    result = candidate;
+                    break;
+                }
+                stale.add(candidate);
+            }
+        }
+        for (CachedFileManager fileManager : stale) {
+            fileManager.close();
+        }
+        if (result == null) {
+            result = new CachedFileManager(compiler.getClass(), charset, fileManagerOptions, compiler.getStandardFileManager(null, null, charset));
+        }
+        result.archives.putAll(fingerprints);
+        return result;
+    }
+
+    /**
+     * Returns the file manager to the cache once its compilation has finished.
+     */
+    public void release(CachedFileManager fileManager) {
+        CachedFileManager evicted = null;
+        synchronized (idle) {
+            idle.addFirst(fileManager);
+            if (idle.size() > maxIdleFileManagers) {
+                evicted = idle.removeLast();
+            }
+        }
+        if (evicted != null) {
+            evicted.close();
+        }
+    }
+
+    /**
+     * Closes a file manager that should not be reused.
+     */
+    public void discard(CachedFileManager fileManager) {
+        fileManager.close();
+    }
+
+    /**
+     * Returns the options that a file manager must have been used with to be handed out, which are the given options without the values of the per compilation locations.
+     */
+    private static List<String> fileManagerOptionsOf(List<String> options) {
+        List<String> result = new ArrayList<String>(options.size());
+        Iterator<String> iterator = options.iterator();
+        while (iterator.hasNext()) {
+            String option = iterator.next();
+            result.add(option);
+            if (PER_COMPILATION_LOCATION_OPTIONS.contains(option) && iterator.hasNext()) {
+                iterator.next();
+            }
+        }
+        return result;
+    }
+
+    private static Map<File, ArchiveFingerprint> fingerprint(Iterable<File> archives) {
+        Map<File, ArchiveFingerprint> fingerprints = new HashMap<File, ArchiveFingerprint>();
+        for (File archive : archives) {
+            if (archive.isFile()) {
+                fingerprints.put(archive, new ArchiveFingerprint(archive.length(), archive.lastModified()));
+            }
+        }
+        return fingerprints;
+    }
+
+    public static class CachedFileManager {
+        private final Class<?> compilerType;
+        private final Charset charset;
+        private final List<String> options;
+        private final StandardJavaFileManager fileManager;
+        private final Map<File, ArchiveFingerprint> archives = new HashMap<File, ArchiveFingerprint>();
+
+        private CachedFileManager(Class<?> compilerType, Charset charset, List<String> options, StandardJavaFileManager fileManager) {
+            this.compilerType = compilerType;
+            this.charset = charset;
+            this.options = options;
+            this.fileManager = fileManager;
+        }
+
+        public StandardJavaFileManager getFileManager() {
+            return fileManager;
+        }
+
+        private boolean isUpToDate(Map<File, ArchiveFingerprint> fingerprints) {
+            for (Map.Entry<File, ArchiveFingerprint> entry : fingerprints.entrySet()) {
+                ArchiveFingerprint previous = archives.get(entry.getKey());
+                if (previous != null && !previous.equals(entry.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void close() {
+            CompositeStoppable.stoppable(fileManager).stop();
+        }
+    }
+
+    private static class ArchiveFingerprint {
+        private final long length;
+        private final long lastModified;
+
+        ArchiveFingerprint(long length, long lastModified) {
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ArchiveFingerprint that = (ArchiveFingerprint) o;
+            return length == that.length && lastModified == that.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (int) (length ^ (length >>> 32)) + (int) (lastModified ^ (lastModified >>> 32));
+        }
+    }
+}
@@ -20,6 +20,7 @@ import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessorDecla
 import org.gradle.api.internal.tasks.compile.reflect.SourcepathIgnoringProxy;
 import org.gradle.api.tasks.WorkResult;
 import org.gradle.internal.Factory;
+import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.language.base.internal.compile.Compiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,8 +29,10 @@ import javax.inject.Inject;
 import javax.tools.JavaCompiler;
 import javax.tools.JavaFileObject;
 import javax.tools.StandardJavaFileManager;
+import java.io.File;
 import java.io.Serializable;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
@@ -60,18 +63,49 @@ public class JdkJavaCompiler implements Compiler<JavaCompileSpec>, Serializable
         List<String> options = new JavaCompilerArgumentsBuilder(spec).build();
         JavaCompiler compiler = javaHomeBasedJavaCompilerFactory.create();
         MinimalJavaCompileOptions compileOptions = spec.getCompileOptions();
-        StandardJavaFileManager standardFileManager = compiler.getStandardFileManager(null, null, compileOptions.getEncoding() != null ? Charset.forName(compileOptions.getEncoding()) : null);
-        Iterable<? extends JavaFileObject> compilationUnits = standardFileManager.getJavaFileObjectsFromFiles(spec.getSourceFiles());
-        StandardJavaFileManager fileManager = standardFileManager;
-        if (JavaVersion.current().isJava9Compatible() && emptySourcepathIn(options)) {
-            fileManager = (StandardJavaFileManager) SourcepathIgnoringProxy.proxy(standardFileManager, StandardJavaFileManager.class);
+        Charset charset = compileOptions.getEncoding() != null ? Charset.forName(compileOptions.getEncoding()) : null;
+        JavaFileManagerCache.CachedFileManager cachedFileManager = null;
+        StandardJavaFileManager standardFileManager;
+        if (JavaFileManagerCache.isEnabled()) {
+            cachedFileManager = JavaFileManagerCache.getInstance().acquire(compiler, charset, options, getArchives(spec));
+            standardFileManager = cachedFileManager.getFileManager();
+        } else {
+            standardFileManager = compiler.getStandardFileManager(null, null, charset);
         }
-        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, spec.getClasses(), compilationUnits);
+        boolean handedOver = false;
+        try {
+            Iterable<? extends JavaFileObject> compilationUnits = standardFileManager.getJavaFileObjectsFromFiles(spec.getSourceFiles());
+            StandardJavaFileManager fileManager = standardFileManager;
+            if (JavaVersion.current().isJava9Compatible() && emptySourcepathIn(options)) {
+                fileManager = (StandardJavaFileManager) SourcepathIgnoringProxy.proxy(standardFileManager, StandardJavaFileManager.class);
+            }
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, spec.getClasses(), compilationUnits);
+
+            Set<AnnotationProcessorDeclaration> annotationProcessors = spec.getEffectiveAnnotationProcessors();
+            task = new AnnotationProcessingCompileTask(task, annotationProcessors, spec.getAnnotationProcessorPath(), result.getAnnotationProcessingResult());
+            if (cachedFileManager != null) {
+                task = new FileManagerReleasingCompilationTask(task, cachedFileManager, JavaFileManagerCache.getInstance());
+            } else {
+                task = new ResourceCleaningCompilationTask(task, fileManager);
+            }
+            handedOver = true;
+            return task;
+        } finally {
+            if (!handedOver) {
+                // The task that would have closed or released the file manager was not created
+                if (cachedFileManager != null) {
+                    JavaFileManagerCache.getInstance().discard(cachedFileManager);
+                } else {
+                    CompositeStoppable.stoppable(standardFileManager).stop();
+                }
+            }
+        }
+    }
 
-        Set<AnnotationProcessorDeclaration> annotationProcessors = spec.getEffectiveAnnotationProcessors();
-        task = new AnnotationProcessingCompileTask(task, annotationProcessors, spec.getAnnotationProcessorPath(), result.getAnnotationProcessingResult());
-        task = new ResourceCleaningCompilationTask(task, fileManager);
-        return task;
+    private static List<File> getArchives(JavaCompileSpec spec) {
+        List<File> archives = new ArrayList<File>(spec.getCompileClasspath());
+        archives.addAll(spec.getModulePath());
+        return archives;
     }
 
     private static boolean emptySourcepathIn(List<String> options) {
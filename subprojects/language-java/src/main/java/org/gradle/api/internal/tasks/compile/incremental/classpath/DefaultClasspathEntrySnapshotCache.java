@@ -16,21 +16,30 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.classpath;
 
+import com.google.common.util.concurrent.SettableFuture;
 import org.gradle.cache.PersistentIndexedCache;
-import org.gradle.cache.internal.MinimalPersistentCache;
 import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.snapshot.FileSystemSnapshotter;
 
 import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 
+/**
+ * Caches classpath entry snapshots by content hash. When several compile tasks of the build need the same entry at the same time,
+ * only one of them analyzes it and the others wait for its result, which is available to every project as soon as that entry is done.
+ */
 public class DefaultClasspathEntrySnapshotCache implements ClasspathEntrySnapshotCache {
     private final FileSystemSnapshotter fileSystemSnapshotter;
-    private final MinimalPersistentCache<HashCode, ClasspathEntrySnapshotData> cache;
+    private final PersistentIndexedCache<HashCode, ClasspathEntrySnapshotData> cache;
+    private final ConcurrentMap<HashCode, SettableFuture<ClasspathEntrySnapshotData>> inProgress = new ConcurrentHashMap<HashCode, SettableFuture<ClasspathEntrySnapshotData>>();
 
     public DefaultClasspathEntrySnapshotCache(FileSystemSnapshotter fileSystemSnapshotter, PersistentIndexedCache<HashCode, ClasspathEntrySnapshotData> persistentCache) {
         this.fileSystemSnapshotter = fileSystemSnapshotter;
-        cache = new MinimalPersistentCache<HashCode, ClasspathEntrySnapshotData>(persistentCache);
+        this.cache = persistentCache;
     }
 
     @Override
@@ -40,12 +49,49 @@ public class DefaultClasspathEntrySnapshotCache implements ClasspathEntrySnapsho
     }
 
     @Override
-    public ClasspathEntrySnapshot get(File key, final Factory<ClasspathEntrySnapshot> factory) {
+    public ClasspathEntrySnapshot get(File key, Factory<ClasspathEntrySnapshot> factory) {
         HashCode fileContentHash = fileSystemSnapshotter.snapshot(key).getHash();
-        return new ClasspathEntrySnapshot(cache.get(fileContentHash, new Factory<ClasspathEntrySnapshotData>() {
-            public ClasspathEntrySnapshotData create() {
-                return factory.create().getData();
+        return new ClasspathEntrySnapshot(getOrCreate(fileContentHash, factory));
+    }
+
+    private ClasspathEntrySnapshotData getOrCreate(HashCode hash, Factory<ClasspathEntrySnapshot> factory) {
+        ClasspathEntrySnapshotData data = cache.get(hash);
+        if (data != null) {
+            return data;
+        }
+
+        SettableFuture<ClasspathEntrySnapshotData> result = SettableFuture.create();
+        SettableFuture<ClasspathEntrySnapshotData> pending = inProgress.putIfAbsent(hash, result);
+        if (pending != null) {
+            return await(pending);
+        }
+        try {
+            // Another thread may have finished the entry between the lookup above and claiming it
+            data = cache.get(hash);
+            if (data == null) {
+                data = factory.create().getData();
+                cache.put(hash, data);
             }
-        }));
+            result.set(data);
+            return data;
+        } catch (RuntimeException e) {
+            result.setException(e);
+            throw e;
+        } catch (Error e) {
+            result.setException(e);
+            throw e;
+        } finally {
+            inProgress.remove(hash);
+        }
+    }
+
+    private static ClasspathEntrySnapshotData await(SettableFuture<ClasspathEntrySnapshotData> pending) {
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } catch (ExecutionException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        }
     }
 }
@@ -16,8 +16,12 @@
 package org.gradle.api.internal.tasks.compile.incremental.classpath;
 
 import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.file.AbstractFileTreeElement;
 import org.gradle.api.internal.file.FileOperations;
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenciesAnalyzer;
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassAnalysis;
@@ -26,12 +30,18 @@ import org.gradle.internal.IoActions;
 import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.hash.StreamHasher;
+import org.gradle.internal.nativeintegration.filesystem.FileSystem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.Enumeration;
 import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import static org.gradle.internal.FileUtils.hasExtension;
 
@@ -66,20 +76,61 @@ public class DefaultClasspathEntrySnapshotter {
         return new ClasspathEntrySnapshot(new ClasspathEntrySnapshotData(hash, hashes, accumulator.getAnalysis()));
     }
 
-    private void visit(File classpathEntry, Map<String, HashCode> hashes, ClassDependentsAccumulator accumulator) {
+    private void visit(File classpathEntry, Map<String, HashCode> hashes, ClassDependentsAccumulator accumulator) throws IOException {
         if (hasExtension(classpathEntry, ".jar")) {
-            fileOperations.zipTree(classpathEntry).visit(new JarEntryVisitor(accumulator, hashes));
+            visitJar(classpathEntry, hashes, accumulator);
         }
         if (classpathEntry.isDirectory()) {
             fileOperations.fileTree(classpathEntry).visit(new DirectoryEntryVisitor(accumulator, hashes));
         }
     }
 
-    private abstract class EntryVisitor implements FileVisitor {
+    /**
+     * Streams the class entries of the jar straight from the archive. Each entry is inflated only once and the same bytes are used for
+     * hashing and analysis. Unlike a zip tree, this does not sort the entries up front or hash the whole jar to find an extraction directory.
+     */
+    private void visitJar(File jar, Map<String, HashCode> hashes, ClassDependentsAccumulator accumulator) throws IOException {
+        ZipFile zipFile = new ZipFile(jar);
+        try {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory() || !entry.getName().endsWith(".class")) {
+                    continue;
+                }
+                byte[] content;
+                InputStream inputStream = zipFile.getInputStream(entry);
+                try {
+                    content = ByteStreams.toByteArray(inputStream);
+                } finally {
+                    IoActions.closeQuietly(inputStream);
+                }
+                HashCode classFileHash = hasher.hash(new ByteArrayInputStream(content));
+                visitClass(new JarClassEntry(jar, entry, content), classFileHash, hashes, accumulator);
+            }
+        } finally {
+            zipFile.close();
+        }
+    }
+
+    private void visitClass(FileTreeElement classFile, HashCode classFileHash, Map<String, HashCode> hashes, ClassDependentsAccumulator accumulator) {
+        try {
+            ClassAnalysis analysis = analyzer.getClassAnalysis(classFileHash, classFile);
+            accumulator.addClass(analysis);
+            hashes.put(analysis.getClassName(), classFileHash);
+        } catch (Exception e) {
+            accumulator.fullRebuildNeeded(classFile.getName() + " could not be analyzed for incremental compilation. See the debug log for more details");
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Could not analyze " + classFile.getName() + " for incremental compilation", e);
+            }
+        }
+    }
+
+    private class DirectoryEntryVisitor implements FileVisitor {
         private final ClassDependentsAccumulator accumulator;
         private final Map<String, HashCode> hashes;
 
-        public EntryVisitor(ClassDependentsAccumulator accumulator, Map<String, HashCode> hashes) {
+        public DirectoryEntryVisitor(ClassDependentsAccumulator accumulator, Map<String, HashCode> hashes) {
             this.accumulator = accumulator;
             this.hashes = hashes;
         }
@@ -91,51 +142,63 @@ public class DefaultClasspathEntrySnapshotter {
             if (!fileDetails.getName().endsWith(".class")) {
                 return;
             }
+            visitClass(fileDetails, fileHasher.hash(fileDetails), hashes, accumulator);
+        }
+    }
 
-            HashCode classFileHash = getHashCode(fileDetails);
+    /**
+     * A class entry of a jar, backed by the already inflated content. The entry is not extracted, so it can only be read using {@link #open()}.
+     */
+    private static class JarClassEntry extends AbstractFileTreeElement {
+        private final File jar;
+        private final ZipEntry entry;
+        private final byte[] content;
+
+        JarClassEntry(File jar, ZipEntry entry, byte[] content) {
+            super(null);
+            this.jar = jar;
+            this.entry = entry;
+            this.content = content;
+        }
 
-            try {
-                ClassAnalysis analysis = analyzer.getClassAnalysis(classFileHash, fileDetails);
-                accumulator.addClass(analysis);
-                hashes.put(analysis.getClassName(), classFileHash);
-            } catch (Exception e) {
-                accumulator.fullRebuildNeeded(fileDetails.getName() + " could not be analyzed for incremental compilation. See the debug log for more details");
-                if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug("Could not analyze " + fileDetails.getName() + " for incremental compilation", e);
-                }
-            }
+        @Override
+        public String getDisplayName() {
+            return String.format("zip entry %s!%s", jar, entry.getName());
         }
 
-        protected abstract HashCode getHashCode(FileVisitDetails fileDetails);
-    }
+        @Override
+        public File getFile() {
+            throw new UnsupportedOperationException("Cannot get the file of " + getDisplayName() + ", as it is not extracted.");
+        }
 
-    private class JarEntryVisitor extends EntryVisitor {
+        @Override
+        public boolean isDirectory() {
+            return false;
+        }
 
-        public JarEntryVisitor(ClassDependentsAccumulator accumulator, Map<String, HashCode> hashes) {
-            super(accumulator, hashes);
+        @Override
+        public long getLastModified() {
+            return entry.getTime();
         }
 
         @Override
-        protected HashCode getHashCode(FileVisitDetails fileDetails) {
-            InputStream inputStream = fileDetails.open();
-            try {
-                return hasher.hash(inputStream);
-            } finally {
-                IoActions.closeQuietly(inputStream);
-            }
+        public long getSize() {
+            return content.length;
         }
-    }
 
-    private class DirectoryEntryVisitor extends EntryVisitor {
+        @Override
+        public InputStream open() {
+            return new ByteArrayInputStream(content);
+        }
 
-        public DirectoryEntryVisitor(ClassDependentsAccumulator accumulator, Map<String, HashCode> hashes) {
-            super(accumulator, hashes);
+        @Override
+        public RelativePath getRelativePath() {
+            return RelativePath.parse(true, entry.getName());
         }
 
         @Override
-        protected HashCode getHashCode(FileVisitDetails fileDetails) {
-            return fileHasher.hash(fileDetails);
+        public int getMode() {
+            return FileSystem.DEFAULT_FILE_MODE;
         }
     }
-
 }
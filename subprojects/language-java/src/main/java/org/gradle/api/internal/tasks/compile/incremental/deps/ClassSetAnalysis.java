@@ -110,8 +110,14 @@ public class ClassSetAnalysis {
 
         Set<String> resultClasses = new HashSet<String>();
         Set<GeneratedResource> resultResources = new HashSet<GeneratedResource>(resourcesDependingOnAllOthers);
-        recurseDependentClasses(new HashSet<String>(), resultClasses, resultResources, deps.getDependentClasses());
-        recurseDependentClasses(new HashSet<String>(), resultClasses, resultResources, classesDependingOnAllOthers);
+        if (classDependenciesFromAnnotationProcessing.isEmpty() && resourceDependenciesFromAnnotationProcessing.isEmpty()) {
+            // The dependency graph is not extended by annotation processing, so it can be traversed directly
+            classAnalysis.collectTransitiveDependents(deps.getDependentClasses(), resultClasses);
+            classAnalysis.collectTransitiveDependents(classesDependingOnAllOthers, resultClasses);
+        } else {
+            recurseDependentClasses(new HashSet<String>(), resultClasses, resultResources, deps.getDependentClasses());
+            recurseDependentClasses(new HashSet<String>(), resultClasses, resultResources, classesDependingOnAllOthers);
+        }
         resultClasses.remove(className);
 
         return DependentsSet.dependents(resultClasses, resultResources);
@@ -14,11 +14,11 @@
  * limitations under the License.
  */
 
+
 package org.gradle.api.internal.tasks.compile.incremental.deps;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Sets;
 import it.unimi.dsi.fastutil.ints.IntSet;
 import it.unimi.dsi.fastutil.ints.IntSets;
 import org.apache.commons.lang.StringUtils;
@@ -28,22 +28,94 @@ import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.internal.serialize.IntSetSerializer;
 
-import java.io.IOException;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
+/**
+ * The dependency graph of a set of classes.
+ *
+ * <p>Class names are stored once, in a sorted array, and classes are referred to by their index in this array. The dependents of all classes are stored
+ * in a single array of class indexes, with an array of offsets to find the dependents of a given class.</p>
+ */
 public class ClassSetAnalysisData {
     public static final String PACKAGE_INFO = "package-info";
+    private static final int[] NO_CLASSES = new int[0];
 
-    private final Set<String> classes;
-    private final Map<String, DependentsSet> dependents;
+    private final String[] classNames;
+    private final BitSet classes;
+    private final int[] dependentsOffsets;
+    private final int[] dependents;
+    private final BitSet dependencyToAll;
+    private final Map<Integer, String> dependencyToAllReasons;
     private final Map<String, IntSet> classesToConstants;
     private final String fullRebuildCause;
+    private volatile Map<String, int[]> classesByPackage;
 
     public ClassSetAnalysisData(Set<String> classes, Map<String, DependentsSet> dependents, Map<String, IntSet> classesToConstants, String fullRebuildCause) {
+        Set<String> names = new TreeSet<String>(classes);
+        for (Map.Entry<String, DependentsSet> entry : dependents.entrySet()) {
+            names.add(entry.getKey());
+            if (!entry.getValue().isDependencyToAll()) {
+                names.addAll(entry.getValue().getDependentClasses());
+            }
+        }
+        this.classNames = names.toArray(new String[0]);
+        this.classes = new BitSet(classNames.length);
+        for (String className : classes) {
+            this.classes.set(indexOf(className));
+        }
+
+        int[][] dependentsById = new int[classNames.length][];
+        this.dependencyToAll = new BitSet(classNames.length);
+        this.dependencyToAllReasons = new HashMap<Integer, String>();
+        int dependentsCount = 0;
+        for (Map.Entry<String, DependentsSet> entry : dependents.entrySet()) {
+            int id = indexOf(entry.getKey());
+            DependentsSet dependentsSet = entry.getValue();
+            if (dependentsSet.isDependencyToAll()) {
+                dependencyToAll.set(id);
+                if (dependentsSet.getDescription() != null) {
+                    dependencyToAllReasons.put(id, dependentsSet.getDescription());
+                }
+                continue;
+            }
+            int[] ids = new int[dependentsSet.getDependentClasses().size()];
+            int i = 0;
+            for (String dependent : dependentsSet.getDependentClasses()) {
+                ids[i++] = indexOf(dependent);
+            }
+            Arrays.sort(ids);
+            dependentsById[id] = ids;
+            dependentsCount += ids.length;
+        }
+        this.dependentsOffsets = new int[classNames.length + 1];
+        this.dependents = new int[dependentsCount];
+        int offset = 0;
+        for (int id = 0; id < classNames.length; id++) {
+            dependentsOffsets[id] = offset;
+            int[] ids = dependentsById[id];
+            if (ids != null) {
+                System.arraycopy(ids, 0, this.dependents, offset, ids.length);
+                offset += ids.length;
+            }
+        }
+        dependentsOffsets[classNames.length] = offset;
+        this.classesToConstants = classesToConstants;
+        this.fullRebuildCause = fullRebuildCause;
+    }
+
+    private ClassSetAnalysisData(String[] classNames, BitSet classes, int[] dependentsOffsets, int[] dependents, BitSet dependencyToAll, Map<Integer, String> dependencyToAllReasons, Map<String, IntSet> classesToConstants, String fullRebuildCause) {
+        this.classNames = classNames;
         this.classes = classes;
+        this.dependentsOffsets = dependentsOffsets;
         this.dependents = dependents;
+        this.dependencyToAll = dependencyToAll;
+        this.dependencyToAllReasons = dependencyToAllReasons;
         this.classesToConstants = classesToConstants;
         this.fullRebuildCause = fullRebuildCause;
     }
@@ -53,22 +125,96 @@ public class ClassSetAnalysisData {
             return DependentsSet.dependencyToAll(fullRebuildCause);
         }
         if (className.endsWith(PACKAGE_INFO)) {
-            String packageName = className.equals(PACKAGE_INFO) ? null : StringUtils.removeEnd(className, "." + PACKAGE_INFO);
-            return getDependentsOfPackage(packageName);
+            return DependentsSet.dependentClasses(toClassNames(getClassesOfPackage(className)));
         }
-        DependentsSet dependentsSet = dependents.get(className);
-        return dependentsSet == null ? DependentsSet.empty() : dependentsSet;
+        int id = indexOf(className);
+        if (id < 0) {
+            return DependentsSet.empty();
+        }
+        if (dependencyToAll.get(id)) {
+            String reason = dependencyToAllReasons.get(id);
+            return reason == null ? DependentsSet.dependencyToAll() : DependentsSet.dependencyToAll(reason);
+        }
+        int start = dependentsOffsets[id];
+        int end = dependentsOffsets[id + 1];
+        if (start == end) {
+            return DependentsSet.empty();
+        }
+        return DependentsSet.dependentClasses(toClassNames(Arrays.copyOfRange(dependents, start, end)));
     }
 
-    private DependentsSet getDependentsOfPackage(String packageName) {
-        Set<String> typesInPackage = Sets.newHashSet();
-        for (String type : classes) {
-            int i = type.lastIndexOf(".");
-            if (i < 0 && packageName == null || i > 0 && type.substring(0, i).equals(packageName)) {
-                typesInPackage.add(type);
+    /**
+     * Adds the given classes and all of their dependents, transitively, to the given result. Nested classes are followed but not added to the result.
+     * The dependents of a class that is a dependency to all are not followed.
+     */
+    public void collectTransitiveDependents(Iterable<String> classNames, Set<String> result) {
+        BitSet visited = new BitSet(this.classNames.length);
+        int[] stack = new int[16];
+        int stackSize = 0;
+        for (String className : classNames) {
+            int id = indexOf(className);
+            if (id >= 0) {
+                if (!visited.get(id)) {
+                    visited.set(id);
+                    stack = push(stack, stackSize++, id);
+                }
+                continue;
             }
+            // Not part of the graph, so the only possible dependents are the classes of a package
+            addClassName(className, result);
+            if (fullRebuildCause == null && className.endsWith(PACKAGE_INFO)) {
+                for (int member : getClassesOfPackage(className)) {
+                    if (!visited.get(member)) {
+                        visited.set(member);
+                        stack = push(stack, stackSize++, member);
+                    }
+                }
+            }
+        }
+        while (stackSize > 0) {
+            int id = stack[--stackSize];
+            String className = this.classNames[id];
+            addClassName(className, result);
+            if (fullRebuildCause != null) {
+                continue;
+            }
+            int[] next;
+            int start;
+            int end;
+            if (className.endsWith(PACKAGE_INFO)) {
+                next = getClassesOfPackage(className);
+                start = 0;
+                end = next.length;
+            } else if (dependencyToAll.get(id)) {
+                continue;
+            } else {
+                next = dependents;
+                start = dependentsOffsets[id];
+                end = dependentsOffsets[id + 1];
+            }
+            for (int i = start; i < end; i++) {
+                int dependent = next[i];
+                if (!visited.get(dependent)) {
+                    visited.set(dependent);
+                    stack = push(stack, stackSize++, dependent);
+                }
+            }
+        }
+    }
+
+    private static void addClassName(String className, Set<String> result) {
+        if (!className.contains("$")) {
+            result.add(className);
+        }
+    }
+
+    private static int[] push(int[] stack, int index, int value) {
+        int[] target = stack;
+        if (index == stack.length) {
+            target = Arrays.copyOf(stack, stack.length * 2);
         }
-        return DependentsSet.dependentClasses(typesInPackage);
+        target[index] = value;
+        return target;
     }
 
     public IntSet getConstants(String className) {
@@ -79,6 +225,50 @@ public class ClassSetAnalysisData {
         return integers;
     }
 
+    private int indexOf(String className) {
+        return Arrays.binarySearch(classNames, className);
+    }
+
+    private Set<String> toClassNames(int[] ids) {
+        ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+        for (int id : ids) {
+            builder.add(classNames[id]);
+        }
+        return builder.build();
+    }
+
+    private int[] getClassesOfPackage(String packageInfoClassName) {
+        String packageName = packageInfoClassName.equals(PACKAGE_INFO) ? "" : StringUtils.removeEnd(packageInfoClassName, "." + PACKAGE_INFO);
+        int[] members = getClassesByPackage().get(packageName);
+        return members == null ? NO_CLASSES : members;
+    }
+
+    private Map<String, int[]> getClassesByPackage() {
+        Map<String, int[]> result = classesByPackage;
+        if (result == null) {
+            Map<String, int[]> packages = new HashMap<String, int[]>();
+            for (int id = classes.nextSetBit(0); id >= 0; id = classes.nextSetBit(id + 1)) {
+                String className = classNames[id];
+                int i = className.lastIndexOf('.');
+                if (i == 0) {
+                    continue;
+                }
+                String packageName = i < 0 ? "" : className.substring(0, i);
+                int[] members = packages.get(packageName);
+                if (members == null) {
+                    members = new int[] {id};
+                } else {
+                    members = Arrays.copyOf(members, members.length + 1);
+                    members[members.length - 1] = id;
+                }
+                packages.put(packageName, members);
+            }
+            result = packages;
+            classesByPackage = result;
+        }
+        return result;
+    }
+
     public static class Serializer extends AbstractSerializer<ClassSetAnalysisData> {
 
         private final StringInterner interner;
@@ -89,105 +279,120 @@ public class ClassSetAnalysisData {
 
         @Override
         public ClassSetAnalysisData read(Decoder decoder) throws Exception {
-            Map<Integer, String> classNameMap = new HashMap<Integer, String>();
-
             int count = decoder.readSmallInt();
-            ImmutableSet.Builder<String> classes = ImmutableSet.builder();
+            String[] classNames = new String[count];
+            String previous = "";
             for (int i = 0; i < count; i++) {
-                classes.add(readClassName(decoder, classNameMap));
+                int commonPrefix = decoder.readSmallInt();
+                String className = interner.intern(previous.substring(0, commonPrefix) + decoder.readString());
+                classNames[i] = className;
+                previous = className;
             }
 
-            count = decoder.readSmallInt();
-            ImmutableMap.Builder<String, DependentsSet> dependentsBuilder = ImmutableMap.builder();
-            for (int i = 0; i < count; i++) {
-                String className = readClassName(decoder, classNameMap);
-                DependentsSet dependents = readDependentsSet(decoder, classNameMap);
-                dependentsBuilder.put(className, dependents);
+            BitSet classes = readIds(decoder, count);
+
+            int[] dependentsOffsets = new int[count + 1];
+            int[] dependents = new int[decoder.readSmallInt()];
+            int offset = 0;
+            for (int id = 0; id < count; id++) {
+                dependentsOffsets[id] = offset;
+                int dependentsCount = decoder.readSmallInt();
+                int dependent = 0;
+                for (int i = 0; i < dependentsCount; i++) {
+                    dependent += decoder.readSmallInt();
+                    dependents[offset++] = dependent;
+                }
+            }
+            dependentsOffsets[count] = offset;
+
+            BitSet dependencyToAll = readIds(decoder, count);
+            int reasonsCount = decoder.readSmallInt();
+            Map<Integer, String> dependencyToAllReasons = new HashMap<Integer, String>();
+            for (int i = 0; i < reasonsCount; i++) {
+                dependencyToAllReasons.put(decoder.readSmallInt(), decoder.readString());
             }
 
             count = decoder.readSmallInt();
             ImmutableMap.Builder<String, IntSet> classesToConstantsBuilder = ImmutableMap.builder();
             for (int i = 0; i < count; i++) {
-                String className = readClassName(decoder, classNameMap);
+                String className = interner.intern(decoder.readString());
                 IntSet constants = IntSetSerializer.INSTANCE.read(decoder);
                 classesToConstantsBuilder.put(className, constants);
             }
 
             String fullRebuildCause = decoder.readNullableString();
 
-            return new ClassSetAnalysisData(classes.build(), dependentsBuilder.build(), classesToConstantsBuilder.build(), fullRebuildCause);
+            return new ClassSetAnalysisData(classNames, classes, dependentsOffsets, dependents, dependencyToAll, dependencyToAllReasons, classesToConstantsBuilder.build(), fullRebuildCause);
         }
 
         @Override
         public void write(Encoder encoder, ClassSetAnalysisData value) throws Exception {
-            Map<String, Integer> classNameMap = new HashMap<String, Integer>();
-            encoder.writeSmallInt(value.classes.size());
-            for (String clazz : value.classes) {
-                writeClassName(clazz, classNameMap, encoder);
+            // Class names are sorted, so only write the part of each name that differs from the previous one
+            encoder.writeSmallInt(value.classNames.length);
+            String previous = "";
+            for (String className : value.classNames) {
+                int commonPrefix = commonPrefixLength(previous, className);
+                encoder.writeSmallInt(commonPrefix);
+                encoder.writeString(className.substring(commonPrefix));
+                previous = className;
             }
 
-            encoder.writeSmallInt(value.dependents.size());
-            for (Map.Entry<String, DependentsSet> entry : value.dependents.entrySet()) {
-                writeClassName(entry.getKey(), classNameMap, encoder);
-                writeDependentSet(entry.getValue(), classNameMap, encoder);
+            writeIds(encoder, value.classes);
+
+            encoder.writeSmallInt(value.dependents.length);
+            for (int id = 0; id < value.classNames.length; id++) {
+                int start = value.dependentsOffsets[id];
+                int end = value.dependentsOffsets[id + 1];
+                encoder.writeSmallInt(end - start);
+                int previousDependent = 0;
+                for (int i = start; i < end; i++) {
+                    encoder.writeSmallInt(value.dependents[i] - previousDependent);
+                    previousDependent = value.dependents[i];
+                }
+            }
+
+            writeIds(encoder, value.dependencyToAll);
+            encoder.writeSmallInt(value.dependencyToAllReasons.size());
+            for (Map.Entry<Integer, String> entry : value.dependencyToAllReasons.entrySet()) {
+                encoder.writeSmallInt(entry.getKey());
+                encoder.writeString(entry.getValue());
             }
 
             encoder.writeSmallInt(value.classesToConstants.size());
             for (Map.Entry<String, IntSet> entry : value.classesToConstants.entrySet()) {
-                writeClassName(entry.getKey(), classNameMap, encoder);
+                encoder.writeString(entry.getKey());
                 IntSetSerializer.INSTANCE.write(encoder, entry.getValue());
             }
             encoder.writeNullableString(value.fullRebuildCause);
         }
 
-        private DependentsSet readDependentsSet(Decoder decoder, Map<Integer, String> classNameMap) throws IOException {
-            byte b = decoder.readByte();
-            if (b == 1) {
-                return DependentsSet.dependencyToAll(decoder.readNullableString());
-            }
+        private static BitSet readIds(Decoder decoder, int classCount) throws Exception {
+            BitSet ids = new BitSet(classCount);
             int count = decoder.readSmallInt();
-            ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+            int id = 0;
             for (int i = 0; i < count; i++) {
-                builder.add(readClassName(decoder, classNameMap));
+                id += decoder.readSmallInt();
+                ids.set(id);
             }
-            return DependentsSet.dependentClasses(builder.build());
+            return ids;
         }
 
-        private void writeDependentSet(DependentsSet dependentsSet, Map<String, Integer> classNameMap, Encoder encoder) throws IOException {
-            if (dependentsSet.isDependencyToAll()) {
-                encoder.writeByte((byte) 1);
-                encoder.writeNullableString(dependentsSet.getDescription());
-            } else {
-                encoder.writeByte((byte) 2);
-                encoder.writeSmallInt(dependentsSet.getDependentClasses().size());
-                for (String className : dependentsSet.getDependentClasses()) {
-                    writeClassName(className, classNameMap, encoder);
-                }
-            }
-        }
-
-        private String readClassName(Decoder decoder, Map<Integer, String> classNameMap) throws IOException {
-            int id = decoder.readSmallInt();
-            if (id == 0) {
-                id = decoder.readSmallInt();
-                String className = interner.intern(decoder.readString());
-                classNameMap.put(id, className);
-                return className;
+        private static void writeIds(Encoder encoder, BitSet ids) throws Exception {
+            encoder.writeSmallInt(ids.cardinality());
+            int previous = 0;
+            for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+                encoder.writeSmallInt(id - previous);
+                previous = id;
             }
-            return classNameMap.get(id);
         }
 
-        private void writeClassName(String className, Map<String, Integer> classIdMap, Encoder encoder) throws IOException {
-            Integer id = classIdMap.get(className);
-            if (id == null) {
-                id = classIdMap.size() + 1;
-                classIdMap.put(className, id);
-                encoder.writeSmallInt(0);
-                encoder.writeSmallInt(id);
-                encoder.writeString(className);
-            } else {
-                encoder.writeSmallInt(id);
+        private static int commonPrefixLength(String a, String b) {
+            int max = Math.min(a.length(), b.length());
+            int i = 0;
+            while (i < max && a.charAt(i) == b.charAt(i)) {
+                i++;
             }
+            return i;
         }
     }
 }
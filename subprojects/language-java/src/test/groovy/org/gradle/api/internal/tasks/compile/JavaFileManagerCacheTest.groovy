@@ -0,0 +1,167 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import javax.tools.JavaCompiler
+import javax.tools.StandardJavaFileManager
+import java.nio.charset.Charset
+
+class JavaFileManagerCacheTest extends Specification {
+    @Rule TestNameTestDirectoryProvider temp = new TestNameTestDirectoryProvider()
+
+    def compiler = Mock(JavaCompiler)
+    def cache = new JavaFileManagerCache(2)
+    def jar = temp.file("lib.jar").createFile()
+
+    def "reuses released file manager"() {
+        def fileManager = Mock(StandardJavaFileManager)
+
+        when:
+        def first = cache.acquire(compiler, null, [], [jar])
+        cache.release(first)
+        def second = cache.acquire(compiler, null, [], [jar])
+
+        then:
+        second.is(first)
+        second.fileManager == fileManager
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager
+        0 * fileManager._
+    }
+
+    def "does not hand out file manager that is in use"() {
+        when:
+        def first = cache.acquire(compiler, null, [], [jar])
+        def second = cache.acquire(compiler, null, [], [jar])
+
+        then:
+        !second.is(first)
+        2 * compiler.getStandardFileManager(null, null, null) >> Mock(StandardJavaFileManager)
+    }
+
+    def "does not reuse file manager for different encoding"() {
+        when:
+        cache.release(cache.acquire(compiler, null, [], [jar]))
+        cache.acquire(compiler, Charset.forName("UTF-8"), [], [jar])
+
+        then:
+        1 * compiler.getStandardFileManager(null, null, null) >> Mock(StandardJavaFileManager)
+        1 * compiler.getStandardFileManager(null, null, Charset.forName("UTF-8")) >> Mock(StandardJavaFileManager)
+    }
+
+    def "closes file manager that has seen a changed archive"() {
+        def stale = Mock(StandardJavaFileManager)
+        def fresh = Mock(StandardJavaFileManager)
+
+        given:
+        compiler.getStandardFileManager(null, null, null) >>> [stale, fresh]
+        cache.release(cache.acquire(compiler, null, [], [jar]))
+        jar << "changed"
+
+        when:
+        def result = cache.acquire(compiler, null, [], [jar])
+
+        then:
+        result.fileManager == fresh
+        1 * stale.close()
+    }
+
+    def "reuses file manager for other archives"() {
+        def other = temp.file("other.jar").createFile()
+        def fileManager = Mock(StandardJavaFileManager)
+
+        given:
+        compiler.getStandardFileManager(null, null, null) >> fileManager
+        cache.release(cache.acquire(compiler, null, [], [jar]))
+
+        when:
+        def result = cache.acquire(compiler, null, [], [jar, other])
+
+        then:
+        result.fileManager == fileManager
+    }
+
+    def "closes least recently used file managers beyond the limit"() {
+        def fileManagers = [Mock(StandardJavaFileManager), Mock(StandardJavaFileManager), Mock(StandardJavaFileManager)]
+        compiler.getStandardFileManager(null, null, null) >>> fileManagers
+        def acquired = (0..2).collect { cache.acquire(compiler, null, [], [jar]) }
+
+        when:
+        acquired.each { cache.release(it) }
+
+        then:
+        1 * fileManagers[0].close()
+        0 * fileManagers[1].close()
+        0 * fileManagers[2].close()
+    }
+
+    def "closes discarded file manager"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        compiler.getStandardFileManager(null, null, null) >> fileManager
+
+        when:
+        cache.discard(cache.acquire(compiler, null, [], [jar]))
+
+        then:
+        1 * fileManager.close()
+    }
+
+    def "reuses file manager for compilation with different per compilation locations"() {
+        def fileManager = Mock(StandardJavaFileManager)
+
+        given:
+        compiler.getStandardFileManager(null, null, null) >> fileManager
+        cache.release(cache.acquire(compiler, null, ["-d", "a/classes", "-s", "a/generated", "-classpath", "a.jar"], [jar]))
+
+        when:
+        def result = cache.acquire(compiler, null, ["-d", "b/classes", "-s", "b/generated", "-classpath", "b.jar"], [jar])
+
+        then:
+        result.fileManager == fileManager
+    }
+
+    def "does not reuse file manager for compilation that does not set a location set by an earlier compilation"() {
+        when:
+        cache.release(cache.acquire(compiler, null, ["-d", "a/classes", "-s", "a/generated"], [jar]))
+        cache.acquire(compiler, null, ["-d", "b/classes"], [jar])
+
+        then:
+        2 * compiler.getStandardFileManager(null, null, null) >> Mock(StandardJavaFileManager)
+    }
+
+    def "does not reuse file manager for compilation with different options"() {
+        when:
+        cache.release(cache.acquire(compiler, null, options, [jar]))
+        cache.acquire(compiler, null, otherOptions, [jar])
+
+        then:
+        2 * compiler.getStandardFileManager(null, null, null) >> Mock(StandardJavaFileManager)
+
+        where:
+        options                              | otherOptions
+        ["-bootclasspath", "a.jar"]          | []
+        ["-bootclasspath", "a.jar"]          | ["-bootclasspath", "b.jar"]
+        ["-extdirs", "ext"]                  | []
+        ["-processorpath", "processor.jar"]  | []
+        ["-h", "headers"]                    | []
+        ["--release", "8"]                   | []
+        ["--release", "8"]                   | ["--release", "11"]
+    }
+}
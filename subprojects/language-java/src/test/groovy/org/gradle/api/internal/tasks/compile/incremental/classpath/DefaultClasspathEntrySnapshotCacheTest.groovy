@@ -0,0 +1,95 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.incremental.classpath
+
+import org.gradle.cache.PersistentIndexedCache
+import org.gradle.internal.Factory
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot
+import org.gradle.internal.snapshot.FileSystemSnapshotter
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
+
+class DefaultClasspathEntrySnapshotCacheTest extends ConcurrentSpec {
+    def file = new File("lib.jar")
+    def hash = HashCode.fromInt(123)
+    def fileSystemSnapshotter = Stub(FileSystemSnapshotter) {
+        snapshot(file) >> Stub(FileSystemLocationSnapshot) {
+            getHash() >> hash
+        }
+    }
+    def persistentCache = Mock(PersistentIndexedCache)
+    def cache = new DefaultClasspathEntrySnapshotCache(fileSystemSnapshotter, persistentCache)
+
+    def "returns cached snapshot without creating it"() {
+        def data = Stub(ClasspathEntrySnapshotData)
+        def factory = Mock(Factory)
+
+        when:
+        def snapshot = cache.get(file, factory)
+
+        then:
+        snapshot.data == data
+        1 * persistentCache.get(hash) >> data
+        0 * factory._
+    }
+
+    def "creates and stores snapshot when not cached"() {
+        def data = Stub(ClasspathEntrySnapshotData)
+
+        when:
+        def snapshot = cache.get(file, { new ClasspathEntrySnapshot(data) } as Factory)
+
+        then:
+        snapshot.data == data
+        2 * persistentCache.get(hash) >> null
+        1 * persistentCache.put(hash, data)
+    }
+
+    def "concurrent requests for the same entry share a single snapshot"() {
+        def data = Stub(ClasspathEntrySnapshotData)
+        def created = new CopyOnWriteArrayList()
+        def results = new CopyOnWriteArrayList()
+        def factory = {
+            created << Thread.currentThread()
+            instant.creating
+            thread.blockUntil.waiting
+            new ClasspathEntrySnapshot(data)
+        } as Factory
+        def entries = new ConcurrentHashMap()
+        persistentCache.get(hash) >> { entries[hash] }
+        persistentCache.put(hash, _) >> { key, value -> entries[key] = value }
+
+        when:
+        async {
+            start {
+                results << cache.get(file, factory).data
+            }
+            start {
+                thread.blockUntil.creating
+                instant.waiting
+                results << cache.get(file, factory).data
+            }
+        }
+
+        then:
+        created.size() == 1
+        results == [data, data]
+    }
+}
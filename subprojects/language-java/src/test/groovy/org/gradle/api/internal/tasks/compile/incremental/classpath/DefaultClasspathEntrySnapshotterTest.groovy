@@ -87,4 +87,53 @@ class DefaultClasspathEntrySnapshotterTest extends Specification {
         snapshot.hashes == ["Foo": f1Hash, "com.Foo2": f2Hash]
         snapshot.classAnalysis
     }
+
+    def "creates snapshot of a jar with classes"() {
+        def dir = temp.createDir("classes")
+        dir.file("Foo.class").text = "foo"
+        dir.file("com/Foo2.class").text = "foo2"
+        dir.file("com/app.properties").text = "app"
+        def jar = temp.file("foo.jar")
+        dir.zipTo(jar)
+        def f1Hash = HashCode.fromInt(1)
+        def f2Hash = HashCode.fromInt(2)
+
+        when:
+        def snapshot = snapshotter.createSnapshot(HashCode.fromInt(123), jar)
+
+        then:
+        2 * streamHasher.hash(_) >> { InputStream input -> input.text == "foo" ? f1Hash : f2Hash }
+        1 * classDependenciesAnalyzer.getClassAnalysis(f1Hash, { it.name == "Foo.class" && it.open().text == "foo" }) >> Stub(ClassAnalysis) {
+            getClassName() >> "Foo"
+        }
+        1 * classDependenciesAnalyzer.getClassAnalysis(f2Hash, { it.path == "com/Foo2.class" && it.open().text == "foo2" }) >> Stub(ClassAnalysis) {
+            getClassName() >> "com.Foo2"
+        }
+        0 * _._
+
+        and:
+        snapshot.hashes == ["Foo": f1Hash, "com.Foo2": f2Hash]
+        snapshot.classAnalysis
+    }
+
+    def "class entries of a jar can be extracted to a file"() {
+        def dir = temp.createDir("classes")
+        dir.file("com/Foo.class").text = "foo"
+        def jar = temp.file("foo.jar")
+        dir.zipTo(jar)
+        def hash = HashCode.fromInt(1)
+
+        when:
+        def snapshot = snapshotter.createSnapshot(HashCode.fromInt(123), jar)
+
+        then:
+        1 * streamHasher.hash(_) >> hash
+        1 * classDependenciesAnalyzer.getClassAnalysis(hash, { it.file.name == "Foo.class" && it.file.text == "foo" }) >> Stub(ClassAnalysis) {
+            getClassName() >> "com.Foo"
+        }
+        0 * _._
+
+        and:
+        snapshot.hashes == ["com.Foo": hash]
+    }
 }
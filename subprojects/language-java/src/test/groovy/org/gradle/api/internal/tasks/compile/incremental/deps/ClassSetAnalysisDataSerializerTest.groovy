@@ -34,9 +34,9 @@ class ClassSetAnalysisDataSerializerTest extends Specification {
 
     def "serializes"() {
         def data = new ClassSetAnalysisData(["A", "B", "C", "D"] as Set,
-            ["A": dependentClasses("B", "C"), "B": dependentClasses("C"), "C": dependentClasses(), "D": dependencyToAll(),],
-            [C: new IntOpenHashSet([1, 2]) as IntSet, D: IntSets.EMPTY_SET]
-            ,"Because"
+            ["A": dependentClasses("B", "C"), "B": dependentClasses("C"), "C": dependentClasses(), "D": dependencyToAll(), "F": dependencyToAll("F changed")],
+            [C: new IntOpenHashSet([1, 2]) as IntSet, D: IntSets.EMPTY_SET],
+            null
         )
         def os = new ByteArrayOutputStream()
         def e = new OutputStreamBackedEncoder(os)
@@ -46,15 +46,45 @@ class ClassSetAnalysisDataSerializerTest extends Specification {
         ClassSetAnalysisData read = serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(os.toByteArray())))
 
         then:
-        read.dependents.keySet() == data.dependents.keySet()
-
-        ["A", "B", "C"].each {
-            assert read.dependents[it].dependentClasses == data.dependents[it].dependentClasses
-            assert read.dependents[it].dependencyToAll == data.dependents[it].dependencyToAll
+        ["A", "B", "C", "E"].each {
+            assert read.getDependents(it).dependentClasses == data.getDependents(it).dependentClasses
+            assert read.getDependents(it).dependencyToAll == data.getDependents(it).dependencyToAll
         }
 
-        read.dependents["D"].dependencyToAll
-        read.classesToConstants == [C: [1,2] as Set, D: [] as Set]
-        read.fullRebuildCause == "Because"
+        read.getDependents("D").dependencyToAll
+        read.getDependents("F").dependencyToAll
+        read.getDependents("F").description == "F changed"
+        read.getConstants("C") == [1, 2] as Set
+        read.getConstants("D") == [] as Set
+    }
+
+    def "serializes full rebuild cause"() {
+        def data = new ClassSetAnalysisData(["A"] as Set, [:], [:], "Because")
+        def os = new ByteArrayOutputStream()
+        def e = new OutputStreamBackedEncoder(os)
+
+        when:
+        serializer.write(e, data)
+        ClassSetAnalysisData read = serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(os.toByteArray())))
+
+        then:
+        read.getDependents("A").dependencyToAll
+        read.getDependents("A").description == "Because"
+    }
+
+    def "serializes classes of packages"() {
+        def data = new ClassSetAnalysisData(["org.a.A", "org.a.B", "org.a.sub.C", "D"] as Set, [:], [:], null)
+        def os = new ByteArrayOutputStream()
+        def e = new OutputStreamBackedEncoder(os)
+
+        when:
+        serializer.write(e, data)
+        ClassSetAnalysisData read = serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(os.toByteArray())))
+
+        then:
+        read.getDependents("org.a.package-info").dependentClasses == ["org.a.A", "org.a.B"] as Set
+        read.getDependents("org.a.sub.package-info").dependentClasses == ["org.a.sub.C"] as Set
+        read.getDependents("package-info").dependentClasses == ["D"] as Set
+        read.getDependents("org.b.package-info").dependentClasses.empty
     }
 }
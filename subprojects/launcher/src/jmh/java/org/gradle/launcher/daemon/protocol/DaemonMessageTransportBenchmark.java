@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.launcher.daemon.protocol;
+
+import org.gradle.api.logging.LogLevel;
+import org.gradle.internal.logging.events.LogEvent;
+import org.gradle.internal.operations.OperationIdentifier;
+import org.gradle.internal.remote.internal.KryoBackedMessageSerializer;
+import org.gradle.internal.remote.internal.RemoteConnection;
+import org.gradle.internal.remote.internal.inet.SocketConnection;
+import org.gradle.internal.serialize.Serializers;
+import org.gradle.internal.serialize.StatefulSerializer;
+import org.gradle.launcher.cli.action.BuildActionSerializer;
+import org.gradle.tooling.internal.provider.events.DefaultOperationDescriptor;
+import org.gradle.tooling.internal.provider.events.DefaultOperationFinishedProgressEvent;
+import org.gradle.tooling.internal.provider.events.DefaultSuccessResult;
+import org.gradle.tooling.internal.provider.events.DefaultTestDescriptor;
+import org.gradle.tooling.internal.provider.events.DefaultTestStartedProgressEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the number of events per second that the daemon can send to a client, over a loopback connection.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@State(Scope.Benchmark)
+@OperationsPerInvocation(DaemonMessageTransportBenchmark.EVENTS_PER_INVOCATION)
+public class DaemonMessageTransportBenchmark {
+    static final int EVENTS_PER_INVOCATION = 1024;
+
+    /**
+     * The kind of event to send: a log event, a build operation progress event with a compact encoding, or a test progress event that uses Java serialization.
+     */
+    @Param({"log", "operation", "test"})
+    String eventType;
+
+    /**
+     * The number of events sent before the connection is flushed.
+     */
+    @Param({"1", "256"})
+    int batchSize;
+
+    private final AtomicLong received = new AtomicLong();
+    private RemoteConnection<Message> daemonConnection;
+    private RemoteConnection<Message> clientConnection;
+    private Thread receiver;
+    private Message message;
+    private long sent;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        StatefulSerializer<Message> serializer = Serializers.stateful(DaemonMessageSerializer.create(BuildActionSerializer.create()));
+        ServerSocketChannel serverSocket = ServerSocketChannel.open();
+        try {
+            serverSocket.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            SocketChannel clientSocket = SocketChannel.open(serverSocket.socket().getLocalSocketAddress());
+            SocketChannel daemonSocket = serverSocket.accept();
+            daemonConnection = new SocketConnection<Message>(daemonSocket, new KryoBackedMessageSerializer(), serializer);
+            clientConnection = new SocketConnection<Message>(clientSocket, new KryoBackedMessageSerializer(), serializer);
+        } finally {
+            serverSocket.close();
+        }
+
+        receiver = new Thread() {
+            @Override
+            public void run() {
+                while (clientConnection.receive() != null) {
+                    received.incrementAndGet();
+                }
+            }
+        };
+        receiver.start();
+        message = createMessage();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        daemonConnection.stop();
+        receiver.join();
+        clientConnection.stop();
+    }
+
+    @Benchmark
+    public void sendEvents() {
+        for (int i = 1; i <= EVENTS_PER_INVOCATION; i++) {
+            daemonConnection.dispatch(message);
+            if (i % batchSize == 0) {
+                daemonConnection.flush();
+            }
+        }
+        daemonConnection.flush();
+        sent += EVENTS_PER_INVOCATION;
+        while (received.get() < sent) {
+            Thread.yield();
+        }
+    }
+
+    private Message createMessage() {
+        if (eventType.equals("log")) {
+            return new OutputMessage(new LogEvent(System.currentTimeMillis(), "org.gradle.Benchmark", LogLevel.LIFECYCLE, "Some log message", null));
+        }
+        if (eventType.equals("operation")) {
+            DefaultOperationDescriptor descriptor = new DefaultOperationDescriptor(new OperationIdentifier(12), "Resolve files of :compileClasspath", "Resolve files of :compileClasspath", new OperationIdentifier(11));
+            return new BuildEvent(new DefaultOperationFinishedProgressEvent(System.currentTimeMillis(), descriptor, new DefaultSuccessResult(100, 200)));
+        }
+        DefaultTestDescriptor descriptor = new DefaultTestDescriptor(new OperationIdentifier(12), "someTest", "someTest", "ATOMIC", null, "org.gradle.SomeTest", "someTest", new OperationIdentifier(11), ":test");
+        return new BuildEvent(new DefaultTestStartedProgressEvent(System.currentTimeMillis(), descriptor));
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.launcher.daemon.registry;
+
+import com.google.common.io.Files;
+import org.gradle.api.Action;
+import org.gradle.cache.FileLockManager;
+import org.gradle.cache.FileLockReleasedSignal;
+import org.gradle.cache.PersistentStateCache;
+import org.gradle.cache.internal.DefaultFileLockManager;
+import org.gradle.cache.internal.OnDemandFileAccess;
+import org.gradle.cache.internal.ProcessMetaDataProvider;
+import org.gradle.cache.internal.SimpleStateCache;
+import org.gradle.cache.internal.locklistener.FileLockContentionHandler;
+import org.gradle.internal.nativeintegration.filesystem.Chmod;
+import org.gradle.internal.remote.Address;
+import org.gradle.internal.remote.internal.inet.MultiChoiceAddress;
+import org.gradle.launcher.daemon.configuration.DaemonParameters;
+import org.gradle.launcher.daemon.context.DefaultDaemonContext;
+import org.gradle.launcher.daemon.server.api.DaemonStateControl;
+import org.gradle.util.GFileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Measures how quickly concurrent clients can look for an idle daemon while a daemon changes its state, comparing reads of the memory-mapped snapshot with reads of the registry file under its lock.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@State(Scope.Benchmark)
+public class DaemonRegistryBenchmark {
+    private static final Chmod NO_OP_CHMOD = new Chmod() {
+        @Override
+        public void chmod(File file, int mode) {
+        }
+    };
+
+    /**
+     * The number of daemons in the registry.
+     */
+    @Param({"1", "20"})
+    int daemonCount;
+
+    private File tmpDir;
+    private PersistentDaemonRegistry registry;
+    private PersistentStateCache<DaemonRegistryContent> lockedRegistry;
+    private Address busyAddress;
+    private boolean busy;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        tmpDir = Files.createTempDir();
+        File registryFile = new File(tmpDir, "registry.bin");
+        FileLockManager fileLockManager = createFileLockManager();
+        registry = new PersistentDaemonRegistry(registryFile, fileLockManager, NO_OP_CHMOD);
+        // The registry file accessed the way it was before the snapshot was introduced
+        lockedRegistry = new SimpleStateCache<DaemonRegistryContent>(registryFile, new OnDemandFileAccess(registryFile, "daemon addresses registry", fileLockManager), DaemonRegistryContent.SERIALIZER, NO_OP_CHMOD);
+
+        List<Address> addresses = new ArrayList<Address>();
+        for (int i = 0; i < daemonCount; i++) {
+            Address address = new MultiChoiceAddress(UUID.randomUUID(), 40000 + i, Collections.singletonList(InetAddress.getLoopbackAddress()));
+            DefaultDaemonContext context = new DefaultDaemonContext(UUID.randomUUID().toString(), tmpDir, tmpDir, 1000L + i, 10800000, Collections.<String>emptyList(), DaemonParameters.Priority.NORMAL);
+            registry.store(new DaemonInfo(address, context, UUID.randomUUID().toString().getBytes(), DaemonStateControl.State.Idle));
+            addresses.add(address);
+        }
+        busyAddress = addresses.get(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        GFileUtils.deleteDirectory(tmpDir);
+    }
+
+    @Benchmark
+    @Group("snapshot")
+    @GroupThreads(7)
+    public List<DaemonInfo> findIdleDaemonFromSnapshot() {
+        return registry.getIdle();
+    }
+
+    @Benchmark
+    @Group("snapshot")
+    @GroupThreads(1)
+    public void changeDaemonStateWithSnapshot() {
+        toggleState();
+    }
+
+    @Benchmark
+    @Group("locked")
+    @GroupThreads(7)
+    public DaemonRegistryContent findIdleDaemonFromLockedFile() {
+        return lockedRegistry.get();
+    }
+
+    @Benchmark
+    @Group("locked")
+    @GroupThreads(1)
+    public void changeDaemonStateWithLockedFile() {
+        toggleState();
+    }
+
+    private synchronized void toggleState() {
+        busy = !busy;
+        registry.markState(busyAddress, busy ? DaemonStateControl.State.Busy : DaemonStateControl.State.Idle);
+    }
+
+    private static FileLockManager createFileLockManager() {
+        return new DefaultFileLockManager(new ProcessMetaDataProvider() {
+            @Override
+            public String getProcessIdentifier() {
+                return "benchmark";
+            }
+
+            @Override
+            public String getProcessDisplayName() {
+                return "benchmark";
+            }
+        }, new FileLockContentionHandler() {
+            @Override
+            public void start(long lockId, Action<FileLockReleasedSignal> whenContended) {
+            }
+
+            @Override
+            public void stop(long lockId) {
+            }
+
+            @Override
+            public int reservePort() {
+                return -1;
+            }
+
+            @Override
+            public boolean maybePingOwner(int port, long lockId, String displayName, long timeElapsed, @Nullable FileLockReleasedSignal signal) {
+                return false;
+            }
+        });
+    }
+}
@@ -40,6 +40,7 @@ import org.gradle.launcher.daemon.server.Daemon;
 import org.gradle.launcher.daemon.server.DaemonServices;
 import org.gradle.launcher.daemon.server.MasterExpirationStrategy;
 import org.gradle.launcher.daemon.server.expiry.DaemonExpirationStrategy;
+import org.gradle.process.internal.ClassDataSharingArchives;
 import org.gradle.process.internal.shutdown.ShutdownHooks;
 import org.gradle.process.internal.streams.EncodedStream;
 
@@ -72,6 +73,8 @@ public class DaemonMain extends EntryPoint {
             invalidArgs("Following arguments are required: <gradle-version>");
         }
 
+        ClassDataSharingArchives.holdClaim();
+
         // Read configuration from stdin
         List<String> startupOpts;
         File gradleHomeDir;
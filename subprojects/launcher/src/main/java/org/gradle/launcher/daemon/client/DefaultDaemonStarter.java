@@ -16,6 +16,7 @@
 package org.gradle.launcher.daemon.client;
 
 import org.gradle.api.GradleException;
+import org.gradle.api.JavaVersion;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.internal.classpath.DefaultModuleRegistry;
 import org.gradle.api.internal.classpath.ModuleRegistry;
@@ -37,6 +38,7 @@ import org.gradle.launcher.daemon.bootstrap.GradleDaemon;
 import org.gradle.launcher.daemon.configuration.DaemonParameters;
 import org.gradle.launcher.daemon.diagnostics.DaemonStartupInfo;
 import org.gradle.launcher.daemon.registry.DaemonDir;
+import org.gradle.process.internal.ClassDataSharingArchives;
 import org.gradle.process.internal.DefaultExecActionFactory;
 import org.gradle.process.internal.ExecHandle;
 import org.gradle.process.internal.streams.EncodedStream;
@@ -88,7 +90,7 @@ public class DefaultDaemonStarter implements DaemonStarter {
             throw new IllegalStateException("Unable to construct a bootstrap classpath when starting the daemon");
         }
 
-        versionValidator.validate(daemonParameters);
+        JavaVersion javaVersion = versionValidator.validate(daemonParameters);
 
         List<String> daemonArgs = new ArrayList<String>();
         daemonArgs.addAll(getPriorityArgs(daemonParameters.getPriority()));
@@ -96,6 +98,8 @@ public class DefaultDaemonStarter implements DaemonStarter {
 
         List<String> daemonOpts = daemonParameters.getEffectiveJvmArgs();
         daemonArgs.addAll(daemonOpts);
+        // Not part of the daemon options, so that they are not considered when matching a compatible daemon
+        daemonArgs.addAll(new ClassDataSharingArchives(daemonParameters.getGradleUserHomeDir()).getJvmArgs(daemonParameters.getEffectiveJvm().getJavaHome(), javaVersion, classpath.getAsFiles()));
         daemonArgs.add("-cp");
         daemonArgs.add(CollectionUtils.join(File.pathSeparator, classpath.getAsFiles()));
 
@@ -29,12 +29,16 @@ public class JvmVersionValidator {
         this.versionDetector = versionDetector;
     }
 
-    public void validate(DaemonParameters parameters) {
+    /**
+     * Checks that the daemon JVM can run Gradle, and returns its Java version.
+     */
+    public JavaVersion validate(DaemonParameters parameters) {
         if (parameters.getEffectiveJvm().equals(Jvm.current())) {
-            return;
+            return JavaVersion.current();
         }
 
         JavaVersion javaVersion = versionDetector.getJavaVersion(parameters.getEffectiveJvm());
         UnsupportedJavaRuntimeException.assertUsingVersion("Gradle", JavaVersion.VERSION_1_8, javaVersion);
+        return javaVersion;
     }
 }
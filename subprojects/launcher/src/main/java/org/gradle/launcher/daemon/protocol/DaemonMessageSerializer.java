@@ -48,15 +48,26 @@ import org.gradle.internal.serialize.DefaultSerializer;
 import org.gradle.internal.serialize.DefaultSerializerRegistry;
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.internal.serialize.ListSerializer;
+import org.gradle.internal.operations.OperationIdentifier;
 import org.gradle.internal.serialize.Serializer;
 import org.gradle.launcher.daemon.diagnostics.DaemonDiagnostics;
 import org.gradle.launcher.exec.BuildActionParameters;
 import org.gradle.launcher.exec.BuildActionResult;
 import org.gradle.launcher.exec.DefaultBuildActionParameters;
+import org.gradle.tooling.internal.protocol.InternalFailure;
+import org.gradle.tooling.internal.provider.events.AbstractOperationResult;
+import org.gradle.tooling.internal.provider.events.DefaultFailure;
+import org.gradle.tooling.internal.provider.events.DefaultFailureResult;
+import org.gradle.tooling.internal.provider.events.DefaultOperationDescriptor;
+import org.gradle.tooling.internal.provider.events.DefaultOperationFinishedProgressEvent;
+import org.gradle.tooling.internal.provider.events.DefaultOperationStartedProgressEvent;
+import org.gradle.tooling.internal.provider.events.DefaultSuccessResult;
 import org.gradle.tooling.internal.provider.serialization.SerializedPayload;
 import org.gradle.tooling.internal.provider.serialization.SerializedPayloadSerializer;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -190,16 +201,119 @@ public class DaemonMessageSerializer {
     }
 
     private static class BuildEventSerializer implements Serializer<BuildEvent> {
+        private static final byte JAVA_SERIALIZED = 0;
+        private static final byte OPERATION_STARTED = 1;
+        private static final byte OPERATION_SUCCEEDED = 2;
+        private static final byte OPERATION_FAILED = 3;
         private final Serializer<Object> payloadSerializer = new DefaultSerializer<Object>();
 
         @Override
         public void write(Encoder encoder, BuildEvent buildEvent) throws Exception {
-            payloadSerializer.write(encoder, buildEvent.getPayload());
+            // Use a compact encoding for the build operation progress events, which are sent in large numbers to tooling API clients
+            Object payload = buildEvent.getPayload();
+            if (payload instanceof DefaultOperationStartedProgressEvent) {
+                DefaultOperationStartedProgressEvent event = (DefaultOperationStartedProgressEvent) payload;
+                if (canWrite(event.getDescriptor())) {
+                    encoder.writeByte(OPERATION_STARTED);
+                    encoder.writeLong(event.getEventTime());
+                    writeDescriptor(encoder, event.getDescriptor());
+                    return;
+                }
+            } else if (payload instanceof DefaultOperationFinishedProgressEvent) {
+                DefaultOperationFinishedProgressEvent event = (DefaultOperationFinishedProgressEvent) payload;
+                AbstractOperationResult result = event.getResult();
+                if (canWrite(event.getDescriptor()) && (result.getClass() == DefaultSuccessResult.class || result.getClass() == DefaultFailureResult.class)) {
+                    encoder.writeByte(result instanceof DefaultFailureResult ? OPERATION_FAILED : OPERATION_SUCCEEDED);
+                    encoder.writeLong(event.getEventTime());
+                    writeDescriptor(encoder, event.getDescriptor());
+                    encoder.writeLong(result.getStartTime());
+                    encoder.writeLong(result.getEndTime());
+                    if (result instanceof DefaultFailureResult) {
+                        List<DefaultFailure> failures = result.getFailures();
+                        encoder.writeSmallInt(failures.size());
+                        for (DefaultFailure failure : failures) {
+                            writeFailure(encoder, failure);
+                        }
+                    }
+                    return;
+                }
+            }
+            encoder.writeByte(JAVA_SERIALIZED);
+            payloadSerializer.write(encoder, payload);
         }
 
         @Override
         public BuildEvent read(Decoder decoder) throws Exception {
-            return new BuildEvent(payloadSerializer.read(decoder));
+            byte tag = decoder.readByte();
+            switch (tag) {
+                case JAVA_SERIALIZED:
+                    return new BuildEvent(payloadSerializer.read(decoder));
+                case OPERATION_STARTED:
+                    long startedEventTime = decoder.readLong();
+                    return new BuildEvent(new DefaultOperationStartedProgressEvent(startedEventTime, readDescriptor(decoder)));
+                case OPERATION_SUCCEEDED:
+                case OPERATION_FAILED:
+                    long finishedEventTime = decoder.readLong();
+                    DefaultOperationDescriptor descriptor = readDescriptor(decoder);
+                    long startTime = decoder.readLong();
+                    long endTime = decoder.readLong();
+                    AbstractOperationResult result;
+                    if (tag == OPERATION_FAILED) {
+                        int count = decoder.readSmallInt();
+                        List<DefaultFailure> failures = new ArrayList<DefaultFailure>(count);
+                        for (int i = 0; i < count; i++) {
+                            failures.add(readFailure(decoder));
+                        }
+                        result = new DefaultFailureResult(startTime, endTime, failures);
+                    } else {
+                        result = new DefaultSuccessResult(startTime, endTime);
+                    }
+                    return new BuildEvent(new DefaultOperationFinishedProgressEvent(finishedEventTime, descriptor, result));
+                default:
+                    throw new IllegalArgumentException("Unexpected build event type.");
+            }
+        }
+
+        private static boolean canWrite(DefaultOperationDescriptor descriptor) {
+            // Subtypes carry additional details, so are left to Java serialization
+            return descriptor.getClass() == DefaultOperationDescriptor.class
+                && descriptor.getId() instanceof OperationIdentifier
+                && (descriptor.getParentId() == null || descriptor.getParentId() instanceof OperationIdentifier);
+        }
+
+        private static void writeDescriptor(Encoder encoder, DefaultOperationDescriptor descriptor) throws IOException {
+            encoder.writeLong(((OperationIdentifier) descriptor.getId()).getId());
+            OperationIdentifier parentId = (OperationIdentifier) descriptor.getParentId();
+            encoder.writeLong(parentId == null ? 0 : parentId.getId());
+            encoder.writeNullableString(descriptor.getName());
+            encoder.writeNullableString(descriptor.getDisplayName());
+        }
+
+        private static DefaultOperationDescriptor readDescriptor(Decoder decoder) throws IOException {
+            OperationIdentifier id = new OperationIdentifier(decoder.readLong());
+            long parentId = decoder.readLong();
+            String name = decoder.readNullableString();
+            String displayName = decoder.readNullableString();
+            return new DefaultOperationDescriptor(id, name, displayName, parentId == 0 ? null : new OperationIdentifier(parentId));
+        }
+
+        private static void writeFailure(Encoder encoder, DefaultFailure failure) throws IOException {
+            encoder.writeNullableString(failure.getMessage());
+            encoder.writeNullableString(failure.getDescription());
+            List<? extends InternalFailure> causes = failure.getCauses();
+            if (causes.isEmpty()) {
+                encoder.writeBoolean(false);
+            } else {
+                encoder.writeBoolean(true);
+                writeFailure(encoder, (DefaultFailure) causes.get(0));
+            }
+        }
+
+        private static DefaultFailure readFailure(Decoder decoder) throws IOException {
+            String message = decoder.readNullableString();
+            String description = decoder.readNullableString();
+            DefaultFailure cause = decoder.readBoolean() ? readFailure(decoder) : null;
+            return new DefaultFailure(message, description, cause);
         }
     }
 
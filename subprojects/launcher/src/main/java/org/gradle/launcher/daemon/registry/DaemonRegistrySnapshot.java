@@ -0,0 +1,202 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.registry;
+
+import com.google.common.io.Files;
+import org.gradle.cache.FileLock;
+import org.gradle.internal.io.BufferCaster;
+import org.gradle.internal.nativeintegration.filesystem.Chmod;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * A copy of the daemon registry file in a memory-mapped file, which can be read without taking the registry file lock.
+ *
+ * <p>The copy is written by the process holding the exclusive lock on the registry file, once it has updated the registry file. The header contains a sequence number, which is odd while an update is in progress, followed by the length and checksum of the content. Readers retry when the sequence number or checksum shows that they have raced with an update, and return null when the copy has never been written, does not fit, or keeps changing, in which case the registry file should be read instead.</p>
+ *
+ * <p>The copy is mapped again whenever the state of the registry file lock shows that the registry file has been updated since it was mapped, so that a copy created in a recreated daemon directory is picked up. The header also records the length and modification time of the registry file the copy was taken from, and the copy is only used while the registry file still matches, so that it is not trusted once the registry file is deleted or written by other means.</p>
+ */
+class DaemonRegistrySnapshot {
+    private static final int SEQUENCE_OFFSET = 0;
+    private static final int LENGTH_OFFSET = 8;
+    private static final int CHECKSUM_OFFSET = 12;
+    private static final int SOURCE_LENGTH_OFFSET = 20;
+    private static final int SOURCE_LAST_MODIFIED_OFFSET = 28;
+    private static final int CONTENT_OFFSET = 36;
+    private static final int CAPACITY = 64 * 1024;
+    private static final int FILE_SIZE = CONTENT_OFFSET + CAPACITY;
+    private static final int MAX_READ_ATTEMPTS = 10;
+
+    private final File file;
+    private final File registryFile;
+    private final Chmod chmod;
+    private MappedByteBuffer buffer;
+    private boolean writable;
+    private FileLock.State mappedLockState;
+
+    DaemonRegistrySnapshot(File file, File registryFile, Chmod chmod) {
+        this.file = file;
+        this.registryFile = registryFile;
+        this.chmod = chmod;
+    }
+
+    /**
+     * Returns the content of the registry file as of the most recent completed update, or null when it is not available.
+     *
+     * @param registryLockState the current state of the registry file lock, which must not be dirty.
+     */
+    @Nullable
+    byte[] read(FileLock.State registryLockState) {
+        ByteBuffer buffer = mapForRead(registryLockState);
+        if (buffer == null) {
+            return null;
+        }
+        for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++) {
+            long sequence = buffer.getLong(SEQUENCE_OFFSET);
+            if (sequence == 0) {
+                // Never written
+                return null;
+            }
+            if (sequence % 2 != 0) {
+                // Update in progress, or the writer failed during an update
+                Thread.yield();
+                continue;
+            }
+            int length = buffer.getInt(LENGTH_OFFSET);
+            if (length < 0 || length > CAPACITY) {
+                return null;
+            }
+            long checksum = buffer.getLong(CHECKSUM_OFFSET);
+            long sourceLength = buffer.getLong(SOURCE_LENGTH_OFFSET);
+            long sourceLastModified = buffer.getLong(SOURCE_LAST_MODIFIED_OFFSET);
+            byte[] content = new byte[length];
+            ByteBuffer view = buffer.duplicate();
+            BufferCaster.cast(view).position(CONTENT_OFFSET);
+            view.get(content);
+            if (buffer.getLong(SEQUENCE_OFFSET) == sequence && checksum(content) == checksum) {
+                if (sourceLength != registryFile.length() || sourceLastModified != registryFile.lastModified()) {
+                    // The registry file has been deleted or written without updating the copy
+                    return null;
+                }
+                return content;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Marks the copy as being updated. Must be called while holding the exclusive registry file lock.
+     */
+    void beginUpdate() throws IOException {
+        // Map the file again for each update, as it may have been replaced together with the daemon directory
+        ByteBuffer buffer = mapForWrite(true);
+        long sequence = buffer.getLong(SEQUENCE_OFFSET);
+        buffer.putLong(SEQUENCE_OFFSET, sequence % 2 == 0 ? sequence + 1 : sequence + 2);
+    }
+
+    /**
+     * Copies the new content of the registry file and completes the update. Must be called while holding the exclusive registry file lock.
+     */
+    void completeUpdate() throws IOException {
+        byte[] content = registryFile.isFile() ? Files.toByteArray(registryFile) : new byte[0];
+        ByteBuffer buffer = mapForWrite(false);
+        long sequence = buffer.getLong(SEQUENCE_OFFSET);
+        if (content.length > CAPACITY) {
+            buffer.putInt(LENGTH_OFFSET, -1);
+        } else {
+            buffer.putInt(LENGTH_OFFSET, content.length);
+            buffer.putLong(CHECKSUM_OFFSET, checksum(content));
+            buffer.putLong(SOURCE_LENGTH_OFFSET, registryFile.length());
+            buffer.putLong(SOURCE_LAST_MODIFIED_OFFSET, registryFile.lastModified());
+            ByteBuffer view = buffer.duplicate();
+            BufferCaster.cast(view).position(CONTENT_OFFSET);
+            view.put(content);
+        }
+        buffer.putLong(SEQUENCE_OFFSET, sequence + 1);
+    }
+
+    /**
+     * Makes the copy unusable after a failed update, so that readers read the registry file instead. Must be called while holding the exclusive registry file lock.
+     */
+    synchronized void invalidate() {
+        if (buffer != null && writable) {
+            // Leave the sequence number odd, as if the update is still in progress
+            long sequence = buffer.getLong(SEQUENCE_OFFSET);
+            if (sequence % 2 == 0) {
+                buffer.putLong(SEQUENCE_OFFSET, sequence + 1);
+            }
+        }
+        // The mapped copy may belong to a file that has since been replaced, so also remove the file, ignoring failures
+        file.delete();
+    }
+
+    @Nullable
+    private synchronized ByteBuffer mapForRead(FileLock.State registryLockState) {
+        if (buffer != null && mappedLockState != null && !registryLockState.hasBeenUpdatedSince(mappedLockState)) {
+            return buffer;
+        }
+        // Not mapped yet, or the snapshot may have been replaced together with the daemon directory
+        buffer = null;
+        mappedLockState = null;
+        if (file.length() < FILE_SIZE) {
+            return null;
+        }
+        try {
+            buffer = writable ? map(FileChannel.MapMode.READ_WRITE, "rw") : map(FileChannel.MapMode.READ_ONLY, "r");
+            mappedLockState = registryLockState;
+        } catch (IOException e) {
+            return null;
+        }
+        return buffer;
+    }
+
+    private synchronized ByteBuffer mapForWrite(boolean remap) throws IOException {
+        if (remap || buffer == null || !writable) {
+            if (!file.isFile()) {
+                file.createNewFile();
+            }
+            chmod.chmod(file, 0600); // read-write for user only, as the content includes the daemon tokens
+            buffer = map(FileChannel.MapMode.READ_WRITE, "rw");
+            writable = true;
+            mappedLockState = null;
+        }
+        return buffer;
+    }
+
+    private MappedByteBuffer map(FileChannel.MapMode mode, String fileMode) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, fileMode);
+        try {
+            // The mapping remains valid after the file is closed
+            return randomAccessFile.getChannel().map(mode, 0, FILE_SIZE);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    private static long checksum(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return crc.getValue();
+    }
+}
@@ -19,19 +19,30 @@ package org.gradle.launcher.daemon.registry;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.api.specs.Spec;
+import org.gradle.cache.FileAccess;
 import org.gradle.cache.FileLockManager;
 import org.gradle.cache.PersistentStateCache;
 import org.gradle.cache.internal.FileIntegrityViolationSuppressingPersistentStateCacheDecorator;
 import org.gradle.cache.internal.OnDemandFileAccess;
 import org.gradle.cache.internal.SimpleStateCache;
+import org.gradle.cache.internal.filelock.DefaultLockStateSerializer;
+import org.gradle.cache.internal.filelock.LockState;
+import org.gradle.cache.internal.filelock.LockStateAccess;
+import org.gradle.internal.Factory;
 import org.gradle.internal.nativeintegration.filesystem.Chmod;
+import org.gradle.internal.os.OperatingSystem;
 import org.gradle.internal.remote.Address;
+import org.gradle.internal.serialize.InputStreamBackedDecoder;
 import org.gradle.launcher.daemon.context.DaemonContext;
 
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.RandomAccessFile;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -46,32 +57,65 @@ public class PersistentDaemonRegistry implements DaemonRegistry {
     private final PersistentStateCache<DaemonRegistryContent> cache;
     private final Lock lock = new ReentrantLock();
     private final File registryFile;
+    private final DaemonRegistrySnapshot snapshot;
 
     private static final Logger LOGGER = Logging.getLogger(PersistentDaemonRegistry.class);
+    private static final LockStateAccess LOCK_STATE_ACCESS = new LockStateAccess(new DefaultLockStateSerializer());
 
     public PersistentDaemonRegistry(File registryFile, FileLockManager fileLockManager, Chmod chmod) {
         this.registryFile = registryFile;
+        FileAccess fileAccess = new OnDemandFileAccess(
+            registryFile,
+            "daemon addresses registry",
+            fileLockManager);
+        if (OperatingSystem.current().isWindows()) {
+            // A mapped file cannot be deleted on Windows, which would prevent the daemon directory from being cleaned up
+            snapshot = null;
+        } else {
+            snapshot = new DaemonRegistrySnapshot(new File(registryFile.getParentFile(), registryFile.getName() + ".snapshot"), registryFile, chmod);
+            fileAccess = new SnapshotPublishingFileAccess(fileAccess, snapshot);
+        }
         cache = new FileIntegrityViolationSuppressingPersistentStateCacheDecorator<DaemonRegistryContent>(
             new SimpleStateCache<DaemonRegistryContent>(
                 registryFile,
-                new OnDemandFileAccess(
-                    registryFile,
-                    "daemon addresses registry",
-                    fileLockManager),
+                fileAccess,
                 DaemonRegistryContent.SERIALIZER,
                 chmod
             ));
     }
 
     public List<DaemonInfo> getAll() {
+        DaemonRegistryContent content = readContent();
+        if (content == null) {
+            //when no daemon process has started yet
+            return new LinkedList<DaemonInfo>();
+        }
+        return content.getInfos();
+    }
+
+    /**
+     * Reads the registry content from the snapshot without locking the registry file, falling back to reading the registry file when the snapshot is not usable.
+     */
+    @Nullable
+    private DaemonRegistryContent readContent() {
+        // The snapshot is not used while an update is in progress or after a process failed during an update, so that a corrupt registry file is ignored
+        LockState lockState = snapshot != null ? readLockState() : null;
+        if (lockState != null && !lockState.isDirty()) {
+            byte[] content = snapshot.read(lockState);
+            if (content != null) {
+                if (content.length == 0) {
+                    return null;
+                }
+                try {
+                    return DaemonRegistryContent.SERIALIZER.read(new InputStreamBackedDecoder(new ByteArrayInputStream(content)));
+                } catch (Exception e) {
+                    LOGGER.debug("Could not read daemon registry snapshot, reading the registry file instead.", e);
+                }
+            }
+        }
         lock.lock();
         try {
-            DaemonRegistryContent content = cache.get();
-            if (content == null) {
-                //when no daemon process has started yet
-                return new LinkedList<DaemonInfo>();
-            }
-            return content.getInfos();
+            return cache.get();
         } finally {
             lock.unlock();
         }
@@ -105,19 +149,14 @@ public class PersistentDaemonRegistry implements DaemonRegistry {
     }
 
     private List<DaemonInfo> getDaemonsMatching(Spec<DaemonInfo> spec) {
-        lock.lock();
-        try {
-            List<DaemonInfo> out = new LinkedList<DaemonInfo>();
-            List<DaemonInfo> all = getAll();
-            for (DaemonInfo d : all) {
-                if (spec.isSatisfiedBy(d)) {
-                    out.add(d);
-                }
+        List<DaemonInfo> out = new LinkedList<DaemonInfo>();
+        List<DaemonInfo> all = getAll();
+        for (DaemonInfo d : all) {
+            if (spec.isSatisfiedBy(d)) {
+                out.add(d);
             }
-            return out;
-        } finally {
-            lock.unlock();
         }
+        return out;
     }
 
     public void remove(final Address address) {
@@ -177,17 +216,12 @@ public class PersistentDaemonRegistry implements DaemonRegistry {
 
     @Override
     public List<DaemonStopEvent> getStopEvents() {
-        lock.lock();
         LOGGER.debug("Getting daemon stop events");
-        try {
-            DaemonRegistryContent content = cache.get();
-            if (content == null) { // no daemon process has started yet
-                return new LinkedList<DaemonStopEvent>();
-            }
-            return content.getStopEvents();
-        } finally {
-            lock.unlock();
+        DaemonRegistryContent content = readContent();
+        if (content == null) { // no daemon process has started yet
+            return new LinkedList<DaemonStopEvent>();
         }
+        return content.getStopEvents();
     }
 
     @Override
@@ -233,7 +267,86 @@ public class PersistentDaemonRegistry implements DaemonRegistry {
         }
     }
 
+    /**
+     * Reads the state of the registry file lock without locking it, or returns null when it cannot be read.
+     */
+    @Nullable
+    private LockState readLockState() {
+        File lockFile = new File(registryFile.getParentFile(), registryFile.getName() + ".lock");
+        try {
+            RandomAccessFile lockFileAccess = new RandomAccessFile(lockFile, "r");
+            try {
+                return lockFileAccess.length() > 0 ? LOCK_STATE_ACCESS.readState(lockFileAccess) : null;
+            } finally {
+                lockFileAccess.close();
+            }
+        } catch (Exception e) {
+            // Missing lock file, or one written using another protocol
+            return null;
+        }
+    }
+
     public String toString() {
         return String.format("PersistentDaemonRegistry[file=%s]", registryFile);
     }
+
+    /**
+     * Copies the registry file to the snapshot after each change, while the exclusive lock on the registry file is still held. When the snapshot cannot be written, it is invalidated so that readers fall back to the registry file.
+     */
+    private static class SnapshotPublishingFileAccess implements FileAccess {
+        private final FileAccess delegate;
+        private final DaemonRegistrySnapshot snapshot;
+
+        SnapshotPublishingFileAccess(FileAccess delegate, DaemonRegistrySnapshot snapshot) {
+            this.delegate = delegate;
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public <T> T readFile(Callable<? extends T> action) {
+            return delegate.readFile(action);
+        }
+
+        @Override
+        public <T> T readFile(Factory<? extends T> action) {
+            return delegate.readFile(action);
+        }
+
+        @Override
+        public void updateFile(Runnable action) {
+            delegate.updateFile(publishing(action));
+        }
+
+        @Override
+        public void writeFile(Runnable action) {
+            delegate.writeFile(publishing(action));
+        }
+
+        private Runnable publishing(final Runnable action) {
+            return new Runnable() {
+                @Override
+                public void run() {
+                    // The snapshot is only an optimization for readers, so failing to write it does not fail the registry update
+                    boolean publish;
+                    try {
+                        snapshot.beginUpdate();
+                        publish = true;
+                    } catch (Exception e) {
+                        LOGGER.debug("Could not update daemon registry snapshot, readers will read the registry file instead.", e);
+                        snapshot.invalidate();
+                        publish = false;
+                    }
+                    action.run();
+                    if (publish) {
+                        try {
+                            snapshot.completeUpdate();
+                        } catch (Exception e) {
+                            LOGGER.debug("Could not update daemon registry snapshot, readers will read the registry file instead.", e);
+                            snapshot.invalidate();
+                        }
+                    }
+                }
+            };
+        }
+    }
 }
@@ -23,6 +23,7 @@ import org.gradle.launcher.daemon.protocol.DaemonUnavailable;
 import org.gradle.launcher.daemon.protocol.Result;
 
 import javax.annotation.Nullable;
+import java.util.Collection;
 import java.util.concurrent.TimeUnit;
 
 public interface DaemonConnection extends Stoppable {
@@ -85,11 +86,21 @@ public interface DaemonConnection extends Stoppable {
      */
     void logEvent(OutputEvent logEvent);
 
+    /**
+     * Dispatches a batch of log event messages to the client. The connection is flushed once, after all events have been dispatched.
+     */
+    void logEvents(Collection<? extends OutputEvent> logEvents);
+
     /**
      * Dispatches some build event to the client.
      */
     void event(Object event);
 
+    /**
+     * Dispatches a batch of build events to the client. The connection is flushed once, after all events have been dispatched.
+     */
+    void events(Collection<?> events);
+
     /**
      * Dispatches the given result to the client.
      */
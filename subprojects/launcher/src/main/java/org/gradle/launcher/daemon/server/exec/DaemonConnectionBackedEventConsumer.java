@@ -19,6 +19,8 @@ package org.gradle.launcher.daemon.server.exec;
 import org.gradle.initialization.BuildEventConsumer;
 import org.gradle.launcher.daemon.server.api.DaemonCommandExecution;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -27,6 +29,7 @@ import java.util.concurrent.TimeUnit;
  * An event consumer that asynchronously dispatches events to the client.
  */
 class DaemonConnectionBackedEventConsumer implements BuildEventConsumer {
+    private static final int MAX_BATCH_SIZE = 256;
     private final DaemonCommandExecution execution;
     private final BlockingQueue<Object> queue = new LinkedBlockingQueue<Object>();
     private final ForwardEvents forwarder = new ForwardEvents();
@@ -51,10 +54,15 @@ class DaemonConnectionBackedEventConsumer implements BuildEventConsumer {
 
         @Override
         public void run() {
+            List<Object> batch = new ArrayList<Object>();
             while (moreMessagesToSend()) {
                 Object event = getNextEvent();
                 if (event != null) {
-                    dispatchEvent(event);
+                    // Send all events that have queued up as a single batch
+                    batch.add(event);
+                    queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                    dispatchEvents(batch);
+                    batch.clear();
                 }
             }
         }
@@ -72,9 +80,9 @@ class DaemonConnectionBackedEventConsumer implements BuildEventConsumer {
             }
         }
 
-        private void dispatchEvent(Object event) {
+        private void dispatchEvents(List<Object> events) {
             try {
-                execution.getConnection().event(event);
+                execution.getConnection().events(events);
             } catch (RuntimeException e) {
                 ableToSend = false;
             }
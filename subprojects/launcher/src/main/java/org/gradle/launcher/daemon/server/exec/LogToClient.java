@@ -30,6 +30,8 @@ import org.gradle.launcher.daemon.protocol.Build;
 import org.gradle.launcher.daemon.server.api.DaemonCommandExecution;
 import org.gradle.launcher.daemon.server.api.DaemonConnection;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
@@ -38,6 +40,7 @@ public class LogToClient extends BuildCommandOnly {
 
     public static final String DISABLE_OUTPUT = "org.gradle.daemon.disable-output";
     private static final Logger LOGGER = Logging.getLogger(LogToClient.class);
+    private static final int MAX_BATCH_SIZE = 256;
 
     private final LoggingOutputInternal loggingOutput;
     private final DaemonDiagnostics diagnostics;
@@ -103,11 +106,8 @@ public class LogToClient extends BuildCommandOnly {
         public void run() {
             try {
                 while (!shouldStop) {
-                    OutputEvent event = eventQueue.poll();
-                    if (event == null) {
+                    if (!sendQueuedEvents()) {
                         Thread.sleep(10);
-                    } else {
-                        dispatchAsync(event);
                     }
                 }
             } catch (InterruptedException ex) {
@@ -121,18 +121,41 @@ public class LogToClient extends BuildCommandOnly {
         }
 
         private void sendRemainingEvents() {
+            while (sendQueuedEvents()) {
+                // Keep going
+            }
+        }
+
+        /**
+         * Sends the events that are currently queued as a single batch, so that the connection is flushed once per batch rather than once per event.
+         *
+         * @return true if any events were queued.
+         */
+        private boolean sendQueuedEvents() {
+            List<OutputEvent> batch = null;
             OutputEvent event;
             while ((event = eventQueue.poll()) != null) {
-                dispatchAsync(event);
+                if (batch == null) {
+                    batch = new ArrayList<OutputEvent>();
+                }
+                batch.add(event);
+                if (batch.size() == MAX_BATCH_SIZE) {
+                    break;
+                }
+            }
+            if (batch == null) {
+                return false;
             }
+            dispatchAsync(batch);
+            return true;
         }
 
-        private void dispatchAsync(OutputEvent event) {
+        private void dispatchAsync(List<OutputEvent> events) {
             if (unableToSend) {
                 return;
             }
             try {
-                connection.logEvent(event);
+                connection.logEvents(events);
             } catch (Exception ex) {
                 shouldStop = true;
                 unableToSend = true;
@@ -25,6 +25,7 @@ import org.gradle.internal.logging.events.OutputEvent
 import org.gradle.internal.logging.events.PromptOutputEvent
 import org.gradle.internal.logging.events.UserInputRequestEvent
 import org.gradle.internal.logging.events.UserInputResumeEvent
+import org.gradle.internal.operations.OperationIdentifier
 import org.gradle.internal.serialize.PlaceholderException
 import org.gradle.internal.serialize.Serializer
 import org.gradle.internal.serialize.SerializerSpec
@@ -33,6 +34,12 @@ import org.gradle.launcher.cli.action.ExecuteBuildAction
 import org.gradle.launcher.daemon.diagnostics.DaemonDiagnostics
 import org.gradle.launcher.exec.BuildActionResult
 import org.gradle.launcher.exec.DefaultBuildActionParameters
+import org.gradle.tooling.internal.provider.events.DefaultFailure
+import org.gradle.tooling.internal.provider.events.DefaultFailureResult
+import org.gradle.tooling.internal.provider.events.DefaultOperationDescriptor
+import org.gradle.tooling.internal.provider.events.DefaultOperationFinishedProgressEvent
+import org.gradle.tooling.internal.provider.events.DefaultOperationStartedProgressEvent
+import org.gradle.tooling.internal.provider.events.DefaultSuccessResult
 import org.gradle.tooling.internal.provider.serialization.SerializedPayload
 
 class DaemonMessageSerializerTest extends SerializerSpec {
@@ -46,6 +53,41 @@ class DaemonMessageSerializerTest extends SerializerSpec {
         result.payload == ["a", "b", "c"]
     }
 
+    def "can serialize BuildEvent messages with build operation progress events"() {
+        def descriptor = new DefaultOperationDescriptor(new OperationIdentifier(12), "name", "display name", new OperationIdentifier(11))
+        def rootDescriptor = new DefaultOperationDescriptor(new OperationIdentifier(11), "root", "root operation", null)
+        def failure = new DefaultFailure("broken", "broken description", new DefaultFailure("cause", null, null))
+
+        expect:
+        def started = serialize(new BuildEvent(new DefaultOperationStartedProgressEvent(123, descriptor)), serializer)
+        started instanceof BuildEvent
+        started.payload instanceof DefaultOperationStartedProgressEvent
+        started.payload.eventTime == 123
+        started.payload.descriptor.id == new OperationIdentifier(12)
+        started.payload.descriptor.parentId == new OperationIdentifier(11)
+        started.payload.descriptor.name == "name"
+        started.payload.descriptor.displayName == "display name"
+
+        def succeeded = serialize(new BuildEvent(new DefaultOperationFinishedProgressEvent(456, rootDescriptor, new DefaultSuccessResult(100, 200))), serializer)
+        succeeded.payload instanceof DefaultOperationFinishedProgressEvent
+        succeeded.payload.eventTime == 456
+        succeeded.payload.descriptor.id == new OperationIdentifier(11)
+        succeeded.payload.descriptor.parentId == null
+        succeeded.payload.result instanceof DefaultSuccessResult
+        succeeded.payload.result.startTime == 100
+        succeeded.payload.result.endTime == 200
+
+        def failed = serialize(new BuildEvent(new DefaultOperationFinishedProgressEvent(456, descriptor, new DefaultFailureResult(100, 200, [failure]))), serializer)
+        failed.payload.result instanceof DefaultFailureResult
+        failed.payload.result.failures.size() == 1
+        failed.payload.result.failures[0].message == "broken"
+        failed.payload.result.failures[0].description == "broken description"
+        failed.payload.result.failures[0].causes.size() == 1
+        failed.payload.result.failures[0].causes[0].message == "cause"
+        failed.payload.result.failures[0].causes[0].description == null
+        failed.payload.result.failures[0].causes[0].causes.empty
+    }
+
     def "can serialize LogLevelChangeEvent messages"() {
         expect:
         def event = new LogLevelChangeEvent(LogLevel.LIFECYCLE)
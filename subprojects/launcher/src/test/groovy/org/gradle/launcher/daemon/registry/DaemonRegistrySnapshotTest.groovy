@@ -0,0 +1,145 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.launcher.daemon.registry
+
+import org.gradle.cache.FileLock
+import org.gradle.internal.nativeintegration.filesystem.Chmod
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.Requires
+import org.gradle.util.TestPrecondition
+import org.junit.Rule
+import spock.lang.Specification
+
+@Requires(TestPrecondition.NOT_WINDOWS)
+class DaemonRegistrySnapshotTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmp = new TestNameTestDirectoryProvider()
+    def file = tmp.file("registry.bin.snapshot")
+    def registryFile = tmp.file("registry.bin")
+    def chmod = Mock(Chmod)
+    def writer = new DaemonRegistrySnapshot(file, registryFile, chmod)
+    def reader = new DaemonRegistrySnapshot(file, registryFile, Stub(Chmod))
+    def lockState = Stub(FileLock.State)
+
+    def "nothing can be read when snapshot has not been written"() {
+        expect:
+        reader.read(lockState) == null
+        !file.exists()
+    }
+
+    def "can read content of completed update"() {
+        when:
+        update(writer, [1, 2, 3] as byte[])
+
+        then:
+        reader.read(lockState) == [1, 2, 3] as byte[]
+        1 * chmod.chmod(file, 0600)
+
+        when:
+        update(writer, [4, 5] as byte[])
+
+        then:
+        reader.read(lockState) == [4, 5] as byte[]
+    }
+
+    def "nothing can be read while update is in progress"() {
+        given:
+        update(writer, [1, 2, 3] as byte[])
+
+        when:
+        writer.beginUpdate()
+
+        then:
+        reader.read(lockState) == null
+
+        when:
+        // Another writer that starts after a failed update
+        def otherWriter = new DaemonRegistrySnapshot(file, registryFile, Stub(Chmod))
+        update(otherWriter, [4] as byte[])
+
+        then:
+        reader.read(lockState) == [4] as byte[]
+    }
+
+    def "nothing can be read when content does not fit"() {
+        when:
+        update(writer, new byte[1024 * 1024])
+
+        then:
+        reader.read(lockState) == null
+    }
+
+    def "can read empty content"() {
+        when:
+        update(writer, null)
+
+        then:
+        reader.read(lockState) == new byte[0]
+    }
+
+    def "nothing can be read once registry file is deleted or written without updating snapshot"() {
+        given:
+        update(writer, [1, 2, 3] as byte[])
+
+        when:
+        registryFile.bytes = [4, 5, 6] as byte[]
+        registryFile.lastModified = registryFile.lastModified() + 2000
+
+        then:
+        reader.read(lockState) == null
+
+        when:
+        registryFile.delete()
+
+        then:
+        reader.read(lockState) == null
+    }
+
+    def "reads replaced snapshot once registry file lock has been updated"() {
+        given:
+        update(writer, [1, 2, 3] as byte[])
+
+        expect:
+        reader.read(lockState) == [1, 2, 3] as byte[]
+
+        when:
+        file.delete()
+        def otherWriter = new DaemonRegistrySnapshot(file, registryFile, Stub(Chmod))
+        update(otherWriter, [4, 5] as byte[])
+
+        then:
+        reader.read(lockState) == null
+
+        when:
+        def updatedLockState = Stub(FileLock.State) {
+            hasBeenUpdatedSince(lockState) >> true
+        }
+
+        then:
+        reader.read(updatedLockState) == [4, 5] as byte[]
+    }
+
+    private void update(DaemonRegistrySnapshot snapshot, byte[] content) {
+        snapshot.beginUpdate()
+        if (content == null) {
+            registryFile.delete()
+        } else {
+            registryFile.bytes = content
+        }
+        snapshot.completeUpdate()
+    }
+}
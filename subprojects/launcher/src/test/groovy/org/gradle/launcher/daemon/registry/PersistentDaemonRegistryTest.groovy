@@ -16,13 +16,17 @@
 
 package org.gradle.launcher.daemon.registry
 
+import org.gradle.cache.FileLockManager
 import org.gradle.internal.nativeintegration.ProcessEnvironment
 import org.gradle.internal.nativeintegration.filesystem.Chmod
+import org.gradle.internal.nativeintegration.filesystem.FileException
 import org.gradle.launcher.daemon.context.DaemonContext
 import org.gradle.launcher.daemon.context.DaemonContextBuilder
 import org.gradle.internal.remote.Address
 import org.gradle.launcher.daemon.server.expiry.DaemonExpirationStatus
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.Requires
+import org.gradle.util.TestPrecondition
 import org.junit.Rule
 import spock.lang.Specification
 
@@ -53,6 +57,133 @@ class PersistentDaemonRegistryTest extends Specification {
         registry.all.empty
     }
 
+    @Requires(TestPrecondition.NOT_WINDOWS)
+    def "reads changes made by other registry without locking the registry file"() {
+        def lockManager = Mock(FileLockManager)
+        def otherRegistry = new PersistentDaemonRegistry(file, lockManager, Stub(Chmod))
+        def address = address()
+
+        when:
+        registry.store(new DaemonInfo(address, daemonContext(), "password".bytes, Idle))
+
+        then:
+        otherRegistry.all*.address == [address]
+        otherRegistry.idle*.address == [address]
+
+        when:
+        registry.markState(address, Busy)
+
+        then:
+        otherRegistry.idle.empty
+        otherRegistry.notIdle*.address == [address]
+
+        when:
+        registry.remove(address)
+
+        then:
+        otherRegistry.all.empty
+
+        and:
+        0 * lockManager._
+    }
+
+    def "does not use snapshot once registry file is deleted"() {
+        given:
+        registry.store(new DaemonInfo(address(), daemonContext(), "password".bytes, Idle))
+
+        expect:
+        registry.all.size() == 1
+
+        when:
+        file.delete()
+
+        then:
+        registry.all.empty
+    }
+
+    def "does not use snapshot once registry file is replaced"() {
+        given:
+        def otherFile = tmp.createDir("other").file("registry")
+        def otherRegistry = new PersistentDaemonRegistry(otherFile, lockManager, Stub(Chmod))
+        def address = address()
+        registry.store(new DaemonInfo(address(), daemonContext(), "password".bytes, Idle))
+        otherRegistry.store(new DaemonInfo(address, daemonContext(), "password".bytes, Idle))
+
+        expect:
+        registry.all.size() == 1
+
+        when:
+        file.bytes = otherFile.bytes
+        file.lastModified = file.lastModified() + 2000
+
+        then:
+        registry.all*.address == [address]
+    }
+
+    @Requires(TestPrecondition.NOT_WINDOWS)
+    def "uses snapshot of recreated daemon directory"() {
+        given:
+        def dir = tmp.createDir("daemon")
+        def registryFile = new File(dir, "registry.bin")
+        def writer = new PersistentDaemonRegistry(registryFile, lockManager, Stub(Chmod))
+        def reader = new PersistentDaemonRegistry(registryFile, lockManager, Stub(Chmod))
+        writer.store(new DaemonInfo(address(), daemonContext(), "password".bytes, Idle))
+
+        expect:
+        reader.all.size() == 1
+
+        when:
+        dir.deleteDir()
+        dir.createDir()
+
+        then:
+        reader.all.empty
+
+        when:
+        def address = address()
+        writer.store(new DaemonInfo(address, daemonContext(), "password".bytes, Idle))
+
+        then:
+        reader.all*.address == [address]
+    }
+
+    def "reads registry file when snapshot is not available"() {
+        given:
+        def address = address()
+        registry.store(new DaemonInfo(address, daemonContext(), "password".bytes, Idle))
+        new File(file.path + ".snapshot").delete()
+
+        expect:
+        new PersistentDaemonRegistry(file, lockManager, Stub(Chmod)).all*.address == [address]
+    }
+
+    @Requires(TestPrecondition.NOT_WINDOWS)
+    def "updates registry file and stops using snapshot when snapshot cannot be written"() {
+        given:
+        def snapshotFile = new File(file.path + ".snapshot")
+        def chmod = Mock(Chmod)
+        def writer = new PersistentDaemonRegistry(file, lockManager, chmod)
+        def reader = new PersistentDaemonRegistry(file, lockManager, Stub(Chmod))
+        def address1 = address()
+        def address2 = address()
+
+        when:
+        writer.store(new DaemonInfo(address1, daemonContext(), "password".bytes, Idle))
+
+        then:
+        1 * chmod.chmod(snapshotFile, 0600)
+        reader.all*.address == [address1]
+
+        when:
+        writer.store(new DaemonInfo(address2, daemonContext(), "password".bytes, Idle))
+
+        then:
+        1 * chmod.chmod(snapshotFile, 0600) >> { throw new FileException("broken", new IOException()) }
+        noExceptionThrown()
+        reader.all*.address as Set == [address1, address2] as Set
+        writer.all*.address as Set == [address1, address2] as Set
+    }
+
     def "safely removes from registry file"() {
         given:
         def address = address()
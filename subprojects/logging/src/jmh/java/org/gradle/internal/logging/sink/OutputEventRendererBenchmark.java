@@ -0,0 +1,84 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.logging.sink;
+
+import com.google.common.io.ByteStreams;
+import org.gradle.api.logging.LogLevel;
+import org.gradle.api.logging.configuration.ConsoleOutput;
+import org.gradle.internal.logging.events.LogEvent;
+import org.gradle.internal.logging.events.OutputEvent;
+import org.gradle.internal.logging.events.OutputEventListener;
+import org.gradle.internal.time.Clock;
+import org.gradle.internal.time.Time;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the throughput of log events produced by many threads, as done by tasks that log heavily in a parallel build.
+ */
+@Fork(2)
+@Threads(8)
+@Warmup(iterations = 5)
+@State(Scope.Benchmark)
+public class OutputEventRendererBenchmark {
+
+    /**
+     * The amount of work done by the destination for each event, to simulate the cost of rendering.
+     */
+    @Param({"0", "100"})
+    int renderTokens;
+
+    private final Clock clock = Time.clock();
+    private OutputEventRenderer renderer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        renderer = new OutputEventRenderer(clock);
+        renderer.configure(LogLevel.LIFECYCLE);
+        renderer.attachConsole(ByteStreams.nullOutputStream(), ByteStreams.nullOutputStream(), ConsoleOutput.Plain);
+        renderer.addOutputEventListener(new OutputEventListener() {
+            @Override
+            public void onOutput(OutputEvent event) {
+                Blackhole.consumeCPU(renderTokens);
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        renderer.flush();
+    }
+
+    @Benchmark
+    public void logLifecycle() {
+        renderer.onOutput(new LogEvent(clock.getCurrentTime(), "benchmark", LogLevel.LIFECYCLE, "message", null));
+    }
+
+    @Benchmark
+    public void logFilteredDebug() {
+        renderer.onOutput(new LogEvent(clock.getCurrentTime(), "benchmark", LogLevel.DEBUG, "message", null));
+    }
+}
@@ -23,14 +23,17 @@ import org.gradle.internal.logging.events.OutputEventListener;
 import org.gradle.internal.logging.events.UpdateNowEvent;
 import org.gradle.internal.time.Clock;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Queue output events to be forwarded and schedule flush when time passed or if end of build is signalled.
+ *
+ * <p>Events are queued without locking, so that producers do not wait for a render in progress. Only the
+ * thread that renders the queued events takes the lock.</p>
  */
 public class ThrottlingOutputEventListener implements OutputEventListener {
     private final OutputEventListener listener;
@@ -40,7 +43,7 @@ public class ThrottlingOutputEventListener implements OutputEventListener {
     private final int throttleMs;
     private final Object lock = new Object();
 
-    private final List<OutputEvent> queue = new ArrayList<OutputEvent>();
+    private final Queue<OutputEvent> queue = new ConcurrentLinkedQueue<OutputEvent>();
 
     public ThrottlingOutputEventListener(OutputEventListener listener, Clock clock) {
         this(listener, Integer.getInteger("org.gradle.internal.console.throttle", 100), Executors.newSingleThreadScheduledExecutor(), clock);
@@ -64,34 +67,34 @@ public class ThrottlingOutputEventListener implements OutputEventListener {
     }
 
     public void onOutput(OutputEvent newEvent) {
-        synchronized (lock) {
-            queue.add(newEvent);
-
-            if (newEvent instanceof UpdateNowEvent) {
-                // Flush any buffered events and update the clock
-                renderNow();
-                return;
-            }
+        queue.add(newEvent);
 
-            if (newEvent instanceof FlushOutputEvent) {
-                renderNow();
-                return;
-            }
+        if (newEvent instanceof UpdateNowEvent) {
+            // Flush any buffered events and update the clock
+            renderNow();
+            return;
+        }
 
-            if (newEvent instanceof EndOutputEvent) {
-                // Flush and clean up
-                renderNow();
-                executor.shutdown();
-            }
+        if (newEvent instanceof FlushOutputEvent) {
+            renderNow();
+            return;
+        }
 
-            // Else, wait for the next update event
+        if (newEvent instanceof EndOutputEvent) {
+            // Flush and clean up
+            renderNow();
+            executor.shutdown();
         }
+
+        // Else, wait for the next update event
     }
 
     private void renderNow() {
-        for (OutputEvent event : queue) {
-            listener.onOutput(event);
+        synchronized (lock) {
+            OutputEvent event;
+            while ((event = queue.poll()) != null) {
+                listener.onOutput(event);
+            }
         }
-        queue.clear();
     }
 }
@@ -54,11 +54,19 @@ import org.gradle.internal.time.Clock;
 
 import javax.annotation.Nullable;
 import java.io.OutputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A {@link OutputEventListener} implementation which renders output events to various
  * destinations. This implementation is thread-safe.
+ *
+ * <p>Events are appended to a lock-free queue and forwarded to the destinations in batches by whichever thread
+ * holds the dispatch role, so a thread producing an event does not wait while another thread renders. The queue
+ * is drained in order by one thread at a time, so the destinations see the events in the order they were produced.
+ * Flush and end of output events are forwarded before {@link #onOutput(OutputEvent)} returns.</p>
  */
 @ThreadSafe
 public class OutputEventRenderer implements OutputEventListener, LoggingRouter {
@@ -67,6 +75,8 @@ public class OutputEventRenderer implements OutputEventListener, LoggingRouter {
     private final Clock clock;
     private final ListenerBroadcast<OutputEventListener> formatters = new ListenerBroadcast<OutputEventListener>(OutputEventListener.class);
     private final OutputEventTransformer transformer = new OutputEventTransformer(formatters.getSource());
+    private final Queue<OutputEvent> pending = new ConcurrentLinkedQueue<OutputEvent>();
+    private final AtomicBoolean dispatching = new AtomicBoolean();
 
     private ColorMap colourMap;
     private OutputStream originalStdOut;
@@ -111,11 +121,13 @@ public class OutputEventRenderer implements OutputEventListener, LoggingRouter {
     }
 
     private void addChain(OutputEventListener listener) {
+        dispatchPending();
         listener.onOutput(new LogLevelChangeEvent(logLevel.get()));
         formatters.add(listener);
     }
 
     private void removeChain(OutputEventListener listener) {
+        dispatchPending();
         formatters.remove(listener);
         listener.onOutput(new EndOutputEvent());
     }
@@ -416,7 +428,28 @@ public class OutputEventRenderer implements OutputEventListener, LoggingRouter {
             }
             this.logLevel.set(newLogLevel);
         }
-        synchronized (lock) {
+        pending.add(event);
+        if (event instanceof FlushOutputEvent || event instanceof EndOutputEvent || Thread.holdsLock(lock)) {
+            // Caller expects the event to have been handled on return, or is already handling events
+            synchronized (lock) {
+                dispatchPending();
+            }
+            return;
+        }
+        while (!pending.isEmpty() && dispatching.compareAndSet(false, true)) {
+            try {
+                synchronized (lock) {
+                    dispatchPending();
+                }
+            } finally {
+                dispatching.set(false);
+            }
+        }
+    }
+
+    private void dispatchPending() {
+        OutputEvent event;
+        while ((event = pending.poll()) != null) {
             transformer.onOutput(event);
         }
     }
@@ -25,6 +25,7 @@ import org.gradle.internal.logging.console.ConsoleStub
 import org.gradle.internal.logging.events.EndOutputEvent
 import org.gradle.internal.logging.events.LogEvent
 import org.gradle.internal.logging.events.LogLevelChangeEvent
+import org.gradle.internal.logging.events.OutputEvent
 import org.gradle.internal.logging.events.OutputEventListener
 import org.gradle.internal.nativeintegration.console.ConsoleMetaData
 import org.gradle.internal.operations.BuildOperationCategory
@@ -90,6 +91,34 @@ class OutputEventRendererTest extends OutputSpecification {
         listener.value.readLines() == ['info']
     }
 
+    def "forwards events from concurrent producers in the order each producer generated them"() {
+        def received = []
+        def listener = Stub(OutputEventListener) {
+            onOutput(_) >> { OutputEvent outputEvent ->
+                if (outputEvent instanceof LogEvent) {
+                    received << outputEvent.message
+                }
+            }
+        }
+        renderer.addOutputEventListener(listener)
+
+        when:
+        def threads = (0..<8).collect { thread ->
+            Thread.start {
+                1000.times { index ->
+                    renderer.onOutput(event("${thread}:${index}", LogLevel.INFO))
+                }
+            }
+        }
+        threads*.join()
+
+        then:
+        received.size() == 8000
+        (0..<8).each { thread ->
+            assert received.findAll { it.startsWith("${thread}:") } == (0..<1000).collect { "${thread}:${it}" }
+        }
+    }
+
     def doesNotRenderLogEventsToRemovedStdOutListener() {
         def listener = new TestListener()
 
@@ -93,7 +93,8 @@ import java.util.stream.Collectors;
  */
 abstract class AbstractClassGenerator implements ClassGenerator {
     private static final Map<Object, Map<Class<?>, CachedClass>> GENERATED_CLASSES = new HashMap<Object, Map<Class<?>, CachedClass>>();
-    private static final Lock CACHE_LOCK = new ReentrantLock();
+    // Classes are only generated while holding this lock, which also guards the bytecode caches used by subclasses
+    static final Lock CACHE_LOCK = new ReentrantLock();
     private final ImmutableSet<Class<? extends Annotation>> disabledAnnotations;
     private final ImmutableSet<Class<? extends Annotation>> enabledAnnotations;
     private final ImmutableMultimap<Class<? extends Annotation>, TypeToken<?>> allowedTypesForAnnotation;
@@ -17,6 +17,7 @@ package org.gradle.internal.instantiation;
 
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
 import groovy.lang.Closure;
 import groovy.lang.GroovyObject;
 import groovy.lang.GroovySystem;
@@ -43,7 +44,11 @@ import org.gradle.api.provider.MapProperty;
 import org.gradle.api.provider.Property;
 import org.gradle.api.provider.SetProperty;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.classloader.ClassLoaderUtils;
 import org.gradle.internal.extensibility.ConventionAwareHelper;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
 import org.gradle.internal.logging.text.TreeFormatter;
 import org.gradle.internal.metaobject.AbstractDynamicObject;
 import org.gradle.internal.metaobject.BeanDynamicObject;
@@ -56,13 +61,19 @@ import org.gradle.internal.state.Managed;
 import org.gradle.model.internal.asm.AsmClassGenerator;
 import org.gradle.util.CollectionUtils;
 import org.gradle.util.ConfigureUtil;
+import org.gradle.util.GradleVersion;
 import org.objectweb.asm.AnnotationVisitor;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.Inherited;
 import java.lang.annotation.Retention;
@@ -77,6 +88,9 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
 
 import static org.gradle.model.internal.asm.AsmClassGeneratorUtils.getterSignature;
 import static org.gradle.model.internal.asm.AsmClassGeneratorUtils.signature;
@@ -104,9 +118,15 @@ import static org.objectweb.asm.Type.VOID_TYPE;
 
 public class AsmBackedClassGenerator extends AbstractClassGenerator {
     private static final ThreadLocal<ObjectCreationDetails> SERVICES_FOR_NEXT_OBJECT = new ThreadLocal<ObjectCreationDetails>();
+    // Only used while holding the class generation lock
+    private static final Map<Class<?>, HashCode> BYTECODE_HASHES = new WeakHashMap<Class<?>, HashCode>();
+    // Only used while holding the class generation lock. The most recently added cache is used
+    private static final List<GeneratedClassBytecodeCache> BYTECODE_CACHES = new ArrayList<GeneratedClassBytecodeCache>();
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsmBackedClassGenerator.class);
     private final boolean decorate;
     private final String suffix;
     private final Integer key;
+    private final HashCode generatorHash;
 
     // Used by generated code
     @SuppressWarnings("unused")
@@ -120,6 +140,48 @@ public class AsmBackedClassGenerator extends AbstractClassGenerator {
         this.suffix = suffix;
         // TODO - this isn't correct, fix this. It's just enough to get the tests to pass
         this.key = enabledAnnotations.size() << 1 | (decorate ? 1 : 0);
+        this.generatorHash = generatorHash(decorate, suffix, enabledAnnotations);
+    }
+
+    /**
+     * Uses the given cache to reuse the bytecode of classes generated by earlier processes. When several caches have been added, for example by builds that
+     * use different Gradle user homes, the most recently added one is used.
+     */
+    public static void addBytecodeCache(GeneratedClassBytecodeCache cache) {
+        CACHE_LOCK.lock();
+        try {
+            BYTECODE_CACHES.add(cache);
+        } finally {
+            CACHE_LOCK.unlock();
+        }
+    }
+
+    /**
+     * Stops using the given cache. Classes are only generated while holding the class generation lock, so the cache is no longer used once this method
+     * returns and can then be closed.
+     */
+    public static void removeBytecodeCache(GeneratedClassBytecodeCache cache) {
+        CACHE_LOCK.lock();
+        try {
+            BYTECODE_CACHES.remove(cache);
+        } finally {
+            CACHE_LOCK.unlock();
+        }
+    }
+
+    private static HashCode generatorHash(boolean decorate, String suffix, Collection<Class<? extends Annotation>> enabledAnnotations) {
+        Hasher hasher = Hashing.newHasher();
+        hasher.putString(GradleVersion.current().getVersion());
+        hasher.putBoolean(decorate);
+        hasher.putString(suffix);
+        Set<String> annotationNames = new TreeSet<String>();
+        for (Class<? extends Annotation> annotation : enabledAnnotations) {
+            annotationNames.add(annotation.getName());
+        }
+        for (String annotationName : annotationNames) {
+            hasher.putString(annotationName);
+        }
+        return hasher.hash();
     }
 
     /**
@@ -164,13 +226,128 @@ public class AsmBackedClassGenerator extends AbstractClassGenerator {
             formatter.append(" is not a class or interface.");
             throw new ClassGenerationException(formatter.toString());
         }
-        return new ClassInspectionVisitorImpl(type, decorate, suffix);
+        return new ClassInspectionVisitorImpl(type, decorate, suffix, generatorHash);
+    }
+
+    /**
+     * Calculates the key for the class generated for the given type. The key is made up from the bytecode of the generator, of the type hierarchy
+     * and of the types that the methods and constructors of the hierarchy refer to. Returns null when the bytecode of one of these types is not available.
+     */
+    @Nullable
+    private static HashCode bytecodeCacheKeyFor(Class<?> type, HashCode generatorHash, boolean... features) {
+        Map<String, Class<?>> hierarchy = new TreeMap<String, Class<?>>();
+        collectHierarchy(type, hierarchy);
+        Map<String, Class<?>> referencedTypes = new TreeMap<String, Class<?>>(hierarchy);
+        for (Class<?> declaringType : hierarchy.values()) {
+            if (declaringType.getClassLoader() == null) {
+                continue;
+            }
+            for (Method method : declaringType.getDeclaredMethods()) {
+                collectHierarchy(method.getReturnType(), referencedTypes);
+                for (Class<?> parameterType : method.getParameterTypes()) {
+                    collectHierarchy(parameterType, referencedTypes);
+                }
+            }
+            for (Constructor<?> constructor : declaringType.getDeclaredConstructors()) {
+                for (Class<?> parameterType : constructor.getParameterTypes()) {
+                    collectHierarchy(parameterType, referencedTypes);
+                }
+            }
+        }
+        referencedTypes.put(AbstractClassGenerator.class.getName(), AbstractClassGenerator.class);
+        referencedTypes.put(AsmBackedClassGenerator.class.getName(), AsmBackedClassGenerator.class);
+
+        Hasher hasher = Hashing.newHasher();
+        hasher.putHash(generatorHash);
+        hasher.putString(type.getName());
+        for (boolean feature : features) {
+            hasher.putBoolean(feature);
+        }
+        for (Class<?> referencedType : referencedTypes.values()) {
+            HashCode bytecodeHash = bytecodeHashOf(referencedType);
+            if (bytecodeHash == null) {
+                return null;
+            }
+            hasher.putString(referencedType.getName());
+            hasher.putHash(bytecodeHash);
+        }
+        return hasher.hash();
+    }
+
+    private static void collectHierarchy(Class<?> type, Map<String, Class<?>> types) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        if (type.isPrimitive() || types.put(type.getName(), type) != null) {
+            return;
+        }
+        if (type.getSuperclass() != null) {
+            collectHierarchy(type.getSuperclass(), types);
+        }
+        for (Class<?> superInterface : type.getInterfaces()) {
+            collectHierarchy(superInterface, types);
+        }
+    }
+
+    @Nullable
+    private static HashCode bytecodeHashOf(Class<?> type) {
+        if (BYTECODE_HASHES.containsKey(type)) {
+            return BYTECODE_HASHES.get(type);
+        }
+        HashCode hash = calculateBytecodeHash(type);
+        BYTECODE_HASHES.put(type, hash);
+        return hash;
+    }
+
+    @Nullable
+    private static HashCode calculateBytecodeHash(Class<?> type) {
+        ClassLoader classLoader = type.getClassLoader();
+        if (classLoader == null) {
+            // A JVM class, which only changes with the JVM
+            return Hashing.hashString(System.getProperty("java.vm.version"));
+        }
+        InputStream inputStream = classLoader.getResourceAsStream(type.getName().replace('.', '/') + ".class");
+        if (inputStream == null) {
+            // Some generated type, so the bytecode cannot be checked
+            return null;
+        }
+        try {
+            try {
+                return Hashing.hashBytes(ByteStreams.toByteArray(inputStream));
+            } finally {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    /**
+     * Defines the generated class from the bytecode held by the given cache. Returns null when the cache does not hold the bytecode, or when it cannot be
+     * read or defined, in which case the class is generated again.
+     */
+    @Nullable
+    private static Class<?> defineFromBytecodeCache(GeneratedClassBytecodeCache cache, HashCode cacheKey, Class<?> type, String generatedTypeName) {
+        try {
+            byte[] bytecode = cache.get(cacheKey);
+            if (bytecode == null) {
+                return null;
+            }
+            return ClassLoaderUtils.defineDecorator(type, type.getClassLoader(), generatedTypeName, bytecode);
+        } catch (RuntimeException e) {
+            LOGGER.debug("Could not use the cached bytecode of the class generated for {}.", type, e);
+            return null;
+        } catch (LinkageError e) {
+            LOGGER.debug("Could not use the cached bytecode of the class generated for {}.", type, e);
+            return null;
+        }
     }
 
     private static class ClassInspectionVisitorImpl implements ClassInspectionVisitor {
         private final Class<?> type;
         private final boolean decorate;
         private final String suffix;
+        private final HashCode generatorHash;
         private boolean extensible;
         private boolean serviceInjection;
         private boolean conventionAware;
@@ -178,10 +355,11 @@ public class AsmBackedClassGenerator extends AbstractClassGenerator {
         private boolean providesOwnDynamicObjectImplementation;
         private boolean providesOwnServicesImplementation;
 
-        public ClassInspectionVisitorImpl(Class<?> type, boolean decorate, String suffix) {
+        public ClassInspectionVisitorImpl(Class<?> type, boolean decorate, String suffix, HashCode generatorHash) {
             this.type = type;
             this.decorate = decorate;
             this.suffix = suffix;
+            this.generatorHash = generatorHash;
         }
 
         @Override
@@ -239,7 +417,20 @@ public class AsmBackedClassGenerator extends AbstractClassGenerator {
                 throw new ClassGenerationException(formatter.toString());
             }
             boolean requiresServicesMethod = (extensible || serviceInjection) && !providesOwnServicesImplementation;
-            ClassBuilderImpl builder = new ClassBuilderImpl(type, decorate, suffix, extensible, conventionAware, managed, providesOwnDynamicObjectImplementation, requiresServicesMethod);
+
+            GeneratedClassBytecodeCache cache = BYTECODE_CACHES.isEmpty() ? null : BYTECODE_CACHES.get(BYTECODE_CACHES.size() - 1);
+            HashCode cacheKey = null;
+            if (cache != null) {
+                cacheKey = bytecodeCacheKeyFor(type, generatorHash, extensible, conventionAware, managed, providesOwnDynamicObjectImplementation, requiresServicesMethod);
+                if (cacheKey != null) {
+                    Class<?> generatedClass = defineFromBytecodeCache(cache, cacheKey, type, type.getName() + suffix);
+                    if (generatedClass != null) {
+                        return new CachedClassBuilder(type, generatedClass);
+                    }
+                }
+            }
+
+            ClassBuilderImpl builder = new ClassBuilderImpl(type, decorate, suffix, extensible, conventionAware, managed, providesOwnDynamicObjectImplementation, requiresServicesMethod, cacheKey == null ? null : cache, cacheKey);
             builder.startClass();
             return builder;
         }
@@ -349,8 +540,10 @@ public class AsmBackedClassGenerator extends AbstractClassGenerator {
         private final boolean extensible;
         private final boolean providesOwnDynamicObject;
         private final boolean requiresServicesMethod;
+        private final GeneratedClassBytecodeCache bytecodeCache;
+        private final HashCode bytecodeCacheKey;
 
-        private ClassBuilderImpl(Class<?> type, boolean decorated, String suffix, boolean extensible, boolean conventionAware, boolean managed, boolean providesOwnDynamicObject, boolean requiresServicesMethod) {
+        private ClassBuilderImpl(Class<?> type, boolean decorated, String suffix, boolean extensible, boolean conventionAware, boolean managed, boolean providesOwnDynamicObject, boolean requiresServicesMethod, @Nullable GeneratedClassBytecodeCache bytecodeCache, @Nullable HashCode bytecodeCacheKey) {
             this.type = type;
             this.managed = managed;
             classGenerator = new AsmClassGenerator(type, suffix);
@@ -362,6 +555,8 @@ public class AsmBackedClassGenerator extends AbstractClassGenerator {
             this.conventionAware = conventionAware;
             this.providesOwnDynamicObject = providesOwnDynamicObject;
             this.requiresServicesMethod = requiresServicesMethod;
+            this.bytecodeCache = bytecodeCache;
+            this.bytecodeCacheKey = bytecodeCacheKey;
         }
 
         public void startClass() {
@@ -1459,7 +1654,17 @@ public class AsmBackedClassGenerator extends AbstractClassGenerator {
             writeGenericReturnTypeFields();
             visitor.visitEnd();
 
-            return classGenerator.define();
+            if (bytecodeCache == null) {
+                return classGenerator.define();
+            }
+            byte[] bytecode = visitor.toByteArray();
+            Class<?> generatedClass = ClassLoaderUtils.defineDecorator(type, type.getClassLoader(), classGenerator.getGeneratedTypeName(), bytecode);
+            try {
+                bytecodeCache.put(bytecodeCacheKey, bytecode);
+            } catch (RuntimeException e) {
+                LOGGER.debug("Could not cache the bytecode of the class generated for {}.", type, e);
+            }
+            return generatedClass;
         }
 
         private void writeGenericReturnTypeFields() {
@@ -1626,4 +1831,21 @@ public class AsmBackedClassGenerator extends AbstractClassGenerator {
             return type;
         }
     }
+
+    /**
+     * Returns a class that was defined from bytecode generated earlier, instead of generating it again.
+     */
+    private static class CachedClassBuilder extends NoOpBuilder {
+        private final Class<?> generatedClass;
+
+        public CachedClassBuilder(Class<?> type, Class<?> generatedClass) {
+            super(type);
+            this.generatedClass = generatedClass;
+        }
+
+        @Override
+        public Class<?> generate() {
+            return generatedClass;
+        }
+    }
 }
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.internal.instantiation;
+
+import org.gradle.internal.hash.HashCode;
+
+import javax.annotation.Nullable;
+
+/**
+ * Stores the bytecode of generated classes, so that it can be reused by later processes instead of being generated again.
+ */
+public interface GeneratedClassBytecodeCache {
+    /**
+     * Returns the bytecode of the class generated for the given key, or null when none is available.
+     */
+    @Nullable
+    byte[] get(HashCode key);
+
+    void put(HashCode key, byte[] bytecode);
+}
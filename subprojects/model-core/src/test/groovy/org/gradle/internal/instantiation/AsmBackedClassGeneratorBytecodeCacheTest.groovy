@@ -0,0 +1,252 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.internal.instantiation
+
+import org.gradle.internal.classanalysis.AsmConstants
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.instantiation.AsmBackedClassGeneratorTest.Bean
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassVisitor
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+
+class AsmBackedClassGeneratorBytecodeCacheTest extends AbstractClassGeneratorSpec {
+    final ClassGenerator generator = AsmBackedClassGenerator.decorateAndInject([], [])
+    final TestBytecodeCache bytecodeCache = new TestBytecodeCache()
+
+    def setup() {
+        AsmBackedClassGenerator.addBytecodeCache(bytecodeCache)
+    }
+
+    def cleanup() {
+        AsmBackedClassGenerator.removeBytecodeCache(bytecodeCache)
+    }
+
+    def "defines class from cached bytecode when the same type is loaded again"() {
+        when:
+        def firstType = isolatedCopyOf(Bean)
+        def first = create(firstType)
+
+        then:
+        bytecodeCache.stored.size() == 1
+        bytecodeCache.hits == 0
+
+        when:
+        def secondType = isolatedCopyOf(Bean)
+        def second = create(secondType)
+        second.prop = "value"
+
+        then:
+        second.class != first.class
+        second.class.name == first.class.name
+        second.class.superclass == secondType
+        second.prop == "value"
+        second.doStuff("some") == "{some}"
+        bytecodeCache.stored.size() == 1
+        bytecodeCache.hits == 1
+    }
+
+    def "generates class again when the cached bytecode is no longer available"() {
+        given:
+        create(isolatedCopyOf(Bean))
+        bytecodeCache.stored.clear()
+
+        when:
+        def bean = create(isolatedCopyOf(Bean))
+        bean.prop = "value"
+
+        then:
+        bean.prop == "value"
+        bytecodeCache.stored.size() == 1
+        bytecodeCache.hits == 0
+    }
+
+    def "generates class again when the bytecode of the type changes"() {
+        given:
+        create(isolatedCopyOf(Bean))
+
+        when:
+        def bean = create(isolatedCopyOf(Bean, (Bean): withExtraField(Bean)))
+        bean.prop = "value"
+
+        then:
+        bean.prop == "value"
+        bytecodeCache.stored.size() == 2
+        bytecodeCache.hits == 0
+    }
+
+    def "generates class again when the bytecode of a type referenced by the type changes"() {
+        given:
+        create(isolatedCopyOf(BeanWithReference, (Referenced): bytecodeOf(Referenced)))
+
+        when:
+        def bean = create(isolatedCopyOf(BeanWithReference, (Referenced): withExtraField(Referenced)))
+
+        then:
+        bean.referenced == null
+        bytecodeCache.stored.size() == 2
+        bytecodeCache.hits == 0
+    }
+
+    def "generates class when the cache cannot be read or written"() {
+        given:
+        def failingCache = Stub(GeneratedClassBytecodeCache) {
+            get(_) >> { throw new RuntimeException("broken") }
+            put(_, _) >> { throw new RuntimeException("broken") }
+        }
+        AsmBackedClassGenerator.addBytecodeCache(failingCache)
+
+        when:
+        def bean = create(isolatedCopyOf(Bean))
+        bean.prop = "value"
+
+        then:
+        bean.prop == "value"
+
+        cleanup:
+        AsmBackedClassGenerator.removeBytecodeCache(failingCache)
+    }
+
+    def "generates class when the cached bytecode cannot be defined"() {
+        given:
+        create(isolatedCopyOf(Bean))
+        bytecodeCache.stored.keySet().each { bytecodeCache.stored.put(it, [1, 2, 3] as byte[]) }
+
+        when:
+        def bean = create(isolatedCopyOf(Bean))
+        bean.prop = "value"
+
+        then:
+        bean.prop == "value"
+        bytecodeCache.hits == 1
+    }
+
+    def "uses the most recently added cache until it is removed"() {
+        given:
+        def otherCache = new TestBytecodeCache()
+        AsmBackedClassGenerator.addBytecodeCache(otherCache)
+
+        when:
+        create(isolatedCopyOf(Bean))
+
+        then:
+        otherCache.stored.size() == 1
+        bytecodeCache.stored.isEmpty()
+
+        when:
+        AsmBackedClassGenerator.removeBytecodeCache(otherCache)
+        create(isolatedCopyOf(Bean))
+
+        then:
+        otherCache.stored.size() == 1
+        bytecodeCache.stored.size() == 1
+    }
+
+    def "does not cache classes for types whose bytecode cannot be located"() {
+        when:
+        def bean = create(new GroovyClassLoader(getClass().classLoader).parseClass("class ScriptBean { String prop }"))
+        bean.prop = "value"
+
+        then:
+        bean.prop == "value"
+        bytecodeCache.stored.isEmpty()
+    }
+
+    /**
+     * Loads a copy of the given type, and of the given other types using the given bytecode, in a new class loader.
+     */
+    private static Class<?> isolatedCopyOf(Map<Class<?>, byte[]> otherTypes = [:], Class<?> type) {
+        Map<String, byte[]> bytecode = [(type.name): otherTypes.get(type) ?: bytecodeOf(type)]
+        otherTypes.each { otherType, otherBytecode -> bytecode.put(otherType.name, otherBytecode) }
+        return new IsolatingClassLoader(type.classLoader, bytecode).loadClass(type.name)
+    }
+
+    private static byte[] bytecodeOf(Class<?> type) {
+        return type.classLoader.getResourceAsStream(type.name.replace('.', '/') + ".class").bytes
+    }
+
+    private static byte[] withExtraField(Class<?> type) {
+        def writer = new ClassWriter(0)
+        new ClassReader(bytecodeOf(type)).accept(new ClassVisitor(AsmConstants.ASM_LEVEL, writer) {
+            @Override
+            void visitEnd() {
+                super.visitField(Opcodes.ACC_PRIVATE, "extraField", "I", null, null).visitEnd()
+                super.visitEnd()
+            }
+        }, 0)
+        return writer.toByteArray()
+    }
+
+    private static class IsolatingClassLoader extends ClassLoader {
+        private final Map<String, byte[]> bytecode
+
+        IsolatingClassLoader(ClassLoader parent, Map<String, byte[]> bytecode) {
+            super(parent)
+            this.bytecode = bytecode
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!bytecode.containsKey(name)) {
+                return super.loadClass(name, resolve)
+            }
+            synchronized (this) {
+                def type = findLoadedClass(name)
+                if (type == null) {
+                    def bytes = bytecode.get(name)
+                    type = defineClass(name, bytes, 0, bytes.length)
+                }
+                return type
+            }
+        }
+
+        @Override
+        InputStream getResourceAsStream(String name) {
+            def className = name.endsWith(".class") ? name.substring(0, name.length() - ".class".length()).replace('/', '.') : null
+            if (bytecode.containsKey(className)) {
+                return new ByteArrayInputStream(bytecode.get(className))
+            }
+            return super.getResourceAsStream(name)
+        }
+    }
+
+    static class Referenced {
+        String value
+    }
+
+    static class BeanWithReference {
+        Referenced referenced
+    }
+
+    private static class TestBytecodeCache implements GeneratedClassBytecodeCache {
+        final Map<HashCode, byte[]> stored = [:]
+        int hits
+
+        @Override
+        byte[] get(HashCode key) {
+            def bytecode = stored.get(key)
+            if (bytecode != null) {
+                hits++
+            }
+            return bytecode
+        }
+
+        @Override
+        void put(HashCode key, byte[] bytecode) {
+            stored.put(key, bytecode)
+        }
+    }
+}
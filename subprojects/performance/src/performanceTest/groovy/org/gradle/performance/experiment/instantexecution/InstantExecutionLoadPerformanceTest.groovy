@@ -0,0 +1,62 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.performance.experiment.instantexecution
+
+import org.gradle.performance.AbstractCrossBuildPerformanceTest
+import org.gradle.performance.categories.PerformanceExperiment
+import org.junit.experimental.categories.Category
+import spock.lang.Unroll
+
+/**
+ * Measures how the time to load a saved task graph with instant execution grows with the size of the graph,
+ * compared to configuring the build and calculating the task graph.
+ */
+@Category(PerformanceExperiment)
+class InstantExecutionLoadPerformanceTest extends AbstractCrossBuildPerformanceTest {
+
+    @Unroll
+    def "load task graph of #testProject"() {
+        given:
+        runner.testGroup = "instant execution"
+        runner.buildSpec {
+            warmUpCount = warmUpRuns
+            invocationCount = runs
+            projectName(testProject).displayName("instant execution").invocation {
+                tasksToRun("all").useDaemon().args("-Dorg.gradle.unsafe.instant-execution")
+            }
+        }
+        runner.baseline {
+            warmUpCount = warmUpRuns
+            invocationCount = runs
+            projectName(testProject).displayName("configure build").invocation {
+                tasksToRun("all").useDaemon()
+            }
+        }
+
+        when:
+        def results = runner.run()
+
+        then:
+        results
+
+        where:
+        testProject                      | warmUpRuns | runs
+        "instantExecutionSmallTaskGraph" | 5          | 20
+        "instantExecutionLargeTaskGraph" | 5          | 20
+    }
+}
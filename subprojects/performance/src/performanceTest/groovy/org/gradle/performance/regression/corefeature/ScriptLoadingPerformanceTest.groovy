@@ -0,0 +1,40 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.performance.regression.corefeature
+
+import org.gradle.performance.AbstractCrossVersionPerformanceTest
+
+/**
+ * Measures loading many unchanged build scripts from the script caches of a warm daemon.
+ */
+class ScriptLoadingPerformanceTest extends AbstractCrossVersionPerformanceTest {
+
+    def "load many unchanged build scripts"() {
+        given:
+        runner.testProject = "manyBuildScripts"
+        runner.tasksToRun = ['help']
+        runner.gradleOpts = ["-Xms1g", "-Xmx1g"]
+        runner.targetVersions = ["5.4-20190329080509+0000"]
+        runner.runs = 40
+
+        when:
+        def result = runner.run()
+
+        then:
+        result.assertCurrentVersionHasNotRegressed()
+    }
+}
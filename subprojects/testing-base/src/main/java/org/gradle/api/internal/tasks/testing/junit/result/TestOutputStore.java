@@ -30,6 +30,8 @@ import java.io.*;
 import java.nio.charset.Charset;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class TestOutputStore {
 
@@ -217,9 +219,13 @@ public class TestOutputStore {
         }
     }
 
+    /**
+     * Reads test output. A reader can be used concurrently by multiple threads, each of which reads through its own {@link RandomAccessFile}.
+     */
     public class Reader implements Closeable {
         private final Index index;
-        private final RandomAccessFile dataFile;
+        private final File dataFile;
+        private final Queue<RandomAccessFile> idleDataFiles = new ConcurrentLinkedQueue<RandomAccessFile>();
 
         public Reader() {
             File indexFile = getIndexFile();
@@ -261,12 +267,8 @@ public class TestOutputStore {
                 }
 
                 index = rootBuilder.build();
-
-                try {
-                    dataFile = new RandomAccessFile(getOutputsFile(), "r");
-                } catch (FileNotFoundException e) {
-                    throw new UncheckedIOException(e);
-                }
+                dataFile = outputsFile;
+                idleDataFiles.add(openDataFile());
             } else { // no outputs file
                 if (indexFile.exists()) {
                     throw new IllegalStateException(String.format("Test outputs data file '%s' does not exist but the index file '%s' does", outputsFile, indexFile));
@@ -279,8 +281,17 @@ public class TestOutputStore {
 
         @Override
         public void close() throws IOException {
-            if (dataFile != null) {
-                dataFile.close();
+            RandomAccessFile file;
+            while ((file = idleDataFiles.poll()) != null) {
+                file.close();
+            }
+        }
+
+        private RandomAccessFile openDataFile() {
+            try {
+                return new RandomAccessFile(dataFile, "r");
+            } catch (FileNotFoundException e) {
+                throw new UncheckedIOException(e);
             }
         }
 
@@ -334,10 +345,14 @@ public class TestOutputStore {
             boolean ignoreClassLevel = !allClassOutput && testId != 0;
             boolean ignoreTestLevel = !allClassOutput && testId == 0;
 
+            RandomAccessFile file = idleDataFiles.poll();
+            if (file == null) {
+                file = openDataFile();
+            }
             try {
-                dataFile.seek(region.start);
+                file.seek(region.start);
                 long maxPos = region.stop - region.start;
-                KryoBackedDecoder decoder = new KryoBackedDecoder(new RandomAccessFileInputStream(dataFile));
+                KryoBackedDecoder decoder = new KryoBackedDecoder(new RandomAccessFileInputStream(file));
                 while (decoder.getReadPosition() <= maxPos) {
                     boolean readStdout = decoder.readBoolean();
                     long readClassId = decoder.readSmallLong();
@@ -379,6 +394,8 @@ public class TestOutputStore {
                 }
             } catch (IOException e1) {
                 throw new UncheckedIOException(e1);
+            } finally {
+                idleDataFiles.add(file);
             }
         }
     }
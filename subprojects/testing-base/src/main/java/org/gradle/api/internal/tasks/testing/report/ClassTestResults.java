@@ -91,6 +91,14 @@ public class ClassTestResults extends CompositeTestResults {
         return results;
     }
 
+    /**
+     * Discards the results of the individual tests of this class, once they are no longer required to render the report.
+     * The counts, as well as the failed and ignored tests, are retained.
+     */
+    public void discardTestResults() {
+        results.clear();
+    }
+
     public TestResult addTest(String testName, String testDisplayName, long duration) {
         TestResult test = new TestResult(testName, testDisplayName, duration, this);
         results.add(test);
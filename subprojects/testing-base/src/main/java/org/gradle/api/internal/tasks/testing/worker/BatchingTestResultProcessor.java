@@ -0,0 +1,134 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.Stoppable;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link TestResultProcessor} that collects events into batches and forwards them to a {@link RemoteTestResultProcessor}.
+ *
+ * <p>A batch is forwarded when it reaches a size threshold, and at a fixed interval so that test progress is still reported while tests are running.
+ * Events are forwarded in the order they are received.</p>
+ *
+ * <p>A failure to forward a batch from the periodic flush is rethrown by the next event or by {@link #stop()}. The events of a batch that could not be forwarded are kept
+ * and forwarded again with the next batch.</p>
+ */
+public class BatchingTestResultProcessor implements TestResultProcessor, Stoppable {
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 100;
+    public static final int DEFAULT_MAX_BATCH_BYTES = 64 * 1024;
+
+    private final RemoteTestResultProcessor remote;
+    private final int maxBatchBytes;
+    private final TestEventBatchEncoder encoder = new TestEventBatchEncoder();
+    private final ScheduledFuture<?> flushTask;
+    private Throwable flushFailure;
+
+    public BatchingTestResultProcessor(RemoteTestResultProcessor remote, ScheduledExecutorService executor, long flushIntervalMillis, int maxBatchBytes) {
+        this.remote = remote;
+        this.maxBatchBytes = maxBatchBytes;
+        this.flushTask = executor.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                scheduledFlush();
+            }
+        }, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void started(TestDescriptorInternal test, TestStartEvent event) {
+        rethrowFlushFailure();
+        encoder.started(test, event);
+        maybeFlush();
+    }
+
+    @Override
+    public synchronized void completed(Object testId, TestCompleteEvent event) {
+        rethrowFlushFailure();
+        encoder.completed(testId, event);
+        maybeFlush();
+    }
+
+    @Override
+    public synchronized void output(Object testId, TestOutputEvent event) {
+        rethrowFlushFailure();
+        encoder.output(testId, event);
+        maybeFlush();
+    }
+
+    @Override
+    public synchronized void failure(Object testId, Throwable result) {
+        rethrowFlushFailure();
+        encoder.failure(testId, result);
+        maybeFlush();
+    }
+
+    public synchronized void flush() {
+        TestEventBatch batch = encoder.getPendingBatch();
+        if (batch != null) {
+            remote.process(batch);
+            encoder.batchSent();
+        }
+    }
+
+    /**
+     * Stops the periodic flush and forwards any remaining events, then rethrows any failure of the periodic flush.
+     */
+    @Override
+    public void stop() {
+        flushTask.cancel(false);
+        synchronized (this) {
+            flush();
+            rethrowFlushFailure();
+        }
+    }
+
+    private synchronized void scheduledFlush() {
+        if (flushFailure != null) {
+            return;
+        }
+        try {
+            flush();
+        } catch (Throwable t) {
+            // Don't let the failure cancel the periodic flush, report it to the test worker instead
+            flushFailure = t;
+        }
+    }
+
+    private void rethrowFlushFailure() {
+        if (flushFailure != null) {
+            Throwable failure = flushFailure;
+            flushFailure = null;
+            throw UncheckedException.throwAsUncheckedException(failure);
+        }
+    }
+
+    private void maybeFlush() {
+        if (encoder.getBufferedBytes() >= maxBatchBytes) {
+            flush();
+        }
+    }
+}
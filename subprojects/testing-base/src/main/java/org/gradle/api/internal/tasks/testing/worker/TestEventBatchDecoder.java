@@ -0,0 +1,134 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassDescriptor;
+import org.gradle.api.internal.tasks.testing.DefaultTestDescriptor;
+import org.gradle.api.internal.tasks.testing.DefaultTestMethodDescriptor;
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent;
+import org.gradle.api.internal.tasks.testing.DefaultTestSuiteDescriptor;
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.api.tasks.testing.TestResult;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.id.CompositeIdGenerator;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes the batches produced by a {@link TestEventBatchEncoder} and replays the events, in order, to a {@link TestResultProcessor}.
+ */
+public class TestEventBatchDecoder implements RemoteTestResultProcessor {
+    private static final TestResult.ResultType[] RESULT_TYPES = TestResult.ResultType.values();
+    private static final TestOutputEvent.Destination[] DESTINATIONS = TestOutputEvent.Destination.values();
+
+    private final Serializer<Throwable> throwableSerializer = new BaseSerializerFactory().getSerializerFor(Throwable.class);
+    private final List<String> strings = new ArrayList<String>();
+    private final TestResultProcessor resultProcessor;
+
+    public TestEventBatchDecoder(TestResultProcessor resultProcessor) {
+        this.resultProcessor = resultProcessor;
+    }
+
+    @Override
+    public synchronized void process(TestEventBatch batch) {
+        Decoder decoder = new KryoBackedDecoder(new ByteArrayInputStream(batch.getData()));
+        try {
+            for (int i = 0; i < batch.getEventCount(); i++) {
+                processEvent(decoder);
+            }
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private void processEvent(Decoder decoder) throws Exception {
+        byte type = decoder.readByte();
+        switch (type) {
+            case TestEventBatchEncoder.STARTED:
+                TestDescriptorInternal descriptor = readDescriptor(decoder);
+                long startTime = decoder.readSmallLong();
+                Object parentId = decoder.readBoolean() ? readId(decoder) : null;
+                resultProcessor.started(descriptor, new TestStartEvent(startTime, parentId));
+                break;
+            case TestEventBatchEncoder.COMPLETED:
+                Object completedId = readId(decoder);
+                long endTime = decoder.readSmallLong();
+                int resultType = decoder.readSmallInt();
+                resultProcessor.completed(completedId, new TestCompleteEvent(endTime, resultType == 0 ? null : RESULT_TYPES[resultType - 1]));
+                break;
+            case TestEventBatchEncoder.OUTPUT:
+                Object outputId = readId(decoder);
+                TestOutputEvent.Destination destination = DESTINATIONS[decoder.readByte()];
+                resultProcessor.output(outputId, new DefaultTestOutputEvent(destination, decoder.readString()));
+                break;
+            case TestEventBatchEncoder.FAILURE:
+                Object failedId = readId(decoder);
+                resultProcessor.failure(failedId, throwableSerializer.read(decoder));
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("Unexpected test event type %s.", type));
+        }
+    }
+
+    private TestDescriptorInternal readDescriptor(Decoder decoder) throws IOException {
+        byte type = decoder.readByte();
+        Object id = readId(decoder);
+        switch (type) {
+            case TestEventBatchEncoder.TEST_METHOD:
+                return new DefaultTestMethodDescriptor(id, readSharedString(decoder), readSharedString(decoder));
+            case TestEventBatchEncoder.TEST:
+                String className = readSharedString(decoder);
+                String classDisplayName = readSharedString(decoder);
+                String name = readSharedString(decoder);
+                String displayName = readSharedString(decoder);
+                return new DefaultTestDescriptor(id, className, name, classDisplayName, displayName);
+            case TestEventBatchEncoder.TEST_CLASS:
+                return new DefaultTestClassDescriptor(id, readSharedString(decoder), readSharedString(decoder));
+            case TestEventBatchEncoder.WORKER_SUITE:
+                return new WorkerTestClassProcessor.WorkerTestSuiteDescriptor(id, readSharedString(decoder));
+            case TestEventBatchEncoder.SUITE:
+                return new DefaultTestSuiteDescriptor(id, readSharedString(decoder));
+            default:
+                throw new IllegalArgumentException(String.format("Unexpected test descriptor type %s.", type));
+        }
+    }
+
+    private Object readId(Decoder decoder) throws IOException {
+        return new CompositeIdGenerator.CompositeId(decoder.readSmallLong(), decoder.readSmallLong());
+    }
+
+    private String readSharedString(Decoder decoder) throws IOException {
+        int index = decoder.readSmallInt();
+        if (index > 0) {
+            return strings.get(index - 1);
+        }
+        String value = decoder.readString();
+        strings.add(value);
+        return value;
+    }
+}
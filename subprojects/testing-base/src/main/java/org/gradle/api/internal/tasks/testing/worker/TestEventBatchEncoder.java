@@ -0,0 +1,190 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassDescriptor;
+import org.gradle.api.internal.tasks.testing.DefaultTestDescriptor;
+import org.gradle.api.internal.tasks.testing.DefaultTestMethodDescriptor;
+import org.gradle.api.internal.tasks.testing.DefaultTestSuiteDescriptor;
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.api.tasks.testing.TestResult;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.id.CompositeIdGenerator;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encodes test events into compact {@link TestEventBatch} instances.
+ *
+ * <p>Names and class names are written to a string table that is shared by all batches produced by this encoder, so each distinct string is sent only once per worker.
+ * The batches must be decoded in order by a single {@link TestEventBatchDecoder}.</p>
+ *
+ * <p>Not thread-safe.</p>
+ */
+public class TestEventBatchEncoder {
+    static final byte STARTED = 1;
+    static final byte COMPLETED = 2;
+    static final byte OUTPUT = 3;
+    static final byte FAILURE = 4;
+
+    static final byte SUITE = 1;
+    static final byte WORKER_SUITE = 2;
+    static final byte TEST_CLASS = 3;
+    static final byte TEST = 4;
+    static final byte TEST_METHOD = 5;
+
+    private final Serializer<Throwable> throwableSerializer = new BaseSerializerFactory().getSerializerFor(Throwable.class);
+    private final Map<String, Integer> strings = new HashMap<String, Integer>();
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private final KryoBackedEncoder encoder = new KryoBackedEncoder(buffer);
+    private long batchStart;
+    private int eventCount;
+
+    public void started(TestDescriptorInternal test, TestStartEvent event) {
+        encoder.writeByte(STARTED);
+        writeDescriptor(test);
+        encoder.writeSmallLong(event.getStartTime());
+        writeNullableId(event.getParentId());
+        eventCount++;
+    }
+
+    public void completed(Object testId, TestCompleteEvent event) {
+        encoder.writeByte(COMPLETED);
+        writeId(testId);
+        encoder.writeSmallLong(event.getEndTime());
+        TestResult.ResultType resultType = event.getResultType();
+        encoder.writeSmallInt(resultType == null ? 0 : resultType.ordinal() + 1);
+        eventCount++;
+    }
+
+    public void output(Object testId, TestOutputEvent event) {
+        encoder.writeByte(OUTPUT);
+        writeId(testId);
+        encoder.writeByte((byte) event.getDestination().ordinal());
+        encoder.writeString(event.getMessage());
+        eventCount++;
+    }
+
+    public void failure(Object testId, Throwable failure) {
+        encoder.writeByte(FAILURE);
+        writeId(testId);
+        try {
+            throwableSerializer.write(encoder, failure);
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        eventCount++;
+    }
+
+    /**
+     * Returns the number of bytes encoded since the last batch was sent.
+     */
+    public long getBufferedBytes() {
+        return encoder.getWritePosition() - batchStart;
+    }
+
+    /**
+     * Returns the events encoded since the last batch was sent, or null if there are none.
+     *
+     * <p>The events are kept until {@link #batchSent()} is called, so that a batch that could not be sent is sent again together with any later events. This keeps the string table consistent with the batches the decoder has received.</p>
+     */
+    @Nullable
+    public TestEventBatch getPendingBatch() {
+        if (eventCount == 0) {
+            return null;
+        }
+        encoder.flush();
+        return new TestEventBatch(eventCount, buffer.toByteArray());
+    }
+
+    /**
+     * Discards the events returned by the most recent call to {@link #getPendingBatch()}, once the batch has been sent.
+     */
+    public void batchSent() {
+        encoder.flush();
+        buffer.reset();
+        batchStart = encoder.getWritePosition();
+        eventCount = 0;
+    }
+
+    private void writeDescriptor(TestDescriptorInternal descriptor) {
+        Class<?> type = descriptor.getClass();
+        if (type == DefaultTestMethodDescriptor.class) {
+            DefaultTestMethodDescriptor method = (DefaultTestMethodDescriptor) descriptor;
+            encoder.writeByte(TEST_METHOD);
+            writeId(method.getId());
+            writeSharedString(method.getClassName());
+            writeSharedString(method.getName());
+        } else if (type == DefaultTestDescriptor.class) {
+            DefaultTestDescriptor test = (DefaultTestDescriptor) descriptor;
+            encoder.writeByte(TEST);
+            writeId(test.getId());
+            writeSharedString(test.getClassName());
+            writeSharedString(test.getClassDisplayName());
+            writeSharedString(test.getName());
+            writeSharedString(test.getDisplayName());
+        } else if (type == DefaultTestClassDescriptor.class) {
+            encoder.writeByte(TEST_CLASS);
+            writeId(descriptor.getId());
+            writeSharedString(descriptor.getName());
+            writeSharedString(descriptor.getDisplayName());
+        } else if (type == WorkerTestClassProcessor.WorkerTestSuiteDescriptor.class) {
+            encoder.writeByte(WORKER_SUITE);
+            writeId(descriptor.getId());
+            writeSharedString(descriptor.getName());
+        } else if (type == DefaultTestSuiteDescriptor.class) {
+            encoder.writeByte(SUITE);
+            writeId(descriptor.getId());
+            writeSharedString(descriptor.getName());
+        } else {
+            throw new IllegalArgumentException(String.format("Cannot encode test descriptor of type %s.", type.getName()));
+        }
+    }
+
+    private void writeNullableId(@Nullable Object id) {
+        encoder.writeBoolean(id != null);
+        if (id != null) {
+            writeId(id);
+        }
+    }
+
+    private void writeId(Object id) {
+        CompositeIdGenerator.CompositeId compositeId = (CompositeIdGenerator.CompositeId) id;
+        encoder.writeSmallLong((Long) compositeId.getScope());
+        encoder.writeSmallLong((Long) compositeId.getId());
+    }
+
+    private void writeSharedString(String value) {
+        Integer index = strings.get(value);
+        if (index != null) {
+            encoder.writeSmallInt(index + 1);
+            return;
+        }
+        encoder.writeSmallInt(0);
+        encoder.writeString(value);
+        strings.put(value, strings.size());
+    }
+}
@@ -36,6 +36,7 @@ public class TestEventSerializer {
         registry.register(TestStartEvent.class, new TestStartEventSerializer());
         registry.register(TestCompleteEvent.class, new TestCompleteEventSerializer());
         registry.register(DefaultTestOutputEvent.class, new DefaultTestOutputEventSerializer());
+        registry.register(TestEventBatch.class, new TestEventBatchSerializer());
         registry.register(Throwable.class, factory.getSerializerFor(Throwable.class));
         return registry;
     }
@@ -140,6 +141,21 @@ public class TestEventSerializer {
         }
     }
 
+    private static class TestEventBatchSerializer implements Serializer<TestEventBatch> {
+        @Override
+        public TestEventBatch read(Decoder decoder) throws Exception {
+            int eventCount = decoder.readSmallInt();
+            byte[] data = decoder.readBinary();
+            return new TestEventBatch(eventCount, data);
+        }
+
+        @Override
+        public void write(Encoder encoder, TestEventBatch value) throws Exception {
+            encoder.writeSmallInt(value.getEventCount());
+            encoder.writeBinary(value.getData());
+        }
+    }
+
     private static class DefaultTestSuiteDescriptorSerializer implements Serializer<DefaultTestSuiteDescriptor> {
         final Serializer<CompositeIdGenerator.CompositeId> idSerializer = new IdSerializer();
 
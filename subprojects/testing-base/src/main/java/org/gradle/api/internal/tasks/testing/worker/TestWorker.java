@@ -19,7 +19,6 @@ package org.gradle.api.internal.tasks.testing.worker;
 import org.gradle.api.Action;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
-import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.actor.ActorFactory;
@@ -49,7 +48,7 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
     private final WorkerTestClassProcessorFactory factory;
     private CountDownLatch completed;
     private TestClassProcessor processor;
-    private TestResultProcessor resultProcessor;
+    private BatchingTestResultProcessor resultProcessor;
 
     public TestWorker(WorkerTestClassProcessorFactory factory) {
         this.factory = factory;
@@ -100,7 +99,9 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
 
         ObjectConnection serverConnection = workerProcessContext.getServerConnection();
         serverConnection.useParameterSerializers(TestEventSerializer.create());
-        this.resultProcessor = serverConnection.addOutgoing(TestResultProcessor.class);
+        RemoteTestResultProcessor remoteResultProcessor = serverConnection.addOutgoing(RemoteTestResultProcessor.class);
+        this.resultProcessor = new BatchingTestResultProcessor(remoteResultProcessor, testServices.get(ExecutorFactory.class).createScheduled("Test event batching", 1),
+            BatchingTestResultProcessor.DEFAULT_FLUSH_INTERVAL_MILLIS, BatchingTestResultProcessor.DEFAULT_MAX_BATCH_BYTES);
         serverConnection.addIncoming(RemoteTestClassProcessor.class, this);
         serverConnection.connect();
     }
@@ -129,7 +130,11 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
     public void stop() {
         Thread.currentThread().setName("Test worker");
         try {
-            processor.stop();
+            try {
+                processor.stop();
+            } finally {
+                resultProcessor.stop();
+            }
         } finally {
             completed.countDown();
             // Clean the interrupted status
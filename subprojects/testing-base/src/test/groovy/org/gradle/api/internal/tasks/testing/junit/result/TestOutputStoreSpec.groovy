@@ -145,6 +145,59 @@ class TestOutputStoreSpec extends WorkspaceTest {
         reader.close()
     }
 
+    def "reader can be used by multiple threads concurrently"() {
+        given:
+        def writer = output.writer()
+        100.times { classId ->
+            50.times { testId ->
+                writer.onOutput(classId, testId + 1, output(StdOut, "[$classId-$testId]"))
+            }
+        }
+        writer.close()
+        def reader = output.reader()
+
+        when:
+        def results = Collections.synchronizedMap([:])
+        def threads = (0..<4).collect { thread ->
+            Thread.start {
+                for (int classId = thread; classId < 100; classId += 4) {
+                    results[classId] = collectAllOutput(reader, classId, StdOut)
+                }
+            }
+        }
+        threads*.join()
+
+        then:
+        results.size() == 100
+        results.every { classId, text -> text == (0..<50).collect { "[$classId-$it]" }.join("") }
+
+        cleanup:
+        reader.close()
+    }
+
+    def "reader can still be used after a reading thread is interrupted"() {
+        given:
+        def writer = output.writer()
+        writer.onOutput(1, 1, output(StdOut, "one"))
+        writer.onOutput(2, 1, output(StdOut, "two"))
+        writer.close()
+        def reader = output.reader()
+
+        when:
+        def interruptedResult = null
+        Thread.start {
+            Thread.currentThread().interrupt()
+            interruptedResult = collectAllOutput(reader, 1, StdOut)
+        }.join()
+
+        then:
+        interruptedResult == "one"
+        collectAllOutput(reader, 2, StdOut) == "two"
+
+        cleanup:
+        reader.close()
+    }
+
     def "can open empty reader"() {
         // neither file
         expect:
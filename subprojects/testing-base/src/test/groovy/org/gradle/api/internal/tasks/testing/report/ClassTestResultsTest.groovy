@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.tasks.testing.report
 
+import org.gradle.api.internal.tasks.testing.junit.result.TestFailure
 import spock.lang.Specification
 
 class ClassTestResultsTest extends Specification {
@@ -25,4 +26,24 @@ class ClassTestResultsTest extends Specification {
         new ClassTestResults(1, 'org.gradle.Test', 'TestDisplay', null).reportName == 'TestDisplay'
         new ClassTestResults(2, 'Test', 'TestDisplay', null).reportName == 'TestDisplay'
     }
+
+    def discardsTestResultsButKeepsSummary() {
+        def classResults = new AllTestResults().addTestClass(1, 'org.gradle.Test')
+        def failure = Stub(TestFailure)
+
+        given:
+        classResults.addTest('passed', 'passed', 10)
+        classResults.addTest('failed', 'failed', 20).addFailure(failure)
+        classResults.addTest('ignored', 'ignored', 30).setIgnored()
+
+        when:
+        classResults.discardTestResults()
+
+        then:
+        classResults.testResults.empty
+        classResults.testCount == 3
+        classResults.duration == 60
+        classResults.failures*.name == ['failed']
+        classResults.ignored*.name == ['ignored']
+    }
 }
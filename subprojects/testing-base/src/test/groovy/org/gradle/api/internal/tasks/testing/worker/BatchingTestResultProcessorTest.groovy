@@ -0,0 +1,163 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.tasks.testing.TestOutputEvent
+import org.gradle.internal.id.CompositeIdGenerator
+import spock.lang.Specification
+
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.TimeUnit
+
+class BatchingTestResultProcessorTest extends Specification {
+    def remote = Mock(RemoteTestResultProcessor)
+    def executor = Mock(ScheduledExecutorService)
+    def flushTask = Mock(ScheduledFuture)
+    def testId = new CompositeIdGenerator.CompositeId(1L, 2L)
+    Runnable scheduledFlush
+
+    def setup() {
+        executor.scheduleAtFixedRate(_, 100, 100, TimeUnit.MILLISECONDS) >> { Runnable action, long delay, long period, TimeUnit unit ->
+            scheduledFlush = action
+            return flushTask
+        }
+    }
+
+    def "forwards events periodically"() {
+        def processor = create(1024)
+
+        when:
+        processor.output(testId, new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, "one"))
+        processor.completed(testId, new TestCompleteEvent(100L))
+
+        then:
+        0 * remote._
+
+        when:
+        scheduledFlush.run()
+
+        then:
+        1 * remote.process({ it.eventCount == 2 })
+
+        when:
+        scheduledFlush.run()
+
+        then:
+        0 * remote._
+    }
+
+    def "forwards events when batch becomes too large"() {
+        def processor = create(100)
+
+        when:
+        processor.output(testId, new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, "short"))
+
+        then:
+        0 * remote._
+
+        when:
+        processor.output(testId, new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, "x" * 100))
+
+        then:
+        1 * remote.process({ it.eventCount == 2 })
+    }
+
+    def "forwards remaining events on stop"() {
+        def processor = create(1024)
+
+        when:
+        processor.completed(testId, new TestCompleteEvent(100L))
+        processor.stop()
+
+        then:
+        1 * flushTask.cancel(false)
+        1 * remote.process({ it.eventCount == 1 })
+    }
+
+    def "failure in periodic flush is rethrown by next event and does not stop periodic flush"() {
+        def processor = create(1024)
+        def failure = new RuntimeException("broken")
+
+        when:
+        processor.completed(testId, new TestCompleteEvent(100L))
+        scheduledFlush.run()
+
+        then:
+        1 * remote.process(_) >> { throw failure }
+        noExceptionThrown()
+
+        when:
+        processor.completed(testId, new TestCompleteEvent(100L))
+
+        then:
+        def e = thrown(RuntimeException)
+        e.is(failure)
+
+        when:
+        processor.completed(testId, new TestCompleteEvent(100L))
+        scheduledFlush.run()
+
+        then:
+        1 * remote.process({ it.eventCount == 2 })
+    }
+
+    def "failure in periodic flush is rethrown on stop"() {
+        def processor = create(1024)
+        def failure = new RuntimeException("broken")
+
+        given:
+        processor.completed(testId, new TestCompleteEvent(100L))
+        remote.process(_) >> { throw failure }
+        scheduledFlush.run()
+
+        when:
+        processor.stop()
+
+        then:
+        def e = thrown(RuntimeException)
+        e.is(failure)
+    }
+
+    def "forwards remaining events on stop before rethrowing failure in periodic flush"() {
+        def processor = create(1024)
+        def failure = new RuntimeException("broken")
+
+        given:
+        processor.completed(testId, new TestCompleteEvent(100L))
+
+        when:
+        scheduledFlush.run()
+
+        then:
+        1 * remote.process(_) >> { throw failure }
+
+        when:
+        processor.stop()
+
+        then:
+        1 * remote.process({ it.eventCount == 1 })
+        def e = thrown(RuntimeException)
+        e.is(failure)
+    }
+
+    def create(int maxBatchBytes) {
+        return new BatchingTestResultProcessor(remote, executor, 100, maxBatchBytes)
+    }
+}
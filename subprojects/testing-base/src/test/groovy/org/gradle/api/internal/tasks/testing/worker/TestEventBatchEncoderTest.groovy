@@ -0,0 +1,147 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.api.GradleException
+import org.gradle.api.internal.tasks.testing.DefaultTestClassDescriptor
+import org.gradle.api.internal.tasks.testing.DefaultTestDescriptor
+import org.gradle.api.internal.tasks.testing.DefaultTestMethodDescriptor
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent
+import org.gradle.api.internal.tasks.testing.DefaultTestSuiteDescriptor
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.TestStartEvent
+import org.gradle.api.tasks.testing.TestOutputEvent
+import org.gradle.api.tasks.testing.TestResult
+import org.gradle.internal.id.CompositeIdGenerator
+import spock.lang.Specification
+
+class TestEventBatchEncoderTest extends Specification {
+    def encoder = new TestEventBatchEncoder()
+    def resultProcessor = Mock(TestResultProcessor)
+    def decoder = new TestEventBatchDecoder(resultProcessor)
+
+    def "produces no batch when there are no events"() {
+        expect:
+        encoder.pendingBatch == null
+        encoder.bufferedBytes == 0
+    }
+
+    def "replays events in order"() {
+        def suiteId = id(1)
+        def classId = id(2)
+        def testId = id(3)
+        def failure = new GradleException("broken")
+
+        given:
+        encoder.started(new WorkerTestClassProcessor.WorkerTestSuiteDescriptor(suiteId, "worker"), new TestStartEvent(100L))
+        encoder.started(new DefaultTestClassDescriptor(classId, "org.Test", "Test"), new TestStartEvent(101L, suiteId))
+        encoder.started(new DefaultTestDescriptor(testId, "org.Test", "ok", "Test", "is ok"), new TestStartEvent(102L, classId))
+        encoder.output(testId, new DefaultTestOutputEvent(TestOutputEvent.Destination.StdErr, "some output"))
+        encoder.failure(testId, failure)
+        encoder.completed(testId, new TestCompleteEvent(103L, TestResult.ResultType.FAILURE))
+        encoder.completed(classId, new TestCompleteEvent(104L))
+
+        when:
+        def batch = takeBatch()
+        decoder.process(batch)
+
+        then:
+        batch.eventCount == 7
+
+        then:
+        1 * resultProcessor.started({ it instanceof WorkerTestClassProcessor.WorkerTestSuiteDescriptor && it.id == suiteId && it.name == "worker" }, { it.startTime == 100L && it.parentId == null })
+
+        then:
+        1 * resultProcessor.started({ it instanceof DefaultTestClassDescriptor && it.id == classId && it.className == "org.Test" && it.displayName == "Test" }, { it.startTime == 101L && it.parentId == suiteId })
+
+        then:
+        1 * resultProcessor.started({ it.class == DefaultTestDescriptor && it.id == testId && it.className == "org.Test" && it.classDisplayName == "Test" && it.name == "ok" && it.displayName == "is ok" }, { it.parentId == classId })
+
+        then:
+        1 * resultProcessor.output(testId, { it.destination == TestOutputEvent.Destination.StdErr && it.message == "some output" })
+
+        then:
+        1 * resultProcessor.failure(testId, { it instanceof GradleException && it.message == "broken" })
+
+        then:
+        1 * resultProcessor.completed(testId, { it.endTime == 103L && it.resultType == TestResult.ResultType.FAILURE })
+
+        then:
+        1 * resultProcessor.completed(classId, { it.endTime == 104L && it.resultType == null })
+        0 * resultProcessor._
+    }
+
+    def "shares string table across batches"() {
+        when:
+        encoder.started(new DefaultTestMethodDescriptor(id(1), "org.SomeLongTestClassName", "someLongTestMethodName"), new TestStartEvent(100L))
+        def first = takeBatch()
+        encoder.started(new DefaultTestMethodDescriptor(id(2), "org.SomeLongTestClassName", "someLongTestMethodName"), new TestStartEvent(100L))
+        def second = takeBatch()
+
+        then:
+        encoder.bufferedBytes == 0
+        second.data.length < first.data.length
+
+        when:
+        decoder.process(first)
+        decoder.process(second)
+
+        then:
+        1 * resultProcessor.started({ it instanceof DefaultTestMethodDescriptor && it.id == id(1) && it.className == "org.SomeLongTestClassName" && it.name == "someLongTestMethodName" }, _)
+        1 * resultProcessor.started({ it instanceof DefaultTestMethodDescriptor && it.id == id(2) && it.className == "org.SomeLongTestClassName" && it.name == "someLongTestMethodName" }, _)
+    }
+
+    def "keeps events and strings of batch until it has been sent"() {
+        when:
+        encoder.started(new DefaultTestMethodDescriptor(id(1), "org.SomeTestClassName", "someTestMethodName"), new TestStartEvent(100L))
+        def notSent = encoder.pendingBatch
+        encoder.started(new DefaultTestMethodDescriptor(id(2), "org.SomeTestClassName", "someTestMethodName"), new TestStartEvent(100L))
+        def batch = takeBatch()
+
+        then:
+        notSent.eventCount == 1
+        batch.eventCount == 2
+        encoder.pendingBatch == null
+
+        when:
+        decoder.process(batch)
+
+        then:
+        1 * resultProcessor.started({ it.id == id(1) && it.className == "org.SomeTestClassName" && it.name == "someTestMethodName" }, _)
+        1 * resultProcessor.started({ it.id == id(2) && it.className == "org.SomeTestClassName" && it.name == "someTestMethodName" }, _)
+    }
+
+    def "encodes suite descriptors"() {
+        when:
+        encoder.started(new DefaultTestSuiteDescriptor(id(1), "suite"), new TestStartEvent(100L))
+        decoder.process(takeBatch())
+
+        then:
+        1 * resultProcessor.started({ it.class == DefaultTestSuiteDescriptor && it.id == id(1) && it.name == "suite" }, _)
+    }
+
+    def takeBatch() {
+        def batch = encoder.pendingBatch
+        encoder.batchSent()
+        return batch
+    }
+
+    def id(long id) {
+        return new CompositeIdGenerator.CompositeId(12L, id)
+    }
+}
@@ -162,6 +162,18 @@ class TestEventSerializerTest extends SerializerSpec {
         result.message == "hi"
     }
 
+    def "serializes TestEventBatch"() {
+        def batch = new TestEventBatch(2, [1, 2, 3] as byte[])
+
+        when:
+        def result = serialize(batch)
+
+        then:
+        result instanceof TestEventBatch
+        result.eventCount == 2
+        result.data == [1, 2, 3] as byte[]
+    }
+
     def "serializes Throwable"() {
         def failure = new GradleException("broken", new RuntimeException("cause"))
 
@@ -19,7 +19,6 @@ package org.gradle.api.internal.tasks.testing.worker
 
 import org.gradle.api.internal.tasks.testing.TestClassProcessor
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo
-import org.gradle.api.internal.tasks.testing.TestResultProcessor
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory
 import org.gradle.internal.remote.ObjectConnection
 import org.gradle.internal.service.DefaultServiceRegistry
@@ -37,7 +36,7 @@ public class TestWorkerTest extends ConcurrentSpec {
     def factory = Mock(WorkerTestClassProcessorFactory)
     def processor = Mock(TestClassProcessor)
     def test = Mock(TestClassRunInfo)
-    def resultProcessor = Mock(TestResultProcessor)
+    def resultProcessor = Mock(RemoteTestResultProcessor)
     def worker = new TestWorker(factory)
     def serviceRegistry = new DefaultServiceRegistry().add(Clock, Time.clock())
 
@@ -60,7 +59,7 @@ public class TestWorkerTest extends ConcurrentSpec {
 
         and:
         1 * factory.create(_) >> processor
-        1 * connection.addOutgoing(TestResultProcessor) >> resultProcessor
+        1 * connection.addOutgoing(RemoteTestResultProcessor) >> resultProcessor
         1 * connection.addIncoming(RemoteTestClassProcessor, worker)
         1 * connection.useParameterSerializers(_)
         1 * connection.connect() >> {
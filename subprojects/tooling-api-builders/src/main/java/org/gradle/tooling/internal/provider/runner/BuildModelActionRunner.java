@@ -97,7 +97,8 @@ public class BuildModelActionRunner implements BuildActionRunner {
             String modelName = buildModelAction.getModelName();
             ToolingModelBuilder builder = getModelBuilder(gradle, modelName);
 
-            return builder.buildAll(modelName, gradle.getDefaultProject());
+            ToolingModelCache modelCache = gradle.getServices().get(ToolingModelCache.class);
+            return modelCache.buildAll(modelName, builder, gradle.getDefaultProject());
         }
 
         private static void forceFullConfiguration(GradleInternal gradle) {
@@ -16,18 +16,28 @@
 
 package org.gradle.tooling.internal.provider.runner;
 
+import org.gradle.api.Action;
 import org.gradle.api.BuildCancelledException;
 import org.gradle.api.initialization.IncludedBuild;
 import org.gradle.api.internal.GradleInternal;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.initialization.BuildCancellationToken;
+import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.build.IncludedBuildState;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.work.WorkerLeaseService;
 import org.gradle.tooling.internal.adapter.ProtocolToModelAdapter;
 import org.gradle.tooling.internal.adapter.ViewBuilder;
 import org.gradle.tooling.internal.gradle.GradleBuildIdentity;
 import org.gradle.tooling.internal.gradle.GradleProjectIdentity;
 import org.gradle.tooling.internal.protocol.BuildExceptionVersion1;
 import org.gradle.tooling.internal.protocol.BuildResult;
+import org.gradle.tooling.internal.protocol.InternalActionAwareBuildController;
 import org.gradle.tooling.internal.protocol.InternalBuildControllerVersion2;
 import org.gradle.tooling.internal.protocol.InternalUnsupportedModelException;
 import org.gradle.tooling.internal.protocol.ModelIdentifier;
@@ -37,8 +47,12 @@ import org.gradle.tooling.provider.model.ToolingModelBuilder;
 import org.gradle.tooling.provider.model.ToolingModelBuilderRegistry;
 import org.gradle.tooling.provider.model.UnknownModelException;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
 @SuppressWarnings("deprecation")
-class DefaultBuildController implements org.gradle.tooling.internal.protocol.InternalBuildController, InternalBuildControllerVersion2 {
+class DefaultBuildController implements org.gradle.tooling.internal.protocol.InternalBuildController, InternalBuildControllerVersion2, InternalActionAwareBuildController {
     private final GradleInternal gradle;
 
     public DefaultBuildController(GradleInternal gradle) {
@@ -70,13 +84,19 @@ class DefaultBuildController implements org.gradle.tooling.internal.protocol.Int
         if (cancellationToken.isCancellationRequested()) {
             throw new BuildCancelledException(String.format("Could not build '%s' model. Build cancelled.", modelIdentifier.getName()));
         }
-        ProjectInternal project = getTargetProject(target);
-        ToolingModelBuilder builder = getToolingModelBuilder(project, modelIdentifier);
-        String modelName = modelIdentifier.getName();
+        final ProjectInternal project = getTargetProject(target);
+        final ToolingModelBuilder builder = getToolingModelBuilder(project, modelIdentifier);
+        final String modelName = modelIdentifier.getName();
 
         Object model;
         if (parameter == null) {
-            model = builder.buildAll(modelName, project);
+            final ToolingModelCache modelCache = project.getGradle().getServices().get(ToolingModelCache.class);
+            model = project.getMutationState().withMutableState(new Factory<Object>() {
+                @Override
+                public Object create() {
+                    return modelCache.buildAll(modelName, builder, project);
+                }
+            });
         } else if (builder instanceof ParameterizedToolingModelBuilder<?>) {
             model = getParameterizedModel(project, modelName, (ParameterizedToolingModelBuilder<?>) builder, parameter);
         } else {
@@ -87,16 +107,63 @@ class DefaultBuildController implements org.gradle.tooling.internal.protocol.Int
         return new ProviderBuildResult<Object>(model);
     }
 
-    private <T> Object getParameterizedModel(ProjectInternal project,
-                                             String modelName,
-                                             ParameterizedToolingModelBuilder<T> builder,
+    /**
+     * This is used by consumers 5.5 and later
+     */
+    @Override
+    public boolean getCanQueryProjectModelInParallel(Class<?> modelType) {
+        return gradle.getStartParameter().isParallelProjectExecutionEnabled();
+    }
+
+    /**
+     * This is used by consumers 5.5 and later
+     */
+    @Override
+    public <T> List<T> run(List<Callable<T>> actions) {
+        final List<NestedAction<T>> nestedActions = new ArrayList<NestedAction<T>>(actions.size());
+        for (Callable<T> action : actions) {
+            nestedActions.add(new NestedAction<T>(action));
+        }
+
+        final BuildOperationExecutor buildOperationExecutor = gradle.getServices().get(BuildOperationExecutor.class);
+        WorkerLeaseService workerLeaseService = gradle.getServices().get(WorkerLeaseService.class);
+        // Release the project locks held by this thread, so that the actions can build models for any project
+        workerLeaseService.withoutProjectLock(new Runnable() {
+            @Override
+            public void run() {
+                buildOperationExecutor.runAll(new Action<BuildOperationQueue<NestedAction<T>>>() {
+                    @Override
+                    public void execute(BuildOperationQueue<NestedAction<T>> queue) {
+                        for (NestedAction<T> nestedAction : nestedActions) {
+                            queue.add(nestedAction);
+                        }
+                    }
+                });
+            }
+        });
+
+        List<T> results = new ArrayList<T>(nestedActions.size());
+        for (NestedAction<T> nestedAction : nestedActions) {
+            results.add(nestedAction.getResult());
+        }
+        return results;
+    }
+
+    private <T> Object getParameterizedModel(final ProjectInternal project,
+                                             final String modelName,
+                                             final ParameterizedToolingModelBuilder<T> builder,
                                              Object parameter)
         throws InternalUnsupportedModelException {
         Class<T> expectedParameterType = builder.getParameterType();
 
         ViewBuilder<T> viewBuilder = new ProtocolToModelAdapter().builder(expectedParameterType);
-        T internalParameter = viewBuilder.build(parameter);
-        return builder.buildAll(modelName, internalParameter, project);
+        final T internalParameter = viewBuilder.build(parameter);
+        return project.getMutationState().withMutableState(new Factory<Object>() {
+            @Override
+            public Object create() {
+                return builder.buildAll(modelName, internalParameter, project);
+            }
+        });
     }
 
     private ProjectInternal getTargetProject(Object target) {
@@ -153,4 +220,35 @@ class DefaultBuildController implements org.gradle.tooling.internal.protocol.Int
         }
         return builder;
     }
+
+    private static class NestedAction<T> implements RunnableBuildOperation {
+        private final Callable<T> action;
+        private T result;
+        private Throwable failure;
+
+        NestedAction(Callable<T> action) {
+            this.action = action;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            try {
+                result = action.call();
+            } catch (Throwable t) {
+                failure = t;
+            }
+        }
+
+        T getResult() {
+            if (failure != null) {
+                throw UncheckedException.throwAsUncheckedException(failure);
+            }
+            return result;
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Tooling API client action");
+        }
+    }
 }
@@ -16,6 +16,10 @@
 
 package org.gradle.tooling.internal.provider.runner;
 
+import org.gradle.api.internal.GradleInternal;
+import org.gradle.cache.CacheRepository;
+import org.gradle.internal.classloader.ClassLoaderHierarchyHasher;
+import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.invocation.BuildActionRunner;
 import org.gradle.internal.operations.BuildOperationListenerManager;
 import org.gradle.internal.service.ServiceRegistration;
@@ -45,4 +49,13 @@ public class ToolingBuilderServices extends AbstractPluginServiceRegistry {
             }
         });
     }
+
+    @Override
+    public void registerGradleServices(ServiceRegistration registration) {
+        registration.addProvider(new Object() {
+            ToolingModelCache createToolingModelCache(GradleInternal gradle, CacheRepository cacheRepository, FileHasher fileHasher, ClassLoaderHierarchyHasher classLoaderHierarchyHasher) {
+                return new ToolingModelCache(gradle, cacheRepository, fileHasher, classLoaderHierarchyHasher);
+            }
+        });
+    }
 }
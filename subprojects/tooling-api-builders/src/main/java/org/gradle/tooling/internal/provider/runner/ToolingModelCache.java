@@ -0,0 +1,277 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.tooling.internal.provider.runner;
+
+import com.google.common.collect.ImmutableSet;
+import org.gradle.StartParameter;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.ProjectDependency;
+import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.FileLockManager;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.PersistentIndexedCacheParameters;
+import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.internal.classloader.ClassLoaderHierarchyHasher;
+import org.gradle.internal.hash.FileHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.io.ClassLoaderObjectInputStream;
+import org.gradle.internal.resource.TextResource;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.HashCodeSerializer;
+import org.gradle.tooling.provider.model.ToolingModelBuilder;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
+/**
+ * Reuses the tooling models built for a project in an earlier build, when none of the inputs used to configure the project and the projects it depends on have changed.
+ *
+ * <p>The inputs are approximated by the build scripts, the settings script, the init scripts, the properties files, the dependency lock files, the command-line properties and the classpath of each project.
+ * Only the models in {@link #CACHEABLE_MODELS}, which describe the projects, their tasks and their publications, are cached, as they are built from the configuration of the projects alone.
+ * Other models also depend on inputs the key does not cover, such as source directories, included builds or the result of resolving a dynamic version, and are always built.
+ * Scripts can still read other files while the projects are configured, so the cache has to be enabled using the {@value #ENABLED_PROPERTY} system property.</p>
+ */
+public class ToolingModelCache implements Closeable {
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.tooling.model-cache";
+    private static final Logger LOGGER = Logging.getLogger(ToolingModelCache.class);
+    private static final Set<String> CACHEABLE_MODELS = ImmutableSet.of(
+        "org.gradle.tooling.model.GradleProject",
+        "org.gradle.tooling.model.gradle.BuildInvocations",
+        "org.gradle.tooling.model.gradle.ProjectPublications"
+    );
+
+    private final GradleInternal gradle;
+    private final FileHasher fileHasher;
+    private final ClassLoaderHierarchyHasher classLoaderHierarchyHasher;
+    private final PersistentCache cache;
+    private final PersistentIndexedCache<HashCode, byte[]> models;
+
+    public ToolingModelCache(GradleInternal gradle, CacheRepository cacheRepository, FileHasher fileHasher, ClassLoaderHierarchyHasher classLoaderHierarchyHasher) {
+        this.gradle = gradle;
+        this.fileHasher = fileHasher;
+        this.classLoaderHierarchyHasher = classLoaderHierarchyHasher;
+        if (Boolean.getBoolean(ENABLED_PROPERTY)) {
+            cache = cacheRepository
+                .cache(gradle, "toolingModels")
+                .withDisplayName("Tooling model cache")
+                .withLockOptions(mode(FileLockManager.LockMode.None)) // Lock on demand
+                .open();
+            models = cache.createCache(PersistentIndexedCacheParameters.of("models", new HashCodeSerializer(), BaseSerializerFactory.BYTE_ARRAY_SERIALIZER));
+        } else {
+            cache = null;
+            models = null;
+        }
+    }
+
+    /**
+     * Returns the model with the given name for the given project, using the given builder when there is no reusable model in the cache.
+     */
+    public Object buildAll(String modelName, ToolingModelBuilder builder, ProjectInternal project) {
+        if (models == null) {
+            return builder.buildAll(modelName, project);
+        }
+        HashCode key = fingerprint(modelName, project);
+        if (key == null) {
+            return builder.buildAll(modelName, project);
+        }
+
+        byte[] serializedModel = models.get(key);
+        if (serializedModel != null) {
+            try {
+                return deserialize(serializedModel, builder.getClass().getClassLoader());
+            } catch (Exception e) {
+                LOGGER.debug("Could not load cached '{}' model for {}.", modelName, project, e);
+            }
+        }
+
+        Object model = builder.buildAll(modelName, project);
+        try {
+            models.put(key, serialize(model));
+        } catch (IOException e) {
+            LOGGER.debug("Could not cache '{}' model for {}.", modelName, project, e);
+        }
+        return model;
+    }
+
+    @Override
+    public void close() {
+        if (cache != null) {
+            cache.close();
+        }
+    }
+
+    /**
+     * Calculates the cache key for a model of the given project. The key includes the inputs of the project, its parent and child projects, and the projects it depends on.
+     *
+     * @return the key, or null when the model should not be cached.
+     */
+    @Nullable
+    private HashCode fingerprint(String modelName, ProjectInternal project) {
+        if (!CACHEABLE_MODELS.contains(modelName)) {
+            return null;
+        }
+        StartParameter startParameter = gradle.getStartParameter();
+        if (startParameter.isRefreshDependencies() || !startParameter.getTaskNames().isEmpty()) {
+            // Dependencies are being refreshed or tasks run before the model is built, both of which can change the model
+            return null;
+        }
+        if (!gradle.getIncludedBuilds().isEmpty()) {
+            // Included builds are configured from their own inputs
+            return null;
+        }
+
+        Hasher hasher = Hashing.newHasher();
+        hasher.putString(modelName);
+        hasher.putString(project.getIdentityPath().getPath());
+        hasher.putBoolean(startParameter.isOffline());
+        putProperties(hasher, startParameter.getProjectProperties());
+        putProperties(hasher, startParameter.getSystemPropertiesArgs());
+        for (File initScript : startParameter.getAllInitScripts()) {
+            putFile(hasher, initScript);
+        }
+        putFile(hasher, new File(startParameter.getGradleUserHomeDir(), Project.GRADLE_PROPERTIES));
+        putScript(hasher, gradle.getSettings().getSettingsScript());
+
+        SortedMap<String, ProjectInternal> projects = new TreeMap<String, ProjectInternal>();
+        for (ProjectInternal parent = project.getParent(); parent != null; parent = parent.getParent()) {
+            projects.put(parent.getPath(), parent);
+        }
+        for (Project child : project.getAllprojects()) {
+            collectProjectDependencies((ProjectInternal) child, projects);
+        }
+        for (ProjectInternal input : projects.values()) {
+            if (!putProject(hasher, input)) {
+                return null;
+            }
+        }
+        return hasher.hash();
+    }
+
+    private static void collectProjectDependencies(ProjectInternal project, SortedMap<String, ProjectInternal> projects) {
+        if (projects.put(project.getPath(), project) != null) {
+            return;
+        }
+        for (Configuration configuration : project.getConfigurations()) {
+            for (ProjectDependency dependency : configuration.getDependencies().withType(ProjectDependency.class)) {
+                ProjectInternal dependencyProject = (ProjectInternal) dependency.getDependencyProject();
+                if (dependencyProject.getGradle() == project.getGradle()) {
+                    collectProjectDependencies(dependencyProject, projects);
+                }
+            }
+        }
+    }
+
+    private boolean putProject(Hasher hasher, ProjectInternal project) {
+        HashCode classLoaderHash = classLoaderHierarchyHasher.getClassLoaderHash(project.getClassLoaderScope().getExportClassLoader());
+        if (classLoaderHash == null) {
+            return false;
+        }
+        hasher.putString(project.getPath());
+        hasher.putHash(classLoaderHash);
+        putScript(hasher, project.getBuildScriptSource());
+        File projectDir = project.getProjectDir();
+        putFiles(hasher, projectDir, ".gradle", ".gradle.kts", ".properties");
+        putFiles(hasher, new File(projectDir, "gradle"), ".gradle", ".gradle.kts");
+        putFiles(hasher, new File(projectDir, "gradle/dependency-locks"), ".lockfile");
+        return true;
+    }
+
+    private void putScript(Hasher hasher, ScriptSource scriptSource) {
+        TextResource resource = scriptSource.getResource();
+        File file = resource.getFile();
+        if (file != null) {
+            putFile(hasher, file);
+        } else if (resource.getExists()) {
+            hasher.putString(resource.getText());
+        } else {
+            hasher.putNull();
+        }
+    }
+
+    private void putFiles(Hasher hasher, File dir, String... extensions) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            hasher.putNull();
+            return;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            for (String extension : extensions) {
+                if (file.getName().endsWith(extension)) {
+                    putFile(hasher, file);
+                    break;
+                }
+            }
+        }
+    }
+
+    private void putFile(Hasher hasher, File file) {
+        hasher.putString(file.getAbsolutePath());
+        if (file.isFile()) {
+            hasher.putHash(fileHasher.hash(file));
+        } else {
+            hasher.putNull();
+        }
+    }
+
+    private static void putProperties(Hasher hasher, Map<String, String> properties) {
+        for (Map.Entry<String, String> entry : new TreeMap<String, String>(properties).entrySet()) {
+            hasher.putString(entry.getKey());
+            hasher.putString(entry.getValue());
+        }
+    }
+
+    private static byte[] serialize(Object model) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream);
+        try {
+            objectOutputStream.writeObject(model);
+        } finally {
+            objectOutputStream.close();
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static Object deserialize(byte[] serializedModel, ClassLoader classLoader) throws IOException, ClassNotFoundException {
+        ClassLoaderObjectInputStream inputStream = new ClassLoaderObjectInputStream(new ByteArrayInputStream(serializedModel), classLoader);
+        try {
+            return inputStream.readObject();
+        } finally {
+            inputStream.close();
+        }
+    }
+}
@@ -16,11 +16,21 @@
 
 package org.gradle.tooling.internal.provider.runner
 
+import org.gradle.api.Action
 import org.gradle.api.BuildCancelledException
 import org.gradle.api.internal.GradleInternal
 import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.project.ProjectState
+import org.gradle.cache.CacheRepository
 import org.gradle.initialization.BuildCancellationToken
+import org.gradle.internal.Factory
+import org.gradle.internal.classloader.ClassLoaderHierarchyHasher
+import org.gradle.internal.hash.FileHasher
+import org.gradle.internal.operations.BuildOperationExecutor
+import org.gradle.internal.operations.BuildOperationQueue
+import org.gradle.internal.operations.RunnableBuildOperation
 import org.gradle.internal.service.ServiceRegistry
+import org.gradle.internal.work.WorkerLeaseService
 import org.gradle.tooling.internal.gradle.GradleProjectIdentity
 import org.gradle.tooling.internal.protocol.InternalUnsupportedModelException
 import org.gradle.tooling.internal.protocol.ModelIdentifier
@@ -30,18 +40,37 @@ import org.gradle.tooling.provider.model.ParameterizedToolingModelBuilder
 import org.gradle.tooling.provider.model.UnknownModelException
 import spock.lang.Specification
 
+import java.util.concurrent.Callable
+
 class DefaultBuildControllerTest extends Specification {
     def cancellationToken = Stub(BuildCancellationToken)
+    def buildOperationQueue = Stub(BuildOperationQueue) {
+        add(_) >> { RunnableBuildOperation operation -> operation.run(null) }
+    }
+    def buildOperationExecutor = Stub(BuildOperationExecutor) {
+        runAll(_) >> { Action generator -> generator.execute(buildOperationQueue) }
+    }
+    def workerLeaseService = Stub(WorkerLeaseService) {
+        withoutProjectLock(_ as Runnable) >> { Runnable action -> action.run() }
+    }
+    def modelCache = new ToolingModelCache(Stub(GradleInternal), Stub(CacheRepository), Stub(FileHasher), Stub(ClassLoaderHierarchyHasher))
     def gradle = Stub(GradleInternal) {
         getServices() >> Stub(ServiceRegistry) {
             get(BuildCancellationToken) >> cancellationToken
+            get(BuildOperationExecutor) >> buildOperationExecutor
+            get(WorkerLeaseService) >> workerLeaseService
+            get(ToolingModelCache) >> modelCache
         }
     }
     def registry = Stub(ToolingModelBuilderRegistry)
     def project = Stub(ProjectInternal) {
+        getGradle() >> gradle
         getServices() >> Stub(ServiceRegistry) {
             get(ToolingModelBuilderRegistry) >> registry
         }
+        getMutationState() >> Stub(ProjectState) {
+            withMutableState(_ as Factory) >> { Factory factory -> factory.create() }
+        }
     }
     def modelId = Stub(ModelIdentifier) {
         getName() >> 'some.model'
@@ -175,6 +204,25 @@ class DefaultBuildControllerTest extends Specification {
         thrown(InternalUnsupportedModelException)
     }
 
+    def "runs nested actions and returns their results in order"() {
+        when:
+        def results = controller.run([{ "one" } as Callable, { "two" } as Callable, { "three" } as Callable])
+
+        then:
+        results == ["one", "two", "three"]
+    }
+
+    def "rethrows failure of nested action"() {
+        def failure = new RuntimeException("broken")
+
+        when:
+        controller.run([{ "one" } as Callable, { throw failure } as Callable])
+
+        then:
+        RuntimeException e = thrown()
+        e == failure
+    }
+
     interface CustomParameter {
         String getValue()
         void setValue(String value)
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.tooling.internal.provider.runner
+
+import org.gradle.api.artifacts.ConfigurationContainer
+import org.gradle.api.initialization.IncludedBuild
+import org.gradle.api.internal.GradleInternal
+import org.gradle.api.internal.SettingsInternal
+import org.gradle.api.internal.StartParameterInternal
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.api.internal.initialization.ClassLoaderScope
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.cache.CacheBuilder
+import org.gradle.cache.CacheRepository
+import org.gradle.cache.PersistentCache
+import org.gradle.cache.PersistentIndexedCache
+import org.gradle.groovy.scripts.ScriptSource
+import org.gradle.internal.classloader.ClassLoaderHierarchyHasher
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.resource.TextResource
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.tooling.provider.model.ToolingModelBuilder
+import org.gradle.util.Path
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class ToolingModelCacheTest extends Specification {
+    static final String MODEL_NAME = "org.gradle.tooling.model.GradleProject"
+
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    @Rule
+    SetSystemProperties systemProperties = new SetSystemProperties()
+
+    def entries = [:]
+    def models = Stub(PersistentIndexedCache) {
+        get(_) >> { HashCode key -> entries[key] }
+        put(_, _) >> { HashCode key, byte[] value -> entries[key] = value }
+    }
+    def persistentCache = Stub(PersistentCache) {
+        createCache(_) >> models
+    }
+    def cacheBuilder = Stub(CacheBuilder)
+    def cacheRepository = Stub(CacheRepository) {
+        cache(_, _) >> cacheBuilder
+    }
+    def classLoaderHash = HashCode.fromInt(1)
+    def classLoaderHierarchyHasher = Stub(ClassLoaderHierarchyHasher) {
+        getClassLoaderHash(_) >> { classLoaderHash }
+    }
+    def startParameter = new StartParameterInternal()
+    def settingsFile = tmpDir.createFile("settings.gradle")
+    def includedBuilds = []
+    def gradle = Stub(GradleInternal) {
+        getStartParameter() >> startParameter
+        getSettings() >> Stub(SettingsInternal) {
+            getSettingsScript() >> script(settingsFile)
+        }
+        getIncludedBuilds() >> { includedBuilds }
+    }
+    TestFile rootDir = tmpDir.createDir("root")
+    TestFile childDir = tmpDir.createDir("child")
+    def parents = [:]
+    def builder = Mock(ToolingModelBuilder)
+    ToolingModelCache modelCache
+
+    def setup() {
+        cacheBuilder.withDisplayName(_) >> cacheBuilder
+        cacheBuilder.withLockOptions(_) >> cacheBuilder
+        cacheBuilder.open() >> persistentCache
+        startParameter.gradleUserHomeDir = tmpDir.createDir("user-home")
+        rootDir.createFile("build.gradle")
+        childDir.createFile("build.gradle")
+        System.setProperty(ToolingModelCache.ENABLED_PROPERTY, "true")
+        modelCache = new ToolingModelCache(gradle, cacheRepository, TestFiles.fileHasher(), classLoaderHierarchyHasher)
+    }
+
+    def "reuses a model when the inputs have not changed"() {
+        def project = project(rootDir)
+
+        when:
+        def first = modelCache.buildAll(MODEL_NAME, builder, project)
+        def second = modelCache.buildAll(MODEL_NAME, builder, project)
+
+        then:
+        1 * builder.buildAll(MODEL_NAME, project) >> "model"
+        first == "model"
+        second == "model"
+    }
+
+    @Unroll
+    def "builds the model again when #input changes"() {
+        def project = project(rootDir)
+
+        when:
+        modelCache.buildAll(MODEL_NAME, builder, project)
+        change.call(this)
+        def model = modelCache.buildAll(MODEL_NAME, builder, project)
+
+        then:
+        1 * builder.buildAll(MODEL_NAME, project) >> "model"
+        1 * builder.buildAll(MODEL_NAME, project) >> "changed"
+        model == "changed"
+
+        where:
+        input                              | change
+        "the build script"                 | { it.rootDir.file("build.gradle").text = "changed" }
+        "a script in the project dir"      | { it.rootDir.createFile("other.gradle") }
+        "a script plugin"                  | { it.rootDir.createFile("gradle/other.gradle.kts") }
+        "the project properties file"      | { it.rootDir.file("gradle.properties").text = "a=b" }
+        "a dependency lock file"           | { it.rootDir.file("gradle/dependency-locks/compile.lockfile").text = "a:b:1.0" }
+        "the settings script"              | { it.settingsFile.text = "changed" }
+        "an init script"                   | { it.startParameter.addInitScript(it.tmpDir.createFile("init.gradle")) }
+        "the user home properties file"    | { new TestFile(it.startParameter.gradleUserHomeDir).file("gradle.properties").text = "a=b" }
+        "a command-line project property"  | { it.startParameter.projectProperties = [a: "b"] }
+        "a command-line system property"   | { it.startParameter.systemPropertiesArgs = [a: "b"] }
+        "the offline mode"                 | { it.startParameter.offline = true }
+        "the classpath"                    | { it.classLoaderHash = HashCode.fromInt(2) }
+    }
+
+    def "builds the model again when the script of a child project changes"() {
+        def child = project(childDir, ":child")
+        def root = project(rootDir, ":", [child])
+
+        when:
+        modelCache.buildAll(MODEL_NAME, builder, root)
+        childDir.file("build.gradle").text = "changed"
+        modelCache.buildAll(MODEL_NAME, builder, root)
+
+        then:
+        2 * builder.buildAll(MODEL_NAME, root) >> "model"
+    }
+
+    def "builds the model again when the project directory is moved"() {
+        when:
+        modelCache.buildAll(MODEL_NAME, builder, project(rootDir))
+        def movedDir = tmpDir.file("moved")
+        rootDir.renameTo(movedDir)
+        modelCache.buildAll(MODEL_NAME, builder, project(movedDir))
+
+        then:
+        2 * builder.buildAll(MODEL_NAME, _) >> "model"
+    }
+
+    def "builds the model again when a directory with scripts is deleted and recreated"() {
+        def project = project(rootDir)
+        def script = rootDir.createFile("gradle/other.gradle")
+
+        when:
+        modelCache.buildAll(MODEL_NAME, builder, project)
+        rootDir.file("gradle").deleteDir()
+        modelCache.buildAll(MODEL_NAME, builder, project)
+        rootDir.createDir("gradle")
+        script.text = "recreated"
+        modelCache.buildAll(MODEL_NAME, builder, project)
+
+        then:
+        3 * builder.buildAll(MODEL_NAME, project) >> "model"
+    }
+
+    @Unroll
+    def "does not cache the #modelName model"() {
+        def project = project(rootDir)
+
+        when:
+        modelCache.buildAll(modelName, builder, project)
+        modelCache.buildAll(modelName, builder, project)
+
+        then:
+        2 * builder.buildAll(modelName, project) >> "model"
+
+        where:
+        modelName << ["org.gradle.tooling.model.idea.IdeaProject", "org.gradle.tooling.model.eclipse.EclipseProject", "org.gradle.tooling.model.gradle.GradleBuild"]
+    }
+
+    @Unroll
+    def "does not cache a model when #description"() {
+        def project = project(rootDir)
+        setup.call(this)
+
+        when:
+        modelCache.buildAll(MODEL_NAME, builder, project)
+        modelCache.buildAll(MODEL_NAME, builder, project)
+
+        then:
+        2 * builder.buildAll(MODEL_NAME, project) >> "model"
+
+        where:
+        description                           | setup
+        "tasks are run"                       | { it.startParameter.taskNames = ["build"] }
+        "dependencies are refreshed"          | { it.startParameter.refreshDependencies = true }
+        "the build has included builds"       | { it.includedBuilds = [[:] as IncludedBuild] }
+        "the classpath cannot be hashed"      | { it.classLoaderHash = null }
+    }
+
+    def "does not cache a model when the cache is not enabled"() {
+        given:
+        System.clearProperty(ToolingModelCache.ENABLED_PROPERTY)
+        def disabledCache = new ToolingModelCache(gradle, cacheRepository, TestFiles.fileHasher(), classLoaderHierarchyHasher)
+        def project = project(rootDir)
+
+        when:
+        disabledCache.buildAll(MODEL_NAME, builder, project)
+        disabledCache.buildAll(MODEL_NAME, builder, project)
+
+        then:
+        2 * builder.buildAll(MODEL_NAME, project) >> "model"
+        entries.isEmpty()
+    }
+
+    private ProjectInternal project(File projectDir, String path = ":", List<ProjectInternal> children = []) {
+        def buildFile = new File(projectDir, "build.gradle")
+        def project = Stub(ProjectInternal)
+        project.getParent() >> { parents[project] }
+        project.getPath() >> path
+        project.getIdentityPath() >> Path.path(path)
+        project.getGradle() >> gradle
+        project.getProjectDir() >> projectDir
+        project.getBuildScriptSource() >> script(buildFile)
+        project.getAllprojects() >> ([project] + children as Set)
+        project.getConfigurations() >> Stub(ConfigurationContainer) {
+            iterator() >> { [].iterator() }
+        }
+        project.getClassLoaderScope() >> Stub(ClassLoaderScope)
+        children.each { child ->
+            parents[child] = project
+        }
+        return project
+    }
+
+    private ScriptSource script(File file) {
+        return Stub(ScriptSource) {
+            getResource() >> Stub(TextResource) {
+                getFile() >> file
+            }
+        }
+    }
+}
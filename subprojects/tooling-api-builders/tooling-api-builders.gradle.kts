@@ -14,6 +14,10 @@ dependencies {
     compile(project(":workers"))
 }
 
+testFixtures {
+    from(":core")
+}
+
 gradlebuildJava {
     moduleType = ModuleType.CORE
 }
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.integtests.tooling.r55;
+
+import org.gradle.tooling.BuildAction;
+import org.gradle.tooling.BuildController;
+import org.gradle.tooling.model.GradleProject;
+import org.gradle.tooling.model.gradle.BasicGradleProject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ActionRunsNestedActions implements BuildAction<ActionRunsNestedActions.Models> {
+    @Override
+    public Models execute(BuildController controller) {
+        List<GetProjectModel> projectActions = new ArrayList<GetProjectModel>();
+        for (BasicGradleProject project : controller.getBuildModel().getProjects()) {
+            projectActions.add(new GetProjectModel(project));
+        }
+        List<GradleProject> projects = controller.run(projectActions);
+        return new Models(controller.getCanQueryProjectModelInParallel(GradleProject.class), projects);
+    }
+
+    public static class GetProjectModel implements BuildAction<GradleProject> {
+        private final BasicGradleProject project;
+
+        GetProjectModel(BasicGradleProject project) {
+            this.project = project;
+        }
+
+        @Override
+        public GradleProject execute(BuildController controller) {
+            return controller.getModel(project, GradleProject.class);
+        }
+    }
+
+    public static class Models implements java.io.Serializable {
+        private final boolean mayRunInParallel;
+        private final List<GradleProject> projects;
+
+        public Models(boolean mayRunInParallel, List<GradleProject> projects) {
+            this.mayRunInParallel = mayRunInParallel;
+            this.projects = projects;
+        }
+
+        public boolean isMayRunInParallel() {
+            return mayRunInParallel;
+        }
+
+        public List<GradleProject> getProjects() {
+            return projects;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.integtests.tooling.r55
+
+import org.gradle.integtests.tooling.fixture.TargetGradleVersion
+import org.gradle.integtests.tooling.fixture.ToolingApiSpecification
+import org.gradle.integtests.tooling.fixture.ToolingApiVersion
+
+@ToolingApiVersion(">=5.5")
+class NestedActionsCrossVersionSpec extends ToolingApiSpecification {
+    def setup() {
+        settingsFile << """
+            rootProject.name = 'root'
+            include 'a', 'b', 'c'
+        """
+    }
+
+    @TargetGradleVersion(">=5.5")
+    def "client action can run nested actions in parallel"() {
+        when:
+        def models = withConnection {
+            it.action(new ActionRunsNestedActions()).withArguments("--parallel").run()
+        }
+
+        then:
+        models.mayRunInParallel
+        models.projects*.path == [":", ":a", ":b", ":c"]
+    }
+
+    @TargetGradleVersion(">=5.5")
+    def "nested actions do not run in parallel when parallel execution is disabled"() {
+        when:
+        def models = withConnection {
+            it.action(new ActionRunsNestedActions()).run()
+        }
+
+        then:
+        !models.mayRunInParallel
+        models.projects*.path == [":", ":a", ":b", ":c"]
+    }
+
+    @TargetGradleVersion(">=4.4 <5.5")
+    def "nested actions run one after the other with older Gradle versions"() {
+        when:
+        def models = withConnection {
+            it.action(new ActionRunsNestedActions()).withArguments("--parallel").run()
+        }
+
+        then:
+        !models.mayRunInParallel
+        models.projects*.path == [":", ":a", ":b", ":c"]
+    }
+}
@@ -17,10 +17,13 @@
 package org.gradle.tooling;
 
 import org.gradle.api.Action;
+import org.gradle.api.Incubating;
 import org.gradle.tooling.model.Model;
 import org.gradle.tooling.model.gradle.GradleBuild;
 
 import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Provides a {@link BuildAction} various ways to control a Gradle build and access information about the build.
@@ -188,4 +191,33 @@ public interface BuildController {
      */
     @Nullable
     <T, P> T findModel(Model target, Class<T> modelType, Class<P> parameterType, Action<? super P> parameterInitializer);
+
+    /**
+     * Runs the given actions and returns their results, in the same order as the actions.
+     *
+     * <p>The actions may be run in parallel when the target Gradle version supports it. Each action is given a {@link BuildController}
+     * that it can use to query models. This is useful to fetch models for many projects at once, as the models for different projects
+     * can then be built concurrently. Use {@link #getCanQueryProjectModelInParallel(Class)} to determine whether this is the case.</p>
+     *
+     * <p>When the target Gradle version does not support running actions in parallel, the actions are run one after the other.</p>
+     *
+     * @param actions The actions to run.
+     * @param <T> The result type.
+     * @return The results, in the same order as the actions.
+     *
+     * @since 5.5
+     */
+    @Incubating
+    <T> List<T> run(Collection<? extends BuildAction<? extends T>> actions);
+
+    /**
+     * Returns whether the actions passed to {@link #run(Collection)} can query models of the given type for different projects in parallel.
+     *
+     * @param modelType The model type.
+     * @return true when the models are built in parallel.
+     *
+     * @since 5.5
+     */
+    @Incubating
+    boolean getCanQueryProjectModelInParallel(Class<?> modelType);
 }
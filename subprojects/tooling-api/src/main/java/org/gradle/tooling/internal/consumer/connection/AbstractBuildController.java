@@ -17,12 +17,17 @@
 package org.gradle.tooling.internal.consumer.connection;
 
 import org.gradle.api.Action;
+import org.gradle.tooling.BuildAction;
 import org.gradle.tooling.BuildController;
 import org.gradle.tooling.UnknownModelException;
 import org.gradle.tooling.UnsupportedVersionException;
 import org.gradle.tooling.model.Model;
 import org.gradle.tooling.model.gradle.GradleBuild;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 abstract class AbstractBuildController extends HasCompatibilityMapping implements BuildController {
     public <T> T getModel(Class<T> modelType) throws UnknownModelException {
         return getModel(null, modelType);
@@ -60,4 +65,16 @@ abstract class AbstractBuildController extends HasCompatibilityMapping implement
             return null;
         }
     }
+
+    public <T> List<T> run(Collection<? extends BuildAction<? extends T>> actions) {
+        List<T> results = new ArrayList<T>(actions.size());
+        for (BuildAction<? extends T> action : actions) {
+            results.add(action.execute(this));
+        }
+        return results;
+    }
+
+    public boolean getCanQueryProjectModelInParallel(Class<?> modelType) {
+        return false;
+    }
 }
@@ -17,6 +17,7 @@
 package org.gradle.tooling.internal.consumer.connection;
 
 import org.gradle.api.Action;
+import org.gradle.tooling.BuildAction;
 import org.gradle.tooling.BuildController;
 import org.gradle.tooling.UnsupportedVersionException;
 import org.gradle.tooling.internal.adapter.ObjectGraphAdapter;
@@ -25,25 +26,37 @@ import org.gradle.tooling.internal.adapter.ViewBuilder;
 import org.gradle.tooling.internal.consumer.versioning.ModelMapping;
 import org.gradle.tooling.internal.gradle.DefaultProjectIdentifier;
 import org.gradle.tooling.internal.protocol.BuildResult;
+import org.gradle.tooling.internal.protocol.InternalActionAwareBuildController;
 import org.gradle.tooling.internal.protocol.InternalUnsupportedModelException;
 import org.gradle.tooling.internal.protocol.ModelIdentifier;
 import org.gradle.tooling.model.Model;
 import org.gradle.tooling.model.ProjectModel;
 import org.gradle.tooling.model.internal.Exceptions;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 class BuildControllerAdapter extends AbstractBuildController implements BuildController {
     private final InternalBuildControllerAdapter buildController;
+    private final InternalActionAwareBuildController actionAwareBuildController;
     private final ProtocolToModelAdapter adapter;
     private final ObjectGraphAdapter resultAdapter;
     private final ModelMapping modelMapping;
     private final File rootDir;
 
     public BuildControllerAdapter(ProtocolToModelAdapter adapter, InternalBuildControllerAdapter buildController, ModelMapping modelMapping, File rootDir) {
+        this(adapter, buildController, null, modelMapping, rootDir);
+    }
+
+    public BuildControllerAdapter(ProtocolToModelAdapter adapter, InternalBuildControllerAdapter buildController, @Nullable InternalActionAwareBuildController actionAwareBuildController, ModelMapping modelMapping, File rootDir) {
         this.adapter = adapter;
         this.buildController = buildController;
+        this.actionAwareBuildController = actionAwareBuildController;
         this.modelMapping = modelMapping;
         this.rootDir = rootDir;
         // Treat all models returned to the action as part of the same object graph
@@ -64,9 +77,34 @@ class BuildControllerAdapter extends AbstractBuildController implements BuildCon
             throw Exceptions.unknownModel(modelType, e);
         }
 
-        ViewBuilder<T> viewBuilder = resultAdapter.builder(modelType);
-        applyCompatibilityMapping(viewBuilder, new DefaultProjectIdentifier(rootDir, getProjectPath(target)));
-        return viewBuilder.build(result.getModel());
+        // Models may be requested by actions running in parallel
+        synchronized (resultAdapter) {
+            ViewBuilder<T> viewBuilder = resultAdapter.builder(modelType);
+            applyCompatibilityMapping(viewBuilder, new DefaultProjectIdentifier(rootDir, getProjectPath(target)));
+            return viewBuilder.build(result.getModel());
+        }
+    }
+
+    @Override
+    public <T> List<T> run(Collection<? extends BuildAction<? extends T>> actions) {
+        if (actionAwareBuildController == null) {
+            return super.run(actions);
+        }
+        List<Callable<T>> wrappers = new ArrayList<Callable<T>>(actions.size());
+        for (final BuildAction<? extends T> action : actions) {
+            wrappers.add(new Callable<T>() {
+                @Override
+                public T call() {
+                    return action.execute(BuildControllerAdapter.this);
+                }
+            });
+        }
+        return actionAwareBuildController.run(wrappers);
+    }
+
+    @Override
+    public boolean getCanQueryProjectModelInParallel(Class<?> modelType) {
+        return actionAwareBuildController != null && actionAwareBuildController.getCanQueryProjectModelInParallel(modelType);
     }
 
     private <P> P initializeParameter(Class<P> parameterType, Action<? super P> parameterInitializer) {
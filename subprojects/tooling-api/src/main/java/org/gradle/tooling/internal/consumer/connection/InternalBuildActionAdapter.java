@@ -23,6 +23,7 @@ import org.gradle.tooling.internal.consumer.converters.ConsumerTargetTypeProvide
 import org.gradle.tooling.internal.consumer.versioning.ModelMapping;
 import org.gradle.tooling.internal.consumer.versioning.VersionDetails;
 import org.gradle.tooling.internal.protocol.BuildResult;
+import org.gradle.tooling.internal.protocol.InternalActionAwareBuildController;
 import org.gradle.tooling.internal.protocol.InternalBuildAction;
 import org.gradle.tooling.internal.protocol.InternalBuildActionVersion2;
 import org.gradle.tooling.internal.protocol.InternalBuildController;
@@ -73,7 +74,14 @@ public class InternalBuildActionAdapter<T> implements InternalBuildAction<T>, In
             public BuildResult<?> getModel(Object target, ModelIdentifier modelIdentifier, Object parameter) {
                 return buildController.getModel(target, modelIdentifier, parameter);
             }
-        }, new ModelMapping(), rootDir);
+        }, actionAwareBuildController(buildController), new ModelMapping(), rootDir);
         return action.execute(buildControllerAdapter);
     }
+
+    /**
+     * Providers 5.5 and later can run nested actions in parallel.
+     */
+    private static InternalActionAwareBuildController actionAwareBuildController(InternalBuildControllerVersion2 buildController) {
+        return buildController instanceof InternalActionAwareBuildController ? (InternalActionAwareBuildController) buildController : null;
+    }
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.tooling.internal.protocol;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * <p>DO NOT CHANGE THIS INTERFACE - it is part of the cross-version protocol.
+ *
+ * <p>Consumer compatibility: This interface is used by all consumer versions from 5.5.</p>
+ * <p>Provider compatibility: This interface is implemented by all provider versions from 5.5.</p>
+ *
+ * @since 5.5
+ */
+public interface InternalActionAwareBuildController {
+    /**
+     * Returns whether models of the given type can be built for different projects in parallel.
+     *
+     * <p>Consumer compatibility: This method is used by all consumer versions from 5.5.</p>
+     * <p>Provider compatibility: This method is implemented by all provider versions from 5.5.</p>
+     *
+     * @param modelType The consumer type of the model.
+     * @since 5.5
+     */
+    boolean getCanQueryProjectModelInParallel(Class<?> modelType);
+
+    /**
+     * Runs the given actions, possibly in parallel, and returns their results in the same order as the actions.
+     * The actions query models using the build controller that runs them.
+     *
+     * <p>Consumer compatibility: This method is used by all consumer versions from 5.5.</p>
+     * <p>Provider compatibility: This method is implemented by all provider versions from 5.5.</p>
+     *
+     * @param actions The actions to run.
+     * @since 5.5
+     */
+    <T> List<T> run(List<Callable<T>> actions);
+}